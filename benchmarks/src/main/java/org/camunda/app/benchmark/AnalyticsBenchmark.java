@@ -0,0 +1,107 @@
+package org.camunda.app.benchmark;
+
+import org.camunda.app.analytics.AnalyticsQuery;
+import org.camunda.app.analytics.AnalyticsResult;
+import org.camunda.app.analytics.InvoiceProjection;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregations over a projection of synthetic invoices, as the history handler would have built
+ * it: 500 creditors, the categories and approver groups of the invoice decisions, a fifth of the
+ * invoices rejected once. Each query scans every row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AnalyticsBenchmark {
+
+    private static final List<String> ACTIVITIES = Arrays.asList("approveInvoice", "reviewInvoice", "prepareBankTransfer");
+    private static final String[] CATEGORIES = {"Travel Expenses", "Misc", "Software License Costs"};
+    private static final String[] GROUPS = {"accounting", "sales", "management"};
+    private static final int CREDITORS = 500;
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"100000", "1000000"})
+    public int invoices;
+
+    private InvoiceProjection projection;
+
+    @Setup
+    public void setUp() {
+        projection = new InvoiceProjection(BenchmarkEngine.tempDirectory("analytics"), ACTIVITIES, "invoiceProcessed", 262144, new MetricsRegistry());
+        Random random = new Random(42);
+        long start = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(365);
+        List<InvoiceProjection.Change> changes = new ArrayList<>(BATCH_SIZE * 10);
+        for (int i = 0; i < invoices; i++) {
+            String id = "pi-" + i;
+            long started = start + random.nextInt(365 * 24) * TimeUnit.HOURS.toMillis(1);
+            boolean rejected = random.nextInt(5) == 0;
+            changes.add(InvoiceProjection.Change.started(id, started));
+            changes.add(InvoiceProjection.Change.variable(id, InvoiceProjection.CREDITOR_VARIABLE, "creditor-" + random.nextInt(CREDITORS), null));
+            changes.add(InvoiceProjection.Change.variable(id, InvoiceProjection.CATEGORY_VARIABLE, CATEGORIES[random.nextInt(CATEGORIES.length)], null));
+            changes.add(InvoiceProjection.Change.variable(id, InvoiceProjection.AMOUNT_VARIABLE, null, Math.exp(random.nextGaussian() * 1.5 + 5)));
+            changes.add(InvoiceProjection.Change.approverGroups(id, Arrays.asList(GROUPS[random.nextInt(GROUPS.length)])));
+            changes.add(InvoiceProjection.Change.variable(id, InvoiceProjection.APPROVED_VARIABLE, null, rejected ? 0D : 1D));
+            changes.add(InvoiceProjection.Change.activityEnded(id, "approveInvoice", (long) (random.nextDouble() * TimeUnit.DAYS.toMillis(5))));
+            if (!rejected) {
+                changes.add(InvoiceProjection.Change.activityEnded(id, "prepareBankTransfer", (long) (random.nextDouble() * TimeUnit.DAYS.toMillis(3))));
+                changes.add(InvoiceProjection.Change.ended(id, "invoiceProcessed", started + TimeUnit.DAYS.toMillis(8)));
+            }
+            if ((i + 1) % BATCH_SIZE == 0) {
+                projection.apply(changes);
+                changes.clear();
+            }
+        }
+        projection.apply(changes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        projection.close();
+    }
+
+    @Benchmark
+    public AnalyticsResult approvalLatencyByCategory() {
+        AnalyticsQuery query = new AnalyticsQuery();
+        query.setGroupBy("category");
+        query.setMeasure("approveInvoice");
+        return projection.aggregate(query);
+    }
+
+    @Benchmark
+    public AnalyticsResult amountByApproverGroup() {
+        AnalyticsQuery query = new AnalyticsQuery();
+        query.setGroupBy("approverGroup");
+        query.setMeasure("amount");
+        return projection.aggregate(query);
+    }
+
+    @Benchmark
+    public AnalyticsResult rejectionRateByCreditor() {
+        AnalyticsQuery query = new AnalyticsQuery();
+        query.setGroupBy("creditor");
+        query.setMeasure("rejected");
+        return projection.aggregate(query);
+    }
+}
@@ -0,0 +1,169 @@
+package org.camunda.app.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import org.camunda.app.archive.ArchiveEntry;
+import org.camunda.app.archive.InvoiceArchive;
+import org.camunda.app.document.DocumentStore;
+import org.camunda.app.document.DocumentStorePlugin;
+import org.camunda.app.document.FileSystemDocumentStore;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.app.retry.RetryScheduler;
+import org.camunda.app.retry.RetrySchedulerPlugin;
+import org.camunda.app.service.ArchiveInvoiceService;
+import org.camunda.bpm.engine.ManagementService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.ProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
+import org.camunda.bpm.engine.runtime.Job;
+import org.camunda.bpm.engine.variable.value.FileValue;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.camunda.app.benchmark.BenchmarkEngine.INVOICE_PROCESS_KEY;
+import static org.camunda.app.benchmark.BenchmarkEngine.invoiceVariables;
+
+/**
+ * {@value #JOBS} Archive Invoice jobs run into an archive which is down for the first
+ * {@value #OUTAGE_SECONDS} seconds. The jobs are executed like the job executor would, once due,
+ * on a virtual clock advancing a second per round. Without the scheduler every job burns its
+ * retries against the dead archive and ends in an incident of its own; with it the breaker
+ * stops the calls, a single incident is raised and the parked jobs drain once the archive is
+ * back. The counters are the archive calls during the outage, the incidents open when it ends,
+ * the jobs archived and the virtual seconds until the last one was.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArchiveOutageBenchmark {
+
+    private static final int JOBS = 200;
+    private static final int OUTAGE_SECONDS = 600;
+    private static final int MAX_SECONDS = 3600;
+
+    @Param({"false", "true"})
+    public boolean scheduled;
+
+    private ProcessEngine processEngine;
+    private OutageArchive invoiceArchive;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outage {
+        public long callsDuringOutage;
+        public long incidents;
+        public long archived;
+        public long drainSeconds;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            callsDuringOutage = 0;
+            incidents = 0;
+            archived = 0;
+            drainSeconds = 0;
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        DocumentStore documentStore = new FileSystemDocumentStore(BenchmarkEngine.tempDirectory("documents"));
+        invoiceArchive = new OutageArchive(BenchmarkEngine.tempDirectory("archive"), documentStore);
+        RetryScheduler scheduler = null;
+        ProcessEnginePlugin[] plugins = {new DocumentStorePlugin(documentStore)};
+        if (scheduled) {
+            scheduler = new RetryScheduler(new MetricsRegistry(), 5, 30000, 600000, 5000, 300000, 60000);
+            scheduler.register(ArchiveInvoiceService.TARGET, Collections.singletonList("ServiceTask_1"));
+            plugins = new ProcessEnginePlugin[]{plugins[0], new RetrySchedulerPlugin(scheduler)};
+        }
+        processEngine = BenchmarkEngine.create(
+                ImmutableMap.<Object, Object>of(
+                        "archiveInvoiceService", new ArchiveInvoiceService(invoiceArchive, BenchmarkEngine.variablePrefetcher(), scheduler)
+                ),
+                false,
+                plugins
+        );
+        for (int i = 0; i < JOBS; i++) {
+            processEngine.getRuntimeService()
+                    .createProcessInstanceByKey(INVOICE_PROCESS_KEY)
+                    .setVariables(invoiceVariables("AO-" + i, 10.99D, "Travel Expenses", true))
+                    .startBeforeActivity("ServiceTask_1")
+                    .execute();
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        ClockUtil.reset();
+        processEngine.close();
+        invoiceArchive.close();
+    }
+
+    @Benchmark
+    public void outage(Outage outage) {
+        ManagementService managementService = processEngine.getManagementService();
+        long start = System.currentTimeMillis();
+        int second = 0;
+        for (; second < MAX_SECONDS; second++) {
+            ClockUtil.setCurrentTime(new Date(start + second * 1000L));
+            if (second == OUTAGE_SECONDS) {
+                outage.callsDuringOutage = invoiceArchive.calls;
+                outage.incidents = processEngine.getRuntimeService().createIncidentQuery().count();
+                invoiceArchive.down = false;
+            }
+            for (Job job : managementService.createJobQuery().activityId("ServiceTask_1").executable().list()) {
+                try {
+                    managementService.executeJob(job.getId());
+                } catch (ProcessEngineException e) {
+                    // left to the failed job handling
+                }
+            }
+            if (second >= OUTAGE_SECONDS && managementService.createJobQuery().activityId("ServiceTask_1").withRetriesLeft().count() == 0) {
+                break;
+            }
+        }
+        outage.archived = invoiceArchive.size();
+        outage.drainSeconds = second;
+    }
+
+    /**
+     * The archive as long as it isn't {@code down}, a failing stub otherwise.
+     */
+    private static class OutageArchive extends InvoiceArchive {
+
+        private volatile boolean down = true;
+        private volatile long calls;
+
+        private OutageArchive(Path directory, DocumentStore documentStore) {
+            super(directory, documentStore, 256L << 20, 256, 1024);
+        }
+
+        @Override
+        public ArchiveEntry archive(String invoiceNumber, FileValue document) {
+            calls++;
+            if (down) {
+                throw new ProcessEngineException("Archive unavailable");
+            }
+            return super.archive(invoiceNumber, document);
+        }
+    }
+}
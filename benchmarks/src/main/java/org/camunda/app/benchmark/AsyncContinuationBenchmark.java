@@ -0,0 +1,87 @@
+package org.camunda.app.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import org.camunda.app.archive.InvoiceArchive;
+import org.camunda.app.document.DocumentStore;
+import org.camunda.app.document.DocumentStorePlugin;
+import org.camunda.app.document.FileSystemDocumentStore;
+import org.camunda.app.service.ArchiveInvoiceService;
+import org.camunda.app.service.NotifyCreditorService;
+import org.camunda.bpm.engine.ManagementService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.variable.Variables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.camunda.app.benchmark.BenchmarkEngine.INVOICE_PROCESS_KEY;
+import static org.camunda.app.benchmark.BenchmarkEngine.invoiceVariables;
+
+/**
+ * Executes the async continuation job of Archive Invoice (ServiceTask_1) for an instance which
+ * went through approval, the Notify Creditor (ServiceTask_06mdb3v) job and prepareBankTransfer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AsyncContinuationBenchmark {
+
+    private ProcessEngine processEngine;
+    private InvoiceArchive invoiceArchive;
+    private String jobId;
+
+    @Setup
+    public void setUp() {
+        DocumentStore documentStore = new FileSystemDocumentStore(BenchmarkEngine.tempDirectory("documents"));
+        invoiceArchive = new InvoiceArchive(BenchmarkEngine.tempDirectory("archive"), documentStore, 256L << 20, 256, 1024);
+        processEngine = BenchmarkEngine.create(
+                ImmutableMap.<Object, Object>of(
+                        "notifyCreditorService", new NotifyCreditorService(BenchmarkEngine.variablePrefetcher(), null),
+                        "archiveInvoiceService", new ArchiveInvoiceService(invoiceArchive, BenchmarkEngine.variablePrefetcher(), null)
+                ),
+                false,
+                new DocumentStorePlugin(documentStore)
+        );
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareArchiveJob() {
+        String processInstanceId = processEngine.getRuntimeService()
+                .startProcessInstanceByKey(INVOICE_PROCESS_KEY, invoiceVariables("PSACE-5342", 10.99D, "Travel Expenses", true))
+                .getId();
+        TaskService taskService = processEngine.getTaskService();
+        String approveTaskId = taskService.createTaskQuery().processInstanceId(processInstanceId).singleResult().getId();
+        taskService.complete(approveTaskId, Variables.createVariables().putValue("approved", true));
+        ManagementService managementService = processEngine.getManagementService();
+        managementService.executeJob(managementService.createJobQuery().processInstanceId(processInstanceId).singleResult().getId());
+        String transferTaskId = taskService.createTaskQuery().processInstanceId(processInstanceId).singleResult().getId();
+        taskService.complete(transferTaskId);
+        jobId = managementService.createJobQuery().processInstanceId(processInstanceId).singleResult().getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        processEngine.close();
+        invoiceArchive.close();
+    }
+
+    @Benchmark
+    public void executeArchiveJob() {
+        processEngine.getManagementService().executeJob(jobId);
+    }
+}
@@ -0,0 +1,144 @@
+package org.camunda.app.benchmark;
+
+import org.camunda.app.authorization.AuthorizationCache;
+import org.camunda.app.authorization.AuthorizationCachePlugin;
+import org.camunda.app.generator.SampleDataGenerator;
+import org.camunda.bpm.engine.IdentityService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.cfg.ProcessEnginePlugin;
+import org.camunda.bpm.engine.task.Task;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.camunda.app.benchmark.BenchmarkEngine.INVOICE_PROCESS_KEY;
+import static org.camunda.app.benchmark.BenchmarkEngine.invoiceVariables;
+import static org.camunda.bpm.engine.authorization.Permissions.READ;
+import static org.camunda.bpm.engine.authorization.Resources.PROCESS_DEFINITION;
+
+/**
+ * Query and check latency with authorization enabled on the sample users, authorizations and a
+ * few thousand open invoices, with and without the authorization cache. Mary holds READ on all
+ * tasks, so with the cache her task queries run without the authorization joins, John's still
+ * need them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AuthorizationCheckBenchmark {
+
+    private static final int OPEN_INVOICES = 5000;
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private ProcessEngine processEngine;
+    private AuthorizationCache cache;
+
+    /**
+     * Authorization cache hits and misses of the iteration, reported next to the score.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Lookups {
+        private AuthorizationCache cache;
+        private long hitBase;
+        private long missBase;
+
+        @Setup(Level.Iteration)
+        public void reset(AuthorizationCheckBenchmark benchmark) {
+            cache = benchmark.cache;
+            hitBase = cache == null ? 0 : cache.getStats().hitCount();
+            missBase = cache == null ? 0 : cache.getStats().missCount();
+        }
+
+        public long hits() {
+            return cache == null ? 0 : cache.getStats().hitCount() - hitBase;
+        }
+
+        public long misses() {
+            return cache == null ? 0 : cache.getStats().missCount() - missBase;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        ProcessEnginePlugin authorizationEnabled = new AbstractProcessEnginePlugin() {
+            @Override
+            public void preInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+                processEngineConfiguration.setAuthorizationEnabled(true);
+            }
+        };
+        if (cached) {
+            cache = new AuthorizationCache(10000);
+            processEngine = BenchmarkEngine.create(Collections.emptyMap(), false, authorizationEnabled, new AuthorizationCachePlugin(cache));
+        } else {
+            processEngine = BenchmarkEngine.create(Collections.emptyMap(), false, authorizationEnabled);
+        }
+
+        new SampleDataGenerator().generate(processEngine);
+        for (int i = 0; i < OPEN_INVOICES; i++) {
+            processEngine.getRuntimeService().startProcessInstanceByKey(
+                    INVOICE_PROCESS_KEY,
+                    invoiceVariables("GPFE-" + i, 30.0D + i, "Travel Expenses", false)
+            );
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        processEngine.close();
+    }
+
+    @Benchmark
+    public long countTasksWithWildcardGrant(Lookups lookups) {
+        return asUser("mary", "accounting", () -> processEngine.getTaskService().createTaskQuery().count());
+    }
+
+    @Benchmark
+    public List<Task> listTasksWithWildcardGrant(Lookups lookups) {
+        return asUser("mary", "accounting", () -> processEngine.getTaskService().createTaskQuery().listPage(0, 15));
+    }
+
+    @Benchmark
+    public long countTasksWithoutWildcardGrant(Lookups lookups) {
+        return asUser("john", "sales", () -> processEngine.getTaskService().createTaskQuery().count());
+    }
+
+    @Benchmark
+    public boolean checkProcessDefinitionRead(Lookups lookups) {
+        return processEngine.getAuthorizationService()
+                .isUserAuthorized("john", Collections.singletonList("sales"), READ, PROCESS_DEFINITION, INVOICE_PROCESS_KEY);
+    }
+
+    private <T> T asUser(String userId, String groupId, Supplier<T> query) {
+        IdentityService identityService = processEngine.getIdentityService();
+        identityService.setAuthentication(userId, Collections.singletonList(groupId));
+        try {
+            return query.get();
+        } finally {
+            identityService.clearAuthentication();
+        }
+    }
+}
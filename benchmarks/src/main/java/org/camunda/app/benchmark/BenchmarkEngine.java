@@ -0,0 +1,163 @@
+package org.camunda.app.benchmark;
+
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.app.variables.VariablePrefetcher;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineConfiguration;
+import org.camunda.bpm.engine.impl.cfg.ProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.StandaloneInMemProcessEngineConfiguration;
+import org.camunda.bpm.engine.impl.jobexecutor.DefaultJobExecutor;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Builds standalone engines on an in-memory H2 database with the invoice models deployed.
+ * Mirrors the application settings which matter for the hot paths: full history, JDBC batching
+ * and a job executor with 10 threads.
+ */
+public final class BenchmarkEngine {
+
+    public static final String INVOICE_PROCESS_KEY = "invoice";
+    public static final String ASSIGN_APPROVER_DECISION_KEY = "invoice-assign-approver";
+
+    private static final int JOB_EXECUTOR_POOL_SIZE = 10;
+    private static final byte[] INVOICE_PDF = readResource("invoice.pdf");
+
+    private BenchmarkEngine() {
+    }
+
+    public static ProcessEngine create(Map<Object, Object> beans, boolean jobExecutorActivate, ProcessEnginePlugin... plugins) {
+        String name = "benchmark-" + UUID.randomUUID();
+        ProcessEngine processEngine = configuration(name, "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", beans, jobExecutorActivate, plugins)
+                .buildProcessEngine();
+        deployInvoice(processEngine);
+        return processEngine;
+    }
+
+    /**
+     * Builds an engine on the given database, creating the schema if it is missing, with the
+     * invoice models deployed.
+     */
+    public static ProcessEngine create(
+            String jdbcUrl,
+            String username,
+            String password,
+            boolean jdbcBatchProcessing,
+            Map<Object, Object> beans,
+            ProcessEnginePlugin... plugins
+    ) {
+        StandaloneInMemProcessEngineConfiguration configuration =
+                configuration("benchmark-" + UUID.randomUUID(), jdbcUrl, beans, false, plugins);
+        configuration.setJdbcUsername(username);
+        configuration.setJdbcPassword(password);
+        configuration.setJdbcBatchProcessing(jdbcBatchProcessing);
+        configuration.setDatabaseSchemaUpdate(ProcessEngineConfiguration.DB_SCHEMA_UPDATE_TRUE);
+        ProcessEngine processEngine = configuration.buildProcessEngine();
+        deployInvoice(processEngine);
+        return processEngine;
+    }
+
+    /**
+     * Builds an engine on a file based H2 database in the directory without deploying anything.
+     * Building it again on the same directory behaves like a restart of the application.
+     */
+    public static ProcessEngine createPersistent(Path directory, ProcessEnginePlugin... plugins) {
+        String name = "benchmark-" + UUID.randomUUID();
+        StandaloneInMemProcessEngineConfiguration configuration =
+                configuration(name, "jdbc:h2:" + directory.resolve("process-engine"), Collections.emptyMap(), false, plugins);
+        configuration.setDatabaseSchemaUpdate(ProcessEngineConfiguration.DB_SCHEMA_UPDATE_TRUE);
+        return configuration.buildProcessEngine();
+    }
+
+    private static void deployInvoice(ProcessEngine processEngine) {
+        // engines sharing a database deploy only once, like the process application
+        processEngine.getRepositoryService()
+                .createDeployment()
+                .name("invoice")
+                .enableDuplicateFiltering(false)
+                .addClasspathResource("invoice.v1.bpmn")
+                .addClasspathResource("reviewInvoice.bpmn")
+                .addClasspathResource("invoiceBusinessDecisions.dmn")
+                .deploy();
+    }
+
+    private static StandaloneInMemProcessEngineConfiguration configuration(
+            String name,
+            String jdbcUrl,
+            Map<Object, Object> beans,
+            boolean jobExecutorActivate,
+            ProcessEnginePlugin... plugins
+    ) {
+        DefaultJobExecutor jobExecutor = new DefaultJobExecutor();
+        jobExecutor.setCorePoolSize(JOB_EXECUTOR_POOL_SIZE);
+        jobExecutor.setMaxPoolSize(JOB_EXECUTOR_POOL_SIZE);
+        jobExecutor.setWaitTimeInMillis(100);
+        jobExecutor.setMaxWait(1000);
+
+        StandaloneInMemProcessEngineConfiguration configuration = new StandaloneInMemProcessEngineConfiguration();
+        configuration.setProcessEngineName(name);
+        configuration.setJdbcUrl(jdbcUrl);
+        configuration.setHistory(ProcessEngineConfiguration.HISTORY_FULL);
+        configuration.setJdbcBatchProcessing(true);
+        configuration.setJobExecutor(jobExecutor);
+        configuration.setJobExecutorActivate(jobExecutorActivate);
+        configuration.setBeans(beans);
+        configuration.setProcessEnginePlugins(Arrays.asList(plugins));
+        return configuration;
+    }
+
+    public static VariableMap invoiceVariables(String invoiceNumber, double amount, String category, boolean withDocument) {
+        VariableMap variables = Variables.createVariables()
+                .putValue("creditor", "Great Pizza for Everyone Inc.")
+                .putValue("amount", amount)
+                .putValue("invoiceCategory", category)
+                .putValue("invoiceNumber", invoiceNumber);
+        if (withDocument) {
+            variables.putValue("invoiceDocument", Variables.fileValue("invoice.pdf")
+                    .file(INVOICE_PDF)
+                    .mimeType("application/pdf")
+                    .create());
+        }
+        return variables;
+    }
+
+    /**
+     * Prefetcher for delegates created outside of Spring, its metrics are discarded
+     */
+    public static VariablePrefetcher variablePrefetcher() {
+        return new VariablePrefetcher(new MetricsRegistry());
+    }
+
+    public static Path tempDirectory(String prefix) {
+        try {
+            return Files.createTempDirectory(prefix);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] readResource(String name) {
+        try (InputStream in = BenchmarkEngine.class.getClassLoader().getResourceAsStream(name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
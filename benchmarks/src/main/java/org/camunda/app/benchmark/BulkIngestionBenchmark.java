@@ -0,0 +1,84 @@
+package org.camunda.app.benchmark;
+
+import org.camunda.app.ingestion.CsvInvoiceRecordReader;
+import org.camunda.app.ingestion.IngestionResult;
+import org.camunda.app.ingestion.InvoiceIngestionService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.RuntimeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.camunda.app.benchmark.BenchmarkEngine.INVOICE_PROCESS_KEY;
+import static org.camunda.app.benchmark.BenchmarkEngine.invoiceVariables;
+
+/**
+ * Starts {@value #RECORDS} invoices one transaction at a time, like
+ * SampleInvoices does, and through the bulk ingestion service with different batch sizes.
+ * Scores are per started instance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BulkIngestionBenchmark {
+
+    static final int RECORDS = 1000;
+
+    @Param({"100", "500"})
+    public int batchSize;
+
+    private ProcessEngine processEngine;
+    private InvoiceIngestionService ingestionService;
+    private byte[] csv;
+
+    @Setup
+    public void setUp() {
+        processEngine = BenchmarkEngine.create(Collections.emptyMap(), false);
+        ingestionService = new InvoiceIngestionService(processEngine, batchSize);
+
+        StringBuilder records = new StringBuilder("creditor,amount,invoiceCategory,invoiceNumber\n");
+        for (int i = 0; i < RECORDS; i++) {
+            records.append("Bobby's Office Supplies,900.0,Misc,BOS-").append(i).append('\n');
+        }
+        csv = records.toString().getBytes(UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        processEngine.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void oneAtATime() {
+        RuntimeService runtimeService = processEngine.getRuntimeService();
+        for (int i = 0; i < RECORDS; i++) {
+            runtimeService.startProcessInstanceByKey(INVOICE_PROCESS_KEY, "BOS-" + i, invoiceVariables("BOS-" + i, 900.0D, "Misc", false));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public IngestionResult bulk() throws IOException {
+        return ingestionService.ingest(new CsvInvoiceRecordReader(new ByteArrayInputStream(csv)));
+    }
+}
@@ -0,0 +1,158 @@
+package org.camunda.app.benchmark;
+
+import org.camunda.app.cluster.ClusterMembership;
+import org.camunda.app.cluster.ClusterPlugin;
+import org.camunda.app.cluster.StartupLock;
+import org.camunda.app.generator.SampleDataGenerator;
+import org.camunda.app.service.NotifyCreditorService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.cfg.ProcessEnginePlugin;
+import org.camunda.bpm.engine.management.Metrics;
+import org.camunda.bpm.engine.variable.Variables;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.camunda.app.benchmark.BenchmarkEngine.INVOICE_PROCESS_KEY;
+import static org.camunda.app.benchmark.BenchmarkEngine.invoiceVariables;
+
+/**
+ * Several engines in one JVM against a shared H2 server, like cluster nodes. The engines start
+ * concurrently and run the sample data setup under the {@link StartupLock}, {@code ClusterTest}
+ * checks what that leaves behind. Each iteration then drains a backlog of notify jobs with the
+ * job executors of all nodes, with and without partitioned acquisition, and reports how many job
+ * locks failed because another node got there first as an auxiliary counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClusterBenchmark {
+
+    private static final int NODES = 3;
+    private static final int JOBS = 1000;
+
+    @Param({"false", "true"})
+    public boolean partitioned;
+
+    private Server server;
+    private final List<ProcessEngine> engines = new ArrayList<>();
+    private final List<ClusterMembership> memberships = new ArrayList<>();
+    private long failedLocks;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Locks {
+        public long lostToOtherNodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            lostToOtherNodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws SQLException {
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        String url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:cluster-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+
+        // the first node creates the schema, the others start concurrently against it
+        engines.add(startNode(url, 0));
+        List<CompletableFuture<ProcessEngine>> nodes = new ArrayList<>();
+        for (int i = 1; i < NODES; i++) {
+            int node = i;
+            nodes.add(CompletableFuture.supplyAsync(() -> startNode(url, node)));
+        }
+        nodes.forEach(node -> engines.add(node.join()));
+    }
+
+    @Setup(Level.Iteration)
+    public void prepareJobs() {
+        ProcessEngine processEngine = engines.get(0);
+        TaskService taskService = processEngine.getTaskService();
+        for (int i = 0; i < JOBS; i++) {
+            String processInstanceId = processEngine.getRuntimeService()
+                    .startProcessInstanceByKey(INVOICE_PROCESS_KEY, invoiceVariables("GPFE-" + i, 30.0D, "Travel Expenses", false))
+                    .getId();
+            String taskId = taskService.createTaskQuery().processInstanceId(processInstanceId).singleResult().getId();
+            taskService.complete(taskId, Variables.createVariables().putValue("approved", true));
+        }
+        failedLocks = failedLocks();
+    }
+
+    @Benchmark
+    public long drainJobs(Locks locks) throws InterruptedException {
+        engines.forEach(engine -> configuration(engine).getJobExecutor().start());
+        try {
+            long remaining;
+            while ((remaining = engines.get(0).getManagementService().createJobQuery().executable().count()) > 0) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            return remaining;
+        } finally {
+            engines.forEach(engine -> configuration(engine).getJobExecutor().shutdown());
+            locks.lostToOtherNodes = failedLocks() - failedLocks;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        memberships.forEach(ClusterMembership::stop);
+        engines.forEach(ProcessEngine::close);
+        server.stop();
+    }
+
+    private ProcessEngine startNode(String url, int node) {
+        ClusterMembership membership = new ClusterMembership("node-" + node, 1000, 5000);
+        ProcessEnginePlugin[] plugins = partitioned
+                ? new ProcessEnginePlugin[]{new ClusterPlugin(membership, TimeUnit.MINUTES.toMillis(1))}
+                : new ProcessEnginePlugin[0];
+        ProcessEngine processEngine = BenchmarkEngine.create(
+                url, "sa", "", true,
+                Collections.<Object, Object>singletonMap("notifyCreditorService", new NotifyCreditorService(BenchmarkEngine.variablePrefetcher(), null)),
+                plugins
+        );
+        if (partitioned) {
+            synchronized (memberships) {
+                memberships.add(membership);
+            }
+        }
+        new StartupLock(membership.getNodeId(), TimeUnit.MINUTES.toMillis(1))
+                .runExclusively(processEngine, () -> new SampleDataGenerator().generate(processEngine));
+        return processEngine;
+    }
+
+    private long failedLocks() {
+        for (ProcessEngine engine : engines) {
+            engine.getManagementService().reportDbMetricsNow();
+        }
+        return engines.get(0).getManagementService().createMetricsQuery().name(Metrics.JOB_ACQUIRED_FAILURE).sum();
+    }
+
+    private static ProcessEngineConfigurationImpl configuration(ProcessEngine processEngine) {
+        return (ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration();
+    }
+}
@@ -0,0 +1,134 @@
+package org.camunda.app.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import org.camunda.app.archive.InvoiceArchive;
+import org.camunda.app.document.DocumentStore;
+import org.camunda.app.document.DocumentStorePlugin;
+import org.camunda.app.document.FileSystemDocumentStore;
+import org.camunda.app.service.ArchiveInvoiceService;
+import org.camunda.app.service.NotifyCreditorService;
+import org.camunda.bpm.engine.ManagementService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.variable.Variables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.camunda.app.benchmark.BenchmarkEngine.INVOICE_PROCESS_KEY;
+import static org.camunda.app.benchmark.BenchmarkEngine.invoiceVariables;
+
+/**
+ * Runs the invoice happy path with a document, one transaction per step (start, approval, notify
+ * job, bank transfer, archive job), on the databases of the persistence profiles. Scores are per
+ * transaction, including the task and job lookups in front of it.
+ * <ul>
+ * <li>{@code h2-mem-untuned} in-memory H2 with the engine defaults, as a baseline</li>
+ * <li>{@code h2-mem} the {@code h2-mem} Spring profile</li>
+ * <li>{@code h2-file} the default profile of application.yaml</li>
+ * <li>{@code postgres} the {@code postgres} Spring profile, only run when selected with
+ * {@code -p profile=postgres -jvmArgs -Dbenchmark.postgres.url=jdbc:postgresql://...}</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CommitLatencyBenchmark {
+
+    private static final int TRANSACTIONS = 5;
+    private static final String H2_TUNING = ";LOCK_TIMEOUT=10000;CACHE_SIZE=65536;QUERY_CACHE_SIZE=64";
+    private static final String POSTGRES_TUNING = "reWriteBatchedInserts=true&prepareThreshold=1&preparedStatementCacheQueries=512";
+
+    @Param({"h2-mem-untuned", "h2-mem", "h2-file"})
+    public String profile;
+
+    private final AtomicInteger invoices = new AtomicInteger();
+    private ProcessEngine processEngine;
+    private InvoiceArchive invoiceArchive;
+
+    @Setup
+    public void setUp() {
+        DocumentStore documentStore = new FileSystemDocumentStore(BenchmarkEngine.tempDirectory("documents"));
+        invoiceArchive = new InvoiceArchive(BenchmarkEngine.tempDirectory("archive"), documentStore, 256L << 20, 256, 1024);
+        ImmutableMap<Object, Object> beans = ImmutableMap.<Object, Object>of(
+                "notifyCreditorService", new NotifyCreditorService(BenchmarkEngine.variablePrefetcher(), null),
+                "archiveInvoiceService", new ArchiveInvoiceService(invoiceArchive, BenchmarkEngine.variablePrefetcher(), null)
+        );
+        DocumentStorePlugin documentStorePlugin = new DocumentStorePlugin(documentStore);
+
+        String name = "commit-latency-" + System.nanoTime();
+        switch (profile) {
+            case "h2-mem-untuned":
+                processEngine = BenchmarkEngine.create("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "", false, beans, documentStorePlugin);
+                break;
+            case "h2-mem":
+                processEngine = BenchmarkEngine.create("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1" + H2_TUNING, "sa", "", true, beans, documentStorePlugin);
+                break;
+            case "h2-file":
+                Path directory = BenchmarkEngine.tempDirectory("commit-latency");
+                processEngine = BenchmarkEngine.create(
+                        "jdbc:h2:" + directory.resolve("process-engine") + ";TRACE_LEVEL_FILE=0;DB_CLOSE_ON_EXIT=FALSE;QUERY_CACHE_SIZE=64",
+                        "sa", "", true, beans, documentStorePlugin
+                );
+                break;
+            case "postgres":
+                String url = System.getProperty("benchmark.postgres.url");
+                if (url == null) {
+                    throw new IllegalStateException("Set -Dbenchmark.postgres.url to run the postgres profile");
+                }
+                processEngine = BenchmarkEngine.create(
+                        url + (url.contains("?") ? "&" : "?") + POSTGRES_TUNING,
+                        System.getProperty("benchmark.postgres.username", "camunda"),
+                        System.getProperty("benchmark.postgres.password", "camunda"),
+                        true,
+                        beans,
+                        documentStorePlugin
+                );
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown profile " + profile);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        processEngine.close();
+        invoiceArchive.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRANSACTIONS)
+    public void happyPath() {
+        String invoiceNumber = "GPFE-" + invoices.incrementAndGet();
+        String processInstanceId = processEngine.getRuntimeService()
+                .startProcessInstanceByKey(INVOICE_PROCESS_KEY, invoiceVariables(invoiceNumber, 30.0D, "Travel Expenses", true))
+                .getId();
+
+        TaskService taskService = processEngine.getTaskService();
+        ManagementService managementService = processEngine.getManagementService();
+        taskService.complete(
+                taskService.createTaskQuery().processInstanceId(processInstanceId).singleResult().getId(),
+                Variables.createVariables().putValue("approved", true)
+        );
+        managementService.executeJob(managementService.createJobQuery().processInstanceId(processInstanceId).singleResult().getId());
+        taskService.complete(taskService.createTaskQuery().processInstanceId(processInstanceId).singleResult().getId());
+        managementService.executeJob(managementService.createJobQuery().processInstanceId(processInstanceId).singleResult().getId());
+    }
+}
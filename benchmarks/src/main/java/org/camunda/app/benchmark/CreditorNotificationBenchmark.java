@@ -0,0 +1,174 @@
+package org.camunda.app.benchmark;
+
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.app.notification.CreditorNotification;
+import org.camunda.app.notification.CreditorNotificationSender;
+import org.camunda.app.notification.NotificationDispatcher;
+import org.camunda.app.notification.NotificationOutbox;
+import org.camunda.app.service.NotifyCreditorService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
+import org.camunda.bpm.engine.variable.Variables;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.camunda.app.benchmark.BenchmarkEngine.INVOICE_PROCESS_KEY;
+import static org.camunda.app.benchmark.BenchmarkEngine.invoiceVariables;
+
+/**
+ * Drains a backlog of Notify Creditor jobs against a stub receiver with a fixed latency per
+ * request. {@code inline} sends each notification from the delegate, inside the job transaction,
+ * {@code outbox} enqueues it and lets the {@link NotificationDispatcher} deliver batches. The score
+ * is the time until every notification was delivered; the time at which the engine was done with
+ * the jobs is reported as an auxiliary counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CreditorNotificationBenchmark {
+
+    private static final int INSTANCES = 500;
+
+    @Param({"inline", "outbox"})
+    public String mode;
+
+    @Param({"0", "20"})
+    public long receiverLatencyMillis;
+
+    private ProcessEngine processEngine;
+    private NotificationDispatcher dispatcher;
+    private final AtomicLong delivered = new AtomicLong();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Timings {
+        public long jobsDoneMillis;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            jobsDoneMillis = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        CreditorNotificationSender receiver = batch -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(receiverLatencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            delivered.addAndGet(batch.size());
+        };
+        boolean outbox = "outbox".equals(mode);
+        BenchmarkNotifyCreditorService notifyCreditorService = new BenchmarkNotifyCreditorService(outbox ? null : receiver);
+        processEngine = BenchmarkEngine.create(
+                Collections.<Object, Object>singletonMap("notifyCreditorService", notifyCreditorService),
+                false
+        );
+        if (outbox) {
+            NotificationOutbox notificationOutbox = new NotificationOutbox(processEngine);
+            notificationOutbox.createTable();
+            notifyCreditorService.setNotificationOutbox(notificationOutbox);
+            dispatcher = new NotificationDispatcher(notificationOutbox, receiver, new MetricsRegistry(), "benchmark", 100, 4, 60000, 10, 100, 10000, 20);
+            dispatcher.start();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void prepareJobs() {
+        TaskService taskService = processEngine.getTaskService();
+        for (int i = 0; i < INSTANCES; i++) {
+            String processInstanceId = processEngine.getRuntimeService()
+                    .startProcessInstanceByKey(INVOICE_PROCESS_KEY, invoiceVariables("CN-" + i, 30.0D, "Travel Expenses", false))
+                    .getId();
+            String taskId = taskService.createTaskQuery().processInstanceId(processInstanceId).singleResult().getId();
+            taskService.complete(taskId, Variables.createVariables().putValue("approved", true));
+        }
+        delivered.set(0);
+    }
+
+    @Benchmark
+    public long drainAndDeliver(Timings timings) throws InterruptedException {
+        JobExecutor jobExecutor = ((ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration()).getJobExecutor();
+        long start = System.nanoTime();
+        jobExecutor.start();
+        try {
+            while (processEngine.getManagementService().createJobQuery().executable().count() > 0) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            timings.jobsDoneMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (dispatcher != null) {
+                dispatcher.wakeUp();
+            }
+            while (delivered.get() < INSTANCES) {
+                TimeUnit.MILLISECONDS.sleep(5);
+            }
+            return delivered.get();
+        } finally {
+            jobExecutor.shutdown();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+        processEngine.close();
+    }
+
+    private static class BenchmarkNotifyCreditorService extends NotifyCreditorService {
+        private final CreditorNotificationSender inlineSender;
+
+        BenchmarkNotifyCreditorService(CreditorNotificationSender inlineSender) {
+            super(BenchmarkEngine.variablePrefetcher(), null);
+            this.inlineSender = inlineSender;
+        }
+
+        void setNotificationOutbox(NotificationOutbox notificationOutbox) {
+            this.notificationOutbox = notificationOutbox;
+        }
+
+        @Override
+        public void execute(DelegateExecution execution) {
+            super.execute(execution);
+            if (inlineSender == null) {
+                return;
+            }
+            List<CreditorNotification> notification = Collections.singletonList(new CreditorNotification(
+                    execution.getId(), execution.getProcessInstanceId(), null, null, null, System.currentTimeMillis(), 0));
+            try {
+                inlineSender.send(notification);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.camunda.app.benchmark;
+
+import org.camunda.app.dmn.DecisionCachePlugin;
+import org.camunda.app.dmn.DecisionResultCache;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.variable.Variables;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.camunda.app.benchmark.BenchmarkEngine.ASSIGN_APPROVER_DECISION_KEY;
+
+/**
+ * Evaluates invoice-assign-approver (and the required invoiceClassification) for a small set of
+ * recurring inputs, with and without the decision result cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DecisionEvaluationBenchmark {
+
+    private static final double[] AMOUNTS = {30.0D, 900.0D, 10.99D, 1500.0D, 249.99D};
+    private static final String[] CATEGORIES = {"Travel Expenses", "Misc", "Software License Costs"};
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private ProcessEngine processEngine;
+    private DecisionResultCache cache;
+    private int invocation;
+
+    /**
+     * Cache hits and misses of the iteration, reported next to the score.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Lookups {
+        private DecisionResultCache cache;
+        private long hitBase;
+        private long missBase;
+
+        @Setup(Level.Iteration)
+        public void reset(DecisionEvaluationBenchmark benchmark) {
+            cache = benchmark.cache;
+            hitBase = cache == null ? 0 : cache.getStats().hitCount();
+            missBase = cache == null ? 0 : cache.getStats().missCount();
+        }
+
+        public long hits() {
+            return cache == null ? 0 : cache.getStats().hitCount() - hitBase;
+        }
+
+        public long misses() {
+            return cache == null ? 0 : cache.getStats().missCount() - missBase;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        if (cached) {
+            cache = new DecisionResultCache(1000);
+            processEngine = BenchmarkEngine.create(Collections.emptyMap(), false, new DecisionCachePlugin(cache));
+        } else {
+            processEngine = BenchmarkEngine.create(Collections.emptyMap(), false);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        processEngine.close();
+    }
+
+    @Benchmark
+    public DmnDecisionResult evaluateAssignApprover(Lookups lookups) {
+        int i = invocation++;
+        return processEngine.getDecisionService()
+                .evaluateDecisionByKey(ASSIGN_APPROVER_DECISION_KEY)
+                .variables(Variables.createVariables()
+                        .putValue("amount", AMOUNTS[i % AMOUNTS.length])
+                        .putValue("invoiceCategory", CATEGORIES[i % CATEGORIES.length]))
+                .evaluate();
+    }
+}
@@ -0,0 +1,141 @@
+package org.camunda.app.benchmark;
+
+import com.google.common.io.ByteStreams;
+import org.camunda.app.delivery.Delivery;
+import org.camunda.app.delivery.DocumentDelivery;
+import org.camunda.app.delivery.FormAssetCache;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.app.service.NotifyCreditorService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.variable.value.FileValue;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.camunda.app.benchmark.BenchmarkEngine.INVOICE_PROCESS_KEY;
+import static org.camunda.app.benchmark.BenchmarkEngine.invoiceVariables;
+
+/**
+ * A task open in the tasklist fetches the approve form and the invoice document. The baseline
+ * reads both in full every time, like the class path resource handler and the variable download
+ * endpoint do; the delivery layer is measured on a first open (gzip, no entity tags yet), on a
+ * reopen revalidating both with their entity tags, and on a PDF viewer fetching the document in
+ * 1 KiB ranges. The {@code bytes} counter is the body bytes sent per open.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DeliveryBenchmark {
+
+    private static final String FORM = "approve-invoice.html";
+    private static final String ACCEPT_ENCODING = "gzip, deflate, br";
+    private static final int RANGE_SIZE = 1024;
+
+    private ProcessEngine processEngine;
+    private FormAssetCache formAssetCache;
+    private DocumentDelivery documentDelivery;
+    private String taskId;
+    private String formEtag;
+    private String documentEtag;
+    private int documentSize;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Sent {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        processEngine = BenchmarkEngine.create(
+                Collections.<Object, Object>singletonMap("notifyCreditorService", new NotifyCreditorService(BenchmarkEngine.variablePrefetcher(), null)),
+                false
+        );
+        String processInstanceId = processEngine.getRuntimeService()
+                .startProcessInstanceByKey(INVOICE_PROCESS_KEY, invoiceVariables("DL-1", 900.0D, "Misc", true))
+                .getId();
+        taskId = processEngine.getTaskService().createTaskQuery().processInstanceId(processInstanceId).singleResult().getId();
+
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        formAssetCache = new FormAssetCache("forms/", metricsRegistry);
+        documentDelivery = new DocumentDelivery(processEngine, metricsRegistry, 64L * 1024 * 1024);
+        formEtag = formAssetCache.deliver(FORM, ACCEPT_ENCODING, null).getHeaders().get("ETag");
+        Delivery document = document(null, null);
+        documentEtag = document.getHeaders().get("ETag");
+        documentSize = document.getLength();
+    }
+
+    @TearDown
+    public void tearDown() {
+        processEngine.close();
+    }
+
+    @Benchmark
+    public long baseline(Sent sent) throws IOException {
+        long bytes;
+        try (InputStream form = DeliveryBenchmark.class.getClassLoader().getResourceAsStream("forms/" + FORM)) {
+            bytes = ByteStreams.toByteArray(form).length;
+        }
+        FileValue document = processEngine.getTaskService().getVariableTyped(taskId, "invoiceDocument");
+        try (InputStream content = document.getValue()) {
+            bytes += ByteStreams.toByteArray(content).length;
+        }
+        sent.bytes += bytes;
+        return bytes;
+    }
+
+    @Benchmark
+    public long firstOpen(Sent sent) {
+        return count(sent, formAssetCache.deliver(FORM, ACCEPT_ENCODING, null), document(null, null));
+    }
+
+    @Benchmark
+    public long reopen(Sent sent) {
+        return count(sent, formAssetCache.deliver(FORM, ACCEPT_ENCODING, formEtag), document(documentEtag, null));
+    }
+
+    @Benchmark
+    public long rangedOpen(Sent sent) {
+        long bytes = count(sent, formAssetCache.deliver(FORM, ACCEPT_ENCODING, null));
+        for (int first = 0; first < documentSize; first += RANGE_SIZE) {
+            bytes += count(sent, document(null, "bytes=" + first + "-" + (first + RANGE_SIZE - 1)));
+        }
+        return bytes;
+    }
+
+    private Delivery document(String ifNoneMatch, String range) {
+        return documentDelivery.deliver(DocumentDelivery.Scope.TASK, taskId, "invoiceDocument", null, null, ifNoneMatch, range, null);
+    }
+
+    private static long count(Sent sent, Delivery... deliveries) {
+        long bytes = 0;
+        for (Delivery delivery : deliveries) {
+            bytes += delivery.getLength();
+        }
+        sent.bytes += bytes;
+        return bytes;
+    }
+}
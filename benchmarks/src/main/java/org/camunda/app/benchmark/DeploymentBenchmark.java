@@ -0,0 +1,158 @@
+package org.camunda.app.benchmark;
+
+import com.google.common.io.ByteStreams;
+import org.camunda.app.deployment.DeploymentPipeline;
+import org.camunda.app.deployment.ModelCache;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.repository.DeploymentBuilder;
+import org.camunda.bpm.engine.repository.ProcessApplicationDeployment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deployment at start with the invoice models plus copies of the review process, to see how it
+ * grows with the number of models, with nothing or one copy changed since the last start. The
+ * pipeline is compared with deploying all resources with duplicate filtering, which is what the
+ * process application does on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class DeploymentBenchmark {
+
+    private static final String DEPLOYMENT_NAME = "invoice";
+    private static final String REVIEW_MODEL = "reviewInvoice.bpmn";
+
+    @Param({"1", "30"})
+    public int copies;
+
+    @Param({"false", "true"})
+    public boolean changed;
+
+    private Path directory;
+    private ProcessEngine processEngine;
+    private URLClassLoader classLoader;
+    private List<String> resources;
+    private DeploymentPipeline pipeline;
+    private String reviewModel;
+    private int revision;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = BenchmarkEngine.tempDirectory("deployment-benchmark");
+        Path modelDirectory = Files.createDirectories(directory.resolve("models"));
+        reviewModel = read(REVIEW_MODEL);
+        resources = new ArrayList<>(Arrays.asList("invoice.v1.bpmn", REVIEW_MODEL, "invoiceBusinessDecisions.dmn"));
+        Files.createDirectories(modelDirectory.resolve("copies"));
+        for (int i = 0; i < copies; i++) {
+            String resource = "copies/review-" + i + ".bpmn";
+            write(modelDirectory.resolve(resource), copy(i, 0));
+            resources.add(resource);
+        }
+        classLoader = new URLClassLoader(new URL[]{url(modelDirectory)}, DeploymentBenchmark.class.getClassLoader());
+
+        processEngine = BenchmarkEngine.createPersistent(directory);
+        pipeline = new DeploymentPipeline(classLoader, resources, DEPLOYMENT_NAME, new ModelCache(null), 4);
+        pipeline.deploy(processEngine);
+    }
+
+    @Setup(Level.Invocation)
+    public void changeOneModel() {
+        if (changed) {
+            write(directory.resolve("models").resolve("copies/review-0.bpmn"), copy(0, ++revision));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pipeline.close();
+        processEngine.close();
+        classLoader.close();
+    }
+
+    @Benchmark
+    public Object pipeline() {
+        return pipeline.deploy(processEngine);
+    }
+
+    @Benchmark
+    public Object duplicateFiltering() throws IOException {
+        DeploymentBuilder deployment = processEngine.getRepositoryService()
+                .createDeployment()
+                .name(DEPLOYMENT_NAME)
+                .source(ProcessApplicationDeployment.PROCESS_APPLICATION_DEPLOYMENT_SOURCE)
+                .enableDuplicateFiltering(true);
+        List<InputStream> streams = new ArrayList<>();
+        try {
+            for (String resource : resources) {
+                InputStream stream = classLoader.getResourceAsStream(resource);
+                streams.add(stream);
+                deployment.addInputStream(resource, stream);
+            }
+            return deployment.deploy();
+        } finally {
+            for (InputStream stream : streams) {
+                stream.close();
+            }
+        }
+    }
+
+    /**
+     * The review process under another key, the revision changes the content only.
+     */
+    private String copy(int index, int revision) {
+        return reviewModel
+                .replace("id=\"ReviewInvoice\"", "id=\"ReviewInvoice-" + index + "\"")
+                .replace("name=\"Review Invoice\"", "name=\"Review Invoice " + index + " revision " + revision + "\"");
+    }
+
+    private static String read(String resource) throws IOException {
+        try (InputStream in = DeploymentBenchmark.class.getClassLoader().getResourceAsStream(resource)) {
+            return new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void write(Path file, String content) {
+        try {
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static URL url(Path directory) {
+        try {
+            return directory.toUri().toURL();
+        } catch (MalformedURLException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.camunda.app.benchmark;
+
+import org.camunda.app.document.DocumentStorePlugin;
+import org.camunda.app.document.FileSystemDocumentStore;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.runtime.ProcessInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.camunda.app.benchmark.BenchmarkEngine.INVOICE_PROCESS_KEY;
+import static org.camunda.app.benchmark.BenchmarkEngine.invoiceVariables;
+
+/**
+ * Starts invoice instances up to the approval task, with and without the invoiceDocument file
+ * variable, storing the document either in the database or in the document store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class InstanceStartBenchmark {
+
+    @Param({"none", "database", "documentStore"})
+    public String invoiceDocument;
+
+    private ProcessEngine processEngine;
+
+    @Setup
+    public void setUp() {
+        processEngine = "documentStore".equals(invoiceDocument)
+                ? BenchmarkEngine.create(Collections.emptyMap(), false, new DocumentStorePlugin(new FileSystemDocumentStore(BenchmarkEngine.tempDirectory("documents"))))
+                : BenchmarkEngine.create(Collections.emptyMap(), false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        processEngine.close();
+    }
+
+    @Benchmark
+    public ProcessInstance startInstance() {
+        return processEngine.getRuntimeService().startProcessInstanceByKey(
+                INVOICE_PROCESS_KEY,
+                invoiceVariables("GPFE-23232323", 30.0D, "Travel Expenses", !"none".equals(invoiceDocument))
+        );
+    }
+}
@@ -0,0 +1,89 @@
+package org.camunda.app.benchmark;
+
+import org.camunda.app.generator.SampleDataGenerator;
+import org.camunda.app.lookup.LookupCache;
+import org.camunda.app.lookup.LookupCachePlugin;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.bpm.engine.IdentityService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.identity.Group;
+import org.camunda.bpm.engine.identity.User;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
+import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.camunda.app.benchmark.BenchmarkEngine.INVOICE_PROCESS_KEY;
+
+/**
+ * The lookups behind every REST request and instance start, on eight threads, with and without
+ * the lookup cache: a user by id, the groups of a user and the latest definition of a key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class LookupCacheBenchmark {
+
+    private static final String USER_ID = "mary";
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private ProcessEngine processEngine;
+    private CommandExecutor commandExecutor;
+
+    @Setup
+    public void setUp() {
+        if (cached) {
+            LookupCache cache = new LookupCache(new MetricsRegistry(), 10000, 16, 0);
+            processEngine = BenchmarkEngine.create(Collections.emptyMap(), false, new LookupCachePlugin(cache, null, null));
+        } else {
+            processEngine = BenchmarkEngine.create(Collections.emptyMap(), false);
+        }
+        new SampleDataGenerator().generate(processEngine);
+        commandExecutor = ((ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration()).getCommandExecutorTxRequired();
+    }
+
+    @TearDown
+    public void tearDown() {
+        processEngine.close();
+    }
+
+    @Benchmark
+    public User userById() {
+        return processEngine.getIdentityService().createUserQuery().userId(USER_ID).singleResult();
+    }
+
+    @Benchmark
+    public List<Group> groupsOfUser() {
+        IdentityService identityService = processEngine.getIdentityService();
+        return identityService.createGroupQuery().groupMember(USER_ID).list();
+    }
+
+    @Benchmark
+    public ProcessDefinition latestDefinition() {
+        return commandExecutor.execute(commandContext -> commandContext.getProcessEngineConfiguration()
+                .getDeploymentCache()
+                .findDeployedLatestProcessDefinitionByKey(INVOICE_PROCESS_KEY));
+    }
+}
@@ -0,0 +1,93 @@
+package org.camunda.app.benchmark;
+
+import org.camunda.app.callactivity.CallActivityPlugin;
+import org.camunda.app.callactivity.CalledDefinitionCache;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.impl.cfg.ProcessEnginePlugin;
+import org.camunda.bpm.engine.variable.Variables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.camunda.app.benchmark.BenchmarkEngine.INVOICE_PROCESS_KEY;
+import static org.camunda.app.benchmark.BenchmarkEngine.invoiceVariables;
+
+/**
+ * The rejection and clarification loop of an invoice with its PDF: reject the approval, which
+ * calls Review Invoice, assign the reviewer, clarify, and the invoice is back at approval. With
+ * {@code fastPath} the call activity passes the document by reference and caches the called
+ * definition lookup. Several threads loop over their own invoices.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class ReviewLoopBenchmark {
+
+    @Param({"false", "true"})
+    public boolean fastPath;
+
+    private ProcessEngine processEngine;
+
+    @Setup
+    public void setUp() {
+        ProcessEnginePlugin[] plugins = fastPath
+                ? new ProcessEnginePlugin[]{new CallActivityPlugin(true, new CalledDefinitionCache(60))}
+                : new ProcessEnginePlugin[0];
+        processEngine = BenchmarkEngine.create(Collections.<Object, Object>emptyMap(), false, plugins);
+    }
+
+    @TearDown
+    public void tearDown() {
+        processEngine.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Invoice {
+        String processInstanceId;
+
+        @Setup
+        public void start(ReviewLoopBenchmark benchmark) {
+            processInstanceId = benchmark.processEngine.getRuntimeService()
+                    .startProcessInstanceByKey(INVOICE_PROCESS_KEY, invoiceVariables("RL-" + Thread.currentThread().getId(), 900.0D, "Misc", true))
+                    .getId();
+        }
+    }
+
+    @Benchmark
+    public void rejectAndClarify(Invoice invoice) {
+        TaskService taskService = processEngine.getTaskService();
+        String approveTaskId = taskService.createTaskQuery()
+                .processInstanceId(invoice.processInstanceId)
+                .taskDefinitionKey("approveInvoice")
+                .singleResult()
+                .getId();
+        taskService.complete(approveTaskId, Variables.createVariables().putValue("approved", false));
+
+        String reviewInstanceId = processEngine.getRuntimeService().createProcessInstanceQuery()
+                .superProcessInstanceId(invoice.processInstanceId)
+                .singleResult()
+                .getId();
+        String assignTaskId = taskService.createTaskQuery().processInstanceId(reviewInstanceId).singleResult().getId();
+        taskService.complete(assignTaskId, Variables.createVariables().putValue("reviewer", "demo"));
+        String reviewTaskId = taskService.createTaskQuery().processInstanceId(reviewInstanceId).singleResult().getId();
+        taskService.complete(reviewTaskId, Variables.createVariables().putValue("clarified", true));
+    }
+}
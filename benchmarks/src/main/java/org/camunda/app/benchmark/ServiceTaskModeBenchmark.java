@@ -0,0 +1,209 @@
+package org.camunda.app.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import org.camunda.app.archive.InvoiceArchive;
+import org.camunda.app.document.DocumentStore;
+import org.camunda.app.document.DocumentStorePlugin;
+import org.camunda.app.document.FileSystemDocumentStore;
+import org.camunda.app.external.ExternalTaskHandler;
+import org.camunda.app.external.ExternalTaskModePlugin;
+import org.camunda.app.external.ExternalTaskParseListener;
+import org.camunda.app.external.ExternalTaskSignal;
+import org.camunda.app.external.ExternalTaskWorker;
+import org.camunda.app.service.ArchiveInvoiceService;
+import org.camunda.app.service.NotifyCreditorService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.externaltask.LockedExternalTask;
+import org.camunda.bpm.engine.impl.cfg.ProcessEnginePlugin;
+import org.camunda.bpm.engine.task.Task;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.camunda.app.benchmark.BenchmarkEngine.INVOICE_PROCESS_KEY;
+import static org.camunda.app.benchmark.BenchmarkEngine.invoiceVariables;
+
+/**
+ * Load test of the approve, notify, prepare and archive path for {@value #INSTANCES} instances with
+ * the service tasks running as delegates on engine threads or as external tasks on the in-process
+ * worker. The notification simulates a slow creditor endpoint. Besides the time per instance, the
+ * {@code engineThreadMillis} counter reports how long engine threads (API callers completing the
+ * approval) were blocked by the notification, which drops to zero in external mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ServiceTaskModeBenchmark {
+
+    static final int INSTANCES = 200;
+
+    private static final long POLL_MILLIS = 10;
+
+    @Param({"delegate", "external"})
+    public String mode;
+
+    @Param({"0", "20"})
+    public long notifyLatencyMillis;
+
+    private ProcessEngine processEngine;
+    private InvoiceArchive invoiceArchive;
+    private ExternalTaskWorker worker;
+    private EngineThreadCounter counter;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Occupancy {
+        public long engineThreadMillis;
+    }
+
+    @Setup
+    public void setUp() {
+        counter = new EngineThreadCounter();
+        DocumentStore documentStore = new FileSystemDocumentStore(BenchmarkEngine.tempDirectory("documents"));
+        invoiceArchive = new InvoiceArchive(BenchmarkEngine.tempDirectory("archive"), documentStore, 256L << 20, 256, 1024);
+        SlowNotifyCreditorService notifyCreditorService = new SlowNotifyCreditorService(notifyLatencyMillis, counter);
+        ArchiveInvoiceService archiveInvoiceService = new ArchiveInvoiceService(invoiceArchive, BenchmarkEngine.variablePrefetcher(), null);
+
+        ExternalTaskSignal signal = new ExternalTaskSignal();
+        ProcessEnginePlugin[] plugins = "external".equals(mode)
+                ? new ProcessEnginePlugin[]{new DocumentStorePlugin(documentStore), new ExternalTaskModePlugin(new ExternalTaskParseListener(
+                        INVOICE_PROCESS_KEY,
+                        ImmutableMap.of("ServiceTask_1", ArchiveInvoiceService.TOPIC, "ServiceTask_06mdb3v", NotifyCreditorService.TOPIC),
+                        signal))}
+                : new ProcessEnginePlugin[]{new DocumentStorePlugin(documentStore)};
+
+        processEngine = BenchmarkEngine.create(
+                ImmutableMap.<Object, Object>of(
+                        "notifyCreditorService", notifyCreditorService,
+                        "archiveInvoiceService", archiveInvoiceService
+                ),
+                true,
+                plugins
+        );
+
+        if ("external".equals(mode)) {
+            List<ExternalTaskHandler> handlers = Arrays.asList(notifyCreditorService, archiveInvoiceService);
+            worker = new ExternalTaskWorker(processEngine, handlers, signal, "benchmark", 50, 20, 60000, 1000, 1000);
+            worker.start();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void startInstances() {
+        for (int i = 0; i < INSTANCES; i++) {
+            processEngine.getRuntimeService().startProcessInstanceByKey(INVOICE_PROCESS_KEY, invoiceVariables("GPFE-" + i, 30.0D, "Travel Expenses", true));
+        }
+        counter.reset();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (worker != null) {
+            worker.stop();
+        }
+        processEngine.close();
+        invoiceArchive.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSTANCES)
+    public void approveAndArchive(Occupancy occupancy) throws InterruptedException {
+        TaskService taskService = processEngine.getTaskService();
+        for (Task task : taskService.createTaskQuery().taskDefinitionKey("approveInvoice").list()) {
+            taskService.complete(task.getId(), Variables.createVariables().putValue("approved", true));
+        }
+
+        int prepared = 0;
+        while (prepared < INSTANCES) {
+            List<Task> tasks = taskService.createTaskQuery().taskDefinitionKey("prepareBankTransfer").list();
+            for (Task task : tasks) {
+                taskService.complete(task.getId());
+            }
+            prepared += tasks.size();
+            if (tasks.isEmpty()) {
+                Thread.sleep(POLL_MILLIS);
+            }
+        }
+
+        while (processEngine.getRuntimeService().createProcessInstanceQuery().processDefinitionKey(INVOICE_PROCESS_KEY).count() > 0) {
+            Thread.sleep(POLL_MILLIS);
+        }
+        occupancy.engineThreadMillis += counter.getMillis();
+    }
+
+    private static class EngineThreadCounter {
+        private final AtomicLong nanos = new AtomicLong();
+
+        void add(long elapsedNanos) {
+            nanos.addAndGet(elapsedNanos);
+        }
+
+        long getMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos.get());
+        }
+
+        void reset() {
+            nanos.set(0);
+        }
+    }
+
+    private static class SlowNotifyCreditorService extends NotifyCreditorService {
+        private final long latencyMillis;
+        private final EngineThreadCounter counter;
+
+        SlowNotifyCreditorService(long latencyMillis, EngineThreadCounter counter) {
+            super(BenchmarkEngine.variablePrefetcher(), null);
+            this.latencyMillis = latencyMillis;
+            this.counter = counter;
+        }
+
+        @Override
+        public void execute(DelegateExecution execution) {
+            long start = System.nanoTime();
+            simulateLatency();
+            super.execute(execution);
+            counter.add(System.nanoTime() - start);
+        }
+
+        @Override
+        public VariableMap handle(LockedExternalTask task) {
+            simulateLatency();
+            return super.handle(task);
+        }
+
+        private void simulateLatency() {
+            if (latencyMillis == 0) {
+                return;
+            }
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
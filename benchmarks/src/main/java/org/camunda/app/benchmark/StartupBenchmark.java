@@ -0,0 +1,80 @@
+package org.camunda.app.benchmark;
+
+import org.camunda.app.process.SampleInvoices;
+import org.camunda.app.startup.DefinitionCacheWarmer;
+import org.camunda.app.startup.FastStartup;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.repository.DeploymentBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restart of the application on an existing file based database: engine build, deployment of the
+ * unchanged invoice models with duplicate filtering and the post-deploy work, with and without the
+ * fast start. The database is seeded by a first start in the setup. With the fast start the
+ * definitions are parsed by the background warm-up, which is not part of the score.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final List<String> RESOURCES = Arrays.asList("invoice.v1.bpmn", "reviewInvoice.bpmn", "invoiceBusinessDecisions.dmn");
+
+    @Param({"false", "true"})
+    public boolean fastStart;
+
+    private Path directory;
+
+    @Setup
+    public void setUp() {
+        directory = BenchmarkEngine.tempDirectory("startup-benchmark");
+        restart().close();
+    }
+
+    @Benchmark
+    public void restartApplication() {
+        restart().close();
+    }
+
+    private ProcessEngine restart() {
+        ProcessEngine processEngine = BenchmarkEngine.createPersistent(directory);
+        DeploymentBuilder deployment = processEngine.getRepositoryService()
+                .createDeployment()
+                .name("invoice")
+                .enableDuplicateFiltering(false);
+        RESOURCES.forEach(deployment::addClasspathResource);
+        deployment.deploy();
+
+        SampleInvoices sampleInvoices = new SampleInvoices();
+        if (fastStart) {
+            new FastStartup(RESOURCES, new DefinitionCacheWarmer() {
+                @Override
+                public Thread warmUpAsync(ProcessEngine engine) {
+                    // the engine is closed right away, there is nothing to warm up
+                    return null;
+                }
+            }).onPostDeploy(processEngine, sampleInvoices::startFirstProcess);
+        } else {
+            sampleInvoices.startFirstProcess(processEngine);
+        }
+        return processEngine;
+    }
+}
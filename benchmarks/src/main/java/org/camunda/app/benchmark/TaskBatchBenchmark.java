@@ -0,0 +1,130 @@
+package org.camunda.app.benchmark;
+
+import org.camunda.app.generator.SampleDataGenerator;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.app.service.NotifyCreditorService;
+import org.camunda.app.task.BatchTaskService;
+import org.camunda.app.task.TaskCompletion;
+import org.camunda.app.task.TaskCompletionResult;
+import org.camunda.bpm.engine.IdentityService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.task.Task;
+import org.camunda.bpm.engine.variable.Variables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.camunda.app.benchmark.BenchmarkEngine.INVOICE_PROCESS_KEY;
+import static org.camunda.app.benchmark.BenchmarkEngine.invoiceVariables;
+
+/**
+ * Mary approves a list of invoices with authorization enabled: once through the
+ * {@link BatchTaskService} and once like a client looping over the task REST endpoints, which
+ * claims and completes each task in a transaction of its own with the engine's authorization
+ * checks. The batch size is the number of approvals per invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class TaskBatchBenchmark {
+
+    private static final String USER_ID = "mary";
+    private static final List<String> GROUP_IDS = Collections.singletonList("accounting");
+
+    @Param({"100", "500"})
+    public int batchSize;
+
+    private ProcessEngine processEngine;
+    private BatchTaskService batchTaskService;
+    private List<String> taskIds;
+
+    @Setup
+    public void setUp() {
+        processEngine = BenchmarkEngine.create(
+                Collections.<Object, Object>singletonMap("notifyCreditorService", new NotifyCreditorService(BenchmarkEngine.variablePrefetcher(), null)),
+                false,
+                new AbstractProcessEnginePlugin() {
+                    @Override
+                    public void preInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+                        processEngineConfiguration.setAuthorizationEnabled(true);
+                    }
+                }
+        );
+        new SampleDataGenerator().generate(processEngine);
+        batchTaskService = new BatchTaskService(processEngine, new MetricsRegistry(), 25, 4);
+    }
+
+    @Setup(Level.Invocation)
+    public void startInstances() {
+        List<String> processInstanceIds = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            processInstanceIds.add(processEngine.getRuntimeService()
+                    .startProcessInstanceByKey(INVOICE_PROCESS_KEY, invoiceVariables("TB-" + i, 900.0D, "Misc", false))
+                    .getId());
+        }
+        taskIds = new ArrayList<>(batchSize);
+        for (Task task : processEngine.getTaskService().createTaskQuery()
+                .processInstanceIdIn(processInstanceIds.toArray(new String[0]))
+                .taskDefinitionKey("approveInvoice")
+                .list()) {
+            taskIds.add(task.getId());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        batchTaskService.close();
+        processEngine.close();
+    }
+
+    @Benchmark
+    public void loop() {
+        TaskService taskService = processEngine.getTaskService();
+        IdentityService identityService = processEngine.getIdentityService();
+        for (String taskId : taskIds) {
+            // one claim and one complete request per task
+            identityService.setAuthentication(USER_ID, GROUP_IDS);
+            try {
+                taskService.claim(taskId, USER_ID);
+            } finally {
+                identityService.clearAuthentication();
+            }
+            identityService.setAuthentication(USER_ID, GROUP_IDS);
+            try {
+                taskService.complete(taskId, Variables.createVariables().putValue("approved", true));
+            } finally {
+                identityService.clearAuthentication();
+            }
+        }
+    }
+
+    @Benchmark
+    public List<TaskCompletionResult> batch() {
+        List<TaskCompletion> completions = new ArrayList<>(taskIds.size());
+        for (String taskId : taskIds) {
+            completions.add(new TaskCompletion(taskId, Variables.createVariables().putValue("approved", true)));
+        }
+        return batchTaskService.complete(USER_ID, GROUP_IDS, completions, true);
+    }
+}
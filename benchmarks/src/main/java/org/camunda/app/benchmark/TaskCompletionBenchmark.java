@@ -0,0 +1,72 @@
+package org.camunda.app.benchmark;
+
+import org.camunda.app.service.NotifyCreditorService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.task.Task;
+import org.camunda.bpm.engine.variable.Variables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.camunda.app.benchmark.BenchmarkEngine.INVOICE_PROCESS_KEY;
+import static org.camunda.app.benchmark.BenchmarkEngine.invoiceVariables;
+
+/**
+ * Queries, claims and completes the approveInvoice task of a fresh instance up to the async
+ * continuation of Notify Creditor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TaskCompletionBenchmark {
+
+    private ProcessEngine processEngine;
+    private String processInstanceId;
+
+    @Setup
+    public void setUp() {
+        processEngine = BenchmarkEngine.create(
+                Collections.<Object, Object>singletonMap("notifyCreditorService", new NotifyCreditorService(BenchmarkEngine.variablePrefetcher(), null)),
+                false
+        );
+    }
+
+    @Setup(Level.Invocation)
+    public void startInstance() {
+        processInstanceId = processEngine.getRuntimeService()
+                .startProcessInstanceByKey(INVOICE_PROCESS_KEY, invoiceVariables("BOS-43934", 900.0D, "Misc", false))
+                .getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        processEngine.close();
+    }
+
+    @Benchmark
+    public void claimAndCompleteApproval() {
+        TaskService taskService = processEngine.getTaskService();
+        Task task = taskService.createTaskQuery()
+                .processInstanceId(processInstanceId)
+                .taskDefinitionKey("approveInvoice")
+                .singleResult();
+        taskService.claim(task.getId(), "demo");
+        taskService.complete(task.getId(), Variables.createVariables().putValue("approved", true));
+    }
+}
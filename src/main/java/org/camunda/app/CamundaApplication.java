@@ -1,10 +1,11 @@
 package org.camunda.app;
 
 import org.apache.catalina.webresources.TomcatURLStreamHandlerFactory;
-import org.camunda.app.process.InvoiceProcessApplication;
+import org.camunda.app.cluster.StartupLock;
+import org.camunda.app.deployment.DeploymentPipeline;
+import org.camunda.app.process.SampleInvoices;
+import org.camunda.app.startup.FastStartup;
 import org.camunda.bpm.engine.ProcessEngine;
-import org.camunda.bpm.engine.RepositoryService;
-import org.camunda.bpm.engine.repository.Resource;
 import org.camunda.bpm.spring.boot.starter.annotation.EnableProcessApplication;
 import org.camunda.bpm.spring.boot.starter.event.PostDeployEvent;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,7 +14,6 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.event.EventListener;
 
 import javax.annotation.PostConstruct;
-import java.util.List;
 
 @SpringBootApplication
 @EnableProcessApplication
@@ -22,8 +22,17 @@ public class CamundaApplication {
     @Autowired
     protected ProcessEngine processEngine;
 
-    //TODO make as component
-    protected InvoiceProcessApplication invoiceProcess = new InvoiceProcessApplication();
+    @Autowired(required = false)
+    protected FastStartup fastStartup;
+
+    @Autowired(required = false)
+    protected StartupLock startupLock;
+
+    @Autowired(required = false)
+    protected DeploymentPipeline deploymentPipeline;
+
+    @Autowired
+    protected SampleInvoices sampleInvoices;
 
 
     public static void main(String[] args) {
@@ -32,25 +41,36 @@ public class CamundaApplication {
         SpringApplication.run(CamundaApplication.class, args).registerShutdownHook();
     }
 
+    /**
+     * Runs before the process application deploys its archive, which then finds the changed
+     * resources deployed already. In a cluster one node deploys, the others find the hashes stored.
+     */
     @PostConstruct
     public void deployInvoice() {
-        //TODO check exists deployments
-        RepositoryService repositoryService = processEngine.getRepositoryService();
-
-//   TODO rename     org.camunda.bpm.example.invoice.service ->
-
-//        if(processEngine.getIdentityService().createUserQuery().list().isEmpty()) {
-//            ClassLoader classLoader = getClass().getClassLoader();
-//            repositoryService
-//                    .createDeployment()
-//                    .addInputStream("invoice.v1.bpmn", classLoader.getResourceAsStream("invoice.v1.bpmn"))
-//                    .addInputStream("reviewInvoice.bpmn", classLoader.getResourceAsStream("reviewInvoice.bpmn"))
-//                    .deploy();
-//        }
+        if (deploymentPipeline == null) {
+            return;
+        }
+        if (startupLock != null) {
+            startupLock.runExclusively(processEngine, () -> deploymentPipeline.deploy(processEngine));
+        } else {
+            deploymentPipeline.deploy(processEngine);
+        }
     }
 
     @EventListener
     public void onPostDeploy(PostDeployEvent event) {
-        invoiceProcess.startFirstProcess(event.getProcessEngine());
+        ProcessEngine processEngine = event.getProcessEngine();
+        Runnable postDeploy = () -> {
+            if (fastStartup != null) {
+                fastStartup.onPostDeploy(processEngine, sampleInvoices::startFirstProcess);
+            } else {
+                sampleInvoices.startFirstProcess(processEngine);
+            }
+        };
+        if (startupLock != null) {
+            startupLock.runExclusively(processEngine, postDeploy);
+        } else {
+            postDeploy.run();
+        }
     }
 }
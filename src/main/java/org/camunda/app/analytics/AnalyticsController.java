@@ -0,0 +1,22 @@
+package org.camunda.app.analytics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/analytics")
+@ConditionalOnProperty(name = "invoice.analytics.enabled", havingValue = "true")
+public class AnalyticsController {
+
+    @Autowired
+    protected InvoiceProjection projection;
+
+    @PostMapping
+    public AnalyticsResult aggregate(@RequestBody(required = false) AnalyticsQuery query) {
+        return projection.aggregate(query == null ? new AnalyticsQuery() : query);
+    }
+}
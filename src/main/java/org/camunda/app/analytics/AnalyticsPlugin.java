@@ -0,0 +1,52 @@
+package org.camunda.app.analytics;
+
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.history.handler.HistoryEventHandler;
+import org.camunda.bpm.engine.impl.interceptor.Session;
+import org.camunda.bpm.engine.impl.interceptor.SessionFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feeds the {@link InvoiceProjection} from the history event stream, next to the default database
+ * history handler. The activity columns need history level activity, the variable columns audit.
+ */
+public class AnalyticsPlugin extends AbstractProcessEnginePlugin {
+
+    private final InvoiceProjection projection;
+    private final String processDefinitionKey;
+
+    public AnalyticsPlugin(InvoiceProjection projection, String processDefinitionKey) {
+        this.projection = projection;
+        this.processDefinitionKey = processDefinitionKey;
+    }
+
+    @Override
+    public void preInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+        List<SessionFactory> sessionFactories = processEngineConfiguration.getCustomSessionFactories();
+        if (sessionFactories == null) {
+            sessionFactories = new ArrayList<>();
+            processEngineConfiguration.setCustomSessionFactories(sessionFactories);
+        }
+        sessionFactories.add(new SessionFactory() {
+            @Override
+            public Class<?> getSessionType() {
+                return ProjectionSession.class;
+            }
+
+            @Override
+            public Session openSession() {
+                return new ProjectionSession(projection);
+            }
+        });
+
+        List<HistoryEventHandler> historyEventHandlers = processEngineConfiguration.getCustomHistoryEventHandlers();
+        if (historyEventHandlers == null) {
+            historyEventHandlers = new ArrayList<>();
+            processEngineConfiguration.setCustomHistoryEventHandlers(historyEventHandlers);
+        }
+        historyEventHandlers.add(new ProjectionHistoryEventHandler(projection, processDefinitionKey));
+    }
+}
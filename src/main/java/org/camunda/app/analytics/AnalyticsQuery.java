@@ -0,0 +1,44 @@
+package org.camunda.app.analytics;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+/**
+ * Aggregation over the {@link InvoiceProjection}: a measure per group of invoices, optionally
+ * filtered. Filters left {@code null} match everything.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class AnalyticsQuery {
+
+    /**
+     * {@code none}, {@code creditor}, {@code category}, {@code approverGroup}, {@code outcome} or
+     * {@code month} (of the start, UTC). An invoice counts for each of its approver groups.
+     */
+    private String groupBy = "none";
+    /**
+     * {@code amount}, {@code rejected} (1 if the invoice was rejected at least once, so the mean
+     * is the rejection rate), {@code cycleTime} (millis from start to end) or the id of a tracked
+     * activity (millis spent in it, e.g. {@code approveInvoice})
+     */
+    private String measure = "amount";
+    /**
+     * Start of the invoice, inclusive
+     */
+    private Date from;
+    /**
+     * Start of the invoice, exclusive
+     */
+    private Date to;
+    private String creditor;
+    private String category;
+    private String approverGroup;
+    /**
+     * {@code running}, {@code processed}, {@code notProcessed} or {@code canceled}
+     */
+    private String outcome;
+}
@@ -0,0 +1,53 @@
+package org.camunda.app.analytics;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Groups of an {@link AnalyticsQuery}, largest first. Percentiles are exact to 5%.
+ */
+@Getter
+public class AnalyticsResult {
+
+    private final String groupBy;
+    private final String measure;
+    private final long rowsScanned;
+    private final long rowsMatched;
+    private final long elapsedMicros;
+    private final List<Group> groups = new ArrayList<>();
+
+    AnalyticsResult(String groupBy, String measure, long rowsScanned, long rowsMatched, long elapsedMicros) {
+        this.groupBy = groupBy;
+        this.measure = measure;
+        this.rowsScanned = rowsScanned;
+        this.rowsMatched = rowsMatched;
+        this.elapsedMicros = elapsedMicros;
+    }
+
+    @Getter
+    public static class Group {
+        private final String key;
+        private final long count;
+        private final double sum;
+        private final double mean;
+        private final double min;
+        private final double max;
+        private final double p50;
+        private final double p90;
+        private final double p99;
+
+        Group(String key, ValueHistogram values) {
+            this.key = key;
+            this.count = values.getCount();
+            this.sum = values.getSum();
+            this.mean = values.mean();
+            this.min = values.min();
+            this.max = values.max();
+            this.p50 = values.percentile(0.5);
+            this.p90 = values.percentile(0.9);
+            this.p99 = values.percentile(0.99);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.camunda.app.analytics;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.lang.String.format;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Fixed width columns in memory-mapped segment files of {@code rowsPerSegment} rows each. Within a
+ * segment every column is one contiguous region, so a scan over a column reads sequential memory.
+ * New segments are zero-filled. Values are read and written with absolute positions; the buffers
+ * are shared by all threads, writers have to be serialized by the caller.
+ */
+class ColumnStore implements Closeable {
+
+    private static final int MAGIC = 0x494e5643;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final String LAYOUT_FILE = "layout";
+    private static final String SEGMENT_FILE_FORMAT = "columns-%06d.dat";
+
+    private final Path directory;
+    private final int rowsPerSegment;
+    private final int[] widths;
+    private final int[] offsets;
+    private final long segmentBytes;
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param rowsPerSegment rounded up to a multiple of 8, which keeps every column aligned
+     */
+    ColumnStore(Path directory, String[] names, int[] widths, int rowsPerSegment) {
+        this.directory = directory;
+        this.rowsPerSegment = (rowsPerSegment + 7) & ~7;
+        this.widths = widths.clone();
+        this.offsets = new int[widths.length];
+        long offset = HEADER_BYTES;
+        for (int column = 0; column < widths.length; column++) {
+            offsets[column] = (int) offset;
+            offset += (long) widths[column] * this.rowsPerSegment;
+        }
+        if (offset > Integer.MAX_VALUE) {
+            throw new ProcessEngineException(format("Segments of %d rows would exceed 2 GB, use fewer rows per segment", rowsPerSegment));
+        }
+        this.segmentBytes = offset;
+        try {
+            Files.createDirectories(directory);
+            checkLayout(names);
+            for (int segment = 0; Files.exists(segmentPath(segment)); segment++) {
+                segments.add(map(segment));
+            }
+        } catch (IOException e) {
+            throw new ProcessEngineException(format("Couldn't open the columns in %s", directory), e);
+        }
+    }
+
+    int getRowsPerSegment() {
+        return rowsPerSegment;
+    }
+
+    /**
+     * @return the segments, row {@code r} is in segment {@code r / rowsPerSegment}
+     */
+    List<MappedByteBuffer> getSegments() {
+        return segments;
+    }
+
+    /**
+     * @return the position of the row's value in its segment
+     */
+    int position(int column, int row) {
+        return offsets[column] + (row % rowsPerSegment) * widths[column];
+    }
+
+    /**
+     * Maps segments until the row fits.
+     */
+    void ensureCapacity(int rows) {
+        try {
+            while ((long) segments.size() * rowsPerSegment < rows) {
+                segments.add(map(segments.size()));
+            }
+        } catch (IOException e) {
+            throw new ProcessEngineException(format("Couldn't add a segment to the columns in %s", directory), e);
+        }
+    }
+
+    MappedByteBuffer segment(int row) {
+        return segments.get(row / rowsPerSegment);
+    }
+
+    long getLong(int column, int row) {
+        return segment(row).getLong(position(column, row));
+    }
+
+    void putLong(int column, int row, long value) {
+        segment(row).putLong(position(column, row), value);
+    }
+
+    double getDouble(int column, int row) {
+        return segment(row).getDouble(position(column, row));
+    }
+
+    void putDouble(int column, int row, double value) {
+        segment(row).putDouble(position(column, row), value);
+    }
+
+    int getInt(int column, int row) {
+        return segment(row).getInt(position(column, row));
+    }
+
+    void putInt(int column, int row, int value) {
+        segment(row).putInt(position(column, row), value);
+    }
+
+    byte getByte(int column, int row) {
+        return segment(row).get(position(column, row));
+    }
+
+    void putByte(int column, int row, byte value) {
+        segment(row).put(position(column, row), value);
+    }
+
+    /**
+     * Writes the changed pages of all segments to disk.
+     */
+    void force() {
+        segments.forEach(MappedByteBuffer::force);
+    }
+
+    @Override
+    public void close() {
+        force();
+        segments.clear();
+    }
+
+    private MappedByteBuffer map(int segment) throws IOException {
+        Path path = segmentPath(segment);
+        boolean created = !Files.exists(path);
+        try (FileChannel channel = FileChannel.open(path, CREATE, READ, WRITE)) {
+            MappedByteBuffer buffer = channel.map(READ_WRITE, 0, segmentBytes);
+            if (created) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(8, rowsPerSegment);
+            } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != rowsPerSegment) {
+                throw new ProcessEngineException(format("%s isn't a segment of %d rows of this version", path, rowsPerSegment));
+            }
+            return buffer;
+        }
+    }
+
+    /**
+     * Refuses to read segments written with other columns, they would be misread silently.
+     */
+    private void checkLayout(String[] names) throws IOException {
+        List<String> layout = new ArrayList<>();
+        for (int column = 0; column < names.length; column++) {
+            layout.add(names[column] + " " + widths[column]);
+        }
+        layout.add("rows " + rowsPerSegment);
+        Path path = directory.resolve(LAYOUT_FILE);
+        if (!Files.exists(path)) {
+            Files.write(path, layout, UTF_8);
+            return;
+        }
+        List<String> existing = Files.readAllLines(path, UTF_8);
+        if (!existing.equals(layout)) {
+            throw new ProcessEngineException(format(
+                    "The columns in %s were written as %s, not %s; move the directory away to project from scratch",
+                    directory, existing, Arrays.asList(names)));
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(format(SEGMENT_FILE_FORMAT, segment + 1));
+    }
+}
@@ -0,0 +1,620 @@
+package org.camunda.app.analytics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.bpm.engine.ProcessEngineException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * One row per invoice, built from history events: creditor, category and approver groups as
+ * dictionary ids, the amount, start and end, the outcome, the number of rejections and the time
+ * spent in each tracked activity. Rows live in a {@link ColumnStore}, so aggregations scan
+ * primitive columns in mapped memory and never touch the engine database.
+ * <p>
+ * Dictionary values and the row of every process instance are appended to {@code keys.log}; only
+ * running instances are kept on the heap to route their events. Invoices started before the
+ * projection was enabled are not projected.
+ */
+@Slf4j
+public class InvoiceProjection implements Closeable {
+
+    public static final String CREDITOR_VARIABLE = "creditor";
+    public static final String CATEGORY_VARIABLE = "invoiceCategory";
+    public static final String AMOUNT_VARIABLE = "amount";
+    public static final String APPROVED_VARIABLE = "approved";
+
+    private static final String KEYS_FILE = "keys.log";
+    private static final String INSTANCE = "instance";
+    private static final String CREDITOR = "creditor";
+    private static final String CATEGORY = "category";
+    private static final String GROUP = "group";
+    private static final String NONE = "(none)";
+    private static final int MAX_GROUPS = 64;
+    private static final int MAX_ACTIVITIES = 31;
+
+    private static final int STARTED_COLUMN = 0;
+    private static final int ENDED_COLUMN = 1;
+    private static final int AMOUNT_COLUMN = 2;
+    private static final int GROUPS_COLUMN = 3;
+    private static final int CREDITOR_COLUMN = 4;
+    private static final int CATEGORY_COLUMN = 5;
+    private static final int FLAGS_COLUMN = 6;
+    private static final int OUTCOME_COLUMN = 7;
+    private static final int REJECTIONS_COLUMN = 8;
+    private static final int DURATION_COLUMNS = 9;
+
+    /**
+     * Flag of a set amount, the flag of tracked activity {@code i} is {@code 2 << i}
+     */
+    private static final int AMOUNT_SET = 1;
+
+    enum Outcome {
+        RUNNING("running"),
+        PROCESSED("processed"),
+        NOT_PROCESSED("notProcessed"),
+        CANCELED("canceled");
+
+        private final String key;
+
+        Outcome(String key) {
+            this.key = key;
+        }
+
+        static Outcome of(String key) {
+            for (Outcome outcome : values()) {
+                if (outcome.key.equals(key)) {
+                    return outcome;
+                }
+            }
+            throw new IllegalArgumentException(format("Unknown outcome %s", key));
+        }
+    }
+
+    private final ColumnStore columns;
+    private final List<String> activityIds;
+    private final String processedActivityId;
+    private final MetricsRegistry metricsRegistry;
+    private final Map<String, Dictionary> dictionaries = new HashMap<>();
+    private final Map<String, Integer> runningRows = new HashMap<>();
+    private final FileChannel keys;
+    private volatile int rows;
+
+    /**
+     * @param activityIds         activities whose durations are projected, the order is part of the layout
+     * @param processedActivityId end event of invoices which were processed
+     */
+    public InvoiceProjection(
+            Path directory,
+            List<String> activityIds,
+            String processedActivityId,
+            int rowsPerSegment,
+            MetricsRegistry metricsRegistry
+    ) {
+        if (activityIds.size() > MAX_ACTIVITIES) {
+            throw new IllegalArgumentException(format("At most %d activities can be tracked", MAX_ACTIVITIES));
+        }
+        this.activityIds = Collections.unmodifiableList(new ArrayList<>(activityIds));
+        this.processedActivityId = processedActivityId;
+        this.metricsRegistry = metricsRegistry;
+        for (String dictionary : Arrays.asList(CREDITOR, CATEGORY, GROUP)) {
+            dictionaries.put(dictionary, new Dictionary());
+        }
+
+        List<String> names = new ArrayList<>(Arrays.asList("started", "ended", "amount", "approverGroups", "creditor", "category", "flags", "outcome", "rejections"));
+        List<Integer> widths = new ArrayList<>(Arrays.asList(8, 8, 8, 8, 4, 4, 4, 1, 1));
+        for (String activityId : activityIds) {
+            names.add("duration:" + activityId);
+            widths.add(8);
+        }
+        this.columns = new ColumnStore(directory, names.toArray(new String[0]), widths.stream().mapToInt(Integer::intValue).toArray(), rowsPerSegment);
+        try {
+            loadKeys(directory.resolve(KEYS_FILE));
+            this.keys = FileChannel.open(directory.resolve(KEYS_FILE), CREATE, WRITE, APPEND);
+        } catch (IOException e) {
+            throw new ProcessEngineException(format("Couldn't open the invoice projection in %s", directory), e);
+        }
+        metricsRegistry.gauge("invoice_analytics_rows", "Invoices in the analytics projection", () -> rows);
+        metricsRegistry.gauge("invoice_analytics_running_rows", "Running invoices the analytics projection routes events to", this::runningRowCount);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public List<String> getActivityIds() {
+        return activityIds;
+    }
+
+    /**
+     * Applies the changes of a committed transaction. Instance starts go first, their variables
+     * may be reported before them, and ends last.
+     */
+    public synchronized void apply(List<Change> changes) {
+        StringBuilder newKeys = new StringBuilder();
+        for (Change change : changes) {
+            if (change.type == Change.Type.STARTED) {
+                start(change, newKeys);
+            }
+        }
+        for (Change change : changes) {
+            Integer row = runningRows.get(change.processInstanceId);
+            if (row == null) {
+                continue;
+            }
+            switch (change.type) {
+                case VARIABLE:
+                    variable(row, change, newKeys);
+                    break;
+                case ACTIVITY_ENDED:
+                    activityEnded(row, change);
+                    break;
+                case APPROVER_GROUPS:
+                    approverGroups(row, change, newKeys);
+                    break;
+                default:
+                    break;
+            }
+        }
+        for (Change change : changes) {
+            Integer row = change.type == Change.Type.ENDED ? runningRows.remove(change.processInstanceId) : null;
+            if (row != null) {
+                columns.putLong(ENDED_COLUMN, row, Math.max(change.time, 1));
+                columns.putByte(OUTCOME_COLUMN, row, (byte) (change.name == null
+                        ? Outcome.CANCELED.ordinal()
+                        : change.name.equals(processedActivityId) ? Outcome.PROCESSED.ordinal() : Outcome.NOT_PROCESSED.ordinal()));
+            }
+        }
+        if (newKeys.length() > 0) {
+            writeKeys(newKeys);
+        }
+        metricsRegistry.increment("invoice_analytics_changes_total", "History changes applied to the analytics projection", changes.size());
+    }
+
+    public AnalyticsResult aggregate(AnalyticsQuery query) {
+        long startedAt = System.nanoTime();
+        Dimension dimension = Dimension.of(query.getGroupBy());
+        int measure = measure(query.getMeasure());
+
+        long from = query.getFrom() == null ? Long.MIN_VALUE : query.getFrom().getTime();
+        long to = query.getTo() == null ? Long.MAX_VALUE : query.getTo().getTime();
+        int creditor = filter(CREDITOR, query.getCreditor());
+        int category = filter(CATEGORY, query.getCategory());
+        int group = filter(GROUP, query.getApproverGroup());
+        int outcome = query.getOutcome() == null ? -1 : Outcome.of(query.getOutcome()).ordinal();
+        long groupMask = group <= 0 || group > MAX_GROUPS ? 0 : 1L << (group - 1);
+
+        int rowCount = rows;
+        ValueHistogram[] byKey = new ValueHistogram[16];
+        long matched = 0;
+        // an unknown dictionary value matches nothing
+        boolean empty = creditor == 0 || category == 0 || group == 0 || (group > MAX_GROUPS);
+        int rowsPerSegment = columns.getRowsPerSegment();
+        List<MappedByteBuffer> segments = columns.getSegments();
+        int lastDay = Integer.MIN_VALUE;
+        int lastMonth = 0;
+        for (int segment = 0; !empty && segment < segments.size() && segment * rowsPerSegment < rowCount; segment++) {
+            ByteBuffer buffer = segments.get(segment);
+            int base = segment * rowsPerSegment;
+            int size = Math.min(rowsPerSegment, rowCount - base);
+            int started = columns.position(STARTED_COLUMN, base);
+            int ended = columns.position(ENDED_COLUMN, base);
+            int amount = columns.position(AMOUNT_COLUMN, base);
+            int groups = columns.position(GROUPS_COLUMN, base);
+            int creditors = columns.position(CREDITOR_COLUMN, base);
+            int categories = columns.position(CATEGORY_COLUMN, base);
+            int flags = columns.position(FLAGS_COLUMN, base);
+            int outcomes = columns.position(OUTCOME_COLUMN, base);
+            int rejections = columns.position(REJECTIONS_COLUMN, base);
+            int durations = measure >= 0 ? columns.position(DURATION_COLUMNS + measure, base) : 0;
+
+            for (int row = 0; row < size; row++) {
+                long start = buffer.getLong(started + row * 8);
+                if (start == 0 || start < from || start >= to
+                        || creditor > 0 && buffer.getInt(creditors + row * 4) != creditor
+                        || category > 0 && buffer.getInt(categories + row * 4) != category
+                        || groupMask != 0 && (buffer.getLong(groups + row * 8) & groupMask) == 0
+                        || outcome >= 0 && buffer.get(outcomes + row) != outcome) {
+                    continue;
+                }
+
+                double value;
+                if (measure == Measure.AMOUNT) {
+                    if ((buffer.getInt(flags + row * 4) & AMOUNT_SET) == 0) {
+                        continue;
+                    }
+                    value = buffer.getDouble(amount + row * 8);
+                } else if (measure == Measure.REJECTED) {
+                    value = buffer.get(rejections + row) > 0 ? 1 : 0;
+                } else if (measure == Measure.CYCLE_TIME) {
+                    long end = buffer.getLong(ended + row * 8);
+                    if (end == 0) {
+                        continue;
+                    }
+                    value = end - start;
+                } else {
+                    if ((buffer.getInt(flags + row * 4) & (2 << measure)) == 0) {
+                        continue;
+                    }
+                    value = buffer.getLong(durations + row * 8);
+                }
+                matched++;
+
+                switch (dimension) {
+                    case CREDITOR:
+                        byKey = record(byKey, buffer.getInt(creditors + row * 4), value);
+                        break;
+                    case CATEGORY:
+                        byKey = record(byKey, buffer.getInt(categories + row * 4), value);
+                        break;
+                    case OUTCOME:
+                        byKey = record(byKey, buffer.get(outcomes + row), value);
+                        break;
+                    case MONTH:
+                        int day = (int) Math.floorDiv(start, TimeUnit.DAYS.toMillis(1));
+                        if (day != lastDay) {
+                            LocalDate date = LocalDate.ofEpochDay(day);
+                            lastDay = day;
+                            lastMonth = (date.getYear() - 1970) * 12 + date.getMonthValue() - 1;
+                        }
+                        byKey = record(byKey, Math.max(lastMonth, 0), value);
+                        break;
+                    case APPROVER_GROUP:
+                        long mask = buffer.getLong(groups + row * 8);
+                        if (mask == 0) {
+                            byKey = record(byKey, 0, value);
+                        }
+                        for (; mask != 0; mask &= mask - 1) {
+                            byKey = record(byKey, Long.numberOfTrailingZeros(mask) + 1, value);
+                        }
+                        break;
+                    default:
+                        byKey = record(byKey, 0, value);
+                        break;
+                }
+            }
+        }
+
+        AnalyticsResult result = new AnalyticsResult(
+                dimension.key, query.getMeasure() == null ? Measure.AMOUNT_NAME : query.getMeasure(), rowCount, matched, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt));
+        for (int key = 0; key < byKey.length; key++) {
+            if (byKey[key] != null) {
+                result.getGroups().add(new AnalyticsResult.Group(label(dimension, key), byKey[key]));
+            }
+        }
+        result.getGroups().sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+        return result;
+    }
+
+    /**
+     * Writes the mapped columns to disk, the operating system does so eventually anyway.
+     */
+    public void force() {
+        columns.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        columns.close();
+        try {
+            keys.close();
+        } catch (IOException e) {
+            log.warn(format("Couldn't close %s: %s", KEYS_FILE, e.getMessage()));
+        }
+    }
+
+    private void start(Change change, StringBuilder newKeys) {
+        if (runningRows.containsKey(change.processInstanceId)) {
+            return;
+        }
+        int row = rows;
+        columns.ensureCapacity(row + 1);
+        columns.putLong(STARTED_COLUMN, row, Math.max(change.time, 1));
+        runningRows.put(change.processInstanceId, row);
+        appendKey(newKeys, INSTANCE, row, change.processInstanceId);
+        rows = row + 1;
+    }
+
+    private void variable(int row, Change change, StringBuilder newKeys) {
+        switch (change.name) {
+            case CREDITOR_VARIABLE:
+                if (change.text != null) {
+                    columns.putInt(CREDITOR_COLUMN, row, id(CREDITOR, change.text, newKeys));
+                }
+                break;
+            case CATEGORY_VARIABLE:
+                if (change.text != null) {
+                    columns.putInt(CATEGORY_COLUMN, row, id(CATEGORY, change.text, newKeys));
+                }
+                break;
+            case AMOUNT_VARIABLE:
+                if (change.number != null) {
+                    columns.putDouble(AMOUNT_COLUMN, row, change.number);
+                    columns.putInt(FLAGS_COLUMN, row, columns.getInt(FLAGS_COLUMN, row) | AMOUNT_SET);
+                }
+                break;
+            case APPROVED_VARIABLE:
+                if (change.number != null && change.number == 0) {
+                    byte rejections = columns.getByte(REJECTIONS_COLUMN, row);
+                    columns.putByte(REJECTIONS_COLUMN, row, (byte) Math.min(Byte.MAX_VALUE, rejections + 1));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void activityEnded(int row, Change change) {
+        int activity = activityIds.indexOf(change.name);
+        if (activity < 0) {
+            return;
+        }
+        // activities passed more than once, e.g. approval after a review, add up
+        int column = DURATION_COLUMNS + activity;
+        columns.putLong(column, row, columns.getLong(column, row) + Math.max(change.number.longValue(), 0));
+        columns.putInt(FLAGS_COLUMN, row, columns.getInt(FLAGS_COLUMN, row) | (2 << activity));
+    }
+
+    private void approverGroups(int row, Change change, StringBuilder newKeys) {
+        // every update of the variable holds all groups
+        long mask = 0;
+        for (String group : change.values) {
+            int id = id(GROUP, group, newKeys);
+            if (id <= MAX_GROUPS) {
+                mask |= 1L << (id - 1);
+            } else {
+                log.debug(format("Approver group %s isn't projected, only %d groups are", group, MAX_GROUPS));
+            }
+        }
+        columns.putLong(GROUPS_COLUMN, row, mask);
+    }
+
+    private int id(String dictionary, String value, StringBuilder newKeys) {
+        Dictionary values = dictionaries.get(dictionary);
+        Integer id = values.ids.get(value);
+        if (id == null) {
+            id = values.ids.size() + 1;
+            values.add(id, value);
+            appendKey(newKeys, dictionary, id, value);
+        }
+        return id;
+    }
+
+    /**
+     * @return the id of the value, 0 if unknown, -1 without filter
+     */
+    private int filter(String dictionary, String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer id = dictionaries.get(dictionary).ids.get(value);
+        return id == null ? 0 : id;
+    }
+
+    private int measure(String measure) {
+        switch (measure == null ? Measure.AMOUNT_NAME : measure) {
+            case Measure.AMOUNT_NAME:
+                return Measure.AMOUNT;
+            case Measure.REJECTED_NAME:
+                return Measure.REJECTED;
+            case Measure.CYCLE_TIME_NAME:
+                return Measure.CYCLE_TIME;
+            default:
+                int activity = activityIds.indexOf(measure);
+                if (activity < 0) {
+                    throw new IllegalArgumentException(format("Unknown measure %s, the tracked activities are %s", measure, activityIds));
+                }
+                return activity;
+        }
+    }
+
+    private String label(Dimension dimension, int key) {
+        switch (dimension) {
+            case CREDITOR:
+                return dictionaries.get(CREDITOR).label(key);
+            case CATEGORY:
+                return dictionaries.get(CATEGORY).label(key);
+            case APPROVER_GROUP:
+                return dictionaries.get(GROUP).label(key);
+            case OUTCOME:
+                return Outcome.values()[key].key;
+            case MONTH:
+                return format("%04d-%02d", 1970 + key / 12, key % 12 + 1);
+            default:
+                return "all";
+        }
+    }
+
+    private static ValueHistogram[] record(ValueHistogram[] byKey, int key, double value) {
+        if (key >= byKey.length) {
+            byKey = Arrays.copyOf(byKey, Math.max(key + 1, byKey.length * 2));
+        }
+        ValueHistogram values = byKey[key];
+        if (values == null) {
+            values = new ValueHistogram();
+            byKey[key] = values;
+        }
+        values.record(value);
+        return byKey;
+    }
+
+    private synchronized int runningRowCount() {
+        return runningRows.size();
+    }
+
+    private void loadKeys(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        Map<String, Integer> instances = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", 3);
+                if (parts.length < 3) {
+                    continue;
+                }
+                int id = Integer.parseInt(parts[1]);
+                if (INSTANCE.equals(parts[0])) {
+                    instances.put(parts[2], id);
+                } else if (dictionaries.containsKey(parts[0])) {
+                    dictionaries.get(parts[0]).add(id, parts[2]);
+                }
+            }
+        }
+        int rowCount = instances.values().stream().mapToInt(row -> row + 1).max().orElse(0);
+        columns.ensureCapacity(rowCount);
+        instances.forEach((processInstanceId, row) -> {
+            if (columns.getLong(ENDED_COLUMN, row) == 0) {
+                runningRows.put(processInstanceId, row);
+            }
+        });
+        rows = rowCount;
+        log.info(format("Loaded %d projected invoices, %d of them running, from %s", rowCount, runningRows.size(), path));
+    }
+
+    private void writeKeys(StringBuilder newKeys) {
+        ByteBuffer buffer = ByteBuffer.wrap(newKeys.toString().getBytes(UTF_8));
+        try {
+            while (buffer.hasRemaining()) {
+                keys.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new ProcessEngineException(format("Couldn't append to %s", KEYS_FILE), e);
+        }
+    }
+
+    private static void appendKey(StringBuilder newKeys, String kind, int id, String value) {
+        newKeys.append(kind).append('\t').append(id).append('\t').append(value.replaceAll("[\t\r\n]", " ")).append('\n');
+    }
+
+    enum Dimension {
+        NONE("none"),
+        CREDITOR("creditor"),
+        CATEGORY("category"),
+        APPROVER_GROUP("approverGroup"),
+        OUTCOME("outcome"),
+        MONTH("month");
+
+        private final String key;
+
+        Dimension(String key) {
+            this.key = key;
+        }
+
+        static Dimension of(String key) {
+            for (Dimension dimension : values()) {
+                if (dimension.key.equals(key == null ? NONE.key : key)) {
+                    return dimension;
+                }
+            }
+            throw new IllegalArgumentException(format("Unknown dimension %s", key));
+        }
+    }
+
+    private static final class Measure {
+        private static final String AMOUNT_NAME = "amount";
+        private static final String REJECTED_NAME = "rejected";
+        private static final String CYCLE_TIME_NAME = "cycleTime";
+        private static final int AMOUNT = -1;
+        private static final int REJECTED = -2;
+        private static final int CYCLE_TIME = -3;
+    }
+
+    /**
+     * Values by id and back; ids start at 1, 0 is a row without value.
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private final Map<Integer, String> values = new ConcurrentHashMap<>();
+
+        private void add(int id, String value) {
+            ids.put(value, id);
+            values.put(id, value);
+        }
+
+        private String label(int id) {
+            return id == 0 ? NONE : values.getOrDefault(id, NONE);
+        }
+    }
+
+    /**
+     * What a history event changes in the projection, taken from the event when it is handled.
+     */
+    public static class Change {
+
+        enum Type {
+            STARTED,
+            VARIABLE,
+            ACTIVITY_ENDED,
+            APPROVER_GROUPS,
+            ENDED
+        }
+
+        private final Type type;
+        private final String processInstanceId;
+        private final String name;
+        private final String text;
+        private final Double number;
+        private final long time;
+        private final List<String> values;
+
+        private Change(Type type, String processInstanceId, String name, String text, Double number, long time, List<String> values) {
+            this.type = type;
+            this.processInstanceId = processInstanceId;
+            this.name = name;
+            this.text = text;
+            this.number = number;
+            this.time = time;
+            this.values = values;
+        }
+
+        public static Change started(String processInstanceId, long time) {
+            return new Change(Type.STARTED, processInstanceId, null, null, null, time, null);
+        }
+
+        /**
+         * @param number numeric value, booleans as 0 and 1
+         */
+        public static Change variable(String processInstanceId, String name, String text, Double number) {
+            return new Change(Type.VARIABLE, processInstanceId, name, text, number, 0, null);
+        }
+
+        public static Change activityEnded(String processInstanceId, String activityId, long durationMillis) {
+            return new Change(Type.ACTIVITY_ENDED, processInstanceId, activityId, null, (double) durationMillis, 0, null);
+        }
+
+        public static Change approverGroups(String processInstanceId, List<String> groups) {
+            return new Change(Type.APPROVER_GROUPS, processInstanceId, null, null, null, 0, groups);
+        }
+
+        /**
+         * @param endActivityId {@code null} if the instance was canceled
+         */
+        public static Change ended(String processInstanceId, String endActivityId, long time) {
+            return new Change(Type.ENDED, processInstanceId, endActivityId, null, null, time, null);
+        }
+    }
+}
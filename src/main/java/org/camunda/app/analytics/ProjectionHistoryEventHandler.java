@@ -0,0 +1,179 @@
+package org.camunda.app.analytics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.history.HistoricProcessInstance;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.history.event.HistoricActivityInstanceEventEntity;
+import org.camunda.bpm.engine.impl.history.event.HistoricProcessInstanceEventEntity;
+import org.camunda.bpm.engine.impl.history.event.HistoricVariableUpdateEventEntity;
+import org.camunda.bpm.engine.impl.history.event.HistoryEvent;
+import org.camunda.bpm.engine.impl.history.event.HistoryEventTypes;
+import org.camunda.bpm.engine.impl.history.handler.HistoryEventHandler;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.variable.Variables.SerializationDataFormats;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+/**
+ * Turns the history events of invoice instances into {@link InvoiceProjection} changes: start and
+ * end, the invoice variables, the ends of tracked activities and the approver groups. Runs next to
+ * the default database history handler.
+ * <p>
+ * The approver groups are read from the {@value #APPROVER_GROUPS_VARIABLE} variable the assign
+ * approver task writes, a list of group ids in Java or JSON serialization, not from the decision
+ * history, which depends on the decision history level and on how the decision was evaluated.
+ */
+@Slf4j
+public class ProjectionHistoryEventHandler implements HistoryEventHandler {
+
+    static final String APPROVER_GROUPS_VARIABLE = "approverGroups";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final Set<String> VARIABLES = new HashSet<>(Arrays.asList(
+            InvoiceProjection.CREDITOR_VARIABLE,
+            InvoiceProjection.CATEGORY_VARIABLE,
+            InvoiceProjection.AMOUNT_VARIABLE,
+            InvoiceProjection.APPROVED_VARIABLE
+    ));
+
+    private final InvoiceProjection projection;
+    private final String processDefinitionKey;
+    private final Set<String> activityIds;
+
+    public ProjectionHistoryEventHandler(InvoiceProjection projection, String processDefinitionKey) {
+        this.projection = projection;
+        this.processDefinitionKey = processDefinitionKey;
+        this.activityIds = new HashSet<>(projection.getActivityIds());
+    }
+
+    @Override
+    public void handleEvent(HistoryEvent historyEvent) {
+        InvoiceProjection.Change change = changeOf(historyEvent);
+        if (change == null) {
+            return;
+        }
+        CommandContext commandContext = Context.getCommandContext();
+        if (commandContext == null) {
+            projection.apply(Collections.singletonList(change));
+        } else {
+            commandContext.getSession(ProjectionSession.class).add(change, commandContext);
+        }
+    }
+
+    @Override
+    public void handleEvents(List<HistoryEvent> historyEvents) {
+        historyEvents.forEach(this::handleEvent);
+    }
+
+    private InvoiceProjection.Change changeOf(HistoryEvent historyEvent) {
+        if (!processDefinitionKey.equals(historyEvent.getProcessDefinitionKey()) || historyEvent.getProcessInstanceId() == null) {
+            return null;
+        }
+
+        String processInstanceId = historyEvent.getProcessInstanceId();
+        if (historyEvent instanceof HistoricProcessInstanceEventEntity) {
+            HistoricProcessInstanceEventEntity instance = (HistoricProcessInstanceEventEntity) historyEvent;
+            if (historyEvent.isEventOfType(HistoryEventTypes.PROCESS_INSTANCE_START) && instance.getStartTime() != null) {
+                return InvoiceProjection.Change.started(processInstanceId, instance.getStartTime().getTime());
+            }
+            if (historyEvent.isEventOfType(HistoryEventTypes.PROCESS_INSTANCE_END) && instance.getEndTime() != null) {
+                return InvoiceProjection.Change.ended(
+                        processInstanceId,
+                        HistoricProcessInstance.STATE_COMPLETED.equals(instance.getState()) ? instance.getEndActivityId() : null,
+                        instance.getEndTime().getTime()
+                );
+            }
+        } else if (historyEvent instanceof HistoricVariableUpdateEventEntity) {
+            HistoricVariableUpdateEventEntity variable = (HistoricVariableUpdateEventEntity) historyEvent;
+            if (!historyEvent.isEventOfType(HistoryEventTypes.VARIABLE_INSTANCE_CREATE) && !historyEvent.isEventOfType(HistoryEventTypes.VARIABLE_INSTANCE_UPDATE)) {
+                return null;
+            }
+            if (APPROVER_GROUPS_VARIABLE.equals(variable.getVariableName())) {
+                List<String> groups = approverGroups(variable);
+                return groups == null ? null : InvoiceProjection.Change.approverGroups(processInstanceId, groups);
+            }
+            if (VARIABLES.contains(variable.getVariableName())) {
+                Double number = variable.getDoubleValue() != null
+                        ? variable.getDoubleValue()
+                        : variable.getLongValue() != null ? Double.valueOf(variable.getLongValue()) : null;
+                return InvoiceProjection.Change.variable(processInstanceId, variable.getVariableName(), variable.getTextValue(), number);
+            }
+        } else if (historyEvent instanceof HistoricActivityInstanceEventEntity) {
+            HistoricActivityInstanceEventEntity activity = (HistoricActivityInstanceEventEntity) historyEvent;
+            if (historyEvent.isEventOfType(HistoryEventTypes.ACTIVITY_INSTANCE_END)
+                    && activityIds.contains(activity.getActivityId())
+                    && activity.getDurationInMillis() != null) {
+                return InvoiceProjection.Change.activityEnded(processInstanceId, activity.getActivityId(), activity.getDurationInMillis());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the group ids, {@code null} if the value can't be read
+     */
+    private static List<String> approverGroups(HistoricVariableUpdateEventEntity variable) {
+        byte[] bytes = variable.getByteValue();
+        if (bytes == null) {
+            return variable.getTextValue() == null ? null : Collections.singletonList(variable.getTextValue());
+        }
+        try {
+            Object value;
+            if (SerializationDataFormats.JSON.getName().equals(variable.getTextValue2())) {
+                value = OBJECT_MAPPER.readValue(new String(bytes, StandardCharsets.UTF_8), Object.class);
+            } else {
+                try (ObjectInputStream in = new CollectionInputStream(new ByteArrayInputStream(bytes))) {
+                    value = in.readObject();
+                }
+            }
+            if (!(value instanceof Collection)) {
+                return null;
+            }
+            List<String> groups = new ArrayList<>();
+            for (Object group : (Collection<?>) value) {
+                if (group != null) {
+                    groups.add(group.toString());
+                }
+            }
+            return groups;
+        } catch (IOException | ClassNotFoundException e) {
+            log.warn(format("Couldn't read the approver groups of process instance %s: %s", variable.getProcessInstanceId(), e.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Deserializes JDK collections of strings only.
+     */
+    private static class CollectionInputStream extends ObjectInputStream {
+
+        private CollectionInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+            String name = description.getName();
+            if (!name.startsWith("java.util.") && !name.equals("java.lang.String")) {
+                throw new ClassNotFoundException(format("%s isn't a collection of group ids", name));
+            }
+            return super.resolveClass(description);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.camunda.app.analytics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.interceptor.Session;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Collects the projection changes of a command and applies them once its transaction commits, so
+ * rolled back work never shows up in the projection and every commit takes the projection's lock
+ * once.
+ */
+@Slf4j
+class ProjectionSession implements Session {
+
+    private final InvoiceProjection projection;
+    private List<InvoiceProjection.Change> changes;
+
+    ProjectionSession(InvoiceProjection projection) {
+        this.projection = projection;
+    }
+
+    void add(InvoiceProjection.Change change, CommandContext commandContext) {
+        if (changes == null) {
+            List<InvoiceProjection.Change> committed = new ArrayList<>();
+            changes = committed;
+            commandContext.getTransactionContext().addTransactionListener(TransactionState.COMMITTED, context -> {
+                try {
+                    projection.apply(committed);
+                } catch (RuntimeException e) {
+                    // the transaction is committed already, the projection misses these changes
+                    log.warn(format("Couldn't project %d history changes: %s", committed.size(), e.getMessage()));
+                }
+            });
+        }
+        changes.add(change);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
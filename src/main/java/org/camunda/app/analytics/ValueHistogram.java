@@ -0,0 +1,80 @@
+package org.camunda.app.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Distribution of non-negative values in exponentially growing buckets 5% apart from 1 on, so
+ * percentiles are exact to 5%. Only the range of buckets actually hit is allocated, which keeps
+ * one histogram per creditor affordable. Not thread safe, a query runs on one thread.
+ */
+class ValueHistogram {
+
+    private static final double FACTOR = 1.05;
+    private static final double LOG_FACTOR = Math.log(FACTOR);
+    private static final int SIZE = 640;
+
+    private int firstBucket = -1;
+    private int[] counts = new int[0];
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    void record(double value) {
+        int bucket = value <= 1 ? 0 : Math.min(SIZE, 1 + (int) (Math.log(value) / LOG_FACTOR));
+        if (firstBucket < 0) {
+            firstBucket = bucket;
+            counts = new int[4];
+        } else if (bucket < firstBucket) {
+            int[] grown = new int[counts.length + firstBucket - bucket];
+            System.arraycopy(counts, 0, grown, firstBucket - bucket, counts.length);
+            counts = grown;
+            firstBucket = bucket;
+        } else if (bucket - firstBucket >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(bucket - firstBucket + 1, counts.length * 2));
+        }
+        counts[bucket - firstBucket]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    double getSum() {
+        return sum;
+    }
+
+    double mean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    double min() {
+        return count == 0 ? 0 : min;
+    }
+
+    double max() {
+        return count == 0 ? 0 : max;
+    }
+
+    /**
+     * @return the upper bound of the bucket holding the percentile, within minimum and maximum
+     */
+    double percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * count);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(Math.pow(FACTOR, firstBucket + i), max));
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,33 @@
+package org.camunda.app.archive;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import static java.lang.String.format;
+
+/**
+ * Location of an archived invoice document inside the archive segments.
+ */
+@Getter
+@AllArgsConstructor
+public class ArchiveEntry {
+
+    private static final String SEPARATOR = "\t";
+
+    private final String invoiceNumber;
+    private final int segment;
+    private final long offset;
+    private final long length;
+
+    String toIndexLine() {
+        return invoiceNumber + SEPARATOR + segment + SEPARATOR + offset + SEPARATOR + length + "\n";
+    }
+
+    static ArchiveEntry fromIndexLine(String line) {
+        String[] parts = line.split(SEPARATOR);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException(format("Invalid archive index line '%s'", line));
+        }
+        return new ArchiveEntry(parts[0], Integer.parseInt(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+    }
+}
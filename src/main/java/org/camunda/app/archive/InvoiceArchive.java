@@ -0,0 +1,344 @@
+package org.camunda.app.archive;
+
+import com.google.common.io.ByteStreams;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.app.document.ByteBufferInputStream;
+import org.camunda.app.document.DocumentReference;
+import org.camunda.app.document.DocumentStore;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.variable.impl.value.FileValueImpl;
+import org.camunda.bpm.engine.variable.value.FileValue;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only archive for invoice documents. Documents are copied into rolling segment files
+ * with {@link FileChannel#transferTo}, so their content never passes through the heap when it
+ * comes from the {@link DocumentStore}. Writes of concurrent callers are picked up by a single
+ * writer thread which appends a whole group, fsyncs the segment and index once and only then
+ * releases the callers. Closing lets the writer finish every write queued before, later writes fail.
+ */
+@Slf4j
+public class InvoiceArchive implements Closeable {
+
+    private static final String INDEX_FILE = "index.log";
+    private static final String SEGMENT_FILE_FORMAT = "segment-%06d.dat";
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final Path directory;
+    private final DocumentStore documentStore;
+    private final long segmentSize;
+    private final int maxBatchSize;
+
+    private final BlockingQueue<PendingWrite> queue;
+    private final Map<String, ArchiveEntry> index = new ConcurrentHashMap<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private FileChannel indexChannel;
+    private FileChannel segmentChannel;
+    private int segment;
+    private long segmentPosition;
+
+    public InvoiceArchive(Path directory, DocumentStore documentStore, long segmentSize, int maxBatchSize, int queueCapacity) {
+        this.directory = directory;
+        this.documentStore = documentStore;
+        this.segmentSize = segmentSize;
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        try {
+            Files.createDirectories(directory);
+            loadIndex();
+            indexChannel = FileChannel.open(directory.resolve(INDEX_FILE), CREATE, WRITE, APPEND);
+            openSegment(lastSegment());
+        } catch (IOException e) {
+            throw new ProcessEngineException(format("Couldn't open invoice archive in %s", directory), e);
+        }
+        this.writer = new Thread(this::writeLoop, "invoice-archive-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Archives the document and blocks until it is durably written.
+     */
+    public ArchiveEntry archive(String invoiceNumber, FileValue document) {
+        if (!running) {
+            throw new ProcessEngineException("Invoice archive is closed");
+        }
+        PendingWrite write = new PendingWrite(invoiceNumber, document);
+        try {
+            queue.put(write);
+            // closed meanwhile and the writer may be gone already, nobody else would complete it
+            if (!running && queue.remove(write)) {
+                write.result.completeExceptionally(new ProcessEngineException("Invoice archive is closed"));
+            }
+            return write.result.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessEngineException(format("Interrupted while archiving invoice %s", invoiceNumber), e);
+        } catch (CompletionException e) {
+            throw new ProcessEngineException(format("Could not archive invoice %s", invoiceNumber), e.getCause());
+        }
+    }
+
+    public ArchiveEntry lookup(String invoiceNumber) {
+        return index.get(invoiceNumber);
+    }
+
+    /**
+     * Opens the archived document of the invoice as a memory-mapped stream.
+     *
+     * @return the document stream or {@code null} if the invoice was not archived
+     */
+    public InputStream open(String invoiceNumber) {
+        ArchiveEntry entry = index.get(invoiceNumber);
+        if (entry == null) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(segmentPath(entry.getSegment()), READ)) {
+            ByteBuffer buffer = channel.map(READ_ONLY, entry.getOffset(), entry.getLength());
+            return new ByteBufferInputStream(buffer);
+        } catch (IOException e) {
+            throw new ProcessEngineException(format("Couldn't read archived invoice %s", invoiceNumber), e);
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Waits for the writer to append and sync the queued writes before the files are closed.
+     */
+    @Override
+    public void close() {
+        running = false;
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        failQueued();
+        closeQuietly(segmentChannel);
+        closeQuietly(indexChannel);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            PendingWrite write;
+            try {
+                write = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // close() still waits for the writer, keep going until the queue is empty
+                continue;
+            }
+            if (write == null) {
+                continue;
+            }
+            batch.add(write);
+            queue.drainTo(batch, maxBatchSize - 1);
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void failQueued() {
+        ProcessEngineException closed = new ProcessEngineException("Invoice archive is closed");
+        PendingWrite write;
+        while ((write = queue.poll()) != null) {
+            write.result.completeExceptionally(closed);
+        }
+    }
+
+    private void writeBatch(List<PendingWrite> batch) {
+        List<ArchiveEntry> entries = new ArrayList<>(batch.size());
+        StringBuilder indexLines = new StringBuilder();
+        try {
+            for (PendingWrite write : batch) {
+                ArchiveEntry entry = append(write);
+                entries.add(entry);
+                indexLines.append(entry.toIndexLine());
+            }
+            segmentChannel.force(false);
+
+            ByteBuffer buffer = ByteBuffer.wrap(indexLines.toString().getBytes(UTF_8));
+            while (buffer.hasRemaining()) {
+                indexChannel.write(buffer);
+            }
+            indexChannel.force(false);
+        } catch (IOException | RuntimeException e) {
+            log.warn(format("Failed to archive a group of %d invoices: %s", batch.size(), e.getMessage()));
+            batch.forEach(write -> write.result.completeExceptionally(e));
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            ArchiveEntry entry = entries.get(i);
+            index.put(entry.getInvoiceNumber(), entry);
+            batch.get(i).result.complete(entry);
+        }
+    }
+
+    private ArchiveEntry append(PendingWrite write) throws IOException {
+        FileValue document = write.document;
+        String hash = document instanceof DocumentReference ? ((DocumentReference) document).getHash() : null;
+        if (hash != null) {
+            try (FileChannel source = documentStore.openChannel(hash)) {
+                long length = source.size();
+                rollIfFull(length);
+                long offset = segmentPosition;
+                try {
+                    long transferred = 0;
+                    while (transferred < length) {
+                        transferred += source.transferTo(transferred, length - transferred, segmentChannel);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    truncate(offset);
+                    throw e;
+                }
+                segmentPosition += length;
+                return new ArchiveEntry(write.invoiceNumber, segment, offset, length);
+            }
+        }
+
+        // the content is on the heap already, its length decides the segment
+        byte[] content = contentOf(document);
+        rollIfFull(content.length);
+        long offset = segmentPosition;
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        try {
+            while (buffer.hasRemaining()) {
+                segmentPosition += segmentChannel.write(buffer, segmentPosition);
+            }
+            segmentChannel.position(segmentPosition);
+        } catch (IOException | RuntimeException e) {
+            truncate(offset);
+            throw e;
+        }
+        return new ArchiveEntry(write.invoiceNumber, segment, offset, content.length);
+    }
+
+    /**
+     * Drops what a failed write left in the segment, the next entry has to start at its offset.
+     */
+    private void truncate(long offset) {
+        segmentPosition = offset;
+        try {
+            segmentChannel.truncate(offset);
+            segmentChannel.position(offset);
+        } catch (IOException e) {
+            log.warn(format("Couldn't truncate segment %d to %d: %s", segment, offset, e.getMessage()));
+        }
+    }
+
+    private static byte[] contentOf(FileValue document) throws IOException {
+        if (document instanceof FileValueImpl && ((FileValueImpl) document).getByteArray() != null) {
+            return ((FileValueImpl) document).getByteArray();
+        }
+        InputStream content = document == null ? null : document.getValue();
+        if (content == null) {
+            return new byte[0];
+        }
+        try (InputStream in = content) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    private void rollIfFull(long length) throws IOException {
+        if (segmentPosition > 0 && segmentPosition + length > segmentSize) {
+            segmentChannel.force(false);
+            segmentChannel.close();
+            openSegment(segment + 1);
+        }
+    }
+
+    private void openSegment(int number) throws IOException {
+        segment = number;
+        segmentChannel = FileChannel.open(segmentPath(number), CREATE, WRITE);
+        segmentPosition = segmentChannel.size();
+        segmentChannel.position(segmentPosition);
+    }
+
+    private int lastSegment() {
+        int last = 1;
+        while (Files.exists(segmentPath(last + 1))) {
+            last++;
+        }
+        return last;
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(format(SEGMENT_FILE_FORMAT, number));
+    }
+
+    private void loadIndex() throws IOException {
+        Path indexFile = directory.resolve(INDEX_FILE);
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    ArchiveEntry entry = ArchiveEntry.fromIndexLine(line);
+                    index.put(entry.getInvoiceNumber(), entry);
+                }
+            }
+        }
+        log.info(format("Loaded %d archived invoices from %s", index.size(), indexFile));
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            log.warn(format("Couldn't close %s", closeable));
+        }
+    }
+
+    private static class PendingWrite {
+        private final String invoiceNumber;
+        private final FileValue document;
+        private final CompletableFuture<ArchiveEntry> result = new CompletableFuture<>();
+
+        private PendingWrite(String invoiceNumber, FileValue document) {
+            this.invoiceNumber = invoiceNumber;
+            this.document = document;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.camunda.app.authorization;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import lombok.EqualsAndHashCode;
+import org.camunda.bpm.engine.authorization.Authorization;
+import org.camunda.bpm.engine.impl.db.PermissionCheck;
+import org.camunda.bpm.engine.impl.db.CompositePermissionCheck;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of authorization check results keyed by the user, the user's groups and the
+ * permission checks. Changing an authorization drops only the entries of its resource type which
+ * belong to its user or group (all users for global authorizations), membership changes drop the
+ * entries of the user or group concerned.
+ * <p>
+ * Invalidation only sees changes made through this engine. When other nodes change authorizations
+ * too, set an expiry to bound how long a node works with stale results.
+ */
+public class AuthorizationCache {
+
+    private final Cache<Key, Boolean> results;
+    private final long expireAfterWriteMillis;
+    private volatile Boolean revokesExist;
+    private volatile long revokesCheckedAt;
+
+    public AuthorizationCache(long maximumSize) {
+        this(maximumSize, 0);
+    }
+
+    /**
+     * @param expireAfterWriteSeconds how long results are kept at most, 0 keeps them until invalidated
+     */
+    public AuthorizationCache(long maximumSize, long expireAfterWriteSeconds) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats();
+        if (expireAfterWriteSeconds > 0) {
+            builder.expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS);
+        }
+        this.results = builder.build();
+        this.expireAfterWriteMillis = TimeUnit.SECONDS.toMillis(expireAfterWriteSeconds);
+    }
+
+    Key keyOf(String userId, List<String> groupIds, CompositePermissionCheck permissionCheck) {
+        List<String> groups = groupIds == null ? Collections.emptyList() : new ArrayList<>(groupIds);
+        Collections.sort(groups);
+        Set<Integer> resourceTypes = new HashSet<>();
+        StringBuilder check = new StringBuilder();
+        describe(permissionCheck, check, resourceTypes);
+        return new Key(userId, groups, check.toString(), resourceTypes);
+    }
+
+    Boolean get(Key key) {
+        return results.getIfPresent(key);
+    }
+
+    void put(Key key, boolean authorized) {
+        results.put(key, authorized);
+    }
+
+    /**
+     * @return whether any revoke authorization exists or {@code null} if unknown
+     */
+    Boolean getRevokesExist() {
+        if (expireAfterWriteMillis > 0 && System.currentTimeMillis() - revokesCheckedAt > expireAfterWriteMillis) {
+            return null;
+        }
+        return revokesExist;
+    }
+
+    void setRevokesExist(boolean revokesExist) {
+        this.revokesCheckedAt = System.currentTimeMillis();
+        this.revokesExist = revokesExist;
+    }
+
+    public void invalidate(Authorization authorization) {
+        revokesExist = null;
+        String userId = authorization.getUserId();
+        String groupId = authorization.getGroupId();
+        boolean global = authorization.getAuthorizationType() == Authorization.AUTH_TYPE_GLOBAL
+                || Authorization.ANY.equals(userId);
+        results.asMap().keySet().removeIf(key -> key.resourceTypes.contains(authorization.getResourceType())
+                && (global || (userId != null && userId.equals(key.userId)) || (groupId != null && key.groupIds.contains(groupId))));
+    }
+
+    public void invalidateResourceType(int resourceType) {
+        revokesExist = null;
+        results.asMap().keySet().removeIf(key -> key.resourceTypes.contains(resourceType));
+    }
+
+    public void invalidateUser(String userId) {
+        results.asMap().keySet().removeIf(key -> userId.equals(key.userId));
+    }
+
+    public void invalidateGroup(String groupId) {
+        results.asMap().keySet().removeIf(key -> key.groupIds.contains(groupId));
+    }
+
+    public void invalidateAll() {
+        revokesExist = null;
+        results.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return results.stats();
+    }
+
+    public long size() {
+        return results.size();
+    }
+
+    private static void describe(CompositePermissionCheck permissionCheck, StringBuilder check, Set<Integer> resourceTypes) {
+        check.append(permissionCheck.isDisjunctive() ? "or(" : "and(");
+        for (PermissionCheck atomicCheck : permissionCheck.getAtomicChecks()) {
+            resourceTypes.add(atomicCheck.getResource().resourceType());
+            check.append(atomicCheck.getPermission().getName())
+                    .append('@').append(atomicCheck.getResource().resourceType())
+                    .append('/').append(atomicCheck.getResourceId())
+                    .append('/').append(atomicCheck.getAuthorizationNotFoundReturnValue())
+                    .append(',');
+        }
+        for (CompositePermissionCheck compositeCheck : permissionCheck.getCompositeChecks()) {
+            describe(compositeCheck, check, resourceTypes);
+            check.append(',');
+        }
+        check.append(')');
+    }
+
+    @EqualsAndHashCode
+    static class Key {
+        private final String userId;
+        private final List<String> groupIds;
+        private final String check;
+        @EqualsAndHashCode.Exclude
+        private final Set<Integer> resourceTypes;
+
+        private Key(String userId, List<String> groupIds, String check, Set<Integer> resourceTypes) {
+            this.userId = userId;
+            this.groupIds = groupIds;
+            this.check = check;
+            this.resourceTypes = resourceTypes;
+        }
+    }
+}
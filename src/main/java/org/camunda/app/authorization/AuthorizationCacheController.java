@@ -0,0 +1,38 @@
+package org.camunda.app.authorization;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/authorization-cache")
+@ConditionalOnProperty(name = "invoice.authorization-cache.enabled", havingValue = "true")
+public class AuthorizationCacheController {
+
+    @Autowired
+    protected AuthorizationCache cache;
+
+    @GetMapping
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.getStats();
+        return ImmutableMap.<String, Object>builder()
+                .put("size", cache.size())
+                .put("hits", stats.hitCount())
+                .put("misses", stats.missCount())
+                .put("evictions", stats.evictionCount())
+                .put("hitRate", stats.hitRate())
+                .build();
+    }
+
+    @DeleteMapping
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,54 @@
+package org.camunda.app.authorization;
+
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.interceptor.Session;
+import org.camunda.bpm.engine.impl.interceptor.SessionFactory;
+import org.camunda.bpm.engine.impl.persistence.entity.AuthorizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Replaces the engine's authorization manager with the {@link CachingAuthorizationManager} and,
+ * unless another identity provider is configured, the database identity provider with the
+ * {@link MembershipInvalidatingIdentityProvider}.
+ */
+public class AuthorizationCachePlugin extends AbstractProcessEnginePlugin {
+
+    private final AuthorizationCache cache;
+
+    public AuthorizationCachePlugin(AuthorizationCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void preInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+        List<SessionFactory> sessionFactories = processEngineConfiguration.getCustomSessionFactories();
+        if (sessionFactories == null) {
+            sessionFactories = new ArrayList<>();
+            processEngineConfiguration.setCustomSessionFactories(sessionFactories);
+        }
+        sessionFactories.add(sessionFactory(AuthorizationManager.class, () -> new CachingAuthorizationManager(cache)));
+
+        if (processEngineConfiguration.getIdentityProviderSessionFactory() == null) {
+            processEngineConfiguration.setIdentityProviderSessionFactory(
+                    sessionFactory(MembershipInvalidatingIdentityProvider.class, () -> new MembershipInvalidatingIdentityProvider(cache)));
+        }
+    }
+
+    private static SessionFactory sessionFactory(Class<?> sessionType, Supplier<Session> sessions) {
+        return new SessionFactory() {
+            @Override
+            public Class<?> getSessionType() {
+                return sessionType;
+            }
+
+            @Override
+            public Session openSession() {
+                return sessions.get();
+            }
+        };
+    }
+}
@@ -0,0 +1,159 @@
+package org.camunda.app.authorization;
+
+import org.camunda.bpm.engine.authorization.Authorization;
+import org.camunda.bpm.engine.authorization.Resource;
+import org.camunda.bpm.engine.impl.AuthorizationQueryImpl;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.db.AuthorizationCheck;
+import org.camunda.bpm.engine.impl.db.CompositePermissionCheck;
+import org.camunda.bpm.engine.impl.db.DbEntity;
+import org.camunda.bpm.engine.impl.db.PermissionCheck;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.persistence.entity.AuthorizationEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.AuthorizationManager;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.camunda.bpm.engine.authorization.Authorization.ANY;
+import static org.camunda.bpm.engine.authorization.Authorization.AUTH_TYPE_REVOKE;
+
+/**
+ * Authorization manager which answers repeated checks from the {@link AuthorizationCache} and
+ * drops the authorization joins from queries of users who hold the required permissions on
+ * all resources ({@code *}), as long as no revoke authorization exists.
+ * <p>
+ * Changes to authorizations invalidate the cache right away and again after the commit, so
+ * checks running concurrently can't put back a result read before the commit.
+ */
+public class CachingAuthorizationManager extends AuthorizationManager {
+
+    private static final String REVOKES_NEVER = "never";
+
+    private final AuthorizationCache cache;
+    private final Set<AuthorizationCheck> skippedChecks = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public CachingAuthorizationManager(AuthorizationCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public boolean isAuthorized(String userId, List<String> groupIds, CompositePermissionCheck compositePermissionCheck) {
+        AuthorizationCache.Key key = cache.keyOf(userId, groupIds, compositePermissionCheck);
+        Boolean authorized = cache.get(key);
+        if (authorized == null) {
+            authorized = super.isAuthorized(userId, groupIds, compositePermissionCheck);
+            cache.put(key, authorized);
+        }
+        return authorized;
+    }
+
+    @Override
+    public void addPermissionCheck(AuthorizationCheck authCheck, CompositePermissionCheck compositeCheck) {
+        super.addPermissionCheck(authCheck, compositeCheck);
+        if (!authCheck.isAuthorizationCheckEnabled() && !skippedChecks.contains(authCheck)) {
+            return;
+        }
+        // the last permission check added is the one the query runs with
+        boolean skip = authCheck.getAuthUserId() != null
+                && !revokesExist()
+                && isGrantedOnAnyResource(authCheck.getAuthUserId(), authCheck.getAuthGroupIds(), compositeCheck);
+        authCheck.setAuthorizationCheckEnabled(!skip);
+        if (skip) {
+            skippedChecks.add(authCheck);
+        } else {
+            skippedChecks.remove(authCheck);
+        }
+    }
+
+    @Override
+    public void insert(DbEntity dbEntity) {
+        super.insert(dbEntity);
+        if (dbEntity instanceof AuthorizationEntity) {
+            invalidate((AuthorizationEntity) dbEntity);
+        }
+    }
+
+    @Override
+    public void update(AuthorizationEntity authorization) {
+        AuthorizationEntity previous = getDbEntityManager().selectById(AuthorizationEntity.class, authorization.getId());
+        if (previous != null && previous != authorization) {
+            invalidate(previous);
+        }
+        super.update(authorization);
+        invalidate(authorization);
+    }
+
+    @Override
+    public void delete(DbEntity dbEntity) {
+        super.delete(dbEntity);
+        if (dbEntity instanceof AuthorizationEntity) {
+            invalidate((AuthorizationEntity) dbEntity);
+        }
+    }
+
+    @Override
+    public void deleteAuthorizationsByResourceId(Resource resource, String resourceId) {
+        super.deleteAuthorizationsByResourceId(resource, resourceId);
+        int resourceType = resource.resourceType();
+        cache.invalidateResourceType(resourceType);
+        afterCommit(() -> cache.invalidateResourceType(resourceType));
+    }
+
+    @Override
+    public void close() {
+        skippedChecks.clear();
+        super.close();
+    }
+
+    private boolean isGrantedOnAnyResource(String userId, List<String> groupIds, CompositePermissionCheck compositeCheck) {
+        boolean disjunctive = compositeCheck.isDisjunctive();
+        for (PermissionCheck atomicCheck : compositeCheck.getAtomicChecks()) {
+            if (isAuthorized(userId, groupIds, atomicCheck.getPermission(), atomicCheck.getResource(), ANY) == disjunctive) {
+                return disjunctive;
+            }
+        }
+        for (CompositePermissionCheck nestedCheck : compositeCheck.getCompositeChecks()) {
+            if (isGrantedOnAnyResource(userId, groupIds, nestedCheck) == disjunctive) {
+                return disjunctive;
+            }
+        }
+        return !disjunctive;
+    }
+
+    private boolean revokesExist() {
+        if (REVOKES_NEVER.equalsIgnoreCase(Context.getProcessEngineConfiguration().getAuthorizationCheckRevokes())) {
+            return false;
+        }
+        Boolean revokesExist = cache.getRevokesExist();
+        if (revokesExist == null) {
+            AuthorizationQueryImpl query = new AuthorizationQueryImpl();
+            query.authorizationType(AUTH_TYPE_REVOKE);
+            CommandContext commandContext = getCommandContext();
+            boolean authorizationCheckEnabled = commandContext.isAuthorizationCheckEnabled();
+            commandContext.disableAuthorizationCheck();
+            try {
+                revokesExist = selectAuthorizationCountByQueryCriteria(query) > 0;
+            } finally {
+                if (authorizationCheckEnabled) {
+                    commandContext.enableAuthorizationCheck();
+                }
+            }
+            cache.setRevokesExist(revokesExist);
+        }
+        return revokesExist;
+    }
+
+    private void invalidate(Authorization authorization) {
+        cache.invalidate(authorization);
+        afterCommit(() -> cache.invalidate(authorization));
+    }
+
+    private void afterCommit(Runnable invalidation) {
+        getCommandContext().getTransactionContext()
+                .addTransactionListener(TransactionState.COMMITTED, commandContext -> invalidation.run());
+    }
+}
@@ -0,0 +1,65 @@
+package org.camunda.app.authorization;
+
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.identity.IdentityOperationResult;
+import org.camunda.bpm.engine.impl.identity.db.DbIdentityServiceProvider;
+
+/**
+ * Database identity provider which drops the cached authorization checks of users and groups
+ * whose memberships change. Without a cache it's the plain database provider.
+ */
+public class MembershipInvalidatingIdentityProvider extends DbIdentityServiceProvider {
+
+    private final AuthorizationCache cache;
+
+    public MembershipInvalidatingIdentityProvider(AuthorizationCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public IdentityOperationResult createMembership(String userId, String groupId) {
+        IdentityOperationResult result = super.createMembership(userId, groupId);
+        invalidateUser(userId);
+        return result;
+    }
+
+    @Override
+    public IdentityOperationResult deleteMembership(String userId, String groupId) {
+        IdentityOperationResult result = super.deleteMembership(userId, groupId);
+        invalidateUser(userId);
+        return result;
+    }
+
+    @Override
+    public IdentityOperationResult deleteUser(String userId) {
+        IdentityOperationResult result = super.deleteUser(userId);
+        invalidateUser(userId);
+        return result;
+    }
+
+    @Override
+    public IdentityOperationResult deleteGroup(String groupId) {
+        IdentityOperationResult result = super.deleteGroup(groupId);
+        if (cache != null) {
+            cache.invalidateGroup(groupId);
+            afterCommit(() -> cache.invalidateGroup(groupId));
+        }
+        return result;
+    }
+
+    private void invalidateUser(String userId) {
+        if (cache != null) {
+            cache.invalidateUser(userId);
+            afterCommit(() -> cache.invalidateUser(userId));
+        }
+    }
+
+    /**
+     * Runs the invalidation again once the transaction commits, so a concurrent read doesn't put
+     * the state before the change back into the cache.
+     */
+    protected void afterCommit(Runnable invalidation) {
+        getCommandContext().getTransactionContext()
+                .addTransactionListener(TransactionState.COMMITTED, commandContext -> invalidation.run());
+    }
+}
@@ -0,0 +1,47 @@
+package org.camunda.app.callactivity;
+
+import org.camunda.app.document.StoredFileValueSerializer;
+import org.camunda.bpm.engine.delegate.VariableScope;
+import org.camunda.bpm.engine.impl.core.variable.CoreVariableInstance;
+import org.camunda.bpm.engine.impl.core.variable.mapping.value.ParameterValueProvider;
+import org.camunda.bpm.engine.impl.core.variable.scope.AbstractVariableScope;
+import org.camunda.bpm.engine.impl.persistence.entity.VariableInstanceEntity;
+
+/**
+ * Source of a {@code camunda:in} mapping which hands file variables to the called instance by
+ * reference: byte array files as {@link FileReferenceValue}, document store files as the stored
+ * value, which only carries the content hash. Other variables are passed on as before.
+ */
+public class ByReferenceValueProvider implements ParameterValueProvider {
+
+    private final String variableName;
+
+    public ByReferenceValueProvider(String variableName) {
+        this.variableName = variableName;
+    }
+
+    @Override
+    public Object getValue(VariableScope variableScope) {
+        if (variableScope instanceof AbstractVariableScope) {
+            CoreVariableInstance instance = ((AbstractVariableScope) variableScope).getVariableInstance(variableName);
+            if (instance instanceof VariableInstanceEntity) {
+                VariableInstanceEntity variable = (VariableInstanceEntity) instance;
+                if (StoredFileValueSerializer.NAME.equals(variable.getSerializerName())) {
+                    return variable.getTypedValue(false);
+                }
+                FileReferenceValue reference = FileReferenceSerializer.reference(variable);
+                if (reference != null) {
+                    return reference;
+                }
+            }
+        }
+        return variableScope.getVariableTyped(variableName);
+    }
+
+    /**
+     * Resolved per call, like a variable source
+     */
+    public boolean isDynamic() {
+        return true;
+    }
+}
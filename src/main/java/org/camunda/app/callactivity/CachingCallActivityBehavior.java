@@ -0,0 +1,55 @@
+package org.camunda.app.callactivity;
+
+import org.camunda.bpm.engine.impl.bpmn.behavior.CallActivityBehavior;
+import org.camunda.bpm.engine.impl.core.model.BaseCallableElement;
+import org.camunda.bpm.engine.impl.core.model.CallableElement;
+import org.camunda.bpm.engine.impl.persistence.entity.ExecutionEntity;
+import org.camunda.bpm.engine.impl.pvm.PvmProcessInstance;
+import org.camunda.bpm.engine.impl.pvm.delegate.ActivityExecution;
+import org.camunda.bpm.engine.impl.pvm.process.ProcessDefinitionImpl;
+import org.camunda.bpm.engine.variable.VariableMap;
+
+import static org.camunda.bpm.engine.impl.util.CallableElementUtil.getProcessDefinitionToCall;
+
+/**
+ * Call activity which resolves the called process definition through the
+ * {@link CalledDefinitionCache}. Call activities with a tenant id expression are resolved by the
+ * engine as before.
+ */
+public class CachingCallActivityBehavior extends CallActivityBehavior {
+
+    private final CalledDefinitionCache cache;
+
+    public CachingCallActivityBehavior(CallableElement callableElement, CalledDefinitionCache cache) {
+        this.cache = cache;
+        setCallableElement(callableElement);
+    }
+
+    @Override
+    public void startInstance(ActivityExecution execution, VariableMap variables, String businessKey) {
+        ExecutionEntity executionEntity = (ExecutionEntity) execution;
+        String tenantId = executionEntity.getProcessDefinitionTenantId();
+        BaseCallableElement callableElement = getCallableElement();
+
+        ProcessDefinitionImpl definition = callableElement.getTenantIdProvider() != null
+                ? getProcessDefinitionToCall(executionEntity, tenantId, callableElement)
+                : cache.get(cacheKey(executionEntity, tenantId, callableElement), () -> getProcessDefinitionToCall(executionEntity, tenantId, callableElement));
+
+        PvmProcessInstance processInstance = execution.createSubProcessInstance(definition, businessKey);
+        processInstance.start(variables);
+    }
+
+    private static String cacheKey(ExecutionEntity execution, String tenantId, BaseCallableElement callableElement) {
+        String binding;
+        if (callableElement.isVersionBinding()) {
+            binding = "version:" + callableElement.getVersion(execution);
+        } else if (callableElement.isVersionTagBinding()) {
+            binding = "versionTag:" + callableElement.getVersionTag(execution);
+        } else if (callableElement.isDeploymentBinding()) {
+            binding = "deployment:" + callableElement.getDeploymentId();
+        } else {
+            binding = "latest";
+        }
+        return callableElement.getDefinitionKey(execution) + "|" + binding + "|" + tenantId;
+    }
+}
@@ -0,0 +1,63 @@
+package org.camunda.app.callactivity;
+
+import org.camunda.bpm.engine.impl.bpmn.behavior.CallActivityBehavior;
+import org.camunda.bpm.engine.impl.bpmn.parser.AbstractBpmnParseListener;
+import org.camunda.bpm.engine.impl.core.model.CallableElement;
+import org.camunda.bpm.engine.impl.core.model.CallableElementParameter;
+import org.camunda.bpm.engine.impl.core.variable.mapping.value.ConstantValueProvider;
+import org.camunda.bpm.engine.impl.core.variable.mapping.value.ParameterValueProvider;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.camunda.bpm.engine.impl.pvm.process.ActivityImpl;
+import org.camunda.bpm.engine.impl.pvm.process.ScopeImpl;
+import org.camunda.bpm.engine.impl.util.xml.Element;
+
+import static org.camunda.bpm.engine.impl.bpmn.parser.BpmnParse.CAMUNDA_BPMN_EXTENSIONS_NS;
+
+/**
+ * Switches the call activities of deployed processes to the fast path: {@code camunda:in}
+ * mappings of single variables pass file variables by reference, and the called definition is
+ * looked up through the {@link CalledDefinitionCache}. Call activities with a variable mapping
+ * class or delegate expression keep the engine's behavior.
+ */
+public class CallActivityParseListener extends AbstractBpmnParseListener {
+
+    private final boolean filesByReference;
+    private final CalledDefinitionCache cache;
+
+    /**
+     * @param cache {@code null} to let the engine look up the called definitions
+     */
+    public CallActivityParseListener(boolean filesByReference, CalledDefinitionCache cache) {
+        this.filesByReference = filesByReference;
+        this.cache = cache;
+    }
+
+    @Override
+    public void parseProcess(Element processElement, ProcessDefinitionEntity processDefinition) {
+        if (cache != null) {
+            cache.invalidate(processDefinition.getKey());
+        }
+    }
+
+    @Override
+    public void parseCallActivity(Element callActivityElement, ScopeImpl scope, ActivityImpl activity) {
+        if (!(activity.getActivityBehavior() instanceof CallActivityBehavior)
+                || callActivityElement.attributeNS(CAMUNDA_BPMN_EXTENSIONS_NS, "variableMappingClass") != null
+                || callActivityElement.attributeNS(CAMUNDA_BPMN_EXTENSIONS_NS, "variableMappingDelegateExpression") != null) {
+            return;
+        }
+        CallableElement callableElement = ((CallActivityBehavior) activity.getActivityBehavior()).getCallableElement();
+
+        if (filesByReference) {
+            for (CallableElementParameter input : callableElement.getInputs()) {
+                ParameterValueProvider source = input.getSourceValueProvider();
+                if (!input.isAllVariables() && !input.isReadLocal() && source instanceof ConstantValueProvider) {
+                    input.setSourceValueProvider(new ByReferenceValueProvider((String) source.getValue(null)));
+                }
+            }
+        }
+        if (cache != null) {
+            activity.setActivityBehavior(new CachingCallActivityBehavior(callableElement, cache));
+        }
+    }
+}
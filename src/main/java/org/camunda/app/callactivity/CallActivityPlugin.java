@@ -0,0 +1,50 @@
+package org.camunda.app.callactivity;
+
+import org.camunda.bpm.engine.impl.bpmn.parser.BpmnParseListener;
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.variable.serializer.TypedValueSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registers the {@link CallActivityParseListener} and, when files are passed by reference, the
+ * {@link FileReferenceSerializer} ahead of the other file serializers and the
+ * {@link FileReferenceHistoryEventProducer}, unless another history event producer is set.
+ */
+public class CallActivityPlugin extends AbstractProcessEnginePlugin {
+
+    private final boolean filesByReference;
+    private final CalledDefinitionCache cache;
+
+    public CallActivityPlugin(boolean filesByReference, CalledDefinitionCache cache) {
+        this.filesByReference = filesByReference;
+        this.cache = cache;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void preInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+        List<BpmnParseListener> parseListeners = processEngineConfiguration.getCustomPostBPMNParseListeners();
+        if (parseListeners == null) {
+            parseListeners = new ArrayList<>();
+            processEngineConfiguration.setCustomPostBPMNParseListeners(parseListeners);
+        }
+        parseListeners.add(new CallActivityParseListener(filesByReference, cache));
+
+        if (filesByReference) {
+            List<TypedValueSerializer> serializers = processEngineConfiguration.getCustomPreVariableSerializers();
+            if (serializers == null) {
+                serializers = new ArrayList<>();
+                processEngineConfiguration.setCustomPreVariableSerializers(serializers);
+            }
+            // references are file values too, so the document store serializer must not see them first
+            serializers.add(0, new FileReferenceSerializer());
+
+            if (processEngineConfiguration.getHistoryEventProducer() == null) {
+                processEngineConfiguration.setHistoryEventProducer(new FileReferenceHistoryEventProducer());
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.camunda.app.callactivity;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.pvm.process.ProcessDefinitionImpl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Ids of called process definitions by key, binding and tenant. The engine resolves a call
+ * activity with the default {@code latest} binding with a query on every call; with the cached id
+ * it's a lookup in the deployment cache.
+ * <p>
+ * Entries of a key are dropped when a definition with that key is parsed, i.e. deployed on this
+ * node. Deployments on other nodes are picked up once the entry expires.
+ */
+public class CalledDefinitionCache {
+
+    private final Cache<String, String> definitionIds;
+
+    public CalledDefinitionCache(long expireAfterWriteSeconds) {
+        this.definitionIds = CacheBuilder.newBuilder()
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    ProcessDefinitionImpl get(String cacheKey, Supplier<ProcessDefinitionImpl> lookup) {
+        String id = definitionIds.getIfPresent(cacheKey);
+        if (id != null) {
+            try {
+                return Context.getProcessEngineConfiguration().getDeploymentCache().findDeployedProcessDefinitionById(id);
+            } catch (ProcessEngineException e) {
+                // deleted in the meantime
+                definitionIds.invalidate(cacheKey);
+            }
+        }
+        ProcessDefinitionImpl definition = lookup.get();
+        definitionIds.put(cacheKey, definition.getId());
+        return definition;
+    }
+
+    void invalidate(String definitionKey) {
+        definitionIds.asMap().keySet().removeIf(cacheKey -> cacheKey.startsWith(definitionKey + "|"));
+    }
+}
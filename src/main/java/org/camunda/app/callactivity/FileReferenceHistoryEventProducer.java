@@ -0,0 +1,29 @@
+package org.camunda.app.callactivity;
+
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.history.event.HistoricVariableUpdateEventEntity;
+import org.camunda.bpm.engine.impl.history.event.HistoryEventType;
+import org.camunda.bpm.engine.impl.history.producer.CacheAwareHistoryEventProducer;
+import org.camunda.bpm.engine.impl.persistence.entity.ByteArrayEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.VariableInstanceEntity;
+
+/**
+ * Gives the history of {@link FileReferenceValue}s a copy of the referenced content. The runtime
+ * byte array belongs to the calling instance's variable and is gone once that ends or is cleaned
+ * up, the historic variable and detail keep their own byte array like for any other file.
+ */
+public class FileReferenceHistoryEventProducer extends CacheAwareHistoryEventProducer {
+
+    @Override
+    protected void initHistoricVariableUpdateEvt(HistoricVariableUpdateEventEntity evt, VariableInstanceEntity variableInstance, HistoryEventType eventType) {
+        super.initHistoricVariableUpdateEvt(evt, variableInstance, eventType);
+        if (!FileReferenceSerializer.NAME.equals(variableInstance.getSerializerName()) || evt.getByteValue() != null) {
+            return;
+        }
+        FileReferenceValue reference = FileReferenceSerializer.reference(variableInstance);
+        if (reference != null && reference.getByteArrayId() != null) {
+            ByteArrayEntity byteArray = Context.getCommandContext().getDbEntityManager().selectById(ByteArrayEntity.class, reference.getByteArrayId());
+            evt.setByteValue(byteArray == null ? null : byteArray.getBytes());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.camunda.app.callactivity;
+
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.persistence.entity.ByteArrayEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.VariableInstanceEntity;
+import org.camunda.bpm.engine.impl.variable.serializer.AbstractTypedValueSerializer;
+import org.camunda.bpm.engine.impl.variable.serializer.ValueFields;
+import org.camunda.bpm.engine.variable.impl.value.UntypedValueImpl;
+import org.camunda.bpm.engine.variable.type.ValueType;
+import org.camunda.bpm.engine.variable.value.FileValue;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+
+/**
+ * Writes {@link FileReferenceValue}s: the variable row keeps the file name and the id of the shared
+ * byte array, mime type and encoding, no byte array of its own is written. Reading loads the shared
+ * byte array like the default file serializer loads its own.
+ * <p>
+ * The referenced byte array belongs to the variable it was taken from and is deleted with it, so
+ * references are only handed to called instances, which end before their caller. Historic
+ * variables outlive both and get a copy of the content from the
+ * {@link FileReferenceHistoryEventProducer}, which is read instead of the reference.
+ */
+public class FileReferenceSerializer extends AbstractTypedValueSerializer<FileValue> {
+
+    public static final String NAME = "fileReference";
+
+    /**
+     * Name of the engine's own file serializer
+     */
+    static final String FILE_SERIALIZER_NAME = ValueType.FILE.getName();
+
+    private static final String SEPARATOR = "#";
+
+    public FileReferenceSerializer() {
+        super(ValueType.FILE);
+    }
+
+    /**
+     * References the content of a file variable written by the engine's file serializer or by this
+     * one, without loading it.
+     *
+     * @return the reference or {@code null} if the variable holds no shared byte array
+     */
+    static FileReferenceValue reference(VariableInstanceEntity variable) {
+        if (FILE_SERIALIZER_NAME.equals(variable.getSerializerName())) {
+            String[] parts = split(variable.getTextValue2());
+            return variable.getByteArrayValueId() == null
+                    ? null
+                    : new FileReferenceValue(variable.getByteArrayValueId(), variable.getTextValue(), part(parts, 0), part(parts, 1), null);
+        }
+        if (NAME.equals(variable.getSerializerName())) {
+            String[] parts = split(variable.getTextValue2());
+            return new FileReferenceValue(part(parts, 0), variable.getTextValue(), part(parts, 1), part(parts, 2), null);
+        }
+        return null;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void writeValue(FileValue value, ValueFields valueFields) {
+        FileReferenceValue reference = (FileReferenceValue) value;
+        valueFields.setTextValue(reference.getFilename());
+        valueFields.setTextValue2(join(reference.getByteArrayId(), reference.getMimeType(), reference.getEncoding()));
+    }
+
+    @Override
+    public FileValue readValue(ValueFields valueFields, boolean deserializeValue, boolean asTransientValue) {
+        String[] parts = split(valueFields.getTextValue2());
+        String byteArrayId = part(parts, 0);
+        // historic values hold their own copy
+        byte[] content = valueFields.getByteArrayValue();
+        if (content == null && byteArrayId != null) {
+            ByteArrayEntity byteArray = Context.getCommandContext().getDbEntityManager().selectById(ByteArrayEntity.class, byteArrayId);
+            content = byteArray == null ? null : byteArray.getBytes();
+        }
+        String filename = valueFields.getTextValue() == null ? "" : valueFields.getTextValue();
+        return new FileReferenceValue(byteArrayId, filename, part(parts, 1), part(parts, 2), content);
+    }
+
+    @Override
+    public FileValue convertToTypedValue(UntypedValueImpl untypedValue) {
+        throw new UnsupportedOperationException("Currently no automatic conversion from UntypedValue to FileValue");
+    }
+
+    @Override
+    protected boolean canWriteValue(TypedValue value) {
+        return value instanceof FileReferenceValue;
+    }
+
+    private static String[] split(String value) {
+        return (value == null ? "" : value).split(SEPARATOR, -1);
+    }
+
+    private static String join(String... parts) {
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                joined.append(SEPARATOR);
+            }
+            if (parts[i] != null) {
+                joined.append(parts[i]);
+            }
+        }
+        return joined.toString();
+    }
+
+    private static String part(String[] parts, int index) {
+        return index < parts.length && !parts[index].isEmpty() ? parts[index] : null;
+    }
+}
@@ -0,0 +1,56 @@
+package org.camunda.app.callactivity;
+
+import lombok.Getter;
+import org.camunda.bpm.engine.variable.type.ValueType;
+import org.camunda.bpm.engine.variable.value.FileValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * File variable which shares the byte array of another file variable, typically the one of the
+ * calling process instance, instead of holding a copy. Written by the {@link FileReferenceSerializer}.
+ */
+@Getter
+public class FileReferenceValue implements FileValue {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String byteArrayId;
+    private final String filename;
+    private final String mimeType;
+    private final String encoding;
+    private final byte[] content;
+
+    public FileReferenceValue(String byteArrayId, String filename, String mimeType, String encoding, byte[] content) {
+        this.byteArrayId = byteArrayId;
+        this.filename = filename;
+        this.mimeType = mimeType;
+        this.encoding = encoding;
+        this.content = content;
+    }
+
+    /**
+     * @return the shared content, {@code null} if the referenced byte array is gone
+     */
+    @Override
+    public InputStream getValue() {
+        return content == null ? null : new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public ValueType getType() {
+        return ValueType.FILE;
+    }
+
+    @Override
+    public Charset getEncodingAsCharset() {
+        return encoding == null ? null : Charset.forName(encoding);
+    }
+
+    @Override
+    public boolean isTransient() {
+        return false;
+    }
+}
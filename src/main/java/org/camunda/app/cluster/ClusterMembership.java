@@ -0,0 +1,150 @@
+package org.camunda.app.cluster;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.ManagementService;
+import org.camunda.bpm.engine.ProcessEngine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Live nodes of the cluster, known from heartbeats every node writes as an engine property. Keys,
+ * e.g. process instance ids, are assigned to nodes by rendezvous hashing: every node computes the
+ * same owner from the same node list, and when a node joins or leaves only its share of the keys
+ * moves.
+ * <p>
+ * Node clocks are expected to be in sync well within the heartbeat timeout.
+ */
+@Slf4j
+public class ClusterMembership {
+
+    static final String PROPERTY_PREFIX = "invoice.cluster.node.";
+
+    private static final HashFunction HASH = Hashing.murmur3_32();
+    private static final int STALE_TIMEOUTS = 10;
+
+    private final String nodeId;
+    private final long heartbeatIntervalMillis;
+    private final long timeoutMillis;
+    private final ScheduledExecutorService heartbeat;
+
+    private volatile List<String> nodes;
+    private ProcessEngine processEngine;
+
+    public ClusterMembership(String nodeId, long heartbeatIntervalMillis, long timeoutMillis) {
+        this.nodeId = nodeId;
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.nodes = Collections.singletonList(nodeId);
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-heartbeat-" + nodeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start(ProcessEngine processEngine) {
+        this.processEngine = processEngine;
+        beat();
+        heartbeat.scheduleWithFixedDelay(this::beat, heartbeatIntervalMillis, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info(format("Cluster node %s joined, live nodes %s", nodeId, nodes));
+    }
+
+    /**
+     * Leaves the cluster right away instead of after the heartbeat timeout.
+     */
+    public void stop() {
+        heartbeat.shutdownNow();
+        if (processEngine != null) {
+            try {
+                processEngine.getManagementService().deleteProperty(PROPERTY_PREFIX + nodeId);
+            } catch (RuntimeException e) {
+                log.warn(format("Couldn't remove the heartbeat of cluster node %s: %s", nodeId, e.getMessage()));
+            }
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @return whether this node owns the key, keys without a value belong to every node
+     */
+    public boolean owns(String key) {
+        return key == null || nodeId.equals(ownerOf(key));
+    }
+
+    public String ownerOf(String key) {
+        List<String> current = nodes;
+        String owner = null;
+        int highest = Integer.MIN_VALUE;
+        for (String node : current) {
+            int weight = HASH.newHasher()
+                    .putString(node, UTF_8)
+                    .putString(key, UTF_8)
+                    .hash()
+                    .asInt();
+            if (owner == null || weight > highest || (weight == highest && node.compareTo(owner) < 0)) {
+                owner = node;
+                highest = weight;
+            }
+        }
+        return owner;
+    }
+
+    private void beat() {
+        try {
+            ManagementService managementService = processEngine.getManagementService();
+            long now = System.currentTimeMillis();
+            managementService.setProperty(PROPERTY_PREFIX + nodeId, Long.toString(now));
+
+            List<String> live = new ArrayList<>();
+            for (Map.Entry<String, String> property : managementService.getProperties().entrySet()) {
+                if (!property.getKey().startsWith(PROPERTY_PREFIX)) {
+                    continue;
+                }
+                String node = property.getKey().substring(PROPERTY_PREFIX.length());
+                long lastBeat = parse(property.getValue());
+                if (node.equals(nodeId) || now - lastBeat < timeoutMillis) {
+                    live.add(node);
+                } else if (now - lastBeat > timeoutMillis * STALE_TIMEOUTS) {
+                    managementService.deleteProperty(property.getKey());
+                }
+            }
+            Collections.sort(live);
+            if (!live.equals(nodes)) {
+                log.info(format("Cluster nodes changed from %s to %s", nodes, live));
+                nodes = Collections.unmodifiableList(live);
+            }
+        } catch (RuntimeException e) {
+            log.warn(format("Heartbeat of cluster node %s failed: %s", nodeId, e.getMessage()));
+        }
+    }
+
+    private static long parse(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.camunda.app.cluster;
+
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Partitions job acquisition between the cluster nodes by process instance and joins the
+ * {@link ClusterMembership} once the engine is built. Works with any job executor which keeps the
+ * acquire jobs command factory it is given, the default one and the adaptive one do.
+ */
+public class ClusterPlugin extends AbstractProcessEnginePlugin {
+
+    private final ClusterMembership membership;
+    private final long takeoverMillis;
+    private final Map<String, Long> unownedSince = new ConcurrentHashMap<>();
+
+    public ClusterPlugin(ClusterMembership membership, long takeoverMillis) {
+        this.membership = membership;
+        this.takeoverMillis = takeoverMillis;
+    }
+
+    @Override
+    public void postInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+        JobExecutor jobExecutor = processEngineConfiguration.getJobExecutor();
+        jobExecutor.setAcquireJobsCmdFactory(numJobsToAcquire ->
+                new PartitionedAcquireJobsCmd(jobExecutor, numJobsToAcquire, membership, takeoverMillis, unownedSince));
+    }
+
+    @Override
+    public void postProcessEngineBuild(ProcessEngine processEngine) {
+        membership.start(processEngine);
+    }
+}
@@ -0,0 +1,90 @@
+package org.camunda.app.cluster;
+
+import org.camunda.bpm.engine.impl.Page;
+import org.camunda.bpm.engine.impl.cmd.AcquireJobsCmd;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.jobexecutor.AcquiredJobs;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
+import org.camunda.bpm.engine.impl.persistence.entity.AcquirableJobEntity;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Acquires only the jobs of the process instances this node owns, so the nodes lock disjoint sets
+ * of jobs instead of racing for the same ones. Every node reads a candidate page as large as the
+ * batch times the number of nodes, which contains about one batch of its own jobs. A job of another
+ * node which this node keeps seeing as executable for longer than the takeover time, or which is
+ * overdue by more than it, is acquired anyway, in case its owner is stuck. Jobs without due date,
+ * like async continuations, are covered by the first. The jobs of a node which stopped beating move
+ * to the others with its heartbeat timeout already.
+ */
+public class PartitionedAcquireJobsCmd extends AcquireJobsCmd {
+
+    private static final int MAX_CANDIDATES = 1000;
+
+    private final ClusterMembership membership;
+    private final long takeoverMillis;
+    private final Map<String, Long> unownedSince;
+
+    /**
+     * @param unownedSince when this node first saw each executable job of another node, shared by the acquisitions of the node
+     */
+    public PartitionedAcquireJobsCmd(JobExecutor jobExecutor, int numJobsToAcquire, ClusterMembership membership, long takeoverMillis,
+                                     Map<String, Long> unownedSince) {
+        super(jobExecutor, numJobsToAcquire);
+        this.membership = membership;
+        this.takeoverMillis = takeoverMillis;
+        this.unownedSince = unownedSince;
+    }
+
+    @Override
+    public AcquiredJobs execute(CommandContext commandContext) {
+        int candidates = Math.min(MAX_CANDIDATES, numJobsToAcquire * Math.max(1, membership.size()));
+        List<AcquirableJobEntity> jobs = commandContext.getJobManager().findNextJobsToExecute(new Page(0, candidates));
+
+        long now = ClockUtil.getCurrentTime().getTime();
+        long takeoverBefore = now - takeoverMillis;
+        // jobs seen that long ago were executed by their owner or taken over since
+        unownedSince.values().removeIf(since -> since < takeoverBefore - takeoverMillis);
+        List<AcquirableJobEntity> owned = new ArrayList<>(numJobsToAcquire);
+        for (AcquirableJobEntity job : jobs) {
+            if (owned.size() >= numJobsToAcquire) {
+                break;
+            }
+            if (membership.owns(partitionKey(job)) || isStuck(job, now, takeoverBefore)) {
+                unownedSince.remove(job.getId());
+                owned.add(job);
+            }
+        }
+
+        acquiredJobs = new AcquiredJobs(owned.size());
+        Map<String, List<String>> exclusiveJobsByProcessInstance = new LinkedHashMap<>();
+        for (AcquirableJobEntity job : owned) {
+            lockJob(job);
+            if (job.isExclusive() && job.getProcessInstanceId() != null) {
+                exclusiveJobsByProcessInstance.computeIfAbsent(job.getProcessInstanceId(), id -> new ArrayList<>()).add(job.getId());
+            } else {
+                acquiredJobs.addJobIdBatch(job.getId());
+            }
+        }
+        exclusiveJobsByProcessInstance.values().forEach(acquiredJobs::addJobIdBatch);
+
+        commandContext.getDbEntityManager().registerOptimisticLockingListener(this);
+        return acquiredJobs;
+    }
+
+    private boolean isStuck(AcquirableJobEntity job, long now, long takeoverBefore) {
+        if (job.getDuedate() != null && job.getDuedate().getTime() < takeoverBefore) {
+            return true;
+        }
+        return unownedSince.computeIfAbsent(job.getId(), id -> now) < takeoverBefore;
+    }
+
+    private static String partitionKey(AcquirableJobEntity job) {
+        return job.getProcessInstanceId() != null ? job.getProcessInstanceId() : job.getId();
+    }
+}
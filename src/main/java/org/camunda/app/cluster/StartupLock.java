@@ -0,0 +1,96 @@
+package org.camunda.app.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.ManagementService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Lets one node at a time run the startup work, e.g. the deployment pipeline or creating the
+ * sample users and instances, which check what exists and create the rest in several
+ * transactions. The lock is a lease in an engine property, taken under the engine's exclusive
+ * deployment lock, so concurrent starts see each other. A lease of a node which died during
+ * startup expires after the lease time.
+ */
+@Slf4j
+public class StartupLock {
+
+    static final String PROPERTY_NAME = "invoice.cluster.startup-lock";
+
+    private static final long POLL_MILLIS = 500;
+
+    private final String nodeId;
+    private final long leaseMillis;
+
+    public StartupLock(String nodeId, long leaseMillis) {
+        this.nodeId = nodeId;
+        this.leaseMillis = leaseMillis;
+    }
+
+    public void runExclusively(ProcessEngine processEngine, Runnable work) {
+        long start = System.currentTimeMillis();
+        while (!tryAcquire(processEngine)) {
+            if (System.currentTimeMillis() - start > leaseMillis) {
+                throw new ProcessEngineException(format("Node %s couldn't get the startup lock within %d ms", nodeId, leaseMillis));
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ProcessEngineException("Interrupted while waiting for the startup lock", e);
+            }
+        }
+        long waited = System.currentTimeMillis() - start;
+        if (waited > POLL_MILLIS) {
+            log.info(format("Node %s got the startup lock after %d ms", nodeId, waited));
+        }
+        try {
+            work.run();
+        } finally {
+            release(processEngine);
+        }
+    }
+
+    private boolean tryAcquire(ProcessEngine processEngine) {
+        ManagementService managementService = processEngine.getManagementService();
+        return ((ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration())
+                .getCommandExecutorTxRequired()
+                .execute(commandContext -> {
+                    commandContext.getPropertyManager().acquireExclusiveLock();
+                    String lease = managementService.getProperties().get(PROPERTY_NAME);
+                    long now = System.currentTimeMillis();
+                    if (lease != null && !lease.startsWith(nodeId + "@") && expiresAt(lease) > now) {
+                        return false;
+                    }
+                    managementService.setProperty(PROPERTY_NAME, nodeId + "@" + (now + leaseMillis));
+                    return true;
+                });
+    }
+
+    private void release(ProcessEngine processEngine) {
+        ManagementService managementService = processEngine.getManagementService();
+        ((ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration())
+                .getCommandExecutorTxRequired()
+                .execute(commandContext -> {
+                    commandContext.getPropertyManager().acquireExclusiveLock();
+                    String lease = managementService.getProperties().get(PROPERTY_NAME);
+                    if (lease != null && lease.startsWith(nodeId + "@")) {
+                        managementService.deleteProperty(PROPERTY_NAME);
+                    }
+                    return null;
+                });
+    }
+
+    private static long expiresAt(String lease) {
+        try {
+            return Long.parseLong(lease.substring(lease.lastIndexOf('@') + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
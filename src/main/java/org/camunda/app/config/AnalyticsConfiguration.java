@@ -0,0 +1,42 @@
+package org.camunda.app.config;
+
+import org.camunda.app.analytics.AnalyticsPlugin;
+import org.camunda.app.analytics.InvoiceProjection;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * With {@code invoice.analytics.enabled: true} invoices are projected into columns below
+ * {@code invoice.analytics.path} as their history is written, and aggregated at
+ * {@code /api/analytics}. The tracked activities are part of the file layout, changing them
+ * needs a new path.
+ */
+@Configuration
+@ConditionalOnProperty(name = "invoice.analytics.enabled", havingValue = "true")
+public class AnalyticsConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public InvoiceProjection invoiceProjection(
+            MetricsRegistry metricsRegistry,
+            @Value("${invoice.analytics.path:./camunda-analytics}") String path,
+            @Value("${invoice.analytics.activities:approveInvoice,reviewInvoice,prepareBankTransfer,ServiceTask_1}") String[] activities,
+            @Value("${invoice.analytics.processed-activity:invoiceProcessed}") String processedActivity,
+            @Value("${invoice.analytics.rows-per-segment:262144}") int rowsPerSegment
+    ) {
+        return new InvoiceProjection(Paths.get(path), Arrays.asList(activities), processedActivity, rowsPerSegment, metricsRegistry);
+    }
+
+    @Bean
+    public AnalyticsPlugin analyticsPlugin(
+            InvoiceProjection invoiceProjection,
+            @Value("${invoice.analytics.process-definition-key:invoice}") String processDefinitionKey
+    ) {
+        return new AnalyticsPlugin(invoiceProjection, processDefinitionKey);
+    }
+}
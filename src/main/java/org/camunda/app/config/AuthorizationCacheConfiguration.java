@@ -0,0 +1,26 @@
+package org.camunda.app.config;
+
+import org.camunda.app.authorization.AuthorizationCache;
+import org.camunda.app.authorization.AuthorizationCachePlugin;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "invoice.authorization-cache.enabled", havingValue = "true")
+public class AuthorizationCacheConfiguration {
+
+    @Bean
+    public AuthorizationCache authorizationCache(
+            @Value("${invoice.authorization-cache.maximum-size:10000}") long maximumSize,
+            @Value("${invoice.authorization-cache.expire-after-write-seconds:0}") long expireAfterWriteSeconds
+    ) {
+        return new AuthorizationCache(maximumSize, expireAfterWriteSeconds);
+    }
+
+    @Bean
+    public AuthorizationCachePlugin authorizationCachePlugin(AuthorizationCache authorizationCache) {
+        return new AuthorizationCachePlugin(authorizationCache);
+    }
+}
@@ -0,0 +1,24 @@
+package org.camunda.app.config;
+
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.app.task.BatchTaskService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "invoice.task-batch.enabled", havingValue = "true")
+public class BatchTaskConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public BatchTaskService batchTaskService(
+            ProcessEngine processEngine,
+            MetricsRegistry metricsRegistry,
+            @Value("${invoice.task-batch.group-size:25}") int groupSize,
+            @Value("${invoice.task-batch.parallelism:4}") int parallelism
+    ) {
+        return new BatchTaskService(processEngine, metricsRegistry, groupSize, parallelism);
+    }
+}
@@ -0,0 +1,25 @@
+package org.camunda.app.config;
+
+import org.camunda.app.callactivity.CallActivityPlugin;
+import org.camunda.app.callactivity.CalledDefinitionCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Call activity fast path, e.g. for Review Invoice: {@code invoice.call-activity.files-by-reference}
+ * hands file variables to the called instance without copying their content,
+ * {@code invoice.call-activity.definition-cache-seconds} caches the called definition lookup
+ * (0 turns it off).
+ */
+@Configuration
+public class CallActivityConfiguration {
+
+    @Bean
+    public CallActivityPlugin callActivityPlugin(
+            @Value("${invoice.call-activity.files-by-reference:true}") boolean filesByReference,
+            @Value("${invoice.call-activity.definition-cache-seconds:60}") long definitionCacheSeconds
+    ) {
+        return new CallActivityPlugin(filesByReference, definitionCacheSeconds > 0 ? new CalledDefinitionCache(definitionCacheSeconds) : null);
+    }
+}
@@ -0,0 +1,46 @@
+package org.camunda.app.config;
+
+import org.camunda.app.cluster.ClusterMembership;
+import org.camunda.app.cluster.ClusterPlugin;
+import org.camunda.app.cluster.StartupLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * With {@code invoice.cluster.enabled: true} several nodes run against one database: job
+ * acquisition is partitioned by process instance between the live nodes and the startup work runs
+ * on one node at a time. The node id defaults to the host name, set it explicitly when nodes share
+ * a host. Each node archives into a subdirectory of {@code invoice.archive.path} named after its
+ * id, the document store may be shared. The tasklist index is node-local and therefore disabled.
+ */
+@Configuration
+@ConditionalOnProperty(name = "invoice.cluster.enabled", havingValue = "true")
+public class ClusterConfiguration {
+
+    @Bean(destroyMethod = "stop")
+    public ClusterMembership clusterMembership(
+            @Value("${invoice.cluster.node-id:${HOSTNAME:${COMPUTERNAME:local}}}") String nodeId,
+            @Value("${invoice.cluster.heartbeat-interval-millis:5000}") long heartbeatIntervalMillis,
+            @Value("${invoice.cluster.heartbeat-timeout-millis:20000}") long heartbeatTimeoutMillis
+    ) {
+        return new ClusterMembership(nodeId, heartbeatIntervalMillis, heartbeatTimeoutMillis);
+    }
+
+    @Bean
+    public ClusterPlugin clusterPlugin(
+            ClusterMembership clusterMembership,
+            @Value("${invoice.cluster.takeover-millis:60000}") long takeoverMillis
+    ) {
+        return new ClusterPlugin(clusterMembership, takeoverMillis);
+    }
+
+    @Bean
+    public StartupLock startupLock(
+            ClusterMembership clusterMembership,
+            @Value("${invoice.cluster.startup-lease-millis:300000}") long startupLeaseMillis
+    ) {
+        return new StartupLock(clusterMembership.getNodeId(), startupLeaseMillis);
+    }
+}
@@ -0,0 +1,23 @@
+package org.camunda.app.config;
+
+import org.camunda.app.dmn.DecisionCachePlugin;
+import org.camunda.app.dmn.DecisionResultCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "invoice.decision-cache.enabled", havingValue = "true")
+public class DecisionCacheConfiguration {
+
+    @Bean
+    public DecisionResultCache decisionResultCache(@Value("${invoice.decision-cache.maximum-size:1000}") long maximumSize) {
+        return new DecisionResultCache(maximumSize);
+    }
+
+    @Bean
+    public DecisionCachePlugin decisionCachePlugin(DecisionResultCache decisionResultCache) {
+        return new DecisionCachePlugin(decisionResultCache);
+    }
+}
@@ -0,0 +1,45 @@
+package org.camunda.app.config;
+
+import org.camunda.app.delivery.DocumentDelivery;
+import org.camunda.app.delivery.DocumentDownloadFilter;
+import org.camunda.app.delivery.FormAssetCache;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * With {@code invoice.delivery.enabled: true} the embedded forms are served from memory, gzipped,
+ * with entity tags, and file variable downloads of the REST APIs answer conditional and range
+ * requests. The download filter runs after any authentication filter of the REST API.
+ */
+@Configuration
+@ConditionalOnProperty(name = "invoice.delivery.enabled", havingValue = "true")
+public class DeliveryConfiguration {
+
+    @Bean
+    public FormAssetCache formAssetCache(MetricsRegistry metricsRegistry, @Value("${invoice.delivery.forms-path:forms/}") String formsPath) {
+        return new FormAssetCache(formsPath, metricsRegistry);
+    }
+
+    @Bean
+    public DocumentDelivery documentDelivery(
+            ProcessEngine processEngine,
+            MetricsRegistry metricsRegistry,
+            @Value("${invoice.delivery.document-cache-bytes:67108864}") long documentCacheBytes
+    ) {
+        return new DocumentDelivery(processEngine, metricsRegistry, documentCacheBytes);
+    }
+
+    @Bean
+    public FilterRegistrationBean<DocumentDownloadFilter> documentDownloadFilter(ProcessEngine processEngine, DocumentDelivery documentDelivery) {
+        FilterRegistrationBean<DocumentDownloadFilter> registration = new FilterRegistrationBean<>(new DocumentDownloadFilter(processEngine, documentDelivery));
+        registration.addUrlPatterns("/engine-rest/*", "/camunda/api/engine/*");
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
+    }
+}
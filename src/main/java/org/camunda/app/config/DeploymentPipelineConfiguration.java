@@ -0,0 +1,36 @@
+package org.camunda.app.config;
+
+import org.camunda.app.deployment.DeploymentPipeline;
+import org.camunda.app.deployment.ModelCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * With {@code invoice.deployment.enabled: true} the model resources are deployed by the
+ * {@link DeploymentPipeline} when the application starts, before the process application. The
+ * deployment name has to be the name of the process archive in processes.xml.
+ */
+@Configuration
+@ConditionalOnProperty(name = "invoice.deployment.enabled", havingValue = "true")
+public class DeploymentPipelineConfiguration {
+
+    /**
+     * The model resources, shared with the fast start fingerprint.
+     */
+    static final String RESOURCES = "${invoice.deployment.resources:invoice.v1.bpmn,reviewInvoice.bpmn,invoiceBusinessDecisions.dmn}";
+
+    @Bean(destroyMethod = "close")
+    public DeploymentPipeline deploymentPipeline(
+            @Value(RESOURCES) String[] resources,
+            @Value("${invoice.deployment.name:invoice}") String deploymentName,
+            @Value("${invoice.deployment.model-cache-path:./camunda-model-cache}") String modelCachePath,
+            @Value("${invoice.deployment.parallelism:4}") int parallelism
+    ) {
+        return new DeploymentPipeline(Arrays.asList(resources), deploymentName, new ModelCache(Paths.get(modelCachePath)), parallelism);
+    }
+}
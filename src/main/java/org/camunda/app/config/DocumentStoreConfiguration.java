@@ -0,0 +1,27 @@
+package org.camunda.app.config;
+
+import org.camunda.app.document.DocumentStore;
+import org.camunda.app.document.DocumentStorePlugin;
+import org.camunda.app.document.FileSystemDocumentStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+@Configuration
+public class DocumentStoreConfiguration {
+
+    @Bean
+    public DocumentStore documentStore(@Value("${invoice.documents.path:./camunda-documents}") String path) {
+        return new FileSystemDocumentStore(Paths.get(path));
+    }
+
+    /**
+     * Picked up by the Camunda starter like every other ProcessEnginePlugin bean
+     */
+    @Bean
+    public DocumentStorePlugin documentStorePlugin(DocumentStore documentStore) {
+        return new DocumentStorePlugin(documentStore);
+    }
+}
@@ -0,0 +1,60 @@
+package org.camunda.app.config;
+
+import com.google.common.collect.ImmutableMap;
+import org.camunda.app.external.ExternalTaskHandler;
+import org.camunda.app.external.ExternalTaskModePlugin;
+import org.camunda.app.external.ExternalTaskParseListener;
+import org.camunda.app.external.ExternalTaskSignal;
+import org.camunda.app.external.ExternalTaskWorker;
+import org.camunda.app.service.ArchiveInvoiceService;
+import org.camunda.app.service.NotifyCreditorService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * With {@code invoice.service-tasks.mode: external} the archive and notify service tasks are
+ * executed by an in-process external task worker instead of the job executor threads.
+ */
+@Configuration
+@ConditionalOnProperty(name = "invoice.service-tasks.mode", havingValue = "external")
+public class ExternalTaskConfiguration {
+
+    private static final String INVOICE_PROCESS_KEY = "invoice";
+
+    @Bean
+    public ExternalTaskSignal externalTaskSignal() {
+        return new ExternalTaskSignal();
+    }
+
+    @Bean
+    public ExternalTaskModePlugin externalTaskModePlugin(ExternalTaskSignal signal) {
+        return new ExternalTaskModePlugin(new ExternalTaskParseListener(
+                INVOICE_PROCESS_KEY,
+                ImmutableMap.of(
+                        "ServiceTask_1", ArchiveInvoiceService.TOPIC,
+                        "ServiceTask_06mdb3v", NotifyCreditorService.TOPIC
+                ),
+                signal
+        ));
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ExternalTaskWorker externalTaskWorker(
+            ProcessEngine processEngine,
+            List<ExternalTaskHandler> handlers,
+            ExternalTaskSignal signal,
+            @Value("${invoice.external-tasks.worker-id:invoice-worker}") String workerId,
+            @Value("${invoice.external-tasks.max-tasks:50}") int maxTasks,
+            @Value("${invoice.external-tasks.pool-size:20}") int poolSize,
+            @Value("${invoice.external-tasks.lock-duration:60000}") long lockDuration,
+            @Value("${invoice.external-tasks.max-wait:30000}") long maxWait,
+            @Value("${invoice.external-tasks.retry-timeout:10000}") long retryTimeout
+    ) {
+        return new ExternalTaskWorker(processEngine, handlers, signal, workerId, maxTasks, poolSize, lockDuration, maxWait, retryTimeout);
+    }
+}
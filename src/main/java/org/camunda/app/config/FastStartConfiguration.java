@@ -0,0 +1,27 @@
+package org.camunda.app.config;
+
+import org.camunda.app.startup.DefinitionCacheWarmer;
+import org.camunda.app.startup.FastStartup;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+
+/**
+ * With {@code invoice.fast-start.enabled: true} the post-deploy work is skipped when the
+ * fingerprint of the deployment resources, {@code invoice.deployment.resources}, and sample data
+ * is unchanged.
+ */
+@Configuration
+@ConditionalOnProperty(name = "invoice.fast-start.enabled", havingValue = "true")
+public class FastStartConfiguration {
+
+    @Bean
+    public FastStartup fastStartup(
+            @Value(DeploymentPipelineConfiguration.RESOURCES) String[] resources
+    ) {
+        return new FastStartup(Arrays.asList(resources), new DefinitionCacheWarmer());
+    }
+}
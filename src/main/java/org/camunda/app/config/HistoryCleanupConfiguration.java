@@ -0,0 +1,49 @@
+package org.camunda.app.config;
+
+import org.camunda.app.document.DocumentStore;
+import org.camunda.app.history.CleanupWindows;
+import org.camunda.app.history.StreamingHistoryCleanup;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * With {@code invoice.history-cleanup.enabled: true} the history of expired invoice instances is
+ * removed by the {@link StreamingHistoryCleanup} during the configured windows.
+ */
+@Configuration
+@ConditionalOnProperty(name = "invoice.history-cleanup.enabled", havingValue = "true")
+public class HistoryCleanupConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public StreamingHistoryCleanup streamingHistoryCleanup(
+            ProcessEngine processEngine,
+            MetricsRegistry metricsRegistry,
+            DocumentStore documentStore,
+            @Value("${invoice.history-cleanup.process-definition-key:invoice}") String processDefinitionKey,
+            @Value("${invoice.history-cleanup.windows:}") String windows,
+            @Value("${invoice.history-cleanup.default-time-to-live-days:30}") int defaultTimeToLiveDays,
+            @Value("${invoice.history-cleanup.min-chunk-size:50}") int minChunkSize,
+            @Value("${invoice.history-cleanup.max-chunk-size:1000}") int maxChunkSize,
+            @Value("${invoice.history-cleanup.target-latency-millis:50}") long targetLatencyMillis,
+            @Value("${invoice.history-cleanup.max-backoff-millis:10000}") long maxBackoffMillis,
+            @Value("${invoice.history-cleanup.interval-millis:300000}") long intervalMillis
+    ) {
+        return new StreamingHistoryCleanup(
+                processEngine,
+                metricsRegistry,
+                documentStore,
+                processDefinitionKey,
+                CleanupWindows.parse(windows),
+                defaultTimeToLiveDays,
+                minChunkSize,
+                maxChunkSize,
+                targetLatencyMillis,
+                maxBackoffMillis,
+                intervalMillis
+        );
+    }
+}
@@ -0,0 +1,34 @@
+package org.camunda.app.config;
+
+import org.camunda.app.archive.InvoiceArchive;
+import org.camunda.app.cluster.ClusterMembership;
+import org.camunda.app.document.DocumentStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+@Configuration
+public class InvoiceArchiveConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public InvoiceArchive invoiceArchive(
+            DocumentStore documentStore,
+            ObjectProvider<ClusterMembership> clusterMembership,
+            @Value("${invoice.archive.path:./camunda-archive}") String path,
+            @Value("${invoice.archive.segment-size:268435456}") long segmentSize,
+            @Value("${invoice.archive.max-batch-size:256}") int maxBatchSize,
+            @Value("${invoice.archive.queue-capacity:1024}") int queueCapacity
+    ) {
+        // the archive has a single writer, so every cluster node writes its own
+        Path directory = Paths.get(path);
+        ClusterMembership membership = clusterMembership.getIfAvailable();
+        if (membership != null) {
+            directory = directory.resolve(membership.getNodeId());
+        }
+        return new InvoiceArchive(directory, documentStore, segmentSize, maxBatchSize, queueCapacity);
+    }
+}
@@ -0,0 +1,73 @@
+package org.camunda.app.config;
+
+import org.camunda.app.jobexecutor.AdaptiveJobExecutor;
+import org.camunda.app.jobexecutor.JobLane;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
+import org.camunda.bpm.spring.boot.starter.property.CamundaBpmProperties;
+import org.camunda.bpm.spring.boot.starter.property.JobExecutionProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+/**
+ * Replaces the job executor of the starter, which is only created if there is no other
+ * {@link JobExecutor} bean, with the {@link AdaptiveJobExecutor}. Acquisition settings still come
+ * from {@code camunda.bpm.job-execution}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "invoice.job-executor.adaptive", havingValue = "true")
+public class JobExecutorConfiguration {
+
+    @Bean
+    public JobExecutor jobExecutor(
+            CamundaBpmProperties properties,
+            MetricsRegistry metricsRegistry,
+            @Value("${invoice.job-executor.min-jobs-per-acquisition:1}") int minJobsPerAcquisition,
+            @Value("${invoice.job-executor.archive.activities:ServiceTask_1}") String[] archiveActivities,
+            @Value("${invoice.job-executor.archive.min-workers:1}") int archiveMinWorkers,
+            @Value("${invoice.job-executor.archive.max-workers:4}") int archiveMaxWorkers,
+            @Value("${invoice.job-executor.archive.queue-capacity:16}") int archiveQueueCapacity,
+            @Value("${invoice.job-executor.notify.activities:ServiceTask_06mdb3v}") String[] notifyActivities,
+            @Value("${invoice.job-executor.notify.min-workers:2}") int notifyMinWorkers,
+            @Value("${invoice.job-executor.notify.max-workers:8}") int notifyMaxWorkers,
+            @Value("${invoice.job-executor.notify.queue-capacity:16}") int notifyQueueCapacity,
+            @Value("${invoice.job-executor.default.min-workers:2}") int defaultMinWorkers,
+            @Value("${invoice.job-executor.default.max-workers:10}") int defaultMaxWorkers,
+            @Value("${invoice.job-executor.default.queue-capacity:16}") int defaultQueueCapacity
+    ) {
+        AdaptiveJobExecutor jobExecutor = new AdaptiveJobExecutor(
+                Arrays.asList(
+                        new JobLane("archive", new HashSet<>(Arrays.asList(archiveActivities)), archiveMinWorkers, archiveMaxWorkers, archiveQueueCapacity),
+                        new JobLane("notify", new HashSet<>(Arrays.asList(notifyActivities)), notifyMinWorkers, notifyMaxWorkers, notifyQueueCapacity),
+                        new JobLane("default", Collections.emptySet(), defaultMinWorkers, defaultMaxWorkers, defaultQueueCapacity)
+                ),
+                metricsRegistry,
+                minJobsPerAcquisition
+        );
+
+        JobExecutionProperty jobExecution = properties.getJobExecution();
+        Integer maxJobsPerAcquisition = jobExecution.getMaxJobsPerAcquisition();
+        if (maxJobsPerAcquisition != null) {
+            jobExecutor.setMaxJobsPerAcquisition(maxJobsPerAcquisition);
+        }
+        Integer lockTimeInMillis = jobExecution.getLockTimeInMillis();
+        if (lockTimeInMillis != null) {
+            jobExecutor.setLockTimeInMillis(lockTimeInMillis);
+        }
+        Integer waitTimeInMillis = jobExecution.getWaitTimeInMillis();
+        if (waitTimeInMillis != null) {
+            jobExecutor.setWaitTimeInMillis(waitTimeInMillis);
+        }
+        Long maxWait = jobExecution.getMaxWait();
+        if (maxWait != null) {
+            jobExecutor.setMaxWait(maxWait);
+        }
+        return jobExecutor;
+    }
+}
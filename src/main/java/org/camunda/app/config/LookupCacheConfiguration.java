@@ -0,0 +1,53 @@
+package org.camunda.app.config;
+
+import org.camunda.app.authorization.AuthorizationCache;
+import org.camunda.app.lookup.LookupCache;
+import org.camunda.app.lookup.LookupCachePlugin;
+import org.camunda.app.lookup.LookupCacheStamp;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * With {@code invoice.lookup-cache.enabled: true} process definition, user, group and membership
+ * lookups are read through the {@link LookupCache}. With more than one node set
+ * {@code invoice.lookup-cache.poll-interval-millis} and a unique {@code invoice.cluster.node-id},
+ * the nodes then exchange version stamps through the database and drop their caches on changes of
+ * the others.
+ */
+@Configuration
+@ConditionalOnProperty(name = "invoice.lookup-cache.enabled", havingValue = "true")
+public class LookupCacheConfiguration {
+
+    @Bean
+    public LookupCache lookupCache(
+            MetricsRegistry metricsRegistry,
+            @Value("${invoice.lookup-cache.maximum-size:10000}") long maximumSize,
+            @Value("${invoice.lookup-cache.concurrency-level:16}") int concurrencyLevel,
+            @Value("${invoice.lookup-cache.expire-after-write-seconds:0}") long expireAfterWriteSeconds
+    ) {
+        return new LookupCache(metricsRegistry, maximumSize, concurrencyLevel, expireAfterWriteSeconds);
+    }
+
+    @Bean(destroyMethod = "stop")
+    @ConditionalOnProperty(name = "invoice.lookup-cache.poll-interval-millis")
+    public LookupCacheStamp lookupCacheStamp(
+            LookupCache lookupCache,
+            @Value("${invoice.cluster.node-id:${HOSTNAME:${COMPUTERNAME:local}}}") String nodeId,
+            @Value("${invoice.lookup-cache.poll-interval-millis}") long pollIntervalMillis
+    ) {
+        return new LookupCacheStamp(nodeId, lookupCache, pollIntervalMillis);
+    }
+
+    @Bean
+    public LookupCachePlugin lookupCachePlugin(
+            LookupCache lookupCache,
+            ObjectProvider<AuthorizationCache> authorizationCache,
+            ObjectProvider<LookupCacheStamp> lookupCacheStamp
+    ) {
+        return new LookupCachePlugin(lookupCache, authorizationCache.getIfAvailable(), lookupCacheStamp.getIfAvailable());
+    }
+}
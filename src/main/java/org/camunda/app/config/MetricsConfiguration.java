@@ -0,0 +1,24 @@
+package org.camunda.app.config;
+
+import org.camunda.app.metrics.MetricsPlugin;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public MetricsRegistry metricsRegistry() {
+        return new MetricsRegistry();
+    }
+
+    @Bean
+    public MetricsPlugin metricsPlugin(
+            MetricsRegistry metricsRegistry,
+            @Value("${invoice.metrics.db-reporter-interval-seconds:900}") int dbReporterIntervalSeconds
+    ) {
+        return new MetricsPlugin(metricsRegistry, dbReporterIntervalSeconds);
+    }
+}
@@ -0,0 +1,59 @@
+package org.camunda.app.config;
+
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.app.notification.HttpCreditorNotificationSender;
+import org.camunda.app.notification.NotificationDispatcher;
+import org.camunda.app.notification.NotificationOutbox;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URL;
+
+/**
+ * With {@code invoice.notifications.enabled: true} the notify creditor step enqueues its
+ * notification in the {@link NotificationOutbox} and the {@link NotificationDispatcher} posts them
+ * to {@code invoice.notifications.url}, by default the local stub receiver.
+ */
+@Configuration
+@ConditionalOnProperty(name = "invoice.notifications.enabled", havingValue = "true")
+public class NotificationConfiguration {
+
+    @Bean(initMethod = "createTable")
+    public NotificationOutbox notificationOutbox(ProcessEngine processEngine) {
+        return new NotificationOutbox(processEngine);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public NotificationDispatcher notificationDispatcher(
+            NotificationOutbox notificationOutbox,
+            MetricsRegistry metricsRegistry,
+            @Value("${invoice.notifications.url:http://localhost:${server.port:8080}/api/notification-stub}") URL url,
+            @Value("${invoice.notifications.connect-timeout-millis:2000}") int connectTimeoutMillis,
+            @Value("${invoice.notifications.read-timeout-millis:10000}") int readTimeoutMillis,
+            @Value("${invoice.cluster.node-id:${HOSTNAME:${COMPUTERNAME:local}}}") String nodeId,
+            @Value("${invoice.notifications.batch-size:100}") int batchSize,
+            @Value("${invoice.notifications.concurrency:4}") int concurrency,
+            @Value("${invoice.notifications.lock-millis:60000}") long lockMillis,
+            @Value("${invoice.notifications.max-attempts:10}") int maxAttempts,
+            @Value("${invoice.notifications.base-backoff-millis:1000}") long baseBackoffMillis,
+            @Value("${invoice.notifications.max-backoff-millis:300000}") long maxBackoffMillis,
+            @Value("${invoice.notifications.poll-interval-millis:500}") long pollIntervalMillis
+    ) {
+        return new NotificationDispatcher(
+                notificationOutbox,
+                new HttpCreditorNotificationSender(url, connectTimeoutMillis, readTimeoutMillis),
+                metricsRegistry,
+                nodeId,
+                batchSize,
+                concurrency,
+                lockMillis,
+                maxAttempts,
+                baseBackoffMillis,
+                maxBackoffMillis,
+                pollIntervalMillis
+        );
+    }
+}
@@ -0,0 +1,111 @@
+package org.camunda.app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.app.jobexecutor.AdaptiveJobExecutor;
+import org.camunda.app.persistence.ReadOnlyQueryPlugin;
+import org.camunda.app.persistence.ReadOnlyRoutingDataSource;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
+import org.camunda.bpm.spring.boot.starter.property.CamundaBpmProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+
+import static java.lang.String.format;
+
+/**
+ * Connection pools of the engine. The primary pool is sized to the job executor workers plus
+ * {@code invoice.persistence.request-connections} for web requests and the other background
+ * threads, unless {@code spring.datasource.hikari.maximum-pool-size} or
+ * {@code invoice.persistence.pool-size} is set. Database specific settings (statement caching,
+ * rewritten batch inserts) live in the Spring profiles, see application-postgres.yaml.
+ * <p>
+ * With {@code invoice.persistence.read-only.url} the history, task and filter queries of the
+ * engine run against a second, read-only pool, typically a replica.
+ */
+@Slf4j
+@Configuration
+public class PersistenceConfiguration {
+
+    private static final int DEFAULT_JOB_EXECUTOR_THREADS = 10;
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(
+            DataSourceProperties properties,
+            CamundaBpmProperties camundaBpmProperties,
+            ObjectProvider<JobExecutor> jobExecutor,
+            @Value("${invoice.persistence.pool-size:0}") int poolSize,
+            @Value("${invoice.persistence.request-connections:10}") int requestConnections
+    ) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("camunda");
+        if (poolSize <= 0) {
+            poolSize = jobExecutorThreads(camundaBpmProperties, jobExecutor.getIfAvailable()) + requestConnections;
+        }
+        dataSource.setMaximumPoolSize(poolSize);
+        log.info(format("Engine connection pool sized to %d connections", poolSize));
+        return dataSource;
+    }
+
+    private static int jobExecutorThreads(CamundaBpmProperties camundaBpmProperties, JobExecutor jobExecutor) {
+        if (jobExecutor instanceof AdaptiveJobExecutor) {
+            return ((AdaptiveJobExecutor) jobExecutor).getMaxWorkers();
+        }
+        Integer maxPoolSize = camundaBpmProperties.getJobExecution().getMaxPoolSize();
+        return maxPoolSize == null ? DEFAULT_JOB_EXECUTOR_THREADS : maxPoolSize;
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "invoice.persistence.read-only.url")
+    public static class ReadOnlyConfiguration {
+
+        @Bean
+        public HikariDataSource readOnlyDataSource(
+                DataSourceProperties properties,
+                @Value("${invoice.persistence.read-only.url}") String url,
+                @Value("${invoice.persistence.read-only.username:${spring.datasource.username:}}") String username,
+                @Value("${invoice.persistence.read-only.password:${spring.datasource.password:}}") String password,
+                @Value("${invoice.persistence.read-only.pool-size:10}") int poolSize
+        ) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("camunda-read-only");
+            dataSource.setDriverClassName(properties.determineDriverClassName());
+            dataSource.setJdbcUrl(url);
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setReadOnly(true);
+            return dataSource;
+        }
+
+        /**
+         * Picked up by the starter instead of the primary datasource.
+         */
+        @Bean
+        public DataSource camundaBpmDataSource(DataSource dataSource, @Qualifier("readOnlyDataSource") DataSource readOnlyDataSource) {
+            return new ReadOnlyRoutingDataSource(dataSource, readOnlyDataSource);
+        }
+
+        @Bean
+        public PlatformTransactionManager camundaBpmTransactionManager(@Qualifier("camundaBpmDataSource") DataSource camundaBpmDataSource) {
+            return new DataSourceTransactionManager(camundaBpmDataSource);
+        }
+
+        @Bean
+        public ReadOnlyQueryPlugin readOnlyQueryPlugin() {
+            return new ReadOnlyQueryPlugin();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.camunda.app.config;
+
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.app.retry.RetryScheduler;
+import org.camunda.app.retry.RetrySchedulerPlugin;
+import org.camunda.app.service.ArchiveInvoiceService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+
+/**
+ * With {@code invoice.retry-scheduler.enabled: true} the archive calls go through a circuit
+ * breaker and failed archive jobs are retried by the {@link RetryScheduler}: with jittered
+ * backoff while the archive answers, parked under one incident while it is down.
+ */
+@Configuration
+@ConditionalOnProperty(name = "invoice.retry-scheduler.enabled", havingValue = "true")
+public class RetrySchedulerConfiguration {
+
+    @Bean
+    public RetryScheduler retryScheduler(
+            MetricsRegistry metricsRegistry,
+            @Value("${invoice.retry-scheduler.archive.activities:ServiceTask_1}") String[] archiveActivities,
+            @Value("${invoice.retry-scheduler.failure-threshold:5}") int failureThreshold,
+            @Value("${invoice.retry-scheduler.open-millis:30000}") long openMillis,
+            @Value("${invoice.retry-scheduler.max-open-millis:600000}") long maxOpenMillis,
+            @Value("${invoice.retry-scheduler.base-backoff-millis:5000}") long baseBackoffMillis,
+            @Value("${invoice.retry-scheduler.max-backoff-millis:300000}") long maxBackoffMillis,
+            @Value("${invoice.retry-scheduler.resume-spread-millis:60000}") long resumeSpreadMillis
+    ) {
+        RetryScheduler scheduler = new RetryScheduler(
+                metricsRegistry, failureThreshold, openMillis, maxOpenMillis, baseBackoffMillis, maxBackoffMillis, resumeSpreadMillis);
+        scheduler.register(ArchiveInvoiceService.TARGET, Arrays.asList(archiveActivities));
+        return scheduler;
+    }
+
+    @Bean
+    public RetrySchedulerPlugin retrySchedulerPlugin(RetryScheduler retryScheduler) {
+        return new RetrySchedulerPlugin(retryScheduler);
+    }
+}
@@ -0,0 +1,27 @@
+package org.camunda.app.config;
+
+import org.camunda.app.tasklist.TaskIndex;
+import org.camunda.app.tasklist.TaskIndexPlugin;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The index is local to a node and only sees the task changes made on it, so it stays off in
+ * cluster mode and the tasklist API queries the engine instead.
+ */
+@Configuration
+@ConditionalOnExpression("${invoice.tasklist-index.enabled:false} && !${invoice.cluster.enabled:false}")
+public class TaskIndexConfiguration {
+
+    @Bean
+    public TaskIndex taskIndex() {
+        return new TaskIndex();
+    }
+
+    @Bean
+    public TaskIndexPlugin taskIndexPlugin(TaskIndex taskIndex, @Value("${invoice.tasklist-index.load-page-size:1000}") int loadPageSize) {
+        return new TaskIndexPlugin(taskIndex, loadPageSize);
+    }
+}
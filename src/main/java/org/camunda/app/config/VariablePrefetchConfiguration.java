@@ -0,0 +1,15 @@
+package org.camunda.app.config;
+
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.app.variables.VariablePrefetcher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class VariablePrefetchConfiguration {
+
+    @Bean
+    public VariablePrefetcher variablePrefetcher(MetricsRegistry metricsRegistry) {
+        return new VariablePrefetcher(metricsRegistry);
+    }
+}
@@ -0,0 +1,53 @@
+package org.camunda.app.delivery;
+
+import lombok.Getter;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A response of the delivery layer: status, headers and the part of the body to send. Kept apart
+ * from the servlet API, so the same answer can be written by a controller or a filter.
+ */
+@Getter
+public class Delivery {
+
+    private final int status;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private final byte[] body;
+    private final int offset;
+    private final int length;
+
+    Delivery(int status, byte[] body, int offset, int length) {
+        this.status = status;
+        this.body = body;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    static Delivery notModified() {
+        return new Delivery(HttpServletResponse.SC_NOT_MODIFIED, null, 0, 0);
+    }
+
+    static Delivery of(int status, byte[] body) {
+        return new Delivery(status, body, 0, body == null ? 0 : body.length);
+    }
+
+    Delivery header(String name, String value) {
+        if (value != null) {
+            headers.put(name, value);
+        }
+        return this;
+    }
+
+    public void writeTo(HttpServletResponse response) throws IOException {
+        response.setStatus(status);
+        headers.forEach(response::setHeader);
+        if (body != null) {
+            response.setContentLength(length);
+            response.getOutputStream().write(body, offset, length);
+        }
+    }
+}
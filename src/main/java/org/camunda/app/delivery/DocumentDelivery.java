@@ -0,0 +1,266 @@
+package org.camunda.app.delivery;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.ByteStreams;
+import org.camunda.app.callactivity.FileReferenceSerializer;
+import org.camunda.app.document.StoredFileValueSerializer;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.bpm.engine.IdentityService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.identity.Authentication;
+import org.camunda.bpm.engine.impl.persistence.entity.VariableInstanceEntity;
+import org.camunda.bpm.engine.runtime.VariableInstance;
+import org.camunda.bpm.engine.task.Task;
+import org.camunda.bpm.engine.variable.type.ValueType;
+import org.camunda.bpm.engine.variable.value.FileValue;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+
+/**
+ * Serves file variables, typically the invoice document, for the REST download URLs with strong
+ * entity tags and single byte ranges, which PDF viewers use to load large documents piecewise.
+ * The tag is derived without loading the content: the content hash of document store files, id
+ * and revision of the byte array otherwise. Contents are cached by tag up to
+ * {@code maximumCacheBytes}, so repeated opens and range requests don't read the byte array again.
+ * <p>
+ * Variables are looked up with the user's authorizations; whatever isn't a visible file variable
+ * is left to the REST API, which answers it as before.
+ */
+public class DocumentDelivery {
+
+    private static final String SEPARATOR = "#";
+    private static final String DEFAULT_MIME_TYPE = "application/octet-stream";
+
+    private final ProcessEngine processEngine;
+    private final MetricsRegistry metricsRegistry;
+    private final Cache<String, byte[]> contents;
+
+    public enum Scope {
+        TASK,
+        PROCESS_INSTANCE,
+        EXECUTION
+    }
+
+    public DocumentDelivery(ProcessEngine processEngine, MetricsRegistry metricsRegistry, long maximumCacheBytes) {
+        this.processEngine = processEngine;
+        this.metricsRegistry = metricsRegistry;
+        this.contents = CacheBuilder.newBuilder()
+                .maximumWeight(maximumCacheBytes)
+                .<String, byte[]>weigher((etag, content) -> content.length)
+                .build();
+    }
+
+    /**
+     * @param userId   user whose authorizations apply, {@code null} to run without
+     * @param range    {@code Range} of the request, may be {@code null}, likewise the conditions
+     * @return the response or {@code null} to let the REST API answer
+     */
+    public Delivery deliver(
+            Scope scope,
+            String scopeId,
+            String variableName,
+            String userId,
+            List<String> groupIds,
+            String ifNoneMatch,
+            String range,
+            String ifRange
+    ) {
+        VariableInstanceEntity variable = asUser(userId, groupIds, () -> find(scope, scopeId, variableName));
+        if (variable == null) {
+            return null;
+        }
+        String etag = etag(variable);
+        if (etag == null) {
+            return null;
+        }
+
+        if (!HttpConditions.noneMatch(ifNoneMatch, etag)) {
+            byte[] cached = contents.getIfPresent(etag);
+            record(HttpServletResponse.SC_NOT_MODIFIED, 0, "not_modified", cached == null ? 0 : cached.length);
+            return headers(Delivery.notModified(), etag);
+        }
+
+        byte[] content = contents.getIfPresent(etag);
+        if (content == null) {
+            content = load(variable.getId());
+            contents.put(etag, content);
+        }
+        long[] bytes = HttpConditions.rangeApplies(ifRange, etag) ? HttpConditions.range(range, content.length) : null;
+        if (bytes != null && bytes.length == 0) {
+            record(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, 0, "range", 0);
+            return headers(Delivery.of(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, null), etag)
+                    .header("Content-Range", "bytes */" + content.length);
+        }
+
+        String[] parts = textValue2(variable);
+        boolean withReference = !ValueType.FILE.getName().equals(variable.getSerializerName());
+        String mimeType = part(parts, withReference ? 1 : 0);
+        String encoding = part(parts, withReference ? 2 : 1);
+        Delivery delivery;
+        if (bytes != null) {
+            int first = (int) bytes[0];
+            int length = (int) (bytes[1] - bytes[0] + 1);
+            delivery = new Delivery(HttpServletResponse.SC_PARTIAL_CONTENT, content, first, length)
+                    .header("Content-Range", format("bytes %d-%d/%d", bytes[0], bytes[1], content.length));
+            record(HttpServletResponse.SC_PARTIAL_CONTENT, length, "range", content.length - length);
+        } else {
+            delivery = Delivery.of(HttpServletResponse.SC_OK, content);
+            record(HttpServletResponse.SC_OK, content.length, null, 0);
+        }
+        return headers(delivery, etag)
+                .header("Content-Type", (mimeType == null ? DEFAULT_MIME_TYPE : mimeType) + (encoding == null ? "" : ";charset=" + encoding))
+                .header("Content-Disposition", format("attachment; filename=\"%s\"", variable.getTextValue() == null ? "" : variable.getTextValue()));
+    }
+
+    /**
+     * The variable as the REST API would resolve it, without its content.
+     */
+    private VariableInstanceEntity find(Scope scope, String scopeId, String variableName) {
+        String taskId = null;
+        String executionId;
+        String processInstanceId;
+        if (scope == Scope.TASK) {
+            Task task = processEngine.getTaskService().createTaskQuery().taskId(scopeId).singleResult();
+            if (task == null || task.getProcessInstanceId() == null) {
+                return null;
+            }
+            taskId = task.getId();
+            executionId = task.getExecutionId();
+            processInstanceId = task.getProcessInstanceId();
+        } else {
+            executionId = scopeId;
+            processInstanceId = scope == Scope.PROCESS_INSTANCE ? scopeId : null;
+        }
+
+        List<VariableInstance> candidates = (processInstanceId != null
+                ? processEngine.getRuntimeService().createVariableInstanceQuery().processInstanceIdIn(processInstanceId)
+                : processEngine.getRuntimeService().createVariableInstanceQuery().executionIdIn(executionId))
+                .variableName(variableName)
+                .disableBinaryFetching()
+                .disableCustomObjectDeserialization()
+                .list();
+        // nearest scope first: the task, its execution, the process instance
+        for (String[] match : Arrays.asList(
+                new String[]{taskId, null},
+                new String[]{null, executionId},
+                new String[]{null, processInstanceId})) {
+            for (VariableInstance candidate : candidates) {
+                boolean matches = match[0] != null
+                        ? match[0].equals(candidate.getTaskId())
+                        : match[1] != null && candidate.getTaskId() == null && match[1].equals(candidate.getExecutionId());
+                if (matches) {
+                    return ValueType.FILE.getName().equals(candidate.getTypeName()) ? (VariableInstanceEntity) candidate : null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String etag(VariableInstanceEntity variable) {
+        String serializer = variable.getSerializerName();
+        if (StoredFileValueSerializer.NAME.equals(serializer)) {
+            String hash = part(textValue2(variable), 0);
+            return hash == null ? null : "\"sf-" + hash + "\"";
+        }
+        String byteArrayId;
+        if (ValueType.FILE.getName().equals(serializer)) {
+            byteArrayId = variable.getByteArrayValueId();
+        } else if (FileReferenceSerializer.NAME.equals(serializer)) {
+            byteArrayId = part(textValue2(variable), 0);
+        } else {
+            return null;
+        }
+        if (byteArrayId == null) {
+            return null;
+        }
+        Integer revision = byteArrayRevision(byteArrayId);
+        return revision == null ? null : format("\"ba-%s-%d\"", byteArrayId, revision);
+    }
+
+    private Integer byteArrayRevision(String byteArrayId) {
+        ProcessEngineConfigurationImpl configuration = (ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration();
+        String sql = "select REV_ from " + configuration.getDatabaseTablePrefix() + "ACT_GE_BYTEARRAY where ID_ = ?";
+        return configuration.getCommandExecutorTxRequired().execute(commandContext -> {
+            Connection connection = commandContext.getDbSqlSession().getSqlSession().getConnection();
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, byteArrayId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return resultSet.next() ? resultSet.getInt(1) : null;
+                }
+            } catch (SQLException e) {
+                throw new ProcessEngineException(format("Couldn't read the revision of byte array %s", byteArrayId), e);
+            }
+        });
+    }
+
+    private byte[] load(String variableId) {
+        VariableInstance variable = processEngine.getRuntimeService().createVariableInstanceQuery()
+                .variableId(variableId)
+                .disableCustomObjectDeserialization()
+                .singleResult();
+        if (variable == null) {
+            return new byte[0];
+        }
+        try (InputStream content = ((FileValue) variable.getTypedValue()).getValue()) {
+            return content == null ? new byte[0] : ByteStreams.toByteArray(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Couldn't read file variable %s", variableId), e);
+        }
+    }
+
+    private <T> T asUser(String userId, List<String> groupIds, Supplier<T> query) {
+        if (userId == null) {
+            return query.get();
+        }
+        IdentityService identityService = processEngine.getIdentityService();
+        Authentication previous = identityService.getCurrentAuthentication();
+        identityService.setAuthentication(userId, groupIds);
+        try {
+            return query.get();
+        } finally {
+            if (previous == null) {
+                identityService.clearAuthentication();
+            } else {
+                identityService.setAuthentication(previous);
+            }
+        }
+    }
+
+    private void record(int status, long sent, String reason, long saved) {
+        metricsRegistry.increment("invoice_delivery_responses_total", "Responses of the delivery layer", 1, "asset", "document", "status", String.valueOf(status));
+        metricsRegistry.increment("invoice_delivery_bytes_total", "Body bytes sent by the delivery layer", sent, "asset", "document");
+        if (saved > 0) {
+            metricsRegistry.increment("invoice_delivery_saved_bytes_total", "Body bytes not sent thanks to the delivery layer", saved, "asset", "document", "reason", reason);
+        }
+    }
+
+    private static Delivery headers(Delivery delivery, String etag) {
+        return delivery
+                .header("ETag", etag)
+                .header("Accept-Ranges", "bytes")
+                .header("Cache-Control", "private, no-cache");
+    }
+
+    private static String[] textValue2(VariableInstanceEntity variable) {
+        return (variable.getTextValue2() == null ? "" : variable.getTextValue2()).split(SEPARATOR, -1);
+    }
+
+    private static String part(String[] parts, int index) {
+        return index < parts.length && !parts[index].isEmpty() ? parts[index] : null;
+    }
+}
@@ -0,0 +1,108 @@
+package org.camunda.app.delivery;
+
+import org.camunda.app.delivery.DocumentDelivery.Scope;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.impl.identity.Authentication;
+import org.camunda.bpm.webapp.impl.security.auth.Authentications;
+import org.camunda.bpm.webapp.impl.security.auth.UserAuthentication;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UriUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Answers file variable downloads of the REST API, e.g. the invoice document links of the
+ * embedded forms, through the {@link DocumentDelivery}. Downloads through the webapp's API run as
+ * the user logged in to the session, downloads through {@code /engine-rest} as the user an
+ * authentication filter before this one set, if any. Everything else passes through.
+ */
+public class DocumentDownloadFilter extends OncePerRequestFilter {
+
+    private static final Pattern DOWNLOAD = Pattern.compile(
+            "^(?:/camunda/api/engine/engine/([^/]+)|/engine-rest(?:/engine/([^/]+))?)"
+                    + "/(task|process-instance|execution)/([^/]+)/(variables|localVariables)/([^/]+)/data$"
+    );
+    private static final String DEFAULT_ENGINE = "default";
+
+    private final ProcessEngine processEngine;
+    private final DocumentDelivery documentDelivery;
+
+    public DocumentDownloadFilter(ProcessEngine processEngine, DocumentDelivery documentDelivery) {
+        this.processEngine = processEngine;
+        this.documentDelivery = documentDelivery;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        Matcher download = "GET".equals(request.getMethod())
+                ? DOWNLOAD.matcher(request.getRequestURI().substring(request.getContextPath().length()))
+                : null;
+        Delivery delivery = download != null && download.matches() ? deliver(download, request) : null;
+        if (delivery == null) {
+            chain.doFilter(request, response);
+        } else {
+            delivery.writeTo(response);
+        }
+    }
+
+    private Delivery deliver(Matcher download, HttpServletRequest request) {
+        boolean webapp = download.group(1) != null;
+        String engineName = webapp ? download.group(1) : download.group(2) == null ? DEFAULT_ENGINE : download.group(2);
+        Scope scope = scope(download.group(3), download.group(5));
+        if (scope == null || !engineName.equals(processEngine.getName())) {
+            return null;
+        }
+
+        String userId;
+        List<String> groupIds;
+        if (webapp) {
+            HttpSession session = request.getSession(false);
+            org.camunda.bpm.webapp.impl.security.auth.Authentication authentication = session == null ? null
+                    : Authentications.getFromSession(session).getAuthenticationForProcessEngine(engineName);
+            if (!(authentication instanceof UserAuthentication)) {
+                return null;
+            }
+            userId = authentication.getIdentityId();
+            groupIds = ((UserAuthentication) authentication).getGroupIds();
+        } else {
+            Authentication authentication = processEngine.getIdentityService().getCurrentAuthentication();
+            userId = authentication == null ? null : authentication.getUserId();
+            groupIds = authentication == null ? null : authentication.getGroupIds();
+        }
+
+        return documentDelivery.deliver(
+                scope,
+                UriUtils.decode(download.group(4), StandardCharsets.UTF_8),
+                UriUtils.decode(download.group(6), StandardCharsets.UTF_8),
+                userId,
+                groupIds,
+                request.getHeader("If-None-Match"),
+                request.getHeader("Range"),
+                request.getHeader("If-Range")
+        );
+    }
+
+    /**
+     * Tasks and process instances have {@code variables}, executions {@code localVariables}.
+     */
+    private static Scope scope(String resource, String variables) {
+        boolean local = "localVariables".equals(variables);
+        switch (resource) {
+            case "task":
+                return local ? null : Scope.TASK;
+            case "process-instance":
+                return local ? null : Scope.PROCESS_INSTANCE;
+            default:
+                return local ? Scope.EXECUTION : null;
+        }
+    }
+}
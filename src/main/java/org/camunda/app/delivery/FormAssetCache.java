@@ -0,0 +1,179 @@
+package org.camunda.app.delivery;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import org.camunda.app.metrics.MetricsRegistry;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static java.lang.String.format;
+
+/**
+ * Embedded forms below {@code root} on the class path, read once and kept in memory together with
+ * a gzip copy compressed at the best level. A brotli copy is served if a precompressed {@code .br}
+ * file sits next to the form, since the JDK has no brotli encoder. Every representation has its own
+ * strong entity tag derived from the content, so revalidating an unchanged form costs a 304
+ * without body.
+ */
+public class FormAssetCache {
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9_.-]*");
+    private static final String GZIP = "gzip";
+    private static final String BROTLI = "br";
+
+    private final String root;
+    private final MetricsRegistry metricsRegistry;
+    private final ConcurrentMap<String, CachedAsset> assets = new ConcurrentHashMap<>();
+
+    /**
+     * @param root class path directory of the forms, e.g. {@code forms/}
+     */
+    public FormAssetCache(String root, MetricsRegistry metricsRegistry) {
+        this.root = root.endsWith("/") ? root : root + "/";
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    /**
+     * @param acceptEncoding  {@code Accept-Encoding} of the request, may be {@code null}
+     * @param ifNoneMatch     {@code If-None-Match} of the request, may be {@code null}
+     * @return the response or {@code null} if there is no such form
+     */
+    public Delivery deliver(String name, String acceptEncoding, String ifNoneMatch) {
+        if (!NAME.matcher(name).matches()) {
+            return null;
+        }
+        CachedAsset asset = assets.get(name);
+        if (asset == null) {
+            // misses aren't cached, they would let requests fill the cache
+            asset = load(name);
+            if (asset == null) {
+                return null;
+            }
+            assets.putIfAbsent(name, asset);
+        }
+
+        Representation representation = asset.identity;
+        for (Representation encoded : asset.encoded) {
+            if (HttpConditions.accepts(acceptEncoding, encoded.encoding)) {
+                representation = encoded;
+                break;
+            }
+        }
+        Delivery delivery;
+        if (!HttpConditions.noneMatch(ifNoneMatch, representation.etag)) {
+            delivery = Delivery.notModified();
+            record(HttpServletResponse.SC_NOT_MODIFIED, 0, "not_modified", representation.body.length);
+        } else {
+            delivery = Delivery.of(HttpServletResponse.SC_OK, representation.body)
+                    .header("Content-Type", asset.contentType)
+                    .header("Content-Encoding", representation.encoding);
+            record(HttpServletResponse.SC_OK, representation.body.length, "compression", asset.identity.body.length - representation.body.length);
+        }
+        return delivery
+                .header("ETag", representation.etag)
+                .header("Vary", "Accept-Encoding")
+                .header("Cache-Control", "no-cache");
+    }
+
+    private CachedAsset load(String name) {
+        byte[] content = read(root + name);
+        if (content == null) {
+            return null;
+        }
+        String hash = Hashing.sha256().hashBytes(content).toString().substring(0, 32);
+        List<Representation> encoded = new ArrayList<>(2);
+        byte[] brotli = read(root + name + "." + BROTLI);
+        if (brotli != null && brotli.length < content.length) {
+            encoded.add(new Representation(BROTLI, "\"" + hash + "-" + BROTLI + "\"", brotli));
+        }
+        byte[] gzip = gzip(content);
+        if (gzip.length < content.length) {
+            encoded.add(new Representation(GZIP, "\"" + hash + "-" + GZIP + "\"", gzip));
+        }
+        return new CachedAsset(contentType(name), new Representation(null, "\"" + hash + "\"", content), encoded);
+    }
+
+    private void record(int status, long sent, String reason, long saved) {
+        metricsRegistry.increment("invoice_delivery_responses_total", "Responses of the delivery layer", 1, "asset", "form", "status", String.valueOf(status));
+        metricsRegistry.increment("invoice_delivery_bytes_total", "Body bytes sent by the delivery layer", sent, "asset", "form");
+        if (saved > 0) {
+            metricsRegistry.increment("invoice_delivery_saved_bytes_total", "Body bytes not sent thanks to the delivery layer", saved, "asset", "form", "reason", reason);
+        }
+    }
+
+    private static byte[] read(String resource) {
+        try (InputStream in = FormAssetCache.class.getClassLoader().getResourceAsStream(resource)) {
+            return in == null ? null : ByteStreams.toByteArray(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Couldn't read %s", resource), e);
+        }
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String contentType(String name) {
+        String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+        switch (extension) {
+            case "html":
+                return "text/html;charset=UTF-8";
+            case "js":
+                return "application/javascript;charset=UTF-8";
+            case "css":
+                return "text/css;charset=UTF-8";
+            case "json":
+                return "application/json;charset=UTF-8";
+            default:
+                return "application/octet-stream";
+        }
+    }
+
+    private static class CachedAsset {
+        private final String contentType;
+        private final Representation identity;
+        /**
+         * Preferred first
+         */
+        private final List<Representation> encoded;
+
+        private CachedAsset(String contentType, Representation identity, List<Representation> encoded) {
+            this.contentType = contentType;
+            this.identity = identity;
+            this.encoded = encoded;
+        }
+    }
+
+    private static class Representation {
+        private final String encoding;
+        private final String etag;
+        private final byte[] body;
+
+        private Representation(String encoding, String etag, byte[] body) {
+            this.encoding = encoding;
+            this.etag = etag;
+            this.body = body;
+        }
+    }
+}
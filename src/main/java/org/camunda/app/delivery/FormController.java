@@ -0,0 +1,39 @@
+package org.camunda.app.delivery;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Serves the embedded forms, which the tasklist loads for {@code embedded:app:forms/...} form
+ * keys, from the {@link FormAssetCache}.
+ */
+@RestController
+@ConditionalOnProperty(name = "invoice.delivery.enabled", havingValue = "true")
+public class FormController {
+
+    @Autowired
+    protected FormAssetCache formAssetCache;
+
+    @GetMapping("/forms/{name:.+}")
+    public void form(
+            @PathVariable String name,
+            @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+            HttpServletResponse response
+    ) throws IOException {
+        Delivery delivery = formAssetCache.deliver(name, acceptEncoding, ifNoneMatch);
+        if (delivery == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No form " + name);
+        }
+        delivery.writeTo(response);
+    }
+}
@@ -0,0 +1,92 @@
+package org.camunda.app.delivery;
+
+/**
+ * Conditional and range request headers, as far as the delivery layer needs them: entity tags
+ * from {@code If-None-Match} are compared weakly, {@code If-Range} strongly, and only single
+ * {@code bytes} ranges are served, anything else gets the full body.
+ */
+final class HttpConditions {
+
+    private HttpConditions() {
+    }
+
+    /**
+     * @param ifNoneMatch header value, may be {@code null}
+     */
+    static boolean noneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return true;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || opaque(tag).equals(opaque(etag))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether a range may be served: no {@code If-Range} or one naming the current strong tag
+     */
+    static boolean rangeApplies(String ifRange, String etag) {
+        return ifRange == null || (!ifRange.trim().startsWith("W/") && ifRange.trim().equals(etag));
+    }
+
+    /**
+     * @return {@code [first, last]} of a single satisfiable byte range, {@code null} to send the full
+     * body, or an empty array if the range can't be satisfied
+     */
+    static long[] range(String header, long size) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String start = spec.substring(0, dash).trim();
+            String end = spec.substring(dash + 1).trim();
+            if (start.isEmpty()) {
+                long suffix = Long.parseLong(end);
+                return suffix <= 0 || size == 0 ? new long[0] : new long[]{Math.max(0, size - suffix), size - 1};
+            }
+            long first = Long.parseLong(start);
+            long last = end.isEmpty() ? size - 1 : Math.min(Long.parseLong(end), size - 1);
+            if (first >= size || last < first) {
+                return new long[0];
+            }
+            return new long[]{first, last};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the client takes the content coding, i.e. lists it without {@code q=0}
+     */
+    static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String candidate : acceptEncoding.split(",")) {
+            String[] parts = candidate.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase(coding)) {
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim().replace(" ", "");
+                    if (parameter.equals("q=0") || parameter.matches("q=0\\.0*")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
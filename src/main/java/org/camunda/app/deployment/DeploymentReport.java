@@ -0,0 +1,33 @@
+package org.camunda.app.deployment;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class DeploymentReport {
+
+    private final int resources;
+    private final List<String> changedResources;
+    /**
+     * Changed resources whose content was parsed on this machine before
+     */
+    private final int cachedModels;
+    /**
+     * {@code null} if nothing was deployed
+     */
+    private final String deploymentId;
+    private final long hashMillis;
+    private final long validateMillis;
+    private final long deployMillis;
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%d of %d resources changed %s, %d parsed before, deployment %s, hashed in %d ms, validated in %d ms, deployed in %d ms",
+                changedResources.size(), resources, changedResources, cachedModels, deploymentId, hashMillis, validateMillis, deployMillis
+        );
+    }
+}
@@ -0,0 +1,140 @@
+package org.camunda.app.deployment;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.String.format;
+
+/**
+ * Parsed models by content hash in one binary file on local disk, read once per start and
+ * replaced atomically when models were added. A missing, foreign or damaged file is an empty
+ * cache, it only costs a parse.
+ */
+@Slf4j
+public class ModelCache {
+
+    private static final int MAGIC = 0x494d4331;
+    private static final int FORMAT_VERSION = 1;
+    private static final String FILE_NAME = "models.bin";
+
+    private final Path file;
+    private final Map<String, ParsedModel> models = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+    private volatile boolean changed;
+
+    /**
+     * @param directory {@code null} keeps the models in memory only
+     */
+    public ModelCache(Path directory) {
+        this.file = directory == null ? null : directory.resolve(FILE_NAME);
+    }
+
+    public ParsedModel get(String hash) {
+        load();
+        return models.get(hash);
+    }
+
+    public void put(ParsedModel model) {
+        load();
+        if (models.putIfAbsent(model.getHash(), model) == null) {
+            changed = true;
+        }
+    }
+
+    public int size() {
+        load();
+        return models.size();
+    }
+
+    /**
+     * Writes the models if any were added. Entries are a few bytes per model version, so old ones
+     * are kept.
+     */
+    public synchronized void flush() {
+        if (file == null || !changed) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = Files.createTempFile(file.getParent(), FILE_NAME, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                write(out, models.values());
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            changed = false;
+        } catch (IOException e) {
+            log.warn(format("Couldn't write model cache %s: %s", file, e.getMessage()));
+        }
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            if (file != null) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                    for (ParsedModel model : read(in)) {
+                        models.put(model.getHash(), model);
+                    }
+                } catch (NoSuchFileException e) {
+                    // first start on this machine
+                } catch (IOException | RuntimeException e) {
+                    log.warn(format("Ignored unreadable model cache %s: %s", file, e.getMessage()));
+                    models.clear();
+                }
+            }
+            loaded = true;
+        }
+    }
+
+    private static void write(DataOutputStream out, Collection<ParsedModel> models) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(models.size());
+        for (ParsedModel model : models) {
+            out.writeUTF(model.getHash());
+            out.writeByte(model.getKind().ordinal());
+            out.writeShort(model.getDefinitionKeys().size());
+            for (String key : model.getDefinitionKeys()) {
+                out.writeUTF(key);
+            }
+        }
+    }
+
+    private static List<ParsedModel> read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("unknown format");
+        }
+        int count = in.readInt();
+        List<ParsedModel> models = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String hash = in.readUTF();
+            ParsedModel.Kind kind = ParsedModel.Kind.values()[in.readByte()];
+            int keyCount = in.readUnsignedShort();
+            List<String> keys = new ArrayList<>(keyCount);
+            for (int k = 0; k < keyCount; k++) {
+                keys.add(in.readUTF());
+            }
+            models.add(new ParsedModel(hash, kind, keys));
+        }
+        return models;
+    }
+}
@@ -0,0 +1,25 @@
+package org.camunda.app.deployment;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * What parsing and validating a model resource yielded: its kind and the keys of the definitions
+ * it declares. Identified by the content hash, so the same content is parsed once per machine.
+ */
+@Getter
+@AllArgsConstructor
+public class ParsedModel {
+
+    public enum Kind {
+        BPMN,
+        DMN,
+        OTHER
+    }
+
+    private final String hash;
+    private final Kind kind;
+    private final List<String> definitionKeys;
+}
@@ -0,0 +1,151 @@
+package org.camunda.app.dmn;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.dmn.engine.DmnDecisionTableResult;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionEvaluationListener;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionLogicEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionTableEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionTableEvaluationListener;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedInput;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngine;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngineConfiguration;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableInputImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableResultImpl;
+import org.camunda.bpm.dmn.engine.impl.delegate.DmnDecisionEvaluationEventImpl;
+import org.camunda.bpm.dmn.engine.impl.delegate.DmnDecisionTableEvaluationEventImpl;
+import org.camunda.bpm.dmn.engine.impl.delegate.DmnEvaluatedInputImpl;
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.bpm.engine.variable.context.VariableContext;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DMN engine which answers repeated evaluations with the same inputs from a {@link DecisionResultCache}.
+ * Hits are reported to the decision evaluation listeners like an evaluation, with the event of
+ * the evaluation which filled the entry and the inputs of this one, so decision history and the
+ * executed decision element metrics are written for them as well.
+ */
+public class CachingDmnEngine extends DefaultDmnEngine {
+
+    private final DecisionResultCache cache;
+    private final ThreadLocal<DmnDecisionEvaluationEvent[]> captured = new ThreadLocal<>();
+    private final DmnDecisionEvaluationListener capture = event -> {
+        DmnDecisionEvaluationEvent[] slot = captured.get();
+        if (slot != null) {
+            slot[0] = event;
+        }
+    };
+
+    public CachingDmnEngine(DefaultDmnEngineConfiguration dmnEngineConfiguration, DecisionResultCache cache) {
+        super(dmnEngineConfiguration);
+        this.cache = cache;
+        dmnEngineConfiguration.getDecisionEvaluationListeners().add(capture);
+    }
+
+    @Override
+    public DmnDecisionResult evaluateDecision(DmnDecision decision, VariableContext variableContext) {
+        DecisionResultCache.Key key = cache.keyOf(decision, variableContext);
+        return key == null ? super.evaluateDecision(decision, variableContext) : evaluate(decision, variableContext, key);
+    }
+
+    @Override
+    public DmnDecisionTableResult evaluateDecisionTable(DmnDecision decision, VariableContext variableContext) {
+        DecisionResultCache.Key key = cache.keyOf(decision, variableContext);
+        if (key == null) {
+            return super.evaluateDecisionTable(decision, variableContext);
+        }
+        return DmnDecisionTableResultImpl.wrap(evaluate(decision, variableContext, key));
+    }
+
+    private DmnDecisionResult evaluate(DmnDecision decision, VariableContext variableContext, DecisionResultCache.Key key) {
+        DecisionResultCache.Entry entry = cache.get(key);
+        if (entry != null) {
+            replay(entry.getEvent(), variableContext);
+            return entry.getResult();
+        }
+
+        DmnDecisionEvaluationEvent[] slot = new DmnDecisionEvaluationEvent[1];
+        captured.set(slot);
+        DmnDecisionResult result;
+        try {
+            result = super.evaluateDecision(decision, variableContext);
+        } finally {
+            captured.remove();
+        }
+        // without its event a hit couldn't be reported
+        if (slot[0] != null) {
+            cache.put(key, result, slot[0]);
+        }
+        return result;
+    }
+
+    private void replay(DmnDecisionEvaluationEvent cached, VariableContext variableContext) {
+        DmnDecisionEvaluationEventImpl event = new DmnDecisionEvaluationEventImpl();
+        List<DmnDecisionLogicEvaluationEvent> requiredDecisionResults = new ArrayList<>();
+        for (DmnDecisionLogicEvaluationEvent requiredDecisionResult : cached.getRequiredDecisionResults()) {
+            requiredDecisionResults.add(revalue(requiredDecisionResult, variableContext));
+        }
+        event.setDecisionResult(revalue(cached.getDecisionResult(), variableContext));
+        event.setRequiredDecisionResults(requiredDecisionResults);
+        event.setExecutedDecisionInstances(cached.getExecutedDecisionInstances());
+        event.setExecutedDecisionElements(cached.getExecutedDecisionElements());
+
+        List<DmnDecisionTableEvaluationListener> tableListeners = dmnEngineConfiguration.getDecisionTableEvaluationListeners();
+        if (tableListeners != null && !tableListeners.isEmpty()) {
+            List<DmnDecisionLogicEvaluationEvent> tableEvents = new ArrayList<>(requiredDecisionResults);
+            tableEvents.add(event.getDecisionResult());
+            for (DmnDecisionLogicEvaluationEvent tableEvent : tableEvents) {
+                if (tableEvent instanceof DmnDecisionTableEvaluationEvent) {
+                    tableListeners.forEach(listener -> listener.notify((DmnDecisionTableEvaluationEvent) tableEvent));
+                }
+            }
+        }
+        for (DmnDecisionEvaluationListener listener : dmnEngineConfiguration.getDecisionEvaluationListeners()) {
+            if (listener != capture) {
+                listener.notify(event);
+            }
+        }
+    }
+
+    /**
+     * The cached table evaluation with the inputs read from this context, as the key may cover
+     * other values of the same interval. Inputs not in the context, the outputs of required
+     * decisions, keep their cached value.
+     */
+    private static DmnDecisionLogicEvaluationEvent revalue(DmnDecisionLogicEvaluationEvent cached, VariableContext variableContext) {
+        if (!(cached instanceof DmnDecisionTableEvaluationEvent)) {
+            return cached;
+        }
+        DmnDecisionTableEvaluationEvent table = (DmnDecisionTableEvaluationEvent) cached;
+        List<DmnDecisionTableInputImpl> tableInputs = ((DmnDecisionTableImpl) table.getDecision().getDecisionLogic()).getInputs();
+        List<DmnEvaluatedInput> inputs = new ArrayList<>(table.getInputs().size());
+        for (int i = 0; i < table.getInputs().size(); i++) {
+            DmnDecisionTableInputImpl tableInput = tableInputs.get(i);
+            String name = tableInput.getExpression().getExpression().trim();
+            if (!variableContext.containsVariable(name)) {
+                inputs.add(table.getInputs().get(i));
+                continue;
+            }
+            TypedValue value = variableContext.resolve(name);
+            DmnEvaluatedInputImpl input = new DmnEvaluatedInputImpl(tableInput);
+            input.setValue(value == null || value.getValue() == null
+                    ? Variables.untypedNullValue()
+                    : tableInput.getTypeDefinition().transform(value.getValue()));
+            inputs.add(input);
+        }
+
+        DmnDecisionTableEvaluationEventImpl event = new DmnDecisionTableEvaluationEventImpl();
+        event.setDecision(table.getDecision());
+        event.setInputs(inputs);
+        event.setMatchingRules(table.getMatchingRules());
+        event.setCollectResultName(table.getCollectResultName());
+        event.setCollectResultValue(table.getCollectResultValue());
+        event.setExecutedDecisionElements(table.getExecutedDecisionElements());
+        return event;
+    }
+}
@@ -0,0 +1,31 @@
+package org.camunda.app.dmn;
+
+import org.camunda.bpm.engine.impl.persistence.deploy.Deployer;
+import org.camunda.bpm.engine.impl.persistence.entity.DeploymentEntity;
+import org.camunda.bpm.engine.repository.DecisionDefinition;
+
+import java.util.List;
+
+/**
+ * Drops the cached results of older versions when a new version of a decision is deployed. Only
+ * new deployments count, the deployment cache deploys existing ones again when it reloads them.
+ */
+public class DecisionCacheDeployer implements Deployer {
+
+    private final DecisionResultCache cache;
+
+    public DecisionCacheDeployer(DecisionResultCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void deploy(DeploymentEntity deployment) {
+        List<DecisionDefinition> decisions = deployment.getDeployedDecisionDefinitions();
+        if (!deployment.isNew() || decisions == null) {
+            return;
+        }
+        for (DecisionDefinition decision : decisions) {
+            cache.invalidateOlderVersions(decision.getKey(), decision.getId());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.camunda.app.dmn;
+
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.persistence.deploy.Deployer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the engine's DMN engine with a {@link CachingDmnEngine} sharing the same configuration
+ * and registers the {@link DecisionCacheDeployer}.
+ */
+public class DecisionCachePlugin extends AbstractProcessEnginePlugin {
+
+    private final DecisionResultCache cache;
+
+    public DecisionCachePlugin(DecisionResultCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void preInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+        List<Deployer> deployers = processEngineConfiguration.getCustomPostDeployers();
+        if (deployers == null) {
+            deployers = new ArrayList<>();
+            processEngineConfiguration.setCustomPostDeployers(deployers);
+        }
+        deployers.add(new DecisionCacheDeployer(cache));
+    }
+
+    @Override
+    public void postInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+        processEngineConfiguration.setDmnEngine(new CachingDmnEngine(processEngineConfiguration.getDmnEngineConfiguration(), cache));
+    }
+}
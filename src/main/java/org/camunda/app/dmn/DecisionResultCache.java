@@ -0,0 +1,281 @@
+package org.camunda.app.dmn;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import lombok.EqualsAndHashCode;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionEvaluationEvent;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableInputImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableOutputImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableRuleImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnExpressionImpl;
+import org.camunda.bpm.dmn.engine.impl.spi.type.DmnTypeDefinition;
+import org.camunda.bpm.engine.repository.DecisionDefinition;
+import org.camunda.bpm.engine.variable.context.VariableContext;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded cache of decision results keyed by the decision definition id and the values of the
+ * variables its decision tables (including required decisions) read. Only decisions whose input
+ * expressions are plain variable names are cached, since only then the variables fully
+ * determine the result. Entries are keyed by the decision definition id, so versions evaluated in
+ * turn keep their own entries; deploying a new version drops the entries of the older ones.
+ * <p>
+ * Values are converted to the type of their input clause first, so an integer 900 and a double
+ * 900.0 share an entry. Numeric inputs which are only compared with constants, like the amount
+ * ranges of invoiceClassification, are keyed by the interval between those constants they fall
+ * into, as long as all outputs are literals: every value of an interval matches the same rules
+ * with the same outputs. Each entry keeps the evaluation event of the evaluation which filled it,
+ * so hits can be reported to the evaluation listeners.
+ */
+public class DecisionResultCache {
+
+    private static final Pattern VARIABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final String NUMBER = "(-?\\d+(?:\\.\\d+)?)";
+    private static final Pattern COMPARISON = Pattern.compile("(?:<|<=|>|>=)?\\s*" + NUMBER);
+    private static final Pattern INTERVAL = Pattern.compile("[\\[\\]\\(]\\s*" + NUMBER + "\\s*\\.\\.\\s*" + NUMBER + "\\s*[\\[\\]\\)]");
+    private static final Pattern LITERAL = Pattern.compile("\"[^\"]*\"|" + NUMBER + "|true|false|null");
+    private static final List<String> NUMERIC_TYPES = Arrays.asList("integer", "long", "double");
+
+    private final Cache<Key, Entry> results;
+    private final Map<String, List<Input>> inputsByDecisionId = new ConcurrentHashMap<>();
+
+    public DecisionResultCache(long maximumSize) {
+        this.results = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return the cache key for evaluating the decision in the given context or {@code null} if the decision can't be cached
+     */
+    Key keyOf(DmnDecision decision, VariableContext variableContext) {
+        if (!(decision instanceof DecisionDefinition)) {
+            return null;
+        }
+        String decisionId = ((DecisionDefinition) decision).getId();
+        List<Input> inputs = inputsByDecisionId.computeIfAbsent(decisionId, id -> resolveInputs(decision));
+        if (inputs.isEmpty()) {
+            return null;
+        }
+
+        List<Object> values = new ArrayList<>(inputs.size());
+        for (Input input : inputs) {
+            TypedValue value = variableContext.resolve(input.name);
+            Object normalized;
+            try {
+                normalized = value == null || value.getValue() == null ? null : input.type.transform(value.getValue()).getValue();
+            } catch (RuntimeException e) {
+                // the evaluation fails on it as well, let it
+                return null;
+            }
+            values.add(input.boundaries == null || !(normalized instanceof Number) ? normalized : interval(input.boundaries, ((Number) normalized).doubleValue()));
+        }
+        return new Key(decision.getKey(), decisionId, values);
+    }
+
+    Entry get(Key key) {
+        return results.getIfPresent(key);
+    }
+
+    void put(Key key, DmnDecisionResult result, DmnDecisionEvaluationEvent event) {
+        results.put(key, new Entry(result, event));
+    }
+
+    /**
+     * @param decisionId the id of the version to keep
+     */
+    public void invalidateOlderVersions(String decisionKey, String decisionId) {
+        results.asMap().keySet().removeIf(key -> key.decisionKey.equals(decisionKey) && !key.decisionId.equals(decisionId));
+    }
+
+    public void invalidateAll() {
+        results.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return results.stats();
+    }
+
+    public long size() {
+        return results.size();
+    }
+
+    /**
+     * @return an ordinal shared by all values which compare the same to every boundary
+     */
+    private static int interval(double[] boundaries, double value) {
+        int interval = 0;
+        for (double boundary : boundaries) {
+            if (value > boundary) {
+                interval += 2;
+            } else {
+                return value == boundary ? interval + 1 : interval;
+            }
+        }
+        return interval;
+    }
+
+    private static List<Input> resolveInputs(DmnDecision decision) {
+        Map<String, Input> inputs = new LinkedHashMap<>();
+        if (!collectInputs(decision, inputs)) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(inputs.values());
+    }
+
+    private static boolean collectInputs(DmnDecision decision, Map<String, Input> inputs) {
+        if (!decision.isDecisionTable()) {
+            return false;
+        }
+        DmnDecisionTableImpl table = (DmnDecisionTableImpl) decision.getDecisionLogic();
+        boolean literalOutputs = table.getRules().stream()
+                .flatMap(rule -> rule.getConclusions().stream())
+                .allMatch(conclusion -> conclusion == null || isLiteral(conclusion.getExpression()));
+        List<DmnDecisionTableInputImpl> tableInputs = table.getInputs();
+        for (int column = 0; column < tableInputs.size(); column++) {
+            DmnDecisionTableInputImpl tableInput = tableInputs.get(column);
+            String expression = tableInput.getExpression() == null ? null : tableInput.getExpression().getExpression();
+            if (expression == null || !VARIABLE_NAME.matcher(expression.trim()).matches()) {
+                return false;
+            }
+            String name = expression.trim();
+            double[] boundaries = literalOutputs ? boundaries(tableInput, table.getRules(), column) : null;
+            Input input = inputs.get(name);
+            if (input == null) {
+                inputs.put(name, new Input(name, tableInput.getTypeDefinition(), boundaries));
+            } else {
+                input.merge(boundaries);
+            }
+        }
+        for (DmnDecision requiredDecision : decision.getRequiredDecisions()) {
+            if (!collectInputs(requiredDecision, inputs)) {
+                return false;
+            }
+            // outputs of required decisions are produced by their own evaluation, not read from the context
+            for (DmnDecisionTableOutputImpl output : ((DmnDecisionTableImpl) requiredDecision.getDecisionLogic()).getOutputs()) {
+                inputs.remove(output.getOutputName());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the constants the column compares with, {@code null} if it isn't numeric or does more than comparing
+     */
+    private static double[] boundaries(DmnDecisionTableInputImpl input, List<DmnDecisionTableRuleImpl> rules, int column) {
+        if (input.getTypeDefinition() == null || !NUMERIC_TYPES.contains(input.getTypeDefinition().getTypeName())) {
+            return null;
+        }
+        TreeSet<Double> boundaries = new TreeSet<>();
+        for (DmnDecisionTableRuleImpl rule : rules) {
+            DmnExpressionImpl condition = rule.getConditions().get(column);
+            String language = condition.getExpressionLanguage();
+            if (language != null && !"feel".equalsIgnoreCase(language)) {
+                return null;
+            }
+            String text = condition.getExpression() == null ? "" : condition.getExpression().trim();
+            if (text.isEmpty() || text.equals("-")) {
+                continue;
+            }
+            for (String test : text.split(",")) {
+                Matcher comparison = COMPARISON.matcher(test.trim());
+                Matcher interval = INTERVAL.matcher(test.trim());
+                if (comparison.matches()) {
+                    boundaries.add(Double.valueOf(comparison.group(1)));
+                } else if (interval.matches()) {
+                    boundaries.add(Double.valueOf(interval.group(1)));
+                    boundaries.add(Double.valueOf(interval.group(2)));
+                } else {
+                    return null;
+                }
+            }
+        }
+        return boundaries.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    private static boolean isLiteral(String expression) {
+        return expression == null || expression.trim().isEmpty() || LITERAL.matcher(expression.trim()).matches();
+    }
+
+    /**
+     * A variable the decision reads, with the type of its first input clause.
+     */
+    private static class Input {
+        private final String name;
+        private final DmnTypeDefinition type;
+        /**
+         * {@code null} to key by value
+         */
+        private double[] boundaries;
+
+        private Input(String name, DmnTypeDefinition type, double[] boundaries) {
+            this.name = name;
+            this.type = type;
+            this.boundaries = boundaries;
+        }
+
+        /**
+         * The variable is read by another column as well, its intervals have to fit both.
+         */
+        private void merge(double[] other) {
+            if (boundaries == null || other == null) {
+                boundaries = null;
+                return;
+            }
+            TreeSet<Double> merged = new TreeSet<>();
+            Arrays.stream(boundaries).forEach(merged::add);
+            Arrays.stream(other).forEach(merged::add);
+            boundaries = merged.stream().mapToDouble(Double::doubleValue).toArray();
+        }
+    }
+
+    static class Entry {
+        private final DmnDecisionResult result;
+        private final DmnDecisionEvaluationEvent event;
+
+        private Entry(DmnDecisionResult result, DmnDecisionEvaluationEvent event) {
+            this.result = result;
+            this.event = event;
+        }
+
+        DmnDecisionResult getResult() {
+            return result;
+        }
+
+        /**
+         * @return the event of the evaluation which filled the entry
+         */
+        DmnDecisionEvaluationEvent getEvent() {
+            return event;
+        }
+    }
+
+    @EqualsAndHashCode
+    static class Key {
+        private final String decisionKey;
+        private final String decisionId;
+        private final List<Object> values;
+
+        Key(String decisionKey, String decisionId, List<Object> values) {
+            this.decisionKey = decisionKey;
+            this.decisionId = decisionId;
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.camunda.app.document;
+
+import org.camunda.bpm.engine.variable.value.FileValue;
+
+/**
+ * File value which may point to a {@link DocumentStore} document, so its content can be copied
+ * by hash, e.g. with a zero-copy channel transfer, instead of being read through
+ * {@link FileValue#getValue()}.
+ */
+public interface DocumentReference extends FileValue {
+
+    /**
+     * @return the hash of the document in the store, {@code null} if the content isn't stored there
+     */
+    String getHash();
+}
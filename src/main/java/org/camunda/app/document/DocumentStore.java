@@ -0,0 +1,39 @@
+package org.camunda.app.document;
+
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+
+/**
+ * Stores document contents outside of the engine database. Documents are addressed by the
+ * hash of their content, so storing identical contents twice keeps a single copy.
+ */
+public interface DocumentStore {
+
+    /**
+     * Stores the content of the given stream and closes it. Storing content which is stored
+     * already counts as storing it again for {@link #reclaim}.
+     *
+     * @return the content hash which addresses the document
+     */
+    String put(InputStream content);
+
+    InputStream open(String hash);
+
+    /**
+     * Opens the document for channel based access, e.g. zero-copy {@link FileChannel#transferTo} transfers.
+     * The caller is responsible for closing the channel.
+     */
+    FileChannel openChannel(String hash);
+
+    long size(String hash);
+
+    boolean contains(String hash);
+
+    /**
+     * Deletes a document no variable points to anymore, unless it was stored again since the
+     * given time: the variable of that store may not be committed yet.
+     *
+     * @return the bytes freed, 0 if there was no such document, -1 if it was stored again and kept
+     */
+    long reclaim(String hash, long storedBefore);
+}
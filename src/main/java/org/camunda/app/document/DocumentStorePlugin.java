@@ -0,0 +1,32 @@
+package org.camunda.app.document;
+
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.variable.serializer.TypedValueSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registers the {@link StoredFileValueSerializer} ahead of the default serializers, so new file
+ * variables (e.g. {@code invoiceDocument}) are written to the document store.
+ */
+public class DocumentStorePlugin extends AbstractProcessEnginePlugin {
+
+    private final DocumentStore documentStore;
+
+    public DocumentStorePlugin(DocumentStore documentStore) {
+        this.documentStore = documentStore;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void preInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+        List<TypedValueSerializer> serializers = processEngineConfiguration.getCustomPreVariableSerializers();
+        if (serializers == null) {
+            serializers = new ArrayList<>();
+            processEngineConfiguration.setCustomPreVariableSerializers(serializers);
+        }
+        serializers.add(new StoredFileValueSerializer(documentStore));
+    }
+}
@@ -0,0 +1,167 @@
+package org.camunda.app.document;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.ProcessEngineException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static java.lang.String.format;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Keeps documents as plain files below a root directory, named by the SHA-256 of their content
+ * and fanned out by the first two hex digits. Reads are served from memory-mapped files.
+ */
+@Slf4j
+public class FileSystemDocumentStore implements DocumentStore {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path root;
+
+    public FileSystemDocumentStore(Path root) {
+        this.root = root;
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new ProcessEngineException(format("Couldn't create document store directory %s", root), e);
+        }
+    }
+
+    @Override
+    public String put(InputStream content) {
+        Path tempFile = null;
+        try (InputStream in = content) {
+            tempFile = Files.createTempFile(root, "upload", ".tmp");
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(tempFile), digest)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+
+            String hash = toHex(digest.digest());
+            Path target = resolve(hash);
+            if (Files.exists(target)) {
+                try {
+                    // stored again, see reclaim
+                    Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+                    return hash;
+                } catch (NoSuchFileException e) {
+                    log.debug(format("Document %s was reclaimed concurrently", hash));
+                }
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(tempFile, target, ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                log.debug(format("Document %s was stored concurrently", hash));
+            }
+            return hash;
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new ProcessEngineException("Couldn't store document", e);
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    @Override
+    public InputStream open(String hash) {
+        try (FileChannel channel = FileChannel.open(resolve(hash), READ)) {
+            return new ByteBufferInputStream(channel.map(READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new ProcessEngineException(format("Couldn't read document %s", hash), e);
+        }
+    }
+
+    @Override
+    public FileChannel openChannel(String hash) {
+        try {
+            return FileChannel.open(resolve(hash), READ);
+        } catch (IOException e) {
+            throw new ProcessEngineException(format("Couldn't read document %s", hash), e);
+        }
+    }
+
+    @Override
+    public long size(String hash) {
+        try {
+            return Files.size(resolve(hash));
+        } catch (IOException e) {
+            throw new ProcessEngineException(format("Couldn't read document %s", hash), e);
+        }
+    }
+
+    @Override
+    public boolean contains(String hash) {
+        return Files.exists(resolve(hash));
+    }
+
+    /**
+     * Moves the file aside first, so a concurrent {@link #put} of the same content either refreshed
+     * its modification time before, which is checked afterwards, or writes a new file.
+     */
+    @Override
+    public long reclaim(String hash, long storedBefore) {
+        Path target = resolve(hash);
+        Path reclaimed = target.resolveSibling(hash + ".reclaimed");
+        try {
+            Files.move(target, reclaimed, ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            throw new ProcessEngineException(format("Couldn't reclaim document %s", hash), e);
+        }
+        try {
+            if (Files.getLastModifiedTime(reclaimed).toMillis() >= storedBefore) {
+                Files.move(reclaimed, target, ATOMIC_MOVE);
+                return -1;
+            }
+            long size = Files.size(reclaimed);
+            Files.delete(reclaimed);
+            return size;
+        } catch (IOException e) {
+            throw new ProcessEngineException(format("Couldn't reclaim document %s", hash), e);
+        }
+    }
+
+    private Path resolve(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn(format("Couldn't delete temporary file %s", file));
+        }
+    }
+}
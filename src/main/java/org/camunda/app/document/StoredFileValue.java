@@ -0,0 +1,57 @@
+package org.camunda.app.document;
+
+import lombok.Getter;
+import org.camunda.bpm.engine.variable.type.ValueType;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * File variable whose content lives in a {@link DocumentStore}. The content is only read when
+ * {@link #getValue()} is called, so fetching the variable itself is cheap.
+ */
+@Getter
+public class StoredFileValue implements DocumentReference {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient DocumentStore documentStore;
+    private final String hash;
+    private final String filename;
+    private final String mimeType;
+    private final String encoding;
+    private final boolean isTransient;
+
+    public StoredFileValue(DocumentStore documentStore, String hash, String filename, String mimeType, String encoding, boolean isTransient) {
+        this.documentStore = documentStore;
+        this.hash = hash;
+        this.filename = filename;
+        this.mimeType = mimeType;
+        this.encoding = encoding;
+        this.isTransient = isTransient;
+    }
+
+    @Override
+    public InputStream getValue() {
+        return hash == null ? null : documentStore.open(hash);
+    }
+
+    @Override
+    public ValueType getType() {
+        return ValueType.FILE;
+    }
+
+    @Override
+    public Charset getEncodingAsCharset() {
+        return encoding == null ? null : Charset.forName(encoding);
+    }
+
+    @Override
+    public boolean isTransient() {
+        return isTransient;
+    }
+
+    public long getSize() {
+        return hash == null ? 0 : documentStore.size(hash);
+    }
+}
@@ -0,0 +1,87 @@
+package org.camunda.app.document;
+
+import org.camunda.bpm.engine.impl.variable.serializer.AbstractTypedValueSerializer;
+import org.camunda.bpm.engine.impl.variable.serializer.ValueFields;
+import org.camunda.bpm.engine.variable.impl.value.UntypedValueImpl;
+import org.camunda.bpm.engine.variable.type.ValueType;
+import org.camunda.bpm.engine.variable.value.FileValue;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+
+import java.io.InputStream;
+
+/**
+ * Writes file variables to a {@link DocumentStore} and keeps only the content hash, file name,
+ * mime type and encoding in the variable row, so no byte array is written to the database.
+ * Variables written by the default file serializer keep being read by it, since the serializer
+ * name is stored per variable.
+ */
+public class StoredFileValueSerializer extends AbstractTypedValueSerializer<FileValue> {
+
+    public static final String NAME = "storedFile";
+
+    private static final String SEPARATOR = "#";
+
+    private final DocumentStore documentStore;
+
+    public StoredFileValueSerializer(DocumentStore documentStore) {
+        super(ValueType.FILE);
+        this.documentStore = documentStore;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void writeValue(FileValue value, ValueFields valueFields) {
+        String hash = value instanceof DocumentReference ? ((DocumentReference) value).getHash() : null;
+        if (hash == null) {
+            InputStream content = value.getValue();
+            hash = content == null ? null : documentStore.put(content);
+        }
+        valueFields.setTextValue(value.getFilename());
+        valueFields.setTextValue2(join(hash, value.getMimeType(), value.getEncoding()));
+    }
+
+    @Override
+    public FileValue readValue(ValueFields valueFields, boolean deserializeValue, boolean asTransientValue) {
+        String[] reference = (valueFields.getTextValue2() == null ? "" : valueFields.getTextValue2()).split(SEPARATOR, -1);
+        String filename = valueFields.getTextValue() == null ? "" : valueFields.getTextValue();
+        return new StoredFileValue(documentStore, part(reference, 0), filename, part(reference, 1), part(reference, 2), asTransientValue);
+    }
+
+    @Override
+    public FileValue convertToTypedValue(UntypedValueImpl untypedValue) {
+        throw new UnsupportedOperationException("Currently no automatic conversion from UntypedValue to FileValue");
+    }
+
+    @Override
+    protected boolean canWriteValue(TypedValue value) {
+        return value != null && value.getType() != null && ValueType.FILE.getName().equals(value.getType().getName());
+    }
+
+    /**
+     * @return the hash of the document a stored file variable with the given {@code TEXT2_} points to, {@code null} if none
+     */
+    public static String hashOf(String textValue2) {
+        return part((textValue2 == null ? "" : textValue2).split(SEPARATOR, -1), 0);
+    }
+
+    private static String join(String... parts) {
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                joined.append(SEPARATOR);
+            }
+            if (parts[i] != null) {
+                joined.append(parts[i]);
+            }
+        }
+        return joined.toString();
+    }
+
+    private static String part(String[] parts, int index) {
+        return index < parts.length && !parts[index].isEmpty() ? parts[index] : null;
+    }
+}
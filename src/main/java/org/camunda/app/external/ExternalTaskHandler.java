@@ -0,0 +1,24 @@
+package org.camunda.app.external;
+
+import org.camunda.bpm.engine.externaltask.LockedExternalTask;
+import org.camunda.bpm.engine.variable.VariableMap;
+
+import java.util.List;
+
+/**
+ * Work of a service task that can be executed by the {@link ExternalTaskWorker}.
+ */
+public interface ExternalTaskHandler {
+
+    String getTopic();
+
+    /**
+     * @return names of the variables fetched together with the task
+     */
+    List<String> getVariableNames();
+
+    /**
+     * @return variables to complete the task with, may be {@code null}
+     */
+    VariableMap handle(LockedExternalTask task);
+}
@@ -0,0 +1,27 @@
+package org.camunda.app.external;
+
+import org.camunda.bpm.engine.impl.bpmn.parser.BpmnParseListener;
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ExternalTaskModePlugin extends AbstractProcessEnginePlugin {
+
+    private final ExternalTaskParseListener parseListener;
+
+    public ExternalTaskModePlugin(ExternalTaskParseListener parseListener) {
+        this.parseListener = parseListener;
+    }
+
+    @Override
+    public void preInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+        List<BpmnParseListener> parseListeners = processEngineConfiguration.getCustomPostBPMNParseListeners();
+        if (parseListeners == null) {
+            parseListeners = new ArrayList<>();
+            processEngineConfiguration.setCustomPostBPMNParseListeners(parseListeners);
+        }
+        parseListeners.add(parseListener);
+    }
+}
@@ -0,0 +1,50 @@
+package org.camunda.app.external;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.delegate.ExecutionListener;
+import org.camunda.bpm.engine.impl.bpmn.behavior.ExternalTaskActivityBehavior;
+import org.camunda.bpm.engine.impl.bpmn.parser.AbstractBpmnParseListener;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.core.variable.mapping.value.ConstantValueProvider;
+import org.camunda.bpm.engine.impl.pvm.process.ActivityImpl;
+import org.camunda.bpm.engine.impl.pvm.process.ScopeImpl;
+import org.camunda.bpm.engine.impl.util.xml.Element;
+
+import java.util.Map;
+
+import static java.lang.String.format;
+
+/**
+ * Turns the configured service tasks into external tasks, whatever implementation the model
+ * declares, and signals the worker once the transaction which created a task committed.
+ */
+@Slf4j
+public class ExternalTaskParseListener extends AbstractBpmnParseListener {
+
+    private final String processDefinitionKey;
+    private final Map<String, String> topicsByActivityId;
+    private final ExternalTaskSignal signal;
+
+    public ExternalTaskParseListener(String processDefinitionKey, Map<String, String> topicsByActivityId, ExternalTaskSignal signal) {
+        this.processDefinitionKey = processDefinitionKey;
+        this.topicsByActivityId = topicsByActivityId;
+        this.signal = signal;
+    }
+
+    @Override
+    public void parseServiceTask(Element serviceTaskElement, ScopeImpl scope, ActivityImpl activity) {
+        String topic = topicsByActivityId.get(activity.getId());
+        if (topic == null || !processDefinitionKey.equals(activity.getProcessDefinition().getKey())) {
+            return;
+        }
+
+        activity.setActivityBehavior(new ExternalTaskActivityBehavior(new ConstantValueProvider(topic), null));
+        activity.addBuiltInListener(ExecutionListener.EVENTNAME_START, (ExecutionListener) execution ->
+                Context.getCommandContext()
+                        .getTransactionContext()
+                        .addTransactionListener(TransactionState.COMMITTED, commandContext -> signal.signal())
+        );
+        log.debug(format("Service task %s of %s runs as external task on topic %s", activity.getId(), processDefinitionKey, topic));
+    }
+}
@@ -0,0 +1,42 @@
+package org.camunda.app.external;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Wakes up a waiting worker as soon as new external tasks were committed, so the worker can
+ * long-poll instead of querying the database in a tight loop.
+ */
+public class ExternalTaskSignal {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private boolean signaled;
+
+    public void signal() {
+        lock.lock();
+        try {
+            signaled = true;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until {@link #signal()} is called or the timeout elapses.
+     */
+    public void await(long timeoutMillis) throws InterruptedException {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            while (!signaled && nanos > 0) {
+                nanos = available.awaitNanos(nanos);
+            }
+            signaled = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
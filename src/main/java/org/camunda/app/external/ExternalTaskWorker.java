@@ -0,0 +1,199 @@
+package org.camunda.app.external;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.ExternalTaskService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.externaltask.ExternalTaskQueryBuilder;
+import org.camunda.bpm.engine.externaltask.LockedExternalTask;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.variable.VariableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * In-process external task worker. A single fetcher thread fetches and locks tasks of all
+ * handler topics in batches, runs the handlers on a bounded pool and completes the successful
+ * tasks of a batch in one transaction. When no tasks are available it long-polls on the
+ * {@link ExternalTaskSignal} instead of hitting the database again right away.
+ */
+@Slf4j
+public class ExternalTaskWorker {
+
+    private static final int DEFAULT_RETRIES = 3;
+
+    private final ProcessEngine processEngine;
+    private final Map<String, ExternalTaskHandler> handlers = new HashMap<>();
+    private final ExternalTaskSignal signal;
+    private final String workerId;
+    private final int maxTasks;
+    private final long lockDuration;
+    private final long maxWait;
+    private final long retryTimeout;
+    private final ExecutorService handlerPool;
+
+    private final AtomicInteger busyThreads = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread fetcher;
+
+    public ExternalTaskWorker(
+            ProcessEngine processEngine,
+            List<ExternalTaskHandler> handlers,
+            ExternalTaskSignal signal,
+            String workerId,
+            int maxTasks,
+            int poolSize,
+            long lockDuration,
+            long maxWait,
+            long retryTimeout
+    ) {
+        this.processEngine = processEngine;
+        handlers.forEach(handler -> this.handlers.put(handler.getTopic(), handler));
+        this.signal = signal;
+        this.workerId = workerId;
+        this.maxTasks = maxTasks;
+        this.lockDuration = lockDuration;
+        this.maxWait = maxWait;
+        this.retryTimeout = retryTimeout;
+        this.handlerPool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    }
+
+    public void start() {
+        running = true;
+        fetcher = new Thread(this::fetchLoop, "external-task-worker-" + workerId);
+        fetcher.setDaemon(true);
+        fetcher.start();
+        log.info(format("External task worker %s started for topics %s", workerId, handlers.keySet()));
+    }
+
+    public void stop() {
+        running = false;
+        signal.signal();
+        try {
+            fetcher.join(maxWait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        handlerPool.shutdown();
+    }
+
+    public int getBusyThreads() {
+        return busyThreads.get();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    private void fetchLoop() {
+        while (running) {
+            try {
+                List<LockedExternalTask> tasks = fetchAndLock();
+                if (tasks.isEmpty()) {
+                    signal.await(maxWait);
+                } else {
+                    execute(tasks);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn(format("External task worker %s failed to fetch tasks: %s", workerId, e.getMessage()));
+                try {
+                    signal.await(maxWait);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private List<LockedExternalTask> fetchAndLock() {
+        ExternalTaskQueryBuilder builder = processEngine.getExternalTaskService().fetchAndLock(maxTasks, workerId, true);
+        handlers.values().forEach(handler -> builder.topic(handler.getTopic(), lockDuration).variables(handler.getVariableNames()));
+        return builder.execute();
+    }
+
+    private void execute(List<LockedExternalTask> tasks) throws InterruptedException {
+        List<Future<VariableMap>> results = new ArrayList<>(tasks.size());
+        for (LockedExternalTask task : tasks) {
+            ExternalTaskHandler handler = handlers.get(task.getTopicName());
+            results.add(handlerPool.submit(() -> {
+                busyThreads.incrementAndGet();
+                try {
+                    return handler.handle(task);
+                } finally {
+                    busyThreads.decrementAndGet();
+                }
+            }));
+        }
+
+        Map<LockedExternalTask, VariableMap> succeeded = new HashMap<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            LockedExternalTask task = tasks.get(i);
+            try {
+                succeeded.put(task, results.get(i).get());
+            } catch (ExecutionException e) {
+                handleFailure(task, e.getCause());
+            }
+        }
+        completeAll(succeeded);
+    }
+
+    private void completeAll(Map<LockedExternalTask, VariableMap> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        ExternalTaskService externalTaskService = processEngine.getExternalTaskService();
+        try {
+            ((ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration())
+                    .getCommandExecutorTxRequired()
+                    .execute(commandContext -> {
+                        tasks.forEach((task, variables) -> externalTaskService.complete(task.getId(), workerId, variables));
+                        return null;
+                    });
+            completed.addAndGet(tasks.size());
+        } catch (RuntimeException batchFailure) {
+            log.warn(format("Completing %d external tasks at once failed (%s), completing them one by one", tasks.size(), batchFailure.getMessage()));
+            tasks.forEach((task, variables) -> {
+                try {
+                    externalTaskService.complete(task.getId(), workerId, variables);
+                    completed.incrementAndGet();
+                } catch (RuntimeException e) {
+                    log.warn(format("Couldn't complete external task %s: %s", task.getId(), e.getMessage()));
+                }
+            });
+        }
+    }
+
+    private void handleFailure(LockedExternalTask task, Throwable cause) {
+        failed.incrementAndGet();
+        int retries = task.getRetries() == null ? DEFAULT_RETRIES : task.getRetries() - 1;
+        log.warn(format("External task %s on topic %s failed, %d retries left: %s", task.getId(), task.getTopicName(), retries, cause.getMessage()));
+        try {
+            processEngine.getExternalTaskService().handleFailure(task.getId(), workerId, cause.getMessage(), null, Math.max(retries, 0), retryTimeout);
+        } catch (RuntimeException e) {
+            log.warn(format("Couldn't report failure of external task %s: %s", task.getId(), e.getMessage()));
+        }
+    }
+}
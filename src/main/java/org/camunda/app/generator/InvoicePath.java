@@ -0,0 +1,83 @@
+package org.camunda.app.generator;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.camunda.app.generator.InvoicePath.Step.APPROVE;
+import static org.camunda.app.generator.InvoicePath.Step.ASSIGN_REVIEWER;
+import static org.camunda.app.generator.InvoicePath.Step.CLARIFY;
+import static org.camunda.app.generator.InvoicePath.Step.PREPARE_BANK_TRANSFER;
+import static org.camunda.app.generator.InvoicePath.Step.REJECT;
+import static org.camunda.app.generator.InvoicePath.Step.REJECT_REVIEW;
+import static org.camunda.app.generator.InvoicePath.Step.START;
+
+/**
+ * The ways an invoice can take through invoice.v1.bpmn and the tasks worked on along them.
+ */
+public enum InvoicePath {
+
+    APPROVED(START, APPROVE, PREPARE_BANK_TRANSFER),
+    REJECTED(START, REJECT, ASSIGN_REVIEWER, REJECT_REVIEW),
+    CLARIFIED(START, REJECT, ASSIGN_REVIEWER, CLARIFY, APPROVE, PREPARE_BANK_TRANSFER),
+    /**
+     * Approved, but archiving fails because of {@code shouldFail} and ends in an incident.
+     */
+    FAILING(START, APPROVE, PREPARE_BANK_TRANSFER);
+
+    private final List<Step> steps;
+
+    InvoicePath(Step... steps) {
+        this.steps = Collections.unmodifiableList(Arrays.asList(steps));
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * Chooses a path by the relative weights of {@link #APPROVED}, {@link #REJECTED},
+     * {@link #CLARIFIED} and {@link #FAILING}.
+     */
+    public static InvoicePath choose(Random random, int... weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += Math.max(0, weight);
+        }
+        if (total == 0) {
+            return APPROVED;
+        }
+        int choice = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            choice -= Math.max(0, weights[i]);
+            if (choice < 0) {
+                return values()[i];
+            }
+        }
+        return APPROVED;
+    }
+
+    public enum Step {
+        START(null),
+        APPROVE("approveInvoice"),
+        REJECT("approveInvoice"),
+        ASSIGN_REVIEWER("assignReviewer"),
+        CLARIFY("reviewInvoice"),
+        REJECT_REVIEW("reviewInvoice"),
+        PREPARE_BANK_TRANSFER("prepareBankTransfer");
+
+        private final String taskDefinitionKey;
+
+        Step(String taskDefinitionKey) {
+            this.taskDefinitionKey = taskDefinitionKey;
+        }
+
+        /**
+         * @return the user task worked on in this step, {@code null} for the start
+         */
+        public String getTaskDefinitionKey() {
+            return taskDefinitionKey;
+        }
+    }
+}
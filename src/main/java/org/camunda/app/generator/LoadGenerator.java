@@ -0,0 +1,339 @@
+package org.camunda.app.generator;
+
+import com.google.common.util.concurrent.RateLimiter;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.app.generator.InvoicePath.Step;
+import org.camunda.app.ingestion.InvoiceRecord;
+import org.camunda.bpm.engine.ManagementService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.RuntimeService;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
+import org.camunda.bpm.engine.runtime.Job;
+import org.camunda.bpm.engine.runtime.ProcessInstance;
+import org.camunda.bpm.engine.task.IdentityLink;
+import org.camunda.bpm.engine.task.IdentityLinkType;
+import org.camunda.bpm.engine.task.Task;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+import static org.apache.commons.codec.Resources.getInputStream;
+
+/**
+ * Seeds users and invoice instances at production scale. Instances are spread over the paths of
+ * {@link InvoicePath} and start at random points of the configured time range; every step of an
+ * instance happens a random delay after the previous one.
+ * <p>
+ * The engine clock ({@link ClockUtil}) is global, so simulated time advances in windows: all steps
+ * due in a window run in parallel with the clock set to the window start, then the clock moves on
+ * to the next window with due steps. Timestamps are therefore exact to a window, which is the time
+ * range divided by {@link LoadProfile#getTimeWindows()}. Steps due in the future are not run and
+ * the instance stays open. Run it against a dedicated engine, other work sees the shifted clock.
+ * <p>
+ * Async continuations in front of a step's task, like Notify Creditor before the bank transfer,
+ * are executed by the step itself when the job executor hasn't got to them yet.
+ */
+@Slf4j
+@Service
+@NoArgsConstructor
+@AllArgsConstructor
+@ConditionalOnProperty(name = "invoice.load-generator.enabled", havingValue = "true")
+public class LoadGenerator {
+
+    private static final String INVOICE_PROCESS_KEY = "invoice";
+    private static final String INVOICE_PDF = "invoice.pdf";
+    private static final String FALLBACK_USER_ID = "demo";
+    private static final String[] CREDITORS = {
+            "Great Pizza for Everyone Inc.", "Bobby's Office Supplies", "Papa Steve's all you can eat"
+    };
+    private static final String[] CATEGORIES = {"Travel Expenses", "Misc", "Software License Costs"};
+
+    @Autowired
+    protected ProcessEngine processEngine;
+
+    public LoadResult generate(LoadProfile profile) {
+        log.info(format("Generating %d users, %d groups and %d invoices", profile.getUsers(), profile.getGroups(), profile.getInstances()));
+        Map<String, List<String>> usersByGroup = new SampleDataGenerator()
+                .generateLoadUsers(processEngine, profile.getPrefix(), profile.getUsers(), profile.getGroups());
+
+        Random random = new Random(profile.getSeed());
+        long now = System.currentTimeMillis();
+        long range = TimeUnit.DAYS.toMillis(profile.getTimeRangeDays());
+        long window = Math.max(1, range / Math.max(1, profile.getTimeWindows()));
+
+        PriorityQueue<ScheduledStep> schedule = new PriorityQueue<>();
+        for (int i = 0; i < profile.getInstances(); i++) {
+            InvoicePath path = choosePath(profile, random);
+            int stepCount = path.getSteps().size();
+            if (random.nextDouble() < profile.getOpenRatio()) {
+                stepCount = 1 + random.nextInt(stepCount);
+            }
+            Instance instance = new Instance(i, path, stepCount, new Random(random.nextLong()));
+            schedule.add(new ScheduledStep(now - range + (long) (random.nextDouble() * range), instance, 0));
+        }
+
+        byte[] document = profile.isWithDocuments() ? readDocument() : null;
+        RateLimiter rateLimiter = profile.getStartsPerSecond() > 0 ? RateLimiter.create(profile.getStartsPerSecond()) : null;
+        LoadResult result = new LoadResult();
+        ExecutorService executor = Executors.newFixedThreadPool(profile.getThreads());
+        long start = System.currentTimeMillis();
+        try {
+            while (!schedule.isEmpty() && schedule.peek().time <= now) {
+                long windowStart = schedule.peek().time;
+                List<ScheduledStep> due = new ArrayList<>();
+                while (!schedule.isEmpty() && schedule.peek().time < windowStart + window && schedule.peek().time <= now) {
+                    due.add(schedule.poll());
+                }
+
+                ClockUtil.setCurrentTime(new Date(windowStart));
+                List<Future<ScheduledStep>> next = new ArrayList<>(due.size());
+                for (ScheduledStep step : due) {
+                    next.add(executor.submit(() -> run(step, profile, usersByGroup, document, rateLimiter, result)));
+                }
+                for (Future<ScheduledStep> step : next) {
+                    ScheduledStep nextStep = step.get();
+                    if (nextStep != null) {
+                        schedule.add(nextStep);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load generation failed", e.getCause());
+        } finally {
+            ClockUtil.reset();
+            executor.shutdownNow();
+        }
+
+        result.finish(System.currentTimeMillis() - start);
+        log.info(format(
+                "Generated %d invoices and completed %d tasks in %d ms (%.1f starts/s), %d steps failed",
+                result.getInstancesStarted().get(), result.getTasksCompleted().get(), result.getDurationMillis(),
+                result.getStartsPerSecond(), result.getFailures().get()
+        ));
+        return result;
+    }
+
+    private ScheduledStep run(
+            ScheduledStep scheduled,
+            LoadProfile profile,
+            Map<String, List<String>> usersByGroup,
+            byte[] document,
+            RateLimiter rateLimiter,
+            LoadResult result
+    ) {
+        Instance instance = scheduled.instance;
+        Step step = instance.path.getSteps().get(scheduled.step);
+        try {
+            if (step == Step.START) {
+                if (rateLimiter != null) {
+                    rateLimiter.acquire();
+                }
+                instance.processInstanceId = start(instance, profile, document).getId();
+                result.getInstancesStarted().incrementAndGet();
+            } else {
+                complete(instance, step, usersByGroup);
+                result.getTasksCompleted().incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            log.warn(format("Step %s of generated invoice %d failed: %s", step, instance.index, e.getMessage()));
+            result.getFailures().incrementAndGet();
+            return null;
+        }
+
+        int nextStep = scheduled.step + 1;
+        if (nextStep >= instance.stepCount) {
+            return null;
+        }
+        long delay = TimeUnit.MINUTES.toMillis(1 + instance.random.nextInt((int) TimeUnit.HOURS.toMinutes(Math.max(1, profile.getMaxStepDelayHours()))));
+        return new ScheduledStep(scheduled.time + delay, instance, nextStep);
+    }
+
+    private ProcessInstance start(Instance instance, LoadProfile profile, byte[] document) {
+        Random random = instance.random;
+        VariableMap variables = new InvoiceRecord(
+                instance.index,
+                CREDITORS[random.nextInt(CREDITORS.length)],
+                Math.round((10 + random.nextDouble() * 2000) * 100) / 100D,
+                CATEGORIES[random.nextInt(CATEGORIES.length)],
+                format("%sINV-%08d", profile.getPrefix().toUpperCase(), instance.index)
+        ).toVariables();
+        if (document != null) {
+            variables.putValue("invoiceDocument", Variables.fileValue(INVOICE_PDF)
+                    .file(document)
+                    .mimeType("application/pdf")
+                    .create());
+        }
+        if (instance.path == InvoicePath.FAILING) {
+            variables.putValue("shouldFail", true);
+        }
+        return processEngine.getRuntimeService().startProcessInstanceByKey(INVOICE_PROCESS_KEY, variables);
+    }
+
+    private void complete(Instance instance, Step step, Map<String, List<String>> usersByGroup) {
+        TaskService taskService = processEngine.getTaskService();
+        String processInstanceId = processInstanceOf(instance, step);
+        Task task = findTask(processInstanceId, step);
+        if (task == null && executeJobs(processInstanceId)) {
+            task = findTask(processInstanceId, step);
+        }
+        if (task == null) {
+            throw new IllegalStateException(format("No open task for step %s", step));
+        }
+        if (task.getAssignee() == null) {
+            taskService.claim(task.getId(), chooseUser(task, usersByGroup, instance.random));
+        }
+
+        VariableMap variables = Variables.createVariables();
+        switch (step) {
+            case APPROVE:
+                variables.putValue("approved", true);
+                break;
+            case REJECT:
+                variables.putValue("approved", false);
+                break;
+            case ASSIGN_REVIEWER:
+                variables.putValue("reviewer", FALLBACK_USER_ID);
+                break;
+            case CLARIFY:
+                variables.putValue("clarified", true);
+                break;
+            case REJECT_REVIEW:
+                variables.putValue("clarified", false);
+                break;
+            default:
+                break;
+        }
+        taskService.complete(task.getId(), variables);
+    }
+
+    private Task findTask(String processInstanceId, Step step) {
+        return processEngine.getTaskService().createTaskQuery()
+                .processInstanceId(processInstanceId)
+                .taskDefinitionKey(step.getTaskDefinitionKey())
+                .singleResult();
+    }
+
+    /**
+     * Executes the due jobs of the instance in the calling thread.
+     *
+     * @return whether any job was executed, here or meanwhile by the job executor
+     */
+    private boolean executeJobs(String processInstanceId) {
+        ManagementService managementService = processEngine.getManagementService();
+        List<Job> jobs = managementService.createJobQuery()
+                .processInstanceId(processInstanceId)
+                .executable()
+                .list();
+        for (Job job : jobs) {
+            try {
+                managementService.executeJob(job.getId());
+            } catch (ProcessEngineException e) {
+                // the job executor ran it concurrently, or it failed and the task query tells
+                log.debug(format("Job %s of process instance %s not executed: %s", job.getId(), processInstanceId, e.getMessage()));
+            }
+        }
+        return !jobs.isEmpty();
+    }
+
+    /**
+     * Review steps run in the called ReviewInvoice instance.
+     */
+    private String processInstanceOf(Instance instance, Step step) {
+        if (step != Step.ASSIGN_REVIEWER && step != Step.CLARIFY && step != Step.REJECT_REVIEW) {
+            return instance.processInstanceId;
+        }
+        RuntimeService runtimeService = processEngine.getRuntimeService();
+        ProcessInstance review = runtimeService.createProcessInstanceQuery()
+                .superProcessInstanceId(instance.processInstanceId)
+                .singleResult();
+        if (review == null) {
+            throw new IllegalStateException("No running review");
+        }
+        return review.getId();
+    }
+
+    private String chooseUser(Task task, Map<String, List<String>> usersByGroup, Random random) {
+        List<String> candidates = new ArrayList<>();
+        for (IdentityLink link : processEngine.getTaskService().getIdentityLinksForTask(task.getId())) {
+            if (IdentityLinkType.CANDIDATE.equals(link.getType()) && link.getGroupId() != null) {
+                candidates.addAll(usersByGroup.getOrDefault(link.getGroupId(), Collections.emptyList()));
+            }
+        }
+        return candidates.isEmpty() ? FALLBACK_USER_ID : candidates.get(random.nextInt(candidates.size()));
+    }
+
+    private static InvoicePath choosePath(LoadProfile profile, Random random) {
+        return InvoicePath.choose(random, profile.getApprovedWeight(), profile.getRejectedWeight(), profile.getClarifiedWeight(), profile.getFailingWeight());
+    }
+
+    private static byte[] readDocument() {
+        try (InputStream in = getInputStream(INVOICE_PDF)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalArgumentException(format("Couldn't read %s file", INVOICE_PDF));
+        }
+    }
+
+    private static class Instance {
+        private final int index;
+        private final InvoicePath path;
+        private final int stepCount;
+        private final Random random;
+        private volatile String processInstanceId;
+
+        private Instance(int index, InvoicePath path, int stepCount, Random random) {
+            this.index = index;
+            this.path = path;
+            this.stepCount = stepCount;
+            this.random = random;
+        }
+    }
+
+    private static class ScheduledStep implements Comparable<ScheduledStep> {
+        private final long time;
+        private final Instance instance;
+        private final int step;
+
+        private ScheduledStep(long time, Instance instance, int step) {
+            this.time = time;
+            this.instance = instance;
+            this.step = step;
+        }
+
+        @Override
+        public int compareTo(ScheduledStep other) {
+            return Long.compare(time, other.time);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.camunda.app.generator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/load-generator")
+@ConditionalOnProperty(name = "invoice.load-generator.enabled", havingValue = "true")
+public class LoadGeneratorController {
+
+    @Autowired
+    protected LoadGenerator loadGenerator;
+
+    @PostMapping
+    public LoadResult generate(@RequestBody(required = false) LoadProfile profile) {
+        return loadGenerator.generate(profile == null ? new LoadProfile() : profile);
+    }
+}
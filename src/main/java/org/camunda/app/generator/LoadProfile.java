@@ -0,0 +1,43 @@
+package org.camunda.app.generator;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Settings of a {@link LoadGenerator} run. Path weights are relative to each other.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class LoadProfile {
+
+    private String prefix = "load-";
+    private int users = 100;
+    private int groups = 10;
+    private int instances = 1000;
+    private int threads = 8;
+    /**
+     * Started instances per second, 0 for no limit.
+     */
+    private double startsPerSecond = 50;
+    /**
+     * Instances start spread over this many days before now.
+     */
+    private int timeRangeDays = 30;
+    /**
+     * Number of steps the simulated time advances in, see {@link LoadGenerator}.
+     */
+    private int timeWindows = 200;
+    private int maxStepDelayHours = 48;
+    private int approvedWeight = 70;
+    private int rejectedWeight = 10;
+    private int clarifiedWeight = 10;
+    private int failingWeight = 10;
+    /**
+     * Share of instances which stop at a random step and stay open.
+     */
+    private double openRatio = 0.2;
+    private boolean withDocuments;
+    private long seed = 42;
+}
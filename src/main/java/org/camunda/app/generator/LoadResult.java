@@ -0,0 +1,20 @@
+package org.camunda.app.generator;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Getter
+public class LoadResult {
+
+    private final AtomicLong instancesStarted = new AtomicLong();
+    private final AtomicLong tasksCompleted = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private long durationMillis;
+    private double startsPerSecond;
+
+    void finish(long durationMillis) {
+        this.durationMillis = durationMillis;
+        this.startsPerSecond = durationMillis == 0 ? 0 : instancesStarted.get() * 1000D / durationMillis;
+    }
+}
@@ -27,6 +27,11 @@ import static org.camunda.bpm.engine.authorization.Resources.*;
 @NoArgsConstructor
 public class SampleDataGenerator {
 
+    /**
+     * Part of the startup fingerprint, change it whenever {@link #generate} creates different data.
+     */
+    public static final String DATA_VERSION = "1";
+
     private static final String CAMUNDA_ADMIN_GROUP_ID = "camunda-admin";
     private static final String SALES_GROUP_ID = "sales";
     private static final String ACCOUNTING_GROUP_ID = "accounting";
@@ -68,6 +73,56 @@ public class SampleDataGenerator {
         createFilters(authorizationService, filterService, taskService);
     }
 
+    /**
+     * Seeds {@code userCount} users and {@code groupCount} groups for load tests. Users join the
+     * workflow groups round-robin, so they can work on the invoice tasks, and one of the generated
+     * groups. Generated groups get the tasklist and invoice authorizations of the workflow groups.
+     * Users and groups which already exist are kept.
+     *
+     * @return the ids of the users of each group, including the sample users
+     */
+    public Map<String, List<String>> generateLoadUsers(ProcessEngine engine, String prefix, int userCount, int groupCount) {
+        IdentityServiceImpl identityService = (IdentityServiceImpl) engine.getIdentityService();
+        AuthorizationService authorizationService = engine.getAuthorizationService();
+        List<String> workflowGroupIds = asList(SALES_GROUP_ID, ACCOUNTING_GROUP_ID, MANAGEMENT_GROUP_ID);
+
+        if (!identityService.isReadOnly()) {
+            for (int i = 0; i < groupCount; i++) {
+                String groupId = prefix + "group-" + i;
+                if (!isExistsGroup(identityService, groupId)) {
+                    createGroup(identityService, groupId, "Load group " + i, WORKFLOW_GROUP_TYPE);
+                    createGroupAuthorization(authorizationService, groupId, ACCESS, TASK_LIST_RESOURCE_ID, APPLICATION);
+                    createAuthorization(authorizationService, groupId, null, asList(READ, READ_HISTORY), INVOICE_RESOURCE_ID, PROCESS_DEFINITION, AUTH_TYPE_GRANT);
+                }
+            }
+            for (int i = 0; i < userCount; i++) {
+                String userId = prefix + "user-" + i;
+                if (identityService.createUserQuery().userId(userId).count() > 0) {
+                    continue;
+                }
+                String workflowGroupId = workflowGroupIds.get(i % workflowGroupIds.size());
+                createUser(identityService, userId, "Load", "User " + i, userId, userId + "@camunda.org");
+                createMembership(identityService, userId, workflowGroupId);
+                if (groupCount > 0) {
+                    createMembership(identityService, userId, prefix + "group-" + (i % groupCount));
+                }
+                createGroupAuthorization(authorizationService, workflowGroupId, READ, userId, USER);
+            }
+        }
+
+        Map<String, List<String>> usersByGroup = new HashMap<>();
+        List<String> groupIds = new ArrayList<>(workflowGroupIds);
+        for (int i = 0; i < groupCount; i++) {
+            groupIds.add(prefix + "group-" + i);
+        }
+        for (String groupId : groupIds) {
+            List<String> userIds = new ArrayList<>();
+            identityService.createUserQuery().memberOfGroup(groupId).list().forEach(user -> userIds.add(user.getId()));
+            usersByGroup.put(groupId, userIds);
+        }
+        return usersByGroup;
+    }
+
     private void createFilters(AuthorizationService authorizationService, FilterService filterService, TaskService taskService) {
         Filter tasksFilter = createFilter(
                 filterService,
@@ -0,0 +1,99 @@
+package org.camunda.app.history;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Daily time windows in which the history cleanup may run, e.g. {@code 22:00-06:00,12:00-13:00}.
+ * A window whose end is before its start spans midnight. No windows means always open.
+ */
+public class CleanupWindows {
+
+    private final List<Window> windows;
+
+    private CleanupWindows(List<Window> windows) {
+        this.windows = windows;
+    }
+
+    public static CleanupWindows parse(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return new CleanupWindows(Collections.emptyList());
+        }
+        List<Window> windows = new ArrayList<>();
+        for (String window : value.split(",")) {
+            String[] bounds = window.trim().split("-");
+            if (bounds.length != 2) {
+                throw new IllegalArgumentException(format("Invalid cleanup window '%s', expected HH:mm-HH:mm", window));
+            }
+            windows.add(new Window(LocalTime.parse(bounds[0].trim()), LocalTime.parse(bounds[1].trim())));
+        }
+        return new CleanupWindows(windows);
+    }
+
+    public boolean isOpen(LocalDateTime now) {
+        if (windows.isEmpty()) {
+            return true;
+        }
+        LocalTime time = now.toLocalTime();
+        for (Window window : windows) {
+            if (window.contains(time)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return time until the next window opens, zero if one is open now
+     */
+    public Duration untilOpen(LocalDateTime now) {
+        if (isOpen(now)) {
+            return Duration.ZERO;
+        }
+        Duration next = null;
+        for (Window window : windows) {
+            LocalDateTime start = now.toLocalDate().atTime(window.start);
+            if (!start.isAfter(now)) {
+                start = start.plusDays(1);
+            }
+            Duration until = Duration.between(now, start);
+            if (next == null || until.compareTo(next) < 0) {
+                next = until;
+            }
+        }
+        return next;
+    }
+
+    @Override
+    public String toString() {
+        return windows.isEmpty() ? "always" : windows.toString();
+    }
+
+    private static class Window {
+        private final LocalTime start;
+        private final LocalTime end;
+
+        private Window(LocalTime start, LocalTime end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        private boolean contains(LocalTime time) {
+            if (start.isBefore(end)) {
+                return !time.isBefore(start) && time.isBefore(end);
+            }
+            return !time.isBefore(start) || time.isBefore(end);
+        }
+
+        @Override
+        public String toString() {
+            return start + "-" + end;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.camunda.app.history;
+
+import com.google.common.collect.ImmutableMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/history-cleanup")
+@ConditionalOnProperty(name = "invoice.history-cleanup.enabled", havingValue = "true")
+public class HistoryCleanupController {
+
+    @Autowired
+    protected StreamingHistoryCleanup cleanup;
+
+    @GetMapping
+    public Map<String, Object> status() {
+        return ImmutableMap.<String, Object>builder()
+                .put("windowOpen", cleanup.isWindowOpen())
+                .put("backlog", cleanup.getBacklog())
+                .put("deletedInstances", cleanup.getDeletedInstances())
+                .put("deletedRows", cleanup.getDeletedRows())
+                .put("rowsPerSecond", cleanup.getRowsPerSecond())
+                .put("reclaimedBytes", cleanup.getReclaimedBytes())
+                .put("chunkSize", cleanup.getChunkSize())
+                .put("runtimeLatencyMillis", cleanup.getRuntimeLatencyMillis())
+                .put("throttled", cleanup.getThrottled())
+                .build();
+    }
+
+    @PostMapping
+    public void runNow() {
+        cleanup.runNow();
+    }
+}
@@ -0,0 +1,514 @@
+package org.camunda.app.history;
+
+import com.google.common.collect.Iterables;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.app.document.DocumentStore;
+import org.camunda.app.document.StoredFileValueSerializer;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * History cleanup for finished invoice instances which replaces the engine's cleanup job. Expired
+ * root process instances are streamed in id order, each chunk continues after the last id of the
+ * previous one, and the history of a chunk is deleted in one transaction with a single statement
+ * per history table, matching rows by root process instance id. This removes the history of the
+ * called review instances, comments, attachments and the byte arrays of variables and details
+ * together with the invoice.
+ * <p>
+ * Documents in the {@link DocumentStore}, like the invoice PDFs, are content addressed and may be
+ * shared. After a chunk committed, the documents its history variables pointed to are deleted
+ * unless a runtime or history variable still points to them. Documents stored again shortly
+ * before are kept and checked again after the next chunk.
+ * <p>
+ * Chunks are only deleted while a cleanup window is open. Before each chunk a runtime query is
+ * timed; while it is slower than the target latency the chunk size is halved and the cleanup backs
+ * off, otherwise the chunk size grows back to the maximum.
+ * <p>
+ * Leave {@code history-cleanup-batch-window-start-time} of the engine unset, so its own cleanup
+ * job does not run alongside.
+ */
+@Slf4j
+public class StreamingHistoryCleanup {
+
+    /**
+     * History tables with a root process instance id, the process instances come last so an
+     * aborted chunk leaves them to be found again.
+     */
+    static final List<String> TABLES = Collections.unmodifiableList(Arrays.asList(
+            "ACT_GE_BYTEARRAY",
+            "ACT_HI_DETAIL",
+            "ACT_HI_VARINST",
+            "ACT_HI_COMMENT",
+            "ACT_HI_ATTACHMENT",
+            "ACT_HI_IDENTITYLINK",
+            "ACT_HI_TASKINST",
+            "ACT_HI_ACTINST",
+            "ACT_HI_INCIDENT",
+            "ACT_HI_JOB_LOG",
+            "ACT_HI_EXT_TASK_LOG",
+            "ACT_HI_OP_LOG",
+            "ACT_HI_DEC_IN",
+            "ACT_HI_DEC_OUT",
+            "ACT_HI_DECINST",
+            "ACT_HI_PROCINST"
+    ));
+
+    /**
+     * Tables with file variables which may point to a document, with their serializer column
+     */
+    private static final Map<String, String> DOCUMENT_REFERENCES = new LinkedHashMap<>();
+
+    static {
+        DOCUMENT_REFERENCES.put("ACT_RU_VARIABLE", "TYPE_");
+        DOCUMENT_REFERENCES.put("ACT_HI_VARINST", "VAR_TYPE_");
+        DOCUMENT_REFERENCES.put("ACT_HI_DETAIL", "VAR_TYPE_");
+    }
+
+    private static final long IDLE_POLL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    /**
+     * Longer than any transaction storing a document takes to commit its variable
+     */
+    private static final long DOCUMENT_GRACE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final int HASHES_PER_QUERY = 100;
+
+    private final ProcessEngine processEngine;
+    private final MetricsRegistry metricsRegistry;
+    private final DocumentStore documentStore;
+    private final String processDefinitionKey;
+    private final CleanupWindows windows;
+    private final long defaultTimeToLiveMillis;
+    private final int minChunkSize;
+    private final int maxChunkSize;
+    private final long targetLatencyNanos;
+    private final long maxBackoffMillis;
+    private final long intervalMillis;
+    private final String tablePrefix;
+
+    private final Object monitor = new Object();
+    private final AtomicLong deletedInstances = new AtomicLong();
+    private final AtomicLong deletedRows = new AtomicLong();
+    private final AtomicLong backlog = new AtomicLong(-1);
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong reclaimedBytes = new AtomicLong();
+    /**
+     * Documents of deleted history still to check, only used by the cleanup thread
+     */
+    private final Set<String> unreclaimedHashes = new LinkedHashSet<>();
+
+    private volatile boolean running;
+    private volatile boolean requested;
+    private volatile int chunkSize;
+    private volatile long backoffMillis;
+    private volatile long runtimeLatencyNanos;
+    private volatile long deletingNanos;
+    private Thread cleaner;
+
+    public StreamingHistoryCleanup(
+            ProcessEngine processEngine,
+            MetricsRegistry metricsRegistry,
+            DocumentStore documentStore,
+            String processDefinitionKey,
+            CleanupWindows windows,
+            int defaultTimeToLiveDays,
+            int minChunkSize,
+            int maxChunkSize,
+            long targetLatencyMillis,
+            long maxBackoffMillis,
+            long intervalMillis
+    ) {
+        this.processEngine = processEngine;
+        this.metricsRegistry = metricsRegistry;
+        this.documentStore = documentStore;
+        this.processDefinitionKey = processDefinitionKey;
+        this.windows = windows;
+        this.defaultTimeToLiveMillis = TimeUnit.DAYS.toMillis(defaultTimeToLiveDays);
+        this.minChunkSize = Math.max(1, minChunkSize);
+        this.maxChunkSize = Math.max(this.minChunkSize, maxChunkSize);
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.intervalMillis = intervalMillis;
+        this.chunkSize = this.maxChunkSize;
+        String prefix = ((ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration()).getDatabaseTablePrefix();
+        this.tablePrefix = prefix == null ? "" : prefix;
+
+        metricsRegistry.gauge("camunda_history_cleanup_backlog", "Expired root process instances left to clean up, -1 before the first count", backlog::get);
+        metricsRegistry.gauge("camunda_history_cleanup_rows_per_second", "History rows deleted per second of cleanup transactions", this::getRowsPerSecond);
+        metricsRegistry.gauge("camunda_history_cleanup_reclaimed_bytes", "Bytes of documents deleted with the history pointing to them", reclaimedBytes::get);
+        metricsRegistry.gauge("camunda_history_cleanup_chunk_size", "Root process instances deleted per cleanup transaction", () -> chunkSize);
+    }
+
+    public void start() {
+        running = true;
+        cleaner = new Thread(this::cleanupLoop, "history-cleanup");
+        cleaner.setDaemon(true);
+        cleaner.start();
+        log.info(format("History cleanup of %s instances started, windows %s", processDefinitionKey, windows));
+    }
+
+    public void stop() {
+        running = false;
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+        try {
+            cleaner.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Starts a cleanup pass right away, even outside of the cleanup windows.
+     */
+    public void runNow() {
+        requested = true;
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+    }
+
+    public long getDeletedInstances() {
+        return deletedInstances.get();
+    }
+
+    public long getDeletedRows() {
+        return deletedRows.get();
+    }
+
+    public long getBacklog() {
+        return backlog.get();
+    }
+
+    public long getRowsPerSecond() {
+        long nanos = deletingNanos;
+        return nanos == 0 ? 0 : (long) (deletedRows.get() / (nanos / 1e9));
+    }
+
+    public long getReclaimedBytes() {
+        return reclaimedBytes.get();
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    public long getRuntimeLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(runtimeLatencyNanos);
+    }
+
+    public boolean isWindowOpen() {
+        return windows.isOpen(LocalDateTime.now());
+    }
+
+    private void cleanupLoop() {
+        while (running) {
+            try {
+                if (requested || isWindowOpen()) {
+                    boolean forced = requested;
+                    requested = false;
+                    cleanupPass(forced);
+                    await(intervalMillis);
+                } else {
+                    await(Math.min(IDLE_POLL_MILLIS, windows.untilOpen(LocalDateTime.now()).toMillis()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn(format("History cleanup failed: %s", e.getMessage()));
+                try {
+                    await(IDLE_POLL_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void cleanupPass(boolean forced) throws InterruptedException {
+        Date removalTime = ClockUtil.getCurrentTime();
+        backlog.set(countExpired(removalTime));
+        long passStart = System.nanoTime();
+        long passRows = 0;
+        long passReclaimedBytes = reclaimedBytes.get();
+        String lastId = null;
+        while (running && backlog.get() > 0 && (forced || isWindowOpen())) {
+            throttle();
+            List<String> ids = nextExpired(removalTime, lastId, chunkSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            passRows += delete(ids);
+            lastId = ids.get(ids.size() - 1);
+            backlog.updateAndGet(remaining -> Math.max(0, remaining - ids.size()));
+        }
+        if (passRows > 0) {
+            long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - passStart));
+            log.info(format("History cleanup deleted %d rows in %d s (%d rows/s) and reclaimed %d document bytes, %d expired instances left",
+                    passRows, seconds, passRows / seconds, reclaimedBytes.get() - passReclaimedBytes, backlog.get()));
+        }
+    }
+
+    /**
+     * Times a typical runtime query and backs off while it is slower than the target latency.
+     */
+    private void throttle() throws InterruptedException {
+        long start = System.nanoTime();
+        processEngine.getRuntimeService()
+                .createProcessInstanceQuery()
+                .processDefinitionKey(processDefinitionKey)
+                .active()
+                .listPage(0, 1);
+        long latency = System.nanoTime() - start;
+        runtimeLatencyNanos = runtimeLatencyNanos == 0 ? latency : (runtimeLatencyNanos * 3 + latency) / 4;
+
+        if (runtimeLatencyNanos > targetLatencyNanos) {
+            chunkSize = Math.max(minChunkSize, chunkSize / 2);
+            backoffMillis = Math.min(maxBackoffMillis, Math.max(100, backoffMillis * 2));
+            throttled.incrementAndGet();
+            await(backoffMillis);
+        } else {
+            chunkSize = Math.min(maxChunkSize, chunkSize + Math.max(1, chunkSize / 4));
+            backoffMillis = 0;
+        }
+    }
+
+    private long countExpired(Date removalTime) {
+        String sql = "select count(*) from " + tablePrefix + "ACT_HI_PROCINST where " + expiredCondition();
+        try (Connection connection = dataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            bindExpired(statement, removalTime);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        } catch (SQLException e) {
+            throw new ProcessEngineException("Couldn't count expired process instances", e);
+        }
+    }
+
+    private List<String> nextExpired(Date removalTime, String afterId, int maxResults) {
+        String sql = "select ID_ from " + tablePrefix + "ACT_HI_PROCINST where " + expiredCondition()
+                + (afterId == null ? "" : " and ID_ > ?")
+                + " order by ID_";
+        try (Connection connection = dataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            int index = bindExpired(statement, removalTime);
+            if (afterId != null) {
+                statement.setString(index, afterId);
+            }
+            statement.setMaxRows(maxResults);
+            statement.setFetchSize(maxResults);
+            List<String> ids = new ArrayList<>(maxResults);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    ids.add(resultSet.getString(1));
+                }
+            }
+            return ids;
+        } catch (SQLException e) {
+            throw new ProcessEngineException("Couldn't read expired process instances", e);
+        }
+    }
+
+    /**
+     * Deletes the history of the root process instances in one transaction, then the documents
+     * only it pointed to.
+     *
+     * @return the number of deleted rows
+     */
+    private long delete(List<String> rootProcessInstanceIds) {
+        String placeholders = String.join(",", Collections.nCopies(rootProcessInstanceIds.size(), "?"));
+        Map<String, Integer> rowsByTable = new LinkedHashMap<>();
+        Set<String> documentHashes;
+        long start = System.nanoTime();
+        try (Connection connection = dataSource().getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                documentHashes = documentHashes(connection, rootProcessInstanceIds, placeholders);
+                for (String table : TABLES) {
+                    String sql = "delete from " + tablePrefix + table + " where ROOT_PROC_INST_ID_ in (" + placeholders + ")";
+                    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                        for (int i = 0; i < rootProcessInstanceIds.size(); i++) {
+                            statement.setString(i + 1, rootProcessInstanceIds.get(i));
+                        }
+                        rowsByTable.put(table, statement.executeUpdate());
+                    }
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new ProcessEngineException(format("Couldn't delete the history of %d process instances", rootProcessInstanceIds.size()), e);
+        }
+
+        long duration = System.nanoTime() - start;
+        deletingNanos += duration;
+        long rows = 0;
+        for (Map.Entry<String, Integer> table : rowsByTable.entrySet()) {
+            rows += table.getValue();
+            metricsRegistry.increment("camunda_history_cleanup_rows_total", "History rows deleted by the cleanup", table.getValue(), "table", table.getKey());
+        }
+        deletedRows.addAndGet(rows);
+        deletedInstances.addAndGet(rootProcessInstanceIds.size());
+        metricsRegistry.recordDuration("camunda_history_cleanup_chunk_seconds", "Duration of a history cleanup transaction", duration);
+
+        unreclaimedHashes.addAll(documentHashes);
+        reclaimDocuments();
+        return rows;
+    }
+
+    /**
+     * Documents the history variables of the root process instances point to, read in the
+     * transaction deleting them.
+     */
+    private Set<String> documentHashes(Connection connection, List<String> rootProcessInstanceIds, String placeholders) throws SQLException {
+        Set<String> hashes = new LinkedHashSet<>();
+        for (String table : Arrays.asList("ACT_HI_VARINST", "ACT_HI_DETAIL")) {
+            String sql = "select TEXT2_ from " + tablePrefix + table
+                    + " where " + DOCUMENT_REFERENCES.get(table) + " = ? and ROOT_PROC_INST_ID_ in (" + placeholders + ")";
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, StoredFileValueSerializer.NAME);
+                for (int i = 0; i < rootProcessInstanceIds.size(); i++) {
+                    statement.setString(i + 2, rootProcessInstanceIds.get(i));
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        String hash = StoredFileValueSerializer.hashOf(resultSet.getString(1));
+                        if (hash != null) {
+                            hashes.add(hash);
+                        }
+                    }
+                }
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Deletes the unreclaimed documents no variable points to anymore. A failure leaves them to
+     * the next chunk.
+     */
+    private void reclaimDocuments() {
+        if (unreclaimedHashes.isEmpty()) {
+            return;
+        }
+        long storedBefore = System.currentTimeMillis() - DOCUMENT_GRACE_MILLIS;
+        long bytes = 0;
+        try {
+            Set<String> referenced = referencedHashes(unreclaimedHashes);
+            for (Iterator<String> hashes = unreclaimedHashes.iterator(); hashes.hasNext(); ) {
+                String hash = hashes.next();
+                if (referenced.contains(hash)) {
+                    hashes.remove();
+                    continue;
+                }
+                long reclaimed = documentStore.reclaim(hash, storedBefore);
+                if (reclaimed >= 0) {
+                    bytes += reclaimed;
+                    hashes.remove();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn(format("Couldn't reclaim documents of deleted history, %d left: %s", unreclaimedHashes.size(), e.getMessage()));
+        }
+        if (bytes > 0) {
+            reclaimedBytes.addAndGet(bytes);
+            metricsRegistry.increment("camunda_history_cleanup_reclaimed_bytes_total", "Bytes of documents deleted with the history pointing to them", bytes);
+        }
+    }
+
+    private Set<String> referencedHashes(Set<String> hashes) {
+        Set<String> referenced = new HashSet<>();
+        try (Connection connection = dataSource().getConnection()) {
+            for (List<String> chunk : Iterables.partition(hashes, HASHES_PER_QUERY)) {
+                String prefixes = String.join(" or ", Collections.nCopies(chunk.size(), "TEXT2_ like ?"));
+                for (Map.Entry<String, String> table : DOCUMENT_REFERENCES.entrySet()) {
+                    String sql = "select TEXT2_ from " + tablePrefix + table.getKey() + " where " + table.getValue() + " = ? and (" + prefixes + ")";
+                    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                        statement.setString(1, StoredFileValueSerializer.NAME);
+                        for (int i = 0; i < chunk.size(); i++) {
+                            // hashes are hex, nothing to escape
+                            statement.setString(i + 2, chunk.get(i) + "#%");
+                        }
+                        try (ResultSet resultSet = statement.executeQuery()) {
+                            while (resultSet.next()) {
+                                referenced.add(StoredFileValueSerializer.hashOf(resultSet.getString(1)));
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new ProcessEngineException("Couldn't read the documents still referenced", e);
+        }
+        return referenced;
+    }
+
+    /**
+     * Finished root instances of the process definition whose removal time has passed. Instances
+     * finished without a removal time expire after the default time to live.
+     */
+    private static String expiredCondition() {
+        return "PROC_DEF_KEY_ = ? and ID_ = ROOT_PROC_INST_ID_ and END_TIME_ is not null"
+                + " and ((REMOVAL_TIME_ is not null and REMOVAL_TIME_ <= ?) or (REMOVAL_TIME_ is null and END_TIME_ <= ?))";
+    }
+
+    private int bindExpired(PreparedStatement statement, Date removalTime) throws SQLException {
+        statement.setString(1, processDefinitionKey);
+        statement.setTimestamp(2, new Timestamp(removalTime.getTime()));
+        statement.setTimestamp(3, new Timestamp(removalTime.getTime() - defaultTimeToLiveMillis));
+        return 4;
+    }
+
+    private DataSource dataSource() {
+        return ((ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration()).getDataSource();
+    }
+
+    private void await(long millis) throws InterruptedException {
+        if (millis <= 0) {
+            return;
+        }
+        synchronized (monitor) {
+            if (running && !requested) {
+                monitor.wait(millis);
+            }
+        }
+    }
+}
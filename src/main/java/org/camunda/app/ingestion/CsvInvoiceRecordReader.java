@@ -0,0 +1,93 @@
+package org.camunda.app.ingestion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads comma separated records with a header line, e.g.
+ * {@code creditor,amount,invoiceCategory,invoiceNumber}. Quoted values may contain commas.
+ */
+public class CsvInvoiceRecordReader implements InvoiceRecordReader {
+
+    private final BufferedReader reader;
+    private String[] header;
+    private int index = -1;
+
+    public CsvInvoiceRecordReader(InputStream inputStream) {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, UTF_8));
+    }
+
+    @Override
+    public InvoiceRecord next() throws IOException {
+        if (header == null) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                return null;
+            }
+            header = split(headerLine);
+        }
+
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.trim().isEmpty());
+
+        index++;
+        String[] values = split(line);
+        if (values.length != header.length) {
+            throw new IllegalArgumentException(format("Record %d has %d columns, expected %d", index, values.length, header.length));
+        }
+
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            fields.put(header[i].trim(), values[i]);
+        }
+        return InvoiceRecord.of(index, fields);
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static String[] split(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values.toArray(new String[0]);
+    }
+}
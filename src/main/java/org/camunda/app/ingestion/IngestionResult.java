@@ -0,0 +1,39 @@
+package org.camunda.app.ingestion;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+public class IngestionResult {
+
+    private int started;
+    private long elapsedMillis;
+    private final List<RecordFailure> failures = new ArrayList<>();
+
+    public double getInstancesPerSecond() {
+        return elapsedMillis == 0 ? started : started * 1000D / elapsedMillis;
+    }
+
+    void addStarted(int count) {
+        started += count;
+    }
+
+    void addFailure(int index, String invoiceNumber, String message) {
+        failures.add(new RecordFailure(index, invoiceNumber, message));
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class RecordFailure {
+        private final int index;
+        private final String invoiceNumber;
+        private final String message;
+    }
+}
@@ -0,0 +1,30 @@
+package org.camunda.app.ingestion;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/invoices")
+public class InvoiceIngestionController {
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    @Autowired
+    protected InvoiceIngestionService ingestionService;
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public IngestionResult ingestJson(InputStream body) throws IOException {
+        return ingestionService.ingest(new JsonInvoiceRecordReader(body));
+    }
+
+    @PostMapping(value = "/bulk", consumes = TEXT_CSV_VALUE)
+    public IngestionResult ingestCsv(InputStream body) throws IOException {
+        return ingestionService.ingest(new CsvInvoiceRecordReader(body));
+    }
+}
@@ -0,0 +1,111 @@
+package org.camunda.app.ingestion;
+
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.RuntimeService;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
+import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Starts invoice instances in bulk. Records are grouped into batches which are started inside a single
+ * engine command, so each batch is one transaction and one (JDBC batched) flush. If a batch fails,
+ * its records are retried one by one so only the offending records are reported as failed.
+ */
+@Slf4j
+@Service
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceIngestionService {
+
+    private static final String INVOICE_PROCESS_KEY = "invoice";
+
+    @Autowired
+    protected ProcessEngine processEngine;
+
+    @Value("${invoice.ingestion.batch-size:500}")
+    protected int batchSize;
+
+    public IngestionResult ingest(InvoiceRecordReader reader) throws IOException {
+        ProcessDefinition processDefinition = processEngine.getRepositoryService()
+                .createProcessDefinitionQuery()
+                .processDefinitionKey(INVOICE_PROCESS_KEY)
+                .latestVersion()
+                .singleResult();
+        if (processDefinition == null) {
+            throw new IllegalStateException(format("No process definition with key %s deployed", INVOICE_PROCESS_KEY));
+        }
+
+        IngestionResult result = new IngestionResult();
+        long start = System.currentTimeMillis();
+        List<InvoiceRecord> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                InvoiceRecord record;
+                try {
+                    record = reader.next();
+                } catch (IllegalArgumentException e) {
+                    result.addFailure(reader.getIndex(), null, e.getMessage());
+                    continue;
+                }
+                if (record == null) {
+                    break;
+                }
+                batch.add(record);
+                if (batch.size() == batchSize) {
+                    startBatch(processDefinition, batch, result);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                startBatch(processDefinition, batch, result);
+            }
+        } finally {
+            reader.close();
+            result.setElapsedMillis(System.currentTimeMillis() - start);
+        }
+
+        log.info(format(
+                "Bulk ingestion started %d instances of %s (%d failed) in %d ms, %.1f instances/s",
+                result.getStarted(), processDefinition.getId(), result.getFailures().size(),
+                result.getElapsedMillis(), result.getInstancesPerSecond()
+        ));
+        return result;
+    }
+
+    private void startBatch(ProcessDefinition processDefinition, List<InvoiceRecord> batch, IngestionResult result) {
+        RuntimeService runtimeService = processEngine.getRuntimeService();
+        try {
+            getCommandExecutor().execute(commandContext -> {
+                batch.forEach(record -> runtimeService.startProcessInstanceById(processDefinition.getId(), record.getInvoiceNumber(), record.toVariables()));
+                return null;
+            });
+            result.addStarted(batch.size());
+        } catch (RuntimeException batchFailure) {
+            log.warn(format("Batch of %d invoices failed (%s), starting them one by one", batch.size(), batchFailure.getMessage()));
+            for (InvoiceRecord record : batch) {
+                try {
+                    runtimeService.startProcessInstanceById(processDefinition.getId(), record.getInvoiceNumber(), record.toVariables());
+                    result.addStarted(1);
+                } catch (RuntimeException e) {
+                    result.addFailure(record.getIndex(), record.getInvoiceNumber(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private CommandExecutor getCommandExecutor() {
+        return ((ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration()).getCommandExecutorTxRequired();
+    }
+}
@@ -0,0 +1,62 @@
+package org.camunda.app.ingestion;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+
+import java.util.Map;
+
+import static java.lang.String.format;
+
+@Getter
+@AllArgsConstructor
+public class InvoiceRecord {
+
+    private final int index;
+    private final String creditor;
+    private final double amount;
+    private final String invoiceCategory;
+    private final String invoiceNumber;
+
+    public VariableMap toVariables() {
+        return Variables.createVariables()
+                .putValue("creditor", creditor)
+                .putValue("amount", amount)
+                .putValue("invoiceCategory", invoiceCategory)
+                .putValue("invoiceNumber", invoiceNumber);
+    }
+
+    public static InvoiceRecord of(int index, Map<String, ?> fields) {
+        Object amount = fields.get("amount");
+        return of(
+                index,
+                toString(fields.get("creditor")),
+                amount == null ? null : amount.toString(),
+                toString(fields.get("invoiceCategory")),
+                toString(fields.get("invoiceNumber"))
+        );
+    }
+
+    public static InvoiceRecord of(int index, String creditor, String amount, String invoiceCategory, String invoiceNumber) {
+        requireField(index, "creditor", creditor);
+        requireField(index, "amount", amount);
+        requireField(index, "invoiceCategory", invoiceCategory);
+        requireField(index, "invoiceNumber", invoiceNumber);
+        try {
+            return new InvoiceRecord(index, creditor, Double.parseDouble(amount.trim()), invoiceCategory, invoiceNumber);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(format("Record %d has invalid amount '%s'", index, amount));
+        }
+    }
+
+    private static void requireField(int index, String name, String value) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException(format("Record %d has no %s", index, name));
+        }
+    }
+
+    private static String toString(Object value) {
+        return value == null ? null : value.toString();
+    }
+}
@@ -0,0 +1,21 @@
+package org.camunda.app.ingestion;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Streams invoice records from a bulk upload without materializing the whole payload.
+ */
+public interface InvoiceRecordReader extends Closeable {
+
+    /**
+     * @return the next record or {@code null} when the input is exhausted
+     * @throws IllegalArgumentException if the current record is invalid, reading may continue with the next one
+     */
+    InvoiceRecord next() throws IOException;
+
+    /**
+     * @return zero based index of the record returned (or rejected) by the last {@link #next()} call
+     */
+    int getIndex();
+}
@@ -0,0 +1,61 @@
+package org.camunda.app.ingestion;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import static java.lang.String.format;
+
+/**
+ * Reads a JSON array of invoice objects token by token, so only one record is held in memory at a time.
+ */
+public class JsonInvoiceRecordReader implements InvoiceRecordReader {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final JsonParser parser;
+    private boolean started;
+    private int index = -1;
+
+    public JsonInvoiceRecordReader(InputStream inputStream) throws IOException {
+        this.parser = OBJECT_MAPPER.getFactory().createParser(inputStream);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public InvoiceRecord next() throws IOException {
+        if (!started) {
+            started = true;
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Bulk invoice payload must be a JSON array");
+            }
+        }
+
+        JsonToken token = parser.nextToken();
+        if (token == null || token == JsonToken.END_ARRAY) {
+            return null;
+        }
+
+        index++;
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            throw new IllegalArgumentException(format("Record %d is not a JSON object", index));
+        }
+        Map<String, Object> fields = OBJECT_MAPPER.readValue(parser, Map.class);
+        return InvoiceRecord.of(index, fields);
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,81 @@
+package org.camunda.app.jobexecutor;
+
+import org.camunda.bpm.engine.impl.jobexecutor.AcquiredJobs;
+import org.camunda.bpm.engine.impl.jobexecutor.JobAcquisitionContext;
+import org.camunda.bpm.engine.impl.jobexecutor.JobAcquisitionStrategy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sizes the acquisition batches of the {@link AdaptiveJobExecutor} per engine: a full batch doubles
+ * the next one, lock contention with other nodes (more than half of the acquired jobs locked by
+ * someone else) or rejected jobs halve it. Batches never exceed what the lanes can take. Polls
+ * again right away while there is a backlog, backs off randomly on contention and waits up to the
+ * maximum wait time while idle.
+ */
+public class AdaptiveJobAcquisitionStrategy implements JobAcquisitionStrategy {
+
+    private final AdaptiveJobExecutor jobExecutor;
+    private final int minJobs;
+    private final int maxJobs;
+    private final Map<String, Integer> jobsToAcquireByEngine = new ConcurrentHashMap<>();
+    private long waitTime;
+
+    public AdaptiveJobAcquisitionStrategy(AdaptiveJobExecutor jobExecutor, int minJobs) {
+        this.jobExecutor = jobExecutor;
+        this.maxJobs = Math.max(1, jobExecutor.getMaxJobsPerAcquisition());
+        this.minJobs = Math.max(1, Math.min(minJobs, maxJobs));
+    }
+
+    @Override
+    public void reconfigure(JobAcquisitionContext context) {
+        jobExecutor.adaptLanes();
+        int freeCapacity = Math.max(minJobs, jobExecutor.getFreeCapacity());
+
+        boolean backlog = false;
+        boolean contention = false;
+        for (Map.Entry<String, AcquiredJobs> acquired : context.getAcquiredJobsByEngine().entrySet()) {
+            String engine = acquired.getKey();
+            AcquiredJobs jobs = acquired.getValue();
+            int current = getNumJobsToAcquire(engine);
+            int next = current;
+            int attempted = jobs.getNumberOfJobsAttemptedToAcquire();
+            if (attempted > 0 && jobs.getNumberOfJobsFailedToLock() * 2 > attempted) {
+                next = current / 2;
+                contention = true;
+            } else if (attempted >= current) {
+                next = current * 2;
+                backlog = true;
+            }
+            if (context.getRejectedJobsByEngine().containsKey(engine)) {
+                next = current / 2;
+            }
+            jobsToAcquireByEngine.put(engine, Math.max(minJobs, Math.min(Math.min(next, maxJobs), freeCapacity)));
+        }
+
+        long baseWaitTime = jobExecutor.getWaitTimeInMillis();
+        if (context.getAcquisitionException() != null) {
+            waitTime = baseWaitTime;
+        } else if (contention) {
+            waitTime = ThreadLocalRandom.current().nextLong(Math.max(1, baseWaitTime));
+        } else if ((backlog && context.getRejectedJobsByEngine().isEmpty()) || context.isJobAdded()) {
+            waitTime = 0;
+        } else if (context.getAcquiredJobsByEngine().values().stream().allMatch(jobs -> jobs.size() == 0)) {
+            waitTime = Math.min(jobExecutor.getMaxWait(), Math.max(baseWaitTime, (long) (waitTime * jobExecutor.getWaitIncreaseFactor())));
+        } else {
+            waitTime = baseWaitTime;
+        }
+    }
+
+    @Override
+    public long getWaitTime() {
+        return waitTime;
+    }
+
+    @Override
+    public int getNumJobsToAcquire(String processEngine) {
+        return jobsToAcquireByEngine.getOrDefault(processEngine, minJobs);
+    }
+}
@@ -0,0 +1,176 @@
+package org.camunda.app.jobexecutor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.bpm.engine.impl.ProcessEngineImpl;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.jobexecutor.DefaultAcquireJobsCommandFactory;
+import org.camunda.bpm.engine.impl.jobexecutor.JobAcquisitionStrategy;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
+import org.camunda.bpm.engine.impl.jobexecutor.SequentialJobAcquisitionRunnable;
+import org.camunda.bpm.engine.impl.persistence.entity.JobDefinitionEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+import static java.lang.String.format;
+
+/**
+ * Job executor which runs jobs in separate {@link JobLane lanes}, so a backlog of one kind of job
+ * (e.g. archiving) can't hold up another (e.g. creditor notifications). Acquired jobs are assigned
+ * to lanes by the activity of their job definition. The {@link AdaptiveJobAcquisitionStrategy}
+ * sizes acquisition batches from lock contention and the free capacity of the lanes, which in turn
+ * add and remove workers with their queue depth.
+ * <p>
+ * Records the time from acquisition to execution per lane.
+ */
+@Slf4j
+public class AdaptiveJobExecutor extends JobExecutor {
+
+    private final List<JobLane> lanes;
+    private final JobLane defaultLane;
+    private final MetricsRegistry registry;
+    private final int minJobsPerAcquisition;
+    private final Map<String, String> activityIdsByJobDefinitionId = new ConcurrentHashMap<>();
+
+    public AdaptiveJobExecutor(List<JobLane> lanes, MetricsRegistry registry, int minJobsPerAcquisition) {
+        this.lanes = lanes;
+        this.defaultLane = lanes.stream()
+                .filter(JobLane::isDefault)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("A lane without activities is required for all other jobs"));
+        this.registry = registry;
+        this.minJobsPerAcquisition = minJobsPerAcquisition;
+        for (JobLane lane : lanes) {
+            registry.gauge("camunda_job_lane_workers", "Workers of the job executor lane", lane::getWorkers, "lane", lane.getName());
+            registry.gauge("camunda_job_lane_queue_depth", "Jobs batches queued in the job executor lane", lane::getQueueDepth, "lane", lane.getName());
+        }
+    }
+
+    /**
+     * @return workers of all lanes at full load, each holds a connection while it runs a job
+     */
+    public int getMaxWorkers() {
+        return lanes.stream().mapToInt(JobLane::getMaxWorkers).sum();
+    }
+
+    @Override
+    protected void ensureInitialization() {
+        if (acquireJobsCmdFactory == null) {
+            acquireJobsCmdFactory = new DefaultAcquireJobsCommandFactory(this);
+        }
+        acquireJobsRunnable = new SequentialJobAcquisitionRunnable(this) {
+            @Override
+            protected JobAcquisitionStrategy initializeAcquisitionStrategy() {
+                return new AdaptiveJobAcquisitionStrategy(AdaptiveJobExecutor.this, minJobsPerAcquisition);
+            }
+        };
+    }
+
+    @Override
+    protected void startExecutingJobs() {
+        lanes.forEach(JobLane::start);
+        startJobAcquisitionThread();
+    }
+
+    @Override
+    protected void stopExecutingJobs() {
+        stopJobAcquisitionThread();
+        lanes.forEach(JobLane::stop);
+    }
+
+    @Override
+    public void executeJobs(List<String> jobIds, ProcessEngineImpl processEngine) {
+        long acquiredAt = System.nanoTime();
+        Map<JobLane, List<String>> jobIdsByLane;
+        try {
+            jobIdsByLane = assignLanes(jobIds, processEngine);
+        } catch (RuntimeException e) {
+            log.warn(format("Couldn't assign %d jobs to lanes, running them in the default lane: %s", jobIds.size(), e.getMessage()));
+            jobIdsByLane = new LinkedHashMap<>();
+            jobIdsByLane.put(defaultLane, jobIds);
+        }
+
+        for (Map.Entry<JobLane, List<String>> laneJobIds : jobIdsByLane.entrySet()) {
+            JobLane lane = laneJobIds.getKey();
+            Runnable executeJobs = getExecuteJobsRunnable(laneJobIds.getValue(), processEngine);
+            try {
+                lane.execute(() -> {
+                    registry.recordDuration(
+                            "camunda_job_acquisition_to_execution_seconds", "Time between acquiring jobs and a lane worker starting them",
+                            System.nanoTime() - acquiredAt,
+                            "lane", lane.getName()
+                    );
+                    executeJobs.run();
+                });
+            } catch (RejectedExecutionException e) {
+                registry.increment("camunda_job_lane_rejected_total", "Jobs rejected by a full job executor lane", laneJobIds.getValue().size(), "lane", lane.getName());
+                logRejectedExecution(processEngine, laneJobIds.getValue().size());
+                rejectedJobsHandler.jobsRejected(laneJobIds.getValue(), processEngine, this);
+            }
+        }
+    }
+
+    void adaptLanes() {
+        lanes.forEach(JobLane::adapt);
+    }
+
+    /**
+     * @return job batches the lanes can take right now
+     */
+    int getFreeCapacity() {
+        int capacity = 0;
+        for (JobLane lane : lanes) {
+            capacity += lane.getFreeCapacity();
+        }
+        return capacity;
+    }
+
+    public List<JobLane> getLanes() {
+        return lanes;
+    }
+
+    private Map<JobLane, List<String>> assignLanes(List<String> jobIds, ProcessEngineImpl processEngine) {
+        return processEngine.getProcessEngineConfiguration().getCommandExecutorTxRequired().execute(commandContext -> {
+            Map<JobLane, List<String>> jobIdsByLane = new LinkedHashMap<>();
+            for (String jobId : jobIds) {
+                JobLane lane = laneOf(activityIdOf(commandContext, jobId));
+                jobIdsByLane.computeIfAbsent(lane, key -> new ArrayList<>()).add(jobId);
+            }
+            return jobIdsByLane;
+        });
+    }
+
+    private String activityIdOf(CommandContext commandContext, String jobId) {
+        JobEntity job = commandContext.getJobManager().findJobById(jobId);
+        if (job == null || job.getJobDefinitionId() == null) {
+            return null;
+        }
+        String activityId = activityIdsByJobDefinitionId.get(job.getJobDefinitionId());
+        if (activityId == null) {
+            JobDefinitionEntity jobDefinition = commandContext.getJobDefinitionManager().findById(job.getJobDefinitionId());
+            if (jobDefinition == null || jobDefinition.getActivityId() == null) {
+                return null;
+            }
+            activityId = jobDefinition.getActivityId();
+            activityIdsByJobDefinitionId.put(job.getJobDefinitionId(), activityId);
+        }
+        return activityId;
+    }
+
+    private JobLane laneOf(String activityId) {
+        if (activityId != null) {
+            for (JobLane lane : lanes) {
+                if (!lane.isDefault() && lane.accepts(activityId)) {
+                    return lane;
+                }
+            }
+        }
+        return defaultLane;
+    }
+}
@@ -0,0 +1,113 @@
+package org.camunda.app.jobexecutor;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A worker pool of the {@link AdaptiveJobExecutor} for the jobs of a set of activities. An empty
+ * set of activities makes it the lane for all other jobs. The number of workers follows the queue
+ * depth between the minimum and maximum.
+ */
+@Getter
+public class JobLane {
+
+    private final String name;
+    private final Set<String> activityIds;
+    private final int minWorkers;
+    private final int maxWorkers;
+    private final int queueCapacity;
+    @Getter(AccessLevel.NONE)
+    private ThreadPoolExecutor executor;
+
+    public JobLane(String name, Set<String> activityIds, int minWorkers, int maxWorkers, int queueCapacity) {
+        this.name = name;
+        this.activityIds = Collections.unmodifiableSet(activityIds);
+        this.minWorkers = Math.max(1, minWorkers);
+        this.maxWorkers = Math.max(this.minWorkers, maxWorkers);
+        this.queueCapacity = queueCapacity;
+    }
+
+    synchronized void start() {
+        AtomicInteger threads = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "job-lane-" + name + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(minWorkers, minWorkers, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+        executor.allowCoreThreadTimeOut(false);
+    }
+
+    synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    /**
+     * @throws java.util.concurrent.RejectedExecutionException if the queue of the lane is full
+     */
+    void execute(Runnable runnable) {
+        executor.execute(runnable);
+    }
+
+    /**
+     * Adds a worker while jobs queue up faster than the workers take them and removes one while
+     * most workers are idle.
+     */
+    synchronized void adapt() {
+        if (executor == null) {
+            return;
+        }
+        int workers = executor.getCorePoolSize();
+        int queued = executor.getQueue().size();
+        if (queued > workers && workers < maxWorkers) {
+            executor.setMaximumPoolSize(workers + 1);
+            executor.setCorePoolSize(workers + 1);
+        } else if (queued == 0 && executor.getActiveCount() * 2 < workers && workers > minWorkers) {
+            executor.setCorePoolSize(workers - 1);
+            executor.setMaximumPoolSize(workers - 1);
+        }
+    }
+
+    boolean accepts(String activityId) {
+        return activityIds.isEmpty() || activityIds.contains(activityId);
+    }
+
+    boolean isDefault() {
+        return activityIds.isEmpty();
+    }
+
+    public int getWorkers() {
+        ThreadPoolExecutor current = executor;
+        return current == null ? 0 : current.getCorePoolSize();
+    }
+
+    public int getQueueDepth() {
+        ThreadPoolExecutor current = executor;
+        return current == null ? 0 : current.getQueue().size();
+    }
+
+    public int getFreeCapacity() {
+        ThreadPoolExecutor current = executor;
+        return current == null ? 0 : current.getQueue().remainingCapacity() + current.getCorePoolSize() - current.getActiveCount();
+    }
+}
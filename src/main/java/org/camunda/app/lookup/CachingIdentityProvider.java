@@ -0,0 +1,189 @@
+package org.camunda.app.lookup;
+
+import org.camunda.app.authorization.AuthorizationCache;
+import org.camunda.app.authorization.MembershipInvalidatingIdentityProvider;
+import org.camunda.bpm.engine.authorization.Permissions;
+import org.camunda.bpm.engine.authorization.Resource;
+import org.camunda.bpm.engine.authorization.Resources;
+import org.camunda.bpm.engine.identity.Group;
+import org.camunda.bpm.engine.identity.User;
+import org.camunda.bpm.engine.impl.identity.IdentityOperationResult;
+import org.camunda.bpm.engine.impl.identity.db.DbGroupQueryImpl;
+import org.camunda.bpm.engine.impl.identity.db.DbUserQueryImpl;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.persistence.entity.GroupEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.UserEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Database identity provider answering the lookups of a user or group by id and of the groups of a
+ * user, which the REST API and the webapps run on every request, from the {@link LookupCache}.
+ * Entries hold what the query returns without authorization checks, the READ authorizations of the
+ * current user are checked per user or group of the answer. Those checks are only cheaper than the
+ * query with the {@link AuthorizationCache}, without it lookups under authorization go to the
+ * database like all other queries.
+ * <p>
+ * Keeps invalidating the {@link AuthorizationCache}, if there is one.
+ */
+public class CachingIdentityProvider extends MembershipInvalidatingIdentityProvider {
+
+    private static final String ID = "id";
+    private static final String MEMBER = "userId";
+
+    private final LookupCache lookupCache;
+    private final boolean authorizationsCached;
+
+    /**
+     * @param authorizationCache may be {@code null}
+     */
+    public CachingIdentityProvider(LookupCache lookupCache, AuthorizationCache authorizationCache) {
+        super(authorizationCache);
+        this.lookupCache = lookupCache;
+        this.authorizationsCached = authorizationCache != null;
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<User> findUserByQueryCriteria(DbUserQueryImpl query) {
+        String userId = cacheable() ? QueryShape.only(query, ID) : null;
+        if (userId == null) {
+            return super.findUserByQueryCriteria(query);
+        }
+        List<UserEntity> users = lookupCache.getUser(userId, unchecked(() -> (List) super.findUserByQueryCriteria(query)));
+        return (List) readable(users, Resources.USER);
+    }
+
+    @Override
+    public long findUserCountByQueryCriteria(DbUserQueryImpl query) {
+        return cacheable() && QueryShape.only(query, ID) != null
+                ? findUserByQueryCriteria(query).size()
+                : super.findUserCountByQueryCriteria(query);
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<Group> findGroupByQueryCriteria(DbGroupQueryImpl query) {
+        String groupId = cacheable() ? QueryShape.only(query, ID) : null;
+        String memberId = groupId == null && cacheable() ? QueryShape.only(query, MEMBER) : null;
+        List<GroupEntity> groups;
+        if (groupId != null) {
+            groups = lookupCache.getGroup(groupId, unchecked(() -> (List) super.findGroupByQueryCriteria(query)));
+        } else if (memberId != null) {
+            groups = lookupCache.getGroupsOfUser(memberId, unchecked(() -> (List) super.findGroupByQueryCriteria(query)));
+        } else {
+            return super.findGroupByQueryCriteria(query);
+        }
+        return (List) readable(groups, Resources.GROUP);
+    }
+
+    @Override
+    public long findGroupCountByQueryCriteria(DbGroupQueryImpl query) {
+        return cacheable() && (QueryShape.only(query, ID) != null || QueryShape.only(query, MEMBER) != null)
+                ? findGroupByQueryCriteria(query).size()
+                : super.findGroupCountByQueryCriteria(query);
+    }
+
+    @Override
+    public IdentityOperationResult saveUser(User user) {
+        IdentityOperationResult result = super.saveUser(user);
+        invalidate(() -> lookupCache.invalidateUser(user.getId()));
+        return result;
+    }
+
+    @Override
+    public IdentityOperationResult deleteUser(String userId) {
+        IdentityOperationResult result = super.deleteUser(userId);
+        invalidate(() -> lookupCache.invalidateUser(userId));
+        return result;
+    }
+
+    @Override
+    public IdentityOperationResult unlockUser(String userId) {
+        IdentityOperationResult result = super.unlockUser(userId);
+        invalidate(() -> lookupCache.invalidateUser(userId));
+        return result;
+    }
+
+    /**
+     * Counts failed attempts and locks the user on the user row.
+     */
+    @Override
+    public boolean checkPassword(String userId, String password) {
+        boolean result = super.checkPassword(userId, password);
+        invalidate(() -> lookupCache.invalidateUser(userId));
+        return result;
+    }
+
+    @Override
+    public IdentityOperationResult saveGroup(Group group) {
+        IdentityOperationResult result = super.saveGroup(group);
+        invalidate(() -> lookupCache.invalidateGroup(group.getId()));
+        return result;
+    }
+
+    @Override
+    public IdentityOperationResult deleteGroup(String groupId) {
+        IdentityOperationResult result = super.deleteGroup(groupId);
+        invalidate(() -> lookupCache.invalidateGroup(groupId));
+        return result;
+    }
+
+    @Override
+    public IdentityOperationResult createMembership(String userId, String groupId) {
+        IdentityOperationResult result = super.createMembership(userId, groupId);
+        invalidate(() -> lookupCache.invalidateUser(userId));
+        return result;
+    }
+
+    @Override
+    public IdentityOperationResult deleteMembership(String userId, String groupId) {
+        IdentityOperationResult result = super.deleteMembership(userId, groupId);
+        invalidate(() -> lookupCache.invalidateUser(userId));
+        return result;
+    }
+
+    private boolean cacheable() {
+        return authorizationsCached || !getAuthorizationManager().isAuthCheckExecuted();
+    }
+
+    private void invalidate(Runnable invalidation) {
+        invalidation.run();
+        afterCommit(invalidation);
+    }
+
+    /**
+     * Loads without the authorization checks of the current user, whose view mustn't end up in
+     * the shared entry.
+     */
+    private <T> Supplier<T> unchecked(Supplier<T> loader) {
+        return () -> {
+            CommandContext commandContext = getCommandContext();
+            boolean enabled = commandContext.isAuthorizationCheckEnabled();
+            commandContext.disableAuthorizationCheck();
+            try {
+                return loader.get();
+            } finally {
+                if (enabled) {
+                    commandContext.enableAuthorizationCheck();
+                }
+            }
+        };
+    }
+
+    private <T> List<T> readable(List<T> entities, Resource resource) {
+        if (!getAuthorizationManager().isAuthCheckExecuted()) {
+            return entities;
+        }
+        List<T> readable = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            String id = entity instanceof User ? ((User) entity).getId() : ((Group) entity).getId();
+            if (getAuthorizationManager().isAuthorized(Permissions.READ, resource, id)) {
+                readable.add(entity);
+            }
+        }
+        return readable;
+    }
+}
@@ -0,0 +1,74 @@
+package org.camunda.app.lookup;
+
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.identity.Authentication;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Resolves the latest process definition of a key, or a key and version, through the
+ * {@link LookupCache} instead of a query per call, e.g. per {@code startProcessInstanceByKey}. The
+ * cache holds the id, the definition itself comes from the engine's deployment cache; an id whose
+ * definition is no longer deployed is looked up again, which covers deleted definitions.
+ * <p>
+ * Definitions of tenants and lookups of users with tenants aren't cached, their answer depends on
+ * the tenants of the user.
+ */
+public class CachingProcessDefinitionManager extends ProcessDefinitionManager {
+
+    private final LookupCache lookupCache;
+
+    public CachingProcessDefinitionManager(LookupCache lookupCache) {
+        this.lookupCache = lookupCache;
+    }
+
+    @Override
+    public ProcessDefinitionEntity findLatestProcessDefinitionByKey(String processDefinitionKey) {
+        return find(processDefinitionKey, null, () -> super.findLatestProcessDefinitionByKey(processDefinitionKey));
+    }
+
+    @Override
+    public ProcessDefinitionEntity findProcessDefinitionByKeyVersionAndTenantId(String processDefinitionKey, Integer processDefinitionVersion, String tenantId) {
+        if (tenantId != null || processDefinitionVersion == null) {
+            return super.findProcessDefinitionByKeyVersionAndTenantId(processDefinitionKey, processDefinitionVersion, tenantId);
+        }
+        return find(processDefinitionKey, processDefinitionVersion,
+                () -> super.findProcessDefinitionByKeyVersionAndTenantId(processDefinitionKey, processDefinitionVersion, null));
+    }
+
+    /**
+     * A new version changes the latest definition of its key.
+     */
+    @Override
+    public void insertProcessDefinition(ProcessDefinitionEntity processDefinition) {
+        super.insertProcessDefinition(processDefinition);
+        String key = processDefinition.getKey();
+        lookupCache.invalidateDefinition(key);
+        Context.getCommandContext().getTransactionContext()
+                .addTransactionListener(TransactionState.COMMITTED, commandContext -> lookupCache.invalidateDefinition(key));
+    }
+
+    private ProcessDefinitionEntity find(String key, Integer version, Supplier<ProcessDefinitionEntity> query) {
+        Authentication authentication = getCurrentAuthentication();
+        if (authentication != null && authentication.getTenantIds() != null && !authentication.getTenantIds().isEmpty()) {
+            return query.get();
+        }
+        String definitionId = lookupCache.getDefinitionId(key, version);
+        if (definitionId != null) {
+            ProcessDefinitionEntity deployed = Context.getProcessEngineConfiguration()
+                    .getDeploymentCache()
+                    .findProcessDefinitionFromCache(definitionId);
+            if (deployed != null) {
+                return deployed;
+            }
+        }
+        ProcessDefinitionEntity processDefinition = query.get();
+        if (processDefinition != null && processDefinition.getTenantId() == null) {
+            lookupCache.putDefinitionId(key, version, processDefinition.getId());
+        }
+        return processDefinition;
+    }
+}
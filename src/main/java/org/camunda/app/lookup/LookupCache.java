@@ -0,0 +1,219 @@
+package org.camunda.app.lookup;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import lombok.EqualsAndHashCode;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.bpm.engine.impl.persistence.entity.GroupEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.UserEntity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded read-through cache of the lookups the engine repeats on every request: the process
+ * definition id of a key and version (latest or fixed), users and groups by id and the groups of a
+ * user. Every region is a Guava cache split into {@code concurrencyLevel} independently locked
+ * segments, so concurrent readers don't contend on one lock. Users and groups are kept as copies
+ * and handed out as fresh copies, callers may change and save them.
+ * <p>
+ * Changes made through this engine invalidate the entries concerned and mark the cache changed,
+ * so the {@link LookupCacheStamp} can tell the other nodes of a cluster.
+ */
+public class LookupCache {
+
+    public enum Region {
+        DEFINITIONS,
+        USERS,
+        GROUPS,
+        MEMBERSHIPS
+    }
+
+    private final MetricsRegistry metricsRegistry;
+    private final Cache<DefinitionKey, String> definitions;
+    private final Cache<String, List<UserEntity>> users;
+    private final Cache<String, List<GroupEntity>> groups;
+    private final Cache<String, List<GroupEntity>> memberships;
+    private volatile boolean changed;
+
+    /**
+     * @param expireAfterWriteSeconds how long entries are kept at most, 0 keeps them until invalidated
+     */
+    public LookupCache(MetricsRegistry metricsRegistry, long maximumSize, int concurrencyLevel, long expireAfterWriteSeconds) {
+        this.metricsRegistry = metricsRegistry;
+        this.definitions = build(maximumSize, concurrencyLevel, expireAfterWriteSeconds);
+        this.users = build(maximumSize, concurrencyLevel, expireAfterWriteSeconds);
+        this.groups = build(maximumSize, concurrencyLevel, expireAfterWriteSeconds);
+        this.memberships = build(maximumSize, concurrencyLevel, expireAfterWriteSeconds);
+    }
+
+    /**
+     * @param version {@code null} for the latest version
+     */
+    String getDefinitionId(String key, Integer version) {
+        return record(Region.DEFINITIONS, definitions.getIfPresent(new DefinitionKey(key, version)));
+    }
+
+    void putDefinitionId(String key, Integer version, String definitionId) {
+        definitions.put(new DefinitionKey(key, version), definitionId);
+    }
+
+    /**
+     * @return the users with the id, at most one
+     */
+    List<UserEntity> getUser(String userId, Supplier<List<UserEntity>> loader) {
+        List<UserEntity> cached = record(Region.USERS, users.getIfPresent(userId));
+        if (cached == null) {
+            cached = copyUsers(loader.get());
+            users.put(userId, cached);
+        }
+        return copyUsers(cached);
+    }
+
+    List<GroupEntity> getGroup(String groupId, Supplier<List<GroupEntity>> loader) {
+        return readThrough(Region.GROUPS, groups, groupId, loader);
+    }
+
+    List<GroupEntity> getGroupsOfUser(String userId, Supplier<List<GroupEntity>> loader) {
+        return readThrough(Region.MEMBERSHIPS, memberships, userId, loader);
+    }
+
+    public void invalidateDefinition(String key) {
+        definitions.asMap().keySet().removeIf(definitionKey -> definitionKey.key.equals(key));
+        changed = true;
+    }
+
+    public void invalidateUser(String userId) {
+        users.invalidate(userId);
+        memberships.invalidate(userId);
+        changed = true;
+    }
+
+    /**
+     * Drops the group and every membership list, which carry the group's name and type.
+     */
+    public void invalidateGroup(String groupId) {
+        groups.invalidate(groupId);
+        memberships.invalidateAll();
+        changed = true;
+    }
+
+    public void invalidateAll() {
+        invalidateLocally();
+        changed = true;
+    }
+
+    /**
+     * Drops everything because of a change made elsewhere, which needs no announcement.
+     */
+    void invalidateLocally() {
+        definitions.invalidateAll();
+        users.invalidateAll();
+        groups.invalidateAll();
+        memberships.invalidateAll();
+    }
+
+    /**
+     * @return whether anything was invalidated since the last call
+     */
+    boolean takeChanged() {
+        boolean result = changed;
+        changed = false;
+        return result;
+    }
+
+    public Map<Region, CacheStats> getStats() {
+        Map<Region, CacheStats> stats = new EnumMap<>(Region.class);
+        stats.put(Region.DEFINITIONS, definitions.stats());
+        stats.put(Region.USERS, users.stats());
+        stats.put(Region.GROUPS, groups.stats());
+        stats.put(Region.MEMBERSHIPS, memberships.stats());
+        return stats;
+    }
+
+    public Map<Region, Long> getSizes() {
+        Map<Region, Long> sizes = new EnumMap<>(Region.class);
+        sizes.put(Region.DEFINITIONS, definitions.size());
+        sizes.put(Region.USERS, users.size());
+        sizes.put(Region.GROUPS, groups.size());
+        sizes.put(Region.MEMBERSHIPS, memberships.size());
+        return sizes;
+    }
+
+    private List<GroupEntity> readThrough(Region region, Cache<String, List<GroupEntity>> cache, String id, Supplier<List<GroupEntity>> loader) {
+        List<GroupEntity> cached = record(region, cache.getIfPresent(id));
+        if (cached == null) {
+            cached = copyGroups(loader.get());
+            cache.put(id, cached);
+        }
+        return copyGroups(cached);
+    }
+
+    /**
+     * Every hit is a query that didn't run.
+     */
+    private <T> T record(Region region, T cached) {
+        metricsRegistry.increment(
+                "invoice_lookup_cache_requests_total", "Lookups of the lookup cache by region and result", 1,
+                "region", region.name().toLowerCase(), "result", cached == null ? "miss" : "hit"
+        );
+        return cached;
+    }
+
+    private static List<UserEntity> copyUsers(List<UserEntity> source) {
+        List<UserEntity> copies = new ArrayList<>(source.size());
+        for (UserEntity user : source) {
+            UserEntity copy = new UserEntity(user.getId());
+            copy.setRevision(user.getRevision());
+            copy.setFirstName(user.getFirstName());
+            copy.setLastName(user.getLastName());
+            copy.setEmail(user.getEmail());
+            copy.setDbPassword(user.getDbPassword());
+            copy.setSalt(user.getSalt());
+            copy.setAttempts(user.getAttempts());
+            copy.setLockExpirationTime(user.getLockExpirationTime());
+            copies.add(copy);
+        }
+        return Collections.unmodifiableList(copies);
+    }
+
+    private static List<GroupEntity> copyGroups(List<GroupEntity> source) {
+        List<GroupEntity> copies = new ArrayList<>(source.size());
+        for (GroupEntity group : source) {
+            GroupEntity copy = new GroupEntity(group.getId());
+            copy.setRevision(group.getRevision());
+            copy.setName(group.getName());
+            copy.setType(group.getType());
+            copies.add(copy);
+        }
+        return Collections.unmodifiableList(copies);
+    }
+
+    private static <K, V> Cache<K, V> build(long maximumSize, int concurrencyLevel, long expireAfterWriteSeconds) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .concurrencyLevel(concurrencyLevel)
+                .recordStats();
+        if (expireAfterWriteSeconds > 0) {
+            builder.expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS);
+        }
+        return builder.build();
+    }
+
+    @EqualsAndHashCode
+    private static class DefinitionKey {
+        private final String key;
+        private final Integer version;
+
+        private DefinitionKey(String key, Integer version) {
+            this.key = key;
+            this.version = version;
+        }
+    }
+}
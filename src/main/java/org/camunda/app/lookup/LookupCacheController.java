@@ -0,0 +1,51 @@
+package org.camunda.app.lookup;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Hit ratios per region; every hit is a query the engine didn't run.
+ */
+@RestController
+@RequestMapping("/api/lookup-cache")
+@ConditionalOnProperty(name = "invoice.lookup-cache.enabled", havingValue = "true")
+public class LookupCacheController {
+
+    @Autowired
+    protected LookupCache cache;
+
+    @GetMapping
+    public Map<String, Object> stats() {
+        Map<LookupCache.Region, Long> sizes = cache.getSizes();
+        ImmutableMap.Builder<String, Object> regions = ImmutableMap.builder();
+        long savedQueries = 0;
+        for (Map.Entry<LookupCache.Region, CacheStats> region : cache.getStats().entrySet()) {
+            CacheStats stats = region.getValue();
+            savedQueries += stats.hitCount();
+            regions.put(region.getKey().name().toLowerCase(), ImmutableMap.<String, Object>builder()
+                    .put("size", sizes.get(region.getKey()))
+                    .put("hits", stats.hitCount())
+                    .put("misses", stats.missCount())
+                    .put("evictions", stats.evictionCount())
+                    .put("hitRate", stats.hitRate())
+                    .build());
+        }
+        return ImmutableMap.<String, Object>builder()
+                .put("savedQueries", savedQueries)
+                .put("regions", regions.build())
+                .build();
+    }
+
+    @DeleteMapping
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
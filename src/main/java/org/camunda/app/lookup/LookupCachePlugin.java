@@ -0,0 +1,75 @@
+package org.camunda.app.lookup;
+
+import org.camunda.app.authorization.AuthorizationCache;
+import org.camunda.app.authorization.MembershipInvalidatingIdentityProvider;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.interceptor.Session;
+import org.camunda.bpm.engine.impl.interceptor.SessionFactory;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Replaces the engine's process definition manager with the
+ * {@link CachingProcessDefinitionManager} and the database identity provider with the
+ * {@link CachingIdentityProvider}, which takes over from the
+ * {@link MembershipInvalidatingIdentityProvider} of the authorization cache. Other identity
+ * providers are left alone. Starts polling the {@link LookupCacheStamp} once the engine is built.
+ */
+public class LookupCachePlugin extends AbstractProcessEnginePlugin {
+
+    private final LookupCache lookupCache;
+    private final AuthorizationCache authorizationCache;
+    private final LookupCacheStamp stamp;
+
+    /**
+     * @param authorizationCache {@code null} without authorization cache
+     * @param stamp              {@code null} for a single node
+     */
+    public LookupCachePlugin(LookupCache lookupCache, AuthorizationCache authorizationCache, LookupCacheStamp stamp) {
+        this.lookupCache = lookupCache;
+        this.authorizationCache = authorizationCache;
+        this.stamp = stamp;
+    }
+
+    @Override
+    public void preInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+        List<SessionFactory> sessionFactories = processEngineConfiguration.getCustomSessionFactories();
+        if (sessionFactories == null) {
+            sessionFactories = new ArrayList<>();
+            processEngineConfiguration.setCustomSessionFactories(sessionFactories);
+        }
+        sessionFactories.add(sessionFactory(ProcessDefinitionManager.class, () -> new CachingProcessDefinitionManager(lookupCache)));
+
+        SessionFactory identityProvider = processEngineConfiguration.getIdentityProviderSessionFactory();
+        if (identityProvider == null || identityProvider.getSessionType() == MembershipInvalidatingIdentityProvider.class) {
+            processEngineConfiguration.setIdentityProviderSessionFactory(
+                    sessionFactory(CachingIdentityProvider.class, () -> new CachingIdentityProvider(lookupCache, authorizationCache)));
+        }
+    }
+
+    @Override
+    public void postProcessEngineBuild(ProcessEngine processEngine) {
+        if (stamp != null) {
+            stamp.start(processEngine);
+        }
+    }
+
+    private static SessionFactory sessionFactory(Class<?> sessionType, Supplier<Session> sessions) {
+        return new SessionFactory() {
+            @Override
+            public Class<?> getSessionType() {
+                return sessionType;
+            }
+
+            @Override
+            public Session openSession() {
+                return sessions.get();
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package org.camunda.app.lookup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.ManagementService;
+import org.camunda.bpm.engine.ProcessEngine;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Keeps the lookup caches of several nodes consistent through version stamps in engine
+ * properties, one per node. A node which changed definitions or identities writes a new value to
+ * its own stamp, a node which reads a foreign stamp it hasn't seen drops its whole cache. Changes
+ * of other nodes are therefore seen within one poll interval. No two nodes write the same
+ * property, so a stamp is only ever replaced by a newer one of the same node, which the others
+ * can't miss either.
+ */
+@Slf4j
+public class LookupCacheStamp {
+
+    static final String PROPERTY_PREFIX = "invoice.lookup-cache.stamp.";
+
+    private final String nodeId;
+    private final LookupCache lookupCache;
+    private final long pollIntervalMillis;
+    private final ScheduledExecutorService poller;
+
+    private ProcessEngine processEngine;
+    private volatile Map<String, String> seen;
+
+    public LookupCacheStamp(String nodeId, LookupCache lookupCache, long pollIntervalMillis) {
+        this.nodeId = nodeId;
+        this.lookupCache = lookupCache;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lookup-cache-stamp");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start(ProcessEngine processEngine) {
+        this.processEngine = processEngine;
+        this.seen = foreignStamps(processEngine.getManagementService().getProperties());
+        poller.scheduleWithFixedDelay(this::poll, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info(format("Lookup cache of node %s polls the stamps every %d ms", nodeId, pollIntervalMillis));
+    }
+
+    public void stop() {
+        poller.shutdownNow();
+    }
+
+    void poll() {
+        try {
+            ManagementService managementService = processEngine.getManagementService();
+            boolean changed = lookupCache.takeChanged();
+            Map<String, String> stamps = foreignStamps(managementService.getProperties());
+            if (!stamps.equals(seen)) {
+                lookupCache.invalidateLocally();
+                seen = stamps;
+                log.debug(format("Lookup cache of node %s dropped after stamps %s of other nodes", nodeId, stamps));
+            }
+            if (changed) {
+                managementService.setProperty(PROPERTY_PREFIX + nodeId, UUID.randomUUID().toString());
+            }
+        } catch (RuntimeException e) {
+            log.warn(format("Lookup cache stamp poll failed: %s", e.getMessage()));
+        }
+    }
+
+    private Map<String, String> foreignStamps(Map<String, String> properties) {
+        Map<String, String> stamps = new HashMap<>();
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            if (property.getKey().startsWith(PROPERTY_PREFIX) && !property.getKey().equals(PROPERTY_PREFIX + nodeId)) {
+                stamps.put(property.getKey().substring(PROPERTY_PREFIX.length()), property.getValue());
+            }
+        }
+        return stamps;
+    }
+}
@@ -0,0 +1,60 @@
+package org.camunda.app.lookup;
+
+import org.camunda.bpm.engine.impl.AbstractQuery;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tells whether a query filters by nothing but the given criteria, unordered and unpaged. The
+ * criteria are read from the fields of the concrete query classes, so a criterion added by an
+ * engine update makes the query uncacheable rather than wrongly cached.
+ */
+final class QueryShape {
+
+    private static final Map<Class<?>, List<Field>> CRITERIA = new ConcurrentHashMap<>();
+
+    private QueryShape() {
+    }
+
+    /**
+     * @return the value of the criterion if it's the only one set, otherwise {@code null}
+     */
+    static String only(AbstractQuery<?, ?> query, String criterion) {
+        if (!query.getOrderingProperties().isEmpty() || query.getFirstResult() != 0 || query.getMaxResults() != Integer.MAX_VALUE) {
+            return null;
+        }
+        Object value = null;
+        for (Field field : CRITERIA.computeIfAbsent(query.getClass(), QueryShape::criteria)) {
+            Object fieldValue;
+            try {
+                fieldValue = field.get(query);
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+            if (field.getName().equals(criterion)) {
+                value = fieldValue;
+            } else if (fieldValue != null && !Boolean.FALSE.equals(fieldValue)) {
+                return null;
+            }
+        }
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static List<Field> criteria(Class<?> queryClass) {
+        List<Field> criteria = new ArrayList<>();
+        for (Class<?> type = queryClass; type != null && type != AbstractQuery.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                    field.setAccessible(true);
+                    criteria.add(field);
+                }
+            }
+        }
+        return criteria;
+    }
+}
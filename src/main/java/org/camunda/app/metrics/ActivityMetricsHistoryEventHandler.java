@@ -0,0 +1,44 @@
+package org.camunda.app.metrics;
+
+import org.camunda.bpm.engine.impl.history.event.HistoricActivityInstanceEventEntity;
+import org.camunda.bpm.engine.impl.history.event.HistoryEvent;
+import org.camunda.bpm.engine.impl.history.event.HistoryEventTypes;
+import org.camunda.bpm.engine.impl.history.handler.HistoryEventHandler;
+
+import java.util.List;
+
+/**
+ * Records the duration of every ended activity instance from the history event stream, next to
+ * the default database history handler.
+ */
+public class ActivityMetricsHistoryEventHandler implements HistoryEventHandler {
+
+    private final MetricsRegistry registry;
+
+    public ActivityMetricsHistoryEventHandler(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void handleEvent(HistoryEvent historyEvent) {
+        if (!(historyEvent instanceof HistoricActivityInstanceEventEntity) || !historyEvent.isEventOfType(HistoryEventTypes.ACTIVITY_INSTANCE_END)) {
+            return;
+        }
+        HistoricActivityInstanceEventEntity activityEvent = (HistoricActivityInstanceEventEntity) historyEvent;
+        if (activityEvent.getDurationInMillis() == null) {
+            return;
+        }
+        registry.recordDuration(
+                "camunda_activity_duration_seconds", "Duration of activity instances from start to end",
+                activityEvent.getDurationInMillis() * 1_000_000L,
+                "process", activityEvent.getProcessDefinitionKey(),
+                "activity", activityEvent.getActivityId(),
+                "type", activityEvent.getActivityType()
+        );
+    }
+
+    @Override
+    public void handleEvents(List<HistoryEvent> historyEvents) {
+        historyEvents.forEach(this::handleEvent);
+    }
+}
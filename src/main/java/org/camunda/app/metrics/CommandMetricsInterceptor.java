@@ -0,0 +1,45 @@
+package org.camunda.app.metrics;
+
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandInterceptor;
+import org.camunda.bpm.engine.impl.jobexecutor.AcquiredJobs;
+
+/**
+ * Records the duration of every command, including transaction commit, and the outcome of job
+ * acquisitions. Added in front of the command context interceptor.
+ */
+public class CommandMetricsInterceptor extends CommandInterceptor {
+
+    private final MetricsRegistry registry;
+
+    public CommandMetricsInterceptor(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public <T> T execute(Command<T> command) {
+        String commandName = command.getClass().getSimpleName();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = next.execute(command);
+            failed = false;
+            if (result instanceof AcquiredJobs) {
+                recordAcquisition((AcquiredJobs) result, System.nanoTime() - start);
+            }
+            return result;
+        } finally {
+            registry.recordDuration(
+                    "camunda_command_duration_seconds", "Duration of engine commands",
+                    System.nanoTime() - start,
+                    "command", commandName, "outcome", failed ? "failure" : "success"
+            );
+        }
+    }
+
+    private void recordAcquisition(AcquiredJobs acquiredJobs, long nanos) {
+        registry.recordDuration("camunda_job_acquisition_duration_seconds", "Duration of job acquisition cycles", nanos);
+        registry.increment("camunda_job_acquired_total", "Jobs acquired and locked", acquiredJobs.size());
+        registry.increment("camunda_job_lock_failed_total", "Jobs which couldn't be locked because another acquisition locked them first", acquiredJobs.getNumberOfJobsFailedToLock());
+    }
+}
@@ -0,0 +1,55 @@
+package org.camunda.app.metrics;
+
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.db.entitymanager.cache.CachedDbEntity;
+import org.camunda.bpm.engine.impl.db.entitymanager.cache.DbEntityState;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.interceptor.CommandInterceptor;
+
+/**
+ * Records how many entities the outermost command of a command context hands to the flush.
+ * Added behind the command context interceptor, so the context is still open when the command returns.
+ */
+public class FlushSizeInterceptor extends CommandInterceptor {
+
+    private final MetricsRegistry registry;
+    private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    public FlushSizeInterceptor(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public <T> T execute(Command<T> command) {
+        int[] currentDepth = depth.get();
+        currentDepth[0]++;
+        try {
+            T result = next.execute(command);
+            if (currentDepth[0] == 1) {
+                recordFlushSize(Context.getCommandContext(), command);
+            }
+            return result;
+        } finally {
+            currentDepth[0]--;
+        }
+    }
+
+    private void recordFlushSize(CommandContext commandContext, Command<?> command) {
+        if (commandContext == null) {
+            return;
+        }
+        long entities = 0;
+        for (CachedDbEntity cachedEntity : commandContext.getDbEntityManager().getDbEntityCache().getCachedEntities()) {
+            DbEntityState state = cachedEntity.getEntityState();
+            if (state == DbEntityState.TRANSIENT
+                    || state == DbEntityState.MERGED
+                    || state == DbEntityState.DELETED_PERSISTENT
+                    || state == DbEntityState.DELETED_MERGED
+                    || (state == DbEntityState.PERSISTENT && cachedEntity.isDirty())) {
+                entities++;
+            }
+        }
+        registry.recordSize("camunda_db_flush_entities", "Entities inserted, updated or deleted per flush", entities, "command", command.getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,69 @@
+package org.camunda.app.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram with fixed, exponentially growing bucket bounds. Recording a value only
+ * increments two {@link LongAdder}s and adds to the sum, so it is cheap on hot engine paths.
+ */
+public class Histogram {
+
+    private final double[] bounds;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final DoubleAdder sum = new DoubleAdder();
+
+    /**
+     * @param start  upper bound of the first bucket
+     * @param factor growth factor between bucket bounds
+     * @param size   number of buckets, excluding the implicit +Inf bucket
+     */
+    public Histogram(double start, double factor, int size) {
+        bounds = new double[size];
+        double bound = start;
+        for (int i = 0; i < size; i++) {
+            bounds[i] = bound;
+            bound *= factor;
+        }
+        buckets = new LongAdder[size + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(double value) {
+        int bucket = 0;
+        while (bucket < bounds.length && value > bounds[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        count.increment();
+        sum.add(value);
+    }
+
+    double[] getBounds() {
+        return bounds;
+    }
+
+    /**
+     * @return cumulative counts per bound, the last element is the +Inf bucket
+     */
+    long[] getCumulativeCounts() {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            total += buckets[i].sum();
+            counts[i] = total;
+        }
+        return counts;
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    double getSum() {
+        return sum.sum();
+    }
+}
@@ -0,0 +1,24 @@
+package org.camunda.app.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+@RestController
+public class MetricsController {
+
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Autowired
+    protected MetricsRegistry registry;
+
+    @GetMapping(value = "/metrics", produces = PROMETHEUS_CONTENT_TYPE)
+    public String scrape() throws IOException {
+        StringWriter writer = new StringWriter();
+        registry.writePrometheus(writer);
+        return writer.toString();
+    }
+}
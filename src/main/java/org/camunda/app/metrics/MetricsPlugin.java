@@ -0,0 +1,62 @@
+package org.camunda.app.metrics;
+
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.history.handler.HistoryEventHandler;
+import org.camunda.bpm.engine.impl.interceptor.CommandInterceptor;
+import org.camunda.bpm.engine.impl.jobexecutor.JobHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hooks the {@link MetricsRegistry} into the engine. The database metrics reporter, which writes
+ * ACT_RU_METER_LOG rows from its own timer thread, stays optional
+ * ({@code camunda.bpm.metrics.db-reporter-activate}); when active it reports at the configured interval.
+ */
+public class MetricsPlugin extends AbstractProcessEnginePlugin {
+
+    private final MetricsRegistry registry;
+    private final int dbReporterIntervalSeconds;
+
+    public MetricsPlugin(MetricsRegistry registry, int dbReporterIntervalSeconds) {
+        this.registry = registry;
+        this.dbReporterIntervalSeconds = dbReporterIntervalSeconds;
+    }
+
+    @Override
+    public void preInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+        processEngineConfiguration.setCustomPreCommandInterceptorsTxRequired(
+                append(processEngineConfiguration.getCustomPreCommandInterceptorsTxRequired(), new CommandMetricsInterceptor(registry)));
+        processEngineConfiguration.setCustomPreCommandInterceptorsTxRequiresNew(
+                append(processEngineConfiguration.getCustomPreCommandInterceptorsTxRequiresNew(), new CommandMetricsInterceptor(registry)));
+        processEngineConfiguration.setCustomPostCommandInterceptorsTxRequired(
+                append(processEngineConfiguration.getCustomPostCommandInterceptorsTxRequired(), new FlushSizeInterceptor(registry)));
+        processEngineConfiguration.setCustomPostCommandInterceptorsTxRequiresNew(
+                append(processEngineConfiguration.getCustomPostCommandInterceptorsTxRequiresNew(), new FlushSizeInterceptor(registry)));
+        processEngineConfiguration.setCustomHistoryEventHandlers(
+                append(processEngineConfiguration.getCustomHistoryEventHandlers(), (HistoryEventHandler) new ActivityMetricsHistoryEventHandler(registry)));
+    }
+
+    @Override
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public void postInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+        long lockTimeInMillis = processEngineConfiguration.getJobExecutor().getLockTimeInMillis();
+        Map<String, JobHandler> jobHandlers = processEngineConfiguration.getJobHandlers();
+        jobHandlers.replaceAll((type, handler) -> new TimedJobHandler(handler, registry, lockTimeInMillis));
+
+        processEngineConfiguration.setDelegateInterceptor(
+                new TimedDelegateInterceptor(processEngineConfiguration.getDelegateInterceptor(), registry));
+
+        if (processEngineConfiguration.isDbMetricsReporterActivate()) {
+            processEngineConfiguration.getDbMetricsReporter().setReportingIntervalInSeconds(dbReporterIntervalSeconds);
+        }
+    }
+
+    private static <T> List<T> append(List<T> list, T element) {
+        List<T> result = list == null ? new ArrayList<>() : list;
+        result.add(element);
+        return result;
+    }
+}
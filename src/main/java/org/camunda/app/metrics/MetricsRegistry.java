@@ -0,0 +1,122 @@
+package org.camunda.app.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static java.lang.String.format;
+
+/**
+ * In-memory metrics of the application, exposed in the Prometheus text format. Metrics are
+ * identified by name and a label string, e.g. {@code activity="approveInvoice"}, and created on
+ * first use. Durations are recorded in seconds.
+ */
+public class MetricsRegistry {
+
+    private static final double DURATION_START = 0.0005;
+    private static final double SIZE_START = 1;
+    private static final double FACTOR = 2;
+    private static final int DURATION_BUCKETS = 18;
+    private static final int SIZE_BUCKETS = 12;
+
+    private final Map<String, Family<Histogram>> histograms = new ConcurrentHashMap<>();
+    private final Map<String, Family<LongAdder>> counters = new ConcurrentHashMap<>();
+    private final Map<String, Family<LongSupplier>> gauges = new ConcurrentHashMap<>();
+
+    public void recordDuration(String name, String help, long nanos, String... labels) {
+        histogram(name, help, DURATION_START, DURATION_BUCKETS, labels).record(nanos / 1e9);
+    }
+
+    public void recordSize(String name, String help, long size, String... labels) {
+        histogram(name, help, SIZE_START, SIZE_BUCKETS, labels).record(size);
+    }
+
+    public void increment(String name, String help, long amount, String... labels) {
+        counters.computeIfAbsent(name, key -> new Family<>(help))
+                .members
+                .computeIfAbsent(labels(labels), key -> new LongAdder())
+                .add(amount);
+    }
+
+    /**
+     * Registers a gauge which is read on every scrape, replacing an earlier one with the same labels.
+     */
+    public void gauge(String name, String help, LongSupplier value, String... labels) {
+        gauges.computeIfAbsent(name, key -> new Family<>(help))
+                .members
+                .put(labels(labels), value);
+    }
+
+    public void writePrometheus(Writer writer) throws IOException {
+        for (Map.Entry<String, Family<LongSupplier>> gauge : new ConcurrentSkipListMap<>(gauges).entrySet()) {
+            writeHeader(writer, gauge.getKey(), gauge.getValue().help, "gauge");
+            for (Map.Entry<String, LongSupplier> member : gauge.getValue().members.entrySet()) {
+                writer.write(gauge.getKey() + braces(member.getKey()) + " " + member.getValue().getAsLong() + "\n");
+            }
+        }
+        for (Map.Entry<String, Family<LongAdder>> counter : new ConcurrentSkipListMap<>(counters).entrySet()) {
+            writeHeader(writer, counter.getKey(), counter.getValue().help, "counter");
+            for (Map.Entry<String, LongAdder> member : counter.getValue().members.entrySet()) {
+                writer.write(counter.getKey() + braces(member.getKey()) + " " + member.getValue().sum() + "\n");
+            }
+        }
+        for (Map.Entry<String, Family<Histogram>> histogram : new ConcurrentSkipListMap<>(histograms).entrySet()) {
+            String name = histogram.getKey();
+            writeHeader(writer, name, histogram.getValue().help, "histogram");
+            for (Map.Entry<String, Histogram> member : histogram.getValue().members.entrySet()) {
+                String labels = member.getKey();
+                Histogram values = member.getValue();
+                double[] bounds = values.getBounds();
+                long[] counts = values.getCumulativeCounts();
+                for (int i = 0; i < counts.length; i++) {
+                    String le = i < bounds.length ? format(Locale.ROOT, "%s", bounds[i]) : "+Inf";
+                    writer.write(name + "_bucket" + braces(join(labels, "le=\"" + le + "\"")) + " " + counts[i] + "\n");
+                }
+                writer.write(name + "_sum" + braces(labels) + " " + values.getSum() + "\n");
+                writer.write(name + "_count" + braces(labels) + " " + values.getCount() + "\n");
+            }
+        }
+    }
+
+    private Histogram histogram(String name, String help, double start, int size, String... labels) {
+        return histograms.computeIfAbsent(name, key -> new Family<>(help))
+                .members
+                .computeIfAbsent(labels(labels), key -> new Histogram(start, FACTOR, size));
+    }
+
+    private static void writeHeader(Writer writer, String name, String help, String type) throws IOException {
+        writer.write("# HELP " + name + " " + help + "\n");
+        writer.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static String labels(String... labels) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            String value = labels[i + 1] == null ? "" : labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+            result.append(i == 0 ? "" : ",").append(labels[i]).append("=\"").append(value).append('"');
+        }
+        return result.toString();
+    }
+
+    private static String join(String labels, String label) {
+        return labels.isEmpty() ? label : labels + "," + label;
+    }
+
+    private static String braces(String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    private static class Family<T> {
+        private final String help;
+        private final ConcurrentSkipListMap<String, T> members = new ConcurrentSkipListMap<>();
+
+        private Family(String help) {
+            this.help = help;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.camunda.app.metrics;
+
+import org.camunda.bpm.engine.impl.delegate.DelegateInvocation;
+import org.camunda.bpm.engine.impl.dmn.invocation.DecisionInvocation;
+import org.camunda.bpm.engine.impl.interceptor.DelegateInterceptor;
+
+/**
+ * Records the evaluation time of decisions (e.g. invoice-assign-approver) around the engine's
+ * own delegate interceptor.
+ */
+public class TimedDelegateInterceptor implements DelegateInterceptor {
+
+    private final DelegateInterceptor delegate;
+    private final MetricsRegistry registry;
+
+    public TimedDelegateInterceptor(DelegateInterceptor delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public void handleInvocation(DelegateInvocation invocation) throws Exception {
+        if (!(invocation instanceof DecisionInvocation)) {
+            delegate.handleInvocation(invocation);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            delegate.handleInvocation(invocation);
+        } finally {
+            registry.recordDuration(
+                    "camunda_decision_evaluation_seconds", "Duration of decision evaluations",
+                    System.nanoTime() - start,
+                    "decision", ((DecisionInvocation) invocation).getDecisionDefinition().getKey()
+            );
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.camunda.app.metrics;
+
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutorContext;
+import org.camunda.bpm.engine.impl.jobexecutor.JobHandler;
+import org.camunda.bpm.engine.impl.jobexecutor.JobHandlerConfiguration;
+import org.camunda.bpm.engine.impl.persistence.entity.ExecutionEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
+
+/**
+ * Wraps a job handler to record how long a job waited between being locked by the acquisition and
+ * being executed, and how long its execution took.
+ */
+public class TimedJobHandler<T extends JobHandlerConfiguration> implements JobHandler<T> {
+
+    private final JobHandler<T> delegate;
+    private final MetricsRegistry registry;
+    private final long lockTimeInMillis;
+
+    public TimedJobHandler(JobHandler<T> delegate, MetricsRegistry registry, long lockTimeInMillis) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.lockTimeInMillis = lockTimeInMillis;
+    }
+
+    @Override
+    public String getType() {
+        return delegate.getType();
+    }
+
+    @Override
+    public void execute(T configuration, ExecutionEntity execution, CommandContext commandContext, String tenantId) {
+        String activityId = execution == null ? null : execution.getActivityId();
+        recordLockWait(activityId);
+        long start = System.nanoTime();
+        try {
+            delegate.execute(configuration, execution, commandContext, tenantId);
+        } finally {
+            registry.recordDuration(
+                    "camunda_job_execution_duration_seconds", "Duration of job handler executions",
+                    System.nanoTime() - start,
+                    "type", getType(), "activity", activityId
+            );
+        }
+    }
+
+    @Override
+    public T newConfiguration(String canonicalString) {
+        return delegate.newConfiguration(canonicalString);
+    }
+
+    @Override
+    public void onDelete(T configuration, JobEntity jobEntity) {
+        delegate.onDelete(configuration, jobEntity);
+    }
+
+    private void recordLockWait(String activityId) {
+        JobExecutorContext jobExecutorContext = Context.getJobExecutorContext();
+        if (jobExecutorContext == null || jobExecutorContext.getCurrentJob() == null || jobExecutorContext.getCurrentJob().getLockExpirationTime() == null) {
+            return;
+        }
+        long lockedAt = jobExecutorContext.getCurrentJob().getLockExpirationTime().getTime() - lockTimeInMillis;
+        long waitMillis = Math.max(0, ClockUtil.getCurrentTime().getTime() - lockedAt);
+        registry.recordDuration(
+                "camunda_job_lock_wait_seconds", "Time between locking a job by the acquisition and its execution",
+                waitMillis * 1_000_000L,
+                "type", getType(), "activity", activityId
+        );
+    }
+}
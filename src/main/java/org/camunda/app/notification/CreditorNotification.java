@@ -0,0 +1,19 @@
+package org.camunda.app.notification;
+
+import lombok.Value;
+
+/**
+ * Notification of a creditor about a paid invoice. The id stays the same across delivery
+ * attempts, so the receiver can drop duplicates.
+ */
+@Value
+public class CreditorNotification {
+
+    String id;
+    String processInstanceId;
+    String invoiceNumber;
+    String creditor;
+    Double amount;
+    long createdAt;
+    int attempts;
+}
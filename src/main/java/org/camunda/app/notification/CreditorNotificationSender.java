@@ -0,0 +1,17 @@
+package org.camunda.app.notification;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Delivers creditor notifications to the receiving system.
+ */
+public interface CreditorNotificationSender {
+
+    /**
+     * Delivers the batch as a whole, a failure means none of it was accepted.
+     *
+     * @throws ReceiverOverloadedException when the receiver asks to slow down
+     */
+    void send(List<CreditorNotification> batch) throws IOException;
+}
@@ -0,0 +1,77 @@
+package org.camunda.app.notification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Posts each batch as a JSON array to the receiver URL. 429 and 503 answers are reported as
+ * {@link ReceiverOverloadedException}, honouring a {@code Retry-After} in seconds.
+ */
+public class HttpCreditorNotificationSender implements CreditorNotificationSender {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final long DEFAULT_RETRY_AFTER_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+    private final URL url;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    public HttpCreditorNotificationSender(URL url, int connectTimeoutMillis, int readTimeoutMillis) {
+        this.url = url;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    @Override
+    public void send(List<CreditorNotification> batch) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setConnectTimeout(connectTimeoutMillis);
+            connection.setReadTimeout(readTimeoutMillis);
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                OBJECT_MAPPER.writeValue(out, batch);
+            }
+
+            int status = connection.getResponseCode();
+            if (status == TOO_MANY_REQUESTS || status == HttpURLConnection.HTTP_UNAVAILABLE) {
+                throw new ReceiverOverloadedException(format("Receiver %s answered %d", url, status), retryAfterMillis(connection));
+            }
+            if (status / 100 != 2) {
+                throw new IOException(format("Receiver %s answered %d", url, status));
+            }
+            try (InputStream in = connection.getInputStream()) {
+                // drain the answer, so the connection is kept alive
+                byte[] buffer = new byte[1024];
+                while (in.read(buffer) != -1) {
+                    // discard
+                }
+            }
+        } finally {
+            if (connection.getErrorStream() != null) {
+                connection.getErrorStream().close();
+            }
+        }
+    }
+
+    private static long retryAfterMillis(HttpURLConnection connection) {
+        String retryAfter = connection.getHeaderField("Retry-After");
+        try {
+            return retryAfter == null ? DEFAULT_RETRY_AFTER_MILLIS : TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            return DEFAULT_RETRY_AFTER_MILLIS;
+        }
+    }
+}
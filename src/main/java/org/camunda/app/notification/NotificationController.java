@@ -0,0 +1,31 @@
+package org.camunda.app.notification;
+
+import com.google.common.collect.ImmutableMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/notifications")
+@ConditionalOnProperty(name = "invoice.notifications.enabled", havingValue = "true")
+public class NotificationController {
+
+    @Autowired
+    protected NotificationDispatcher dispatcher;
+
+    @GetMapping
+    public Map<String, Object> status() {
+        return ImmutableMap.<String, Object>builder()
+                .put("pending", dispatcher.getPending())
+                .put("dead", dispatcher.getDead())
+                .put("sent", dispatcher.getSent())
+                .put("failed", dispatcher.getFailed())
+                .put("inFlight", dispatcher.getInFlight())
+                .put("pausedMillis", dispatcher.getPausedMillis())
+                .build();
+    }
+}
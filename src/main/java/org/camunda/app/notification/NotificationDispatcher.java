@@ -0,0 +1,281 @@
+package org.camunda.app.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.app.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * Drains the {@link NotificationOutbox} outside of the engine transactions. A poller claims
+ * batches of due notifications and hands them to at most {@code concurrency} senders; while all of
+ * them are busy it claims nothing, so a slow receiver lets notifications wait in the outbox instead
+ * of in memory. When the receiver reports overload, all sending pauses for the time it asks for.
+ * <p>
+ * A failed batch is retried with exponential backoff and jitter; after {@code maxAttempts} its
+ * notifications stay in the outbox as dead letters. Delivery is at least once: a batch whose
+ * acknowledgement got lost is sent again after its lock expired.
+ */
+@Slf4j
+public class NotificationDispatcher {
+
+    private static final long COUNT_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+    private final NotificationOutbox outbox;
+    private final CreditorNotificationSender sender;
+    private final MetricsRegistry metricsRegistry;
+    private final String owner;
+    private final int batchSize;
+    private final int concurrency;
+    private final long lockMillis;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long pollIntervalMillis;
+
+    private final Object monitor = new Object();
+    private final Semaphore senders;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong pending = new AtomicLong(-1);
+    private final AtomicLong dead = new AtomicLong(-1);
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile long pausedUntil;
+    private long countedAt;
+    private ExecutorService executor;
+    private Thread poller;
+
+    public NotificationDispatcher(
+            NotificationOutbox outbox,
+            CreditorNotificationSender sender,
+            MetricsRegistry metricsRegistry,
+            String owner,
+            int batchSize,
+            int concurrency,
+            long lockMillis,
+            int maxAttempts,
+            long baseBackoffMillis,
+            long maxBackoffMillis,
+            long pollIntervalMillis
+    ) {
+        this.outbox = outbox;
+        this.sender = sender;
+        this.metricsRegistry = metricsRegistry;
+        this.owner = owner;
+        this.batchSize = Math.max(1, batchSize);
+        this.concurrency = Math.max(1, concurrency);
+        this.lockMillis = lockMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.senders = new Semaphore(this.concurrency);
+
+        metricsRegistry.gauge("invoice_notification_outbox_depth", "Creditor notifications waiting for delivery, -1 before the first count", pending::get);
+        metricsRegistry.gauge("invoice_notification_outbox_dead", "Creditor notifications which ran out of delivery attempts, -1 before the first count", dead::get);
+        metricsRegistry.gauge("invoice_notification_batches_in_flight", "Notification batches being sent", inFlight::get);
+    }
+
+    public void start() {
+        running = true;
+        executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "notification-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller = new Thread(this::pollLoop, "notification-dispatcher");
+        poller.setDaemon(true);
+        poller.start();
+        log.info(format("Notification dispatcher %s started, %d senders of %d notifications", owner, concurrency, batchSize));
+    }
+
+    public void stop() {
+        running = false;
+        wakeUp();
+        try {
+            poller.join(TimeUnit.SECONDS.toMillis(30));
+            executor.shutdown();
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Polls the outbox right away, e.g. after notifications were enqueued.
+     */
+    public void wakeUp() {
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+    }
+
+    public long getPending() {
+        return pending.get();
+    }
+
+    public long getDead() {
+        return dead.get();
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getPausedMillis() {
+        return Math.max(0, pausedUntil - System.currentTimeMillis());
+    }
+
+    private void pollLoop() {
+        int failedPolls = 0;
+        while (running) {
+            try {
+                long paused = getPausedMillis();
+                if (paused > 0) {
+                    await(paused);
+                    continue;
+                }
+                if (!senders.tryAcquire(pollIntervalMillis, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+                // the sender which freed the slot may just have been told to slow down
+                if (getPausedMillis() > 0) {
+                    senders.release();
+                    continue;
+                }
+                List<CreditorNotification> batch = claim();
+                if (batch.isEmpty()) {
+                    senders.release();
+                    refreshCounts();
+                    await(pollIntervalMillis);
+                } else {
+                    inFlight.incrementAndGet();
+                    executor.execute(() -> send(batch));
+                    refreshCounts();
+                }
+                failedPolls = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Notification dispatcher failed, polling again later", e);
+                try {
+                    // e.g. the database is briefly unreachable, back off like a failed batch
+                    await(backoffMillis(failedPolls++));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private List<CreditorNotification> claim() {
+        try {
+            return outbox.claim(owner, batchSize, lockMillis);
+        } catch (RuntimeException e) {
+            senders.release();
+            throw e;
+        }
+    }
+
+    private void send(List<CreditorNotification> batch) {
+        try {
+            sender.send(batch);
+            outbox.delete(batch);
+            long now = System.currentTimeMillis();
+            for (CreditorNotification notification : batch) {
+                metricsRegistry.recordDuration(
+                        "invoice_notification_lag_seconds", "Time from enqueueing a creditor notification to its delivery",
+                        TimeUnit.MILLISECONDS.toNanos(Math.max(0, now - notification.getCreatedAt()))
+                );
+            }
+            sent.addAndGet(batch.size());
+            metricsRegistry.increment("invoice_notifications_sent_total", "Delivered creditor notifications", batch.size());
+            metricsRegistry.recordSize("invoice_notification_batch_size", "Creditor notifications per delivered batch", batch.size());
+        } catch (ReceiverOverloadedException e) {
+            pausedUntil = System.currentTimeMillis() + Math.min(maxBackoffMillis, e.getRetryAfterMillis());
+            outbox.reschedule(batch, false, System.currentTimeMillis(), e.getMessage());
+            metricsRegistry.increment("invoice_notification_failures_total", "Failed creditor notification batches", 1, "reason", "overloaded");
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            retryLater(batch, e);
+            metricsRegistry.increment("invoice_notification_failures_total", "Failed creditor notification batches", 1, "reason", "error");
+        } finally {
+            inFlight.decrementAndGet();
+            senders.release();
+        }
+    }
+
+    private void retryLater(List<CreditorNotification> batch, Exception cause) {
+        List<CreditorNotification> retries = new ArrayList<>(batch.size());
+        List<CreditorNotification> exhausted = new ArrayList<>();
+        for (CreditorNotification notification : batch) {
+            if (notification.getAttempts() + 1 >= maxAttempts) {
+                exhausted.add(notification);
+            } else {
+                retries.add(notification);
+            }
+        }
+        try {
+            if (!retries.isEmpty()) {
+                outbox.reschedule(retries, true, System.currentTimeMillis() + backoffMillis(retries.get(0).getAttempts()), cause.toString());
+            }
+            if (!exhausted.isEmpty()) {
+                outbox.reschedule(exhausted, true, null, cause.toString());
+                log.warn(format("Gave up delivering %d creditor notifications after %d attempts", exhausted.size(), maxAttempts), cause);
+            }
+        } catch (RuntimeException e) {
+            // the locks expire, so the batch is sent again anyway
+            log.warn(format("Couldn't reschedule %d creditor notifications", batch.size()), e);
+        }
+    }
+
+    /**
+     * Exponential backoff with jitter, so batches which failed together don't come back together.
+     */
+    private long backoffMillis(int attempts) {
+        long backoff = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempts, 20));
+        return ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+    }
+
+    private void refreshCounts() {
+        long now = System.currentTimeMillis();
+        if (now - countedAt < COUNT_INTERVAL_MILLIS) {
+            return;
+        }
+        countedAt = now;
+        pending.set(outbox.countPending());
+        dead.set(outbox.countDead());
+    }
+
+    private void await(long millis) throws InterruptedException {
+        if (millis <= 0) {
+            return;
+        }
+        synchronized (monitor) {
+            if (running) {
+                monitor.wait(millis);
+            }
+        }
+    }
+}
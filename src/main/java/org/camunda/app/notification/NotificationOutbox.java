@@ -0,0 +1,235 @@
+package org.camunda.app.notification;
+
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static java.lang.String.format;
+
+/**
+ * Transactional outbox of creditor notifications. A notification enqueued by a delegate is
+ * inserted through the connection of the running engine command, so it is committed or rolled
+ * back together with the job which sent it. The {@link NotificationDispatcher} claims due
+ * notifications by locking them for a while, so several dispatchers can drain one outbox.
+ * <p>
+ * A notification whose delivery failed too often stays in the table without a next attempt.
+ */
+public class NotificationOutbox {
+
+    static final String TABLE = "INVOICE_NOTIFICATION_OUTBOX";
+
+    private static final String[] SCHEMA = {
+            "create table if not exists " + TABLE + " ("
+                    + "ID_ varchar(64) not null primary key, "
+                    + "PROC_INST_ID_ varchar(64), "
+                    + "INVOICE_NUMBER_ varchar(255), "
+                    + "CREDITOR_ varchar(255), "
+                    + "AMOUNT_ double precision, "
+                    + "CREATED_ bigint not null, "
+                    + "ATTEMPTS_ integer not null, "
+                    + "NEXT_ATTEMPT_ bigint, "
+                    + "LOCK_OWNER_ varchar(255), "
+                    + "LOCK_EXP_ bigint, "
+                    + "LAST_ERROR_ varchar(4000))",
+            "create index if not exists " + TABLE + "_NEXT on " + TABLE + " (NEXT_ATTEMPT_)"
+    };
+
+    private static final String COLUMNS = "ID_, PROC_INST_ID_, INVOICE_NUMBER_, CREDITOR_, AMOUNT_, CREATED_, ATTEMPTS_";
+    private static final int MAX_ERROR_LENGTH = 4000;
+
+    private final ProcessEngine processEngine;
+
+    public NotificationOutbox(ProcessEngine processEngine) {
+        this.processEngine = processEngine;
+    }
+
+    public void createTable() {
+        try (Connection connection = dataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String sql : SCHEMA) {
+                statement.execute(sql);
+            }
+        } catch (SQLException e) {
+            throw new ProcessEngineException(format("Couldn't create table %s", TABLE), e);
+        }
+    }
+
+    /**
+     * Enqueues a notification as part of the running engine command. Outside of a command, e.g.
+     * in an external task handler, the notification is committed on its own.
+     */
+    public void enqueue(String processInstanceId, String invoiceNumber, String creditor, Double amount) {
+        String sql = "insert into " + TABLE + " (" + COLUMNS + ", NEXT_ATTEMPT_) values (?, ?, ?, ?, ?, ?, 0, ?)";
+        long now = System.currentTimeMillis();
+        CommandContext commandContext = Context.getCommandContext();
+        try {
+            if (commandContext != null) {
+                insert(commandContext.getDbSqlSession().getSqlSession().getConnection(), sql, processInstanceId, invoiceNumber, creditor, amount, now);
+            } else {
+                try (Connection connection = dataSource().getConnection()) {
+                    insert(connection, sql, processInstanceId, invoiceNumber, creditor, amount, now);
+                }
+            }
+        } catch (SQLException e) {
+            throw new ProcessEngineException(format("Couldn't enqueue the notification of invoice %s", invoiceNumber), e);
+        }
+    }
+
+    /**
+     * Locks up to {@code limit} due notifications for the owner, the oldest attempts first.
+     */
+    List<CreditorNotification> claim(String owner, int limit, long lockMillis) {
+        long now = System.currentTimeMillis();
+        String select = "select " + COLUMNS + " from " + TABLE
+                + " where NEXT_ATTEMPT_ <= ? and (LOCK_EXP_ is null or LOCK_EXP_ < ?) order by NEXT_ATTEMPT_";
+        String lock = "update " + TABLE + " set LOCK_OWNER_ = ?, LOCK_EXP_ = ? where ID_ = ? and (LOCK_EXP_ is null or LOCK_EXP_ < ?)";
+        try (Connection connection = dataSource().getConnection()) {
+            List<CreditorNotification> candidates = new ArrayList<>(limit);
+            try (PreparedStatement statement = connection.prepareStatement(select)) {
+                statement.setLong(1, now);
+                statement.setLong(2, now);
+                statement.setMaxRows(limit);
+                statement.setFetchSize(limit);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        candidates.add(notification(resultSet));
+                    }
+                }
+            }
+            if (candidates.isEmpty()) {
+                return candidates;
+            }
+
+            List<CreditorNotification> claimed = new ArrayList<>(candidates.size());
+            try (PreparedStatement statement = connection.prepareStatement(lock)) {
+                for (CreditorNotification candidate : candidates) {
+                    statement.setString(1, owner);
+                    statement.setLong(2, now + lockMillis);
+                    statement.setString(3, candidate.getId());
+                    statement.setLong(4, now);
+                    if (statement.executeUpdate() == 1) {
+                        claimed.add(candidate);
+                    }
+                }
+            }
+            return claimed;
+        } catch (SQLException e) {
+            throw new ProcessEngineException("Couldn't claim creditor notifications", e);
+        }
+    }
+
+    void delete(List<CreditorNotification> notifications) {
+        update("delete from " + TABLE + " where ID_ = ?", notifications, (statement, notification) -> statement.setString(1, notification.getId()));
+    }
+
+    /**
+     * Unlocks the notifications for another attempt at {@code nextAttempt}, or for good when it is
+     * {@code null}.
+     */
+    void reschedule(List<CreditorNotification> notifications, boolean countAttempt, Long nextAttempt, String error) {
+        String sql = "update " + TABLE + " set ATTEMPTS_ = ATTEMPTS_ + ?, NEXT_ATTEMPT_ = ?, LAST_ERROR_ = ?, LOCK_OWNER_ = null, LOCK_EXP_ = null where ID_ = ?";
+        String lastError = error == null || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+        update(sql, notifications, (statement, notification) -> {
+            statement.setInt(1, countAttempt ? 1 : 0);
+            if (nextAttempt == null) {
+                statement.setNull(2, Types.BIGINT);
+            } else {
+                statement.setLong(2, nextAttempt);
+            }
+            statement.setString(3, lastError);
+            statement.setString(4, notification.getId());
+        });
+    }
+
+    /**
+     * @return notifications waiting for delivery
+     */
+    long countPending() {
+        return count("NEXT_ATTEMPT_ is not null");
+    }
+
+    /**
+     * @return notifications which ran out of attempts
+     */
+    long countDead() {
+        return count("NEXT_ATTEMPT_ is null");
+    }
+
+    private long count(String condition) {
+        try (Connection connection = dataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement("select count(*) from " + TABLE + " where " + condition);
+             ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            throw new ProcessEngineException("Couldn't count creditor notifications", e);
+        }
+    }
+
+    private void update(String sql, List<CreditorNotification> notifications, Binder binder) {
+        try (Connection connection = dataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (CreditorNotification notification : notifications) {
+                binder.bind(statement, notification);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        } catch (SQLException e) {
+            throw new ProcessEngineException(format("Couldn't update %d creditor notifications", notifications.size()), e);
+        }
+    }
+
+    private static void insert(Connection connection, String sql, String processInstanceId, String invoiceNumber, String creditor, Double amount, long now) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, UUID.randomUUID().toString());
+            statement.setString(2, processInstanceId);
+            statement.setString(3, invoiceNumber);
+            statement.setString(4, creditor);
+            if (amount == null) {
+                statement.setNull(5, Types.DOUBLE);
+            } else {
+                statement.setDouble(5, amount);
+            }
+            statement.setLong(6, now);
+            statement.setLong(7, now);
+            statement.executeUpdate();
+        }
+    }
+
+    private static CreditorNotification notification(ResultSet resultSet) throws SQLException {
+        Double amount = resultSet.getDouble(5);
+        if (resultSet.wasNull()) {
+            amount = null;
+        }
+        return new CreditorNotification(
+                resultSet.getString(1),
+                resultSet.getString(2),
+                resultSet.getString(3),
+                resultSet.getString(4),
+                amount,
+                resultSet.getLong(6),
+                resultSet.getInt(7)
+        );
+    }
+
+    private DataSource dataSource() {
+        return ((ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration()).getDataSource();
+    }
+
+    private interface Binder {
+        void bind(PreparedStatement statement, CreditorNotification notification) throws SQLException;
+    }
+}
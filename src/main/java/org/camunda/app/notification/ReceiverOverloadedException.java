@@ -0,0 +1,21 @@
+package org.camunda.app.notification;
+
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * The receiver rejected a batch because it is overloaded, e.g. answered with 429 or 503.
+ */
+@Getter
+public class ReceiverOverloadedException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterMillis;
+
+    public ReceiverOverloadedException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+}
@@ -0,0 +1,74 @@
+package org.camunda.app.notification;
+
+import com.google.common.collect.ImmutableMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the creditor notification receiver, for development and load tests. It
+ * answers after a configurable latency, fails a share of the batches and answers 429 while more
+ * batches than its capacity are in progress.
+ */
+@RestController
+@RequestMapping("/api/notification-stub")
+@ConditionalOnProperty(name = "invoice.notifications.stub-receiver.enabled", havingValue = "true")
+public class StubCreditorReceiver {
+
+    private final AtomicInteger inProgress = new AtomicInteger();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Value("${invoice.notifications.stub-receiver.latency-millis:20}")
+    protected long latencyMillis;
+
+    @Value("${invoice.notifications.stub-receiver.failure-rate:0}")
+    protected double failureRate;
+
+    @Value("${invoice.notifications.stub-receiver.capacity:8}")
+    protected int capacity;
+
+    @PostMapping
+    public ResponseEntity<Void> receive(@RequestBody List<Map<String, Object>> notifications) throws InterruptedException {
+        try {
+            if (inProgress.incrementAndGet() > capacity) {
+                rejected.incrementAndGet();
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "1").build();
+            }
+            TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                rejected.incrementAndGet();
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+            received.addAndGet(notifications.size());
+            batches.incrementAndGet();
+            return ResponseEntity.noContent().build();
+        } finally {
+            inProgress.decrementAndGet();
+        }
+    }
+
+    @GetMapping
+    public Map<String, Object> status() {
+        return ImmutableMap.<String, Object>builder()
+                .put("received", received.get())
+                .put("batches", batches.get())
+                .put("rejected", rejected.get())
+                .put("inProgress", inProgress.get())
+                .build();
+    }
+}
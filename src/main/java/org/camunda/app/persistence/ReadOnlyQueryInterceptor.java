@@ -0,0 +1,40 @@
+package org.camunda.app.persistence;
+
+import org.camunda.bpm.engine.impl.AbstractQuery;
+import org.camunda.bpm.engine.impl.TaskQueryImpl;
+import org.camunda.bpm.engine.impl.cmd.AbstractExecuteFilterCmd;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandInterceptor;
+
+/**
+ * Runs history queries, task queries and filter executions, the queries behind the tasklist and
+ * cockpit history views, on the read-only datasource. Only outermost commands are routed, a query
+ * nested in another command uses the connection of its transaction. The interceptor has to run
+ * before the transaction interceptor, which takes the connection.
+ * <p>
+ * Task queries see the replica, so a task completed a moment ago may still be listed.
+ */
+public class ReadOnlyQueryInterceptor extends CommandInterceptor {
+
+    @Override
+    public <T> T execute(Command<T> command) {
+        if (Context.getCommandContext() != null || !isReadOnly(command)) {
+            return next.execute(command);
+        }
+        boolean previous = ReadOnlyRoutingDataSource.isReadOnly();
+        ReadOnlyRoutingDataSource.setReadOnly(true);
+        try {
+            return next.execute(command);
+        } finally {
+            ReadOnlyRoutingDataSource.setReadOnly(previous);
+        }
+    }
+
+    static boolean isReadOnly(Command<?> command) {
+        if (command instanceof TaskQueryImpl || command instanceof AbstractExecuteFilterCmd) {
+            return true;
+        }
+        return command instanceof AbstractQuery && command.getClass().getSimpleName().startsWith("Historic");
+    }
+}
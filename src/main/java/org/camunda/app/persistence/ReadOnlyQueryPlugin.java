@@ -0,0 +1,23 @@
+package org.camunda.app.persistence;
+
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.interceptor.CommandInterceptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registers the {@link ReadOnlyQueryInterceptor}. The engine's datasource and transaction manager
+ * have to use the {@link ReadOnlyRoutingDataSource}.
+ */
+public class ReadOnlyQueryPlugin extends AbstractProcessEnginePlugin {
+
+    @Override
+    public void preInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+        List<CommandInterceptor> interceptors = processEngineConfiguration.getCustomPreCommandInterceptorsTxRequired();
+        List<CommandInterceptor> result = interceptors == null ? new ArrayList<>() : interceptors;
+        result.add(0, new ReadOnlyQueryInterceptor());
+        processEngineConfiguration.setCustomPreCommandInterceptorsTxRequired(result);
+    }
+}
@@ -0,0 +1,38 @@
+package org.camunda.app.persistence;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out connections of the read-only datasource while the current thread runs a command
+ * marked by the {@link ReadOnlyQueryInterceptor}, and of the primary datasource otherwise.
+ */
+public class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<Boolean> READ_ONLY = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    public ReadOnlyRoutingDataSource(DataSource primary, DataSource readOnly) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Boolean.FALSE, primary);
+        targets.put(Boolean.TRUE, readOnly);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    static boolean isReadOnly() {
+        return READ_ONLY.get();
+    }
+
+    static void setReadOnly(boolean readOnly) {
+        READ_ONLY.set(readOnly);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return READ_ONLY.get();
+    }
+}
@@ -0,0 +1,108 @@
+package org.camunda.app.retry;
+
+/**
+ * Consecutive failure breaker of one target. {@code failureThreshold} failures in a row open it
+ * for the cooldown, which doubles with every failed probe up to {@code maxOpenMillis}. After the
+ * cooldown a single call is let through as probe: its success closes the breaker, its failure
+ * opens it again. A probe which doesn't report within the cooldown is given up and another one is
+ * let through.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final long maxOpenMillis;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private int trips;
+    private long openUntil;
+    private long probeStartedAt;
+
+    public CircuitBreaker(int failureThreshold, long openMillis, long maxOpenMillis) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+        this.maxOpenMillis = Math.max(openMillis, maxOpenMillis);
+    }
+
+    /**
+     * @return whether a call may go to the target now
+     */
+    public synchronized boolean allow(long now) {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now < openUntil) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeStartedAt = now;
+                return true;
+            default:
+                if (now - probeStartedAt < cooldown()) {
+                    return false;
+                }
+                probeStartedAt = now;
+                return true;
+        }
+    }
+
+    /**
+     * @return whether this success closed the breaker
+     */
+    public synchronized boolean onSuccess() {
+        boolean closed = state != State.CLOSED;
+        state = State.CLOSED;
+        failures = 0;
+        trips = 0;
+        return closed;
+    }
+
+    /**
+     * @return whether this failure opened the breaker
+     */
+    public synchronized boolean onFailure(long now) {
+        failures++;
+        if (state == State.HALF_OPEN) {
+            trips++;
+            open(now);
+            return false;
+        }
+        if (state == State.CLOSED && failures >= failureThreshold) {
+            open(now);
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void reset() {
+        onSuccess();
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return when calls are let through again, for an open breaker
+     */
+    public synchronized long getOpenUntil(long now) {
+        return state == State.CLOSED ? now : Math.max(now, state == State.OPEN ? openUntil : probeStartedAt + cooldown());
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        openUntil = now + cooldown();
+    }
+
+    private long cooldown() {
+        return Math.min(maxOpenMillis, openMillis << Math.min(trips, 20));
+    }
+}
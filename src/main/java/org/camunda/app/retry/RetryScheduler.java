@@ -0,0 +1,318 @@
+package org.camunda.app.retry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.bpm.engine.ManagementService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.cfg.TransactionContext;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
+import org.camunda.bpm.engine.runtime.Incident;
+import org.camunda.bpm.engine.runtime.Job;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+
+/**
+ * Retry policy of the jobs calling external targets, e.g. the invoice archive. Every target has a
+ * {@link CircuitBreaker} fed by the calls made through {@link #call}:
+ * <ul>
+ * <li>While it is closed, a failed job loses a retry and waits an exponential backoff with jitter,
+ * so jobs failing together don't come back together. A job out of retries gets its own incident
+ * as usual.</li>
+ * <li>While it is open, failed jobs are parked: they keep their retries and are due again after
+ * the cooldown, spread over {@code resumeSpreadMillis}. One {@value #OUTAGE_INCIDENT_TYPE}
+ * incident stands for the whole outage and is resolved when a probe succeeds.</li>
+ * </ul>
+ * {@link #retryAll} ends an outage by hand and reschedules every failed job of the target. Time is
+ * the engine clock, like the due dates.
+ * <p>
+ * Breakers and the outage incident state are kept per node: in a cluster every node opens its own
+ * breaker from the calls it makes and may open an outage incident of its own.
+ */
+@Slf4j
+public class RetryScheduler {
+
+    public static final String OUTAGE_INCIDENT_TYPE = "targetOutage";
+
+    private static final int PAGE_SIZE = 500;
+
+    private final MetricsRegistry metricsRegistry;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final long maxOpenMillis;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long resumeSpreadMillis;
+    private final Map<String, Target> targets = new ConcurrentHashMap<>();
+    private final Map<String, Target> targetsByActivity = new ConcurrentHashMap<>();
+
+    private volatile ProcessEngine processEngine;
+
+    public RetryScheduler(
+            MetricsRegistry metricsRegistry,
+            int failureThreshold,
+            long openMillis,
+            long maxOpenMillis,
+            long baseBackoffMillis,
+            long maxBackoffMillis,
+            long resumeSpreadMillis
+    ) {
+        this.metricsRegistry = metricsRegistry;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.maxOpenMillis = maxOpenMillis;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.resumeSpreadMillis = resumeSpreadMillis;
+    }
+
+    /**
+     * @param activityIds activities whose jobs call the target
+     */
+    public void register(String name, Collection<String> activityIds) {
+        Target target = new Target(name, new CircuitBreaker(failureThreshold, openMillis, maxOpenMillis), activityIds);
+        targets.put(name, target);
+        activityIds.forEach(activityId -> targetsByActivity.put(activityId, target));
+        metricsRegistry.gauge("invoice_retry_circuit_open", "1 while the breaker of a target is open or probing", () -> target.breaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1, "target", name);
+    }
+
+    void start(ProcessEngine processEngine) {
+        this.processEngine = processEngine;
+    }
+
+    /**
+     * Calls the target unless its breaker is open.
+     *
+     * @throws TargetUnavailableException without calling the target while its breaker is open
+     */
+    public <T> T call(String name, Supplier<T> call) {
+        Target target = target(name);
+        long now = now();
+        if (!target.breaker.allow(now)) {
+            metricsRegistry.increment("invoice_retry_calls_total", "Calls of retried targets by outcome", 1, "target", name, "outcome", "rejected");
+            throw new TargetUnavailableException(name, target.breaker.getOpenUntil(now) - now);
+        }
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            metricsRegistry.increment("invoice_retry_calls_total", "Calls of retried targets by outcome", 1, "target", name, "outcome", "failed");
+            if (target.breaker.onFailure(now())) {
+                target.incidentPending.set(true);
+                log.warn(format("%s failed %d times in a row, calls paused: %s", name, failureThreshold, e.getMessage()));
+            }
+            throw e;
+        }
+        metricsRegistry.increment("invoice_retry_calls_total", "Calls of retried targets by outcome", 1, "target", name, "outcome", "succeeded");
+        if (target.breaker.onSuccess()) {
+            log.info(format("%s is available again", name));
+            resolveOutage(target);
+        }
+        return result;
+    }
+
+    public void run(String name, Runnable call) {
+        call(name, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return the target the jobs of the activity call, {@code null} if none
+     */
+    String targetOf(String activityId) {
+        Target target = activityId == null ? null : targetsByActivity.get(activityId);
+        return target == null ? null : target.name;
+    }
+
+    /**
+     * @return when the failed job is due again if it is parked, {@code null} if it is retried normally
+     */
+    Date parkedUntil(String name, Throwable exception) {
+        Target target = target(name);
+        long now = now();
+        if (!isUnavailable(exception) && target.breaker.getState() == CircuitBreaker.State.CLOSED) {
+            return null;
+        }
+        metricsRegistry.increment("invoice_retry_jobs_total", "Failed jobs of retried targets by how they are retried", 1, "target", name, "retry", "parked");
+        return new Date(target.breaker.getOpenUntil(now) + jitter(resumeSpreadMillis));
+    }
+
+    /**
+     * @param attempt failed attempts so far, from 1
+     */
+    Date backoffUntil(String name, int attempt) {
+        metricsRegistry.increment("invoice_retry_jobs_total", "Failed jobs of retried targets by how they are retried", 1, "target", name, "retry", "backoff");
+        long backoff = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(Math.max(attempt - 1, 0), 20));
+        // equal jitter: at least half of the backoff, so retries don't come right back
+        return new Date(now() + backoff / 2 + jitter(backoff / 2));
+    }
+
+    void exhausted(String name) {
+        metricsRegistry.increment("invoice_retry_jobs_total", "Failed jobs of retried targets by how they are retried", 1, "target", name, "retry", "exhausted");
+    }
+
+    /**
+     * Opens the incident of the outage on the execution of a parked job, once per outage. The
+     * incident only counts as opened once the transaction committed, after a rollback the next
+     * parked job opens it.
+     */
+    void reportOutage(String name, String executionId, CommandContext commandContext) {
+        Target target = target(name);
+        if (executionId == null || !target.incidentPending.compareAndSet(true, false)) {
+            return;
+        }
+        long outage = target.outages.get();
+        TransactionContext transactionContext = commandContext.getTransactionContext();
+        transactionContext.addTransactionListener(TransactionState.ROLLED_BACK, context -> {
+            if (target.outages.get() == outage) {
+                target.incidentPending.set(true);
+            }
+        });
+        Incident incident = commandContext.getProcessEngineConfiguration().getRuntimeService().createIncident(
+                OUTAGE_INCIDENT_TYPE, executionId, name,
+                format("%s is unavailable, its jobs are parked until it responds again or are resumed by retry all", name)
+        );
+        String incidentId = incident.getId();
+        transactionContext.addTransactionListener(TransactionState.COMMITTED, context -> {
+            if (target.outages.get() == outage) {
+                target.incidentId = incidentId;
+            } else {
+                log.warn(format("Outage incident %s of %s was opened after the outage ended, resolve it by hand", incidentId, name));
+            }
+        });
+    }
+
+    /**
+     * Closes the breaker of the target, resolves its outage incident and makes all failed jobs of
+     * the target due within {@code resumeSpreadMillis}, giving jobs out of retries their retries back.
+     *
+     * @return the number of jobs rescheduled
+     */
+    public int retryAll(String name) {
+        Target target = target(name);
+        target.breaker.reset();
+        resolveOutage(target);
+
+        ProcessEngineConfigurationImpl configuration = (ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration();
+        ManagementService managementService = processEngine.getManagementService();
+        List<String> jobIds = new ArrayList<>();
+        for (String activityId : target.activityIds) {
+            for (Job job : managementService.createJobQuery().activityId(activityId).withException().list()) {
+                jobIds.add(job.getId());
+            }
+        }
+        long now = now();
+        int retries = configuration.getDefaultNumberOfRetries();
+        for (int from = 0; from < jobIds.size(); from += PAGE_SIZE) {
+            List<String> page = jobIds.subList(from, Math.min(jobIds.size(), from + PAGE_SIZE));
+            configuration.getCommandExecutorTxRequired().execute(commandContext -> {
+                for (String jobId : page) {
+                    Job job = managementService.createJobQuery().jobId(jobId).singleResult();
+                    if (job == null) {
+                        continue;
+                    }
+                    if (job.getRetries() == 0) {
+                        managementService.setJobRetries(jobId, retries);
+                    }
+                    managementService.setJobDuedate(jobId, new Date(now + jitter(resumeSpreadMillis)));
+                }
+                return null;
+            });
+        }
+        log.info(format("Retrying %d jobs of %s within %d ms", jobIds.size(), name, resumeSpreadMillis));
+        return jobIds.size();
+    }
+
+    public Map<String, Object> getStatus(String name) {
+        Target target = target(name);
+        long now = now();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", target.breaker.getState().name());
+        status.put("resumesInMillis", target.breaker.getOpenUntil(now) - now);
+        status.put("incidentId", target.incidentId);
+        status.put("activityIds", target.activityIds);
+        return status;
+    }
+
+    public Set<String> getTargets() {
+        return Collections.unmodifiableSet(targets.keySet());
+    }
+
+    private void resolveOutage(Target target) {
+        target.outages.incrementAndGet();
+        target.incidentPending.set(false);
+        String incidentId = target.incidentId;
+        target.incidentId = null;
+        if (incidentId == null || processEngine == null) {
+            return;
+        }
+        try {
+            processEngine.getRuntimeService().resolveIncident(incidentId);
+        } catch (ProcessEngineException e) {
+            // resolved by hand or its instance is gone
+            log.debug(format("Couldn't resolve outage incident %s of %s: %s", incidentId, target.name, e.getMessage()));
+        }
+    }
+
+    private Target target(String name) {
+        Target target = targets.get(name);
+        if (target == null) {
+            throw new IllegalArgumentException(format("Unknown retry target %s", name));
+        }
+        return target;
+    }
+
+    private static boolean isUnavailable(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TargetUnavailableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long jitter(long bound) {
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound);
+    }
+
+    private static long now() {
+        return ClockUtil.getCurrentTime().getTime();
+    }
+
+    private static class Target {
+        private final String name;
+        private final CircuitBreaker breaker;
+        private final Collection<String> activityIds;
+        private final AtomicBoolean incidentPending = new AtomicBoolean();
+        /**
+         * Ended outages, tells whether a transaction still reports the current one
+         */
+        private final AtomicLong outages = new AtomicLong();
+        private volatile String incidentId;
+
+        private Target(String name, CircuitBreaker breaker, Collection<String> activityIds) {
+            this.name = name;
+            this.breaker = breaker;
+            this.activityIds = activityIds;
+        }
+    }
+}
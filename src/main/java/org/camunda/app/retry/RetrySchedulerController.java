@@ -0,0 +1,38 @@
+package org.camunda.app.retry;
+
+import com.google.common.collect.ImmutableMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Breaker state per target and "retry all" once a target is back.
+ */
+@RestController
+@RequestMapping("/api/retry-scheduler")
+@ConditionalOnProperty(name = "invoice.retry-scheduler.enabled", havingValue = "true")
+public class RetrySchedulerController {
+
+    @Autowired
+    protected RetryScheduler scheduler;
+
+    @GetMapping
+    public Map<String, Object> status() {
+        ImmutableMap.Builder<String, Object> targets = ImmutableMap.builder();
+        for (String target : scheduler.getTargets()) {
+            targets.put(target, scheduler.getStatus(target));
+        }
+        return targets.build();
+    }
+
+    @PostMapping("/{target}/retry-all")
+    public Map<String, Object> retryAll(@PathVariable String target) {
+        return ImmutableMap.of("rescheduledJobs", scheduler.retryAll(target));
+    }
+}
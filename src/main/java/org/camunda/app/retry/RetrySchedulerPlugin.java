@@ -0,0 +1,29 @@
+package org.camunda.app.retry;
+
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+
+/**
+ * Lets the {@link RetryScheduler} handle the failed jobs of its targets. The factory is wrapped
+ * after init, when the engine has set up its default one.
+ */
+public class RetrySchedulerPlugin extends AbstractProcessEnginePlugin {
+
+    private final RetryScheduler scheduler;
+
+    public RetrySchedulerPlugin(RetryScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void postInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+        processEngineConfiguration.setFailedJobCommandFactory(
+                new RetryingFailedJobCommandFactory(scheduler, processEngineConfiguration.getFailedJobCommandFactory()));
+    }
+
+    @Override
+    public void postProcessEngineBuild(ProcessEngine processEngine) {
+        scheduler.start(processEngine);
+    }
+}
@@ -0,0 +1,20 @@
+package org.camunda.app.retry;
+
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.jobexecutor.FailedJobCommandFactory;
+
+public class RetryingFailedJobCommandFactory implements FailedJobCommandFactory {
+
+    private final RetryScheduler scheduler;
+    private final FailedJobCommandFactory fallback;
+
+    public RetryingFailedJobCommandFactory(RetryScheduler scheduler, FailedJobCommandFactory fallback) {
+        this.scheduler = scheduler;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Command<Object> getCommand(String jobId, Throwable exception) {
+        return new ScheduledJobRetryCmd(jobId, exception, scheduler, fallback);
+    }
+}
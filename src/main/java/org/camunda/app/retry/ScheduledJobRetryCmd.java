@@ -0,0 +1,53 @@
+package org.camunda.app.retry;
+
+import org.camunda.bpm.engine.impl.cmd.JobRetryCmd;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.jobexecutor.FailedJobCommandFactory;
+import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
+
+import java.util.Date;
+
+/**
+ * Failed job handling of the jobs of a {@link RetryScheduler} target, other jobs are handled by
+ * the command of the factory configured before.
+ */
+public class ScheduledJobRetryCmd extends JobRetryCmd {
+
+    private final RetryScheduler scheduler;
+    private final FailedJobCommandFactory fallback;
+
+    public ScheduledJobRetryCmd(String jobId, Throwable exception, RetryScheduler scheduler, FailedJobCommandFactory fallback) {
+        super(jobId, exception);
+        this.scheduler = scheduler;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Object execute(CommandContext commandContext) {
+        JobEntity job = getJob();
+        String target = job == null ? null : scheduler.targetOf(job.getActivityId());
+        if (target == null) {
+            return fallback.getCommand(jobId, exception).execute(commandContext);
+        }
+
+        unlockJob(job);
+        logException(job);
+
+        Date parkedUntil = scheduler.parkedUntil(target, exception);
+        if (parkedUntil != null) {
+            job.setDuedate(parkedUntil);
+            scheduler.reportOutage(target, job.getExecutionId(), commandContext);
+        } else {
+            decrementRetries(job);
+            if (job.getRetries() > 0) {
+                int attempt = commandContext.getProcessEngineConfiguration().getDefaultNumberOfRetries() - job.getRetries();
+                job.setDuedate(scheduler.backoffUntil(target, attempt));
+            } else {
+                scheduler.exhausted(target);
+            }
+        }
+
+        notifyAcquisition(commandContext);
+        return null;
+    }
+}
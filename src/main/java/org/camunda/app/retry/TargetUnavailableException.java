@@ -0,0 +1,21 @@
+package org.camunda.app.retry;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+
+/**
+ * Thrown instead of calling a target whose breaker is open. The call never reached the target,
+ * so the job is parked until the target is probed again rather than losing a retry.
+ */
+public class TargetUnavailableException extends ProcessEngineException {
+
+    private final String target;
+
+    public TargetUnavailableException(String target, long openMillis) {
+        super(String.format("%s is unavailable, calls resume in %d ms", target, openMillis));
+        this.target = target;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+}
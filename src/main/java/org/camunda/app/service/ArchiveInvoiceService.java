@@ -1,28 +1,102 @@
 package org.camunda.app.service;
 
+import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.camunda.app.archive.ArchiveEntry;
+import org.camunda.app.archive.InvoiceArchive;
+import org.camunda.app.external.ExternalTaskHandler;
+import org.camunda.app.retry.RetryScheduler;
+import org.camunda.app.variables.PrefetchVariables;
+import org.camunda.app.variables.PrefetchedVariables;
+import org.camunda.app.variables.VariablePrefetcher;
 import org.camunda.bpm.engine.ProcessEngineException;
 import org.camunda.bpm.engine.delegate.DelegateExecution;
 import org.camunda.bpm.engine.delegate.JavaDelegate;
+import org.camunda.bpm.engine.externaltask.LockedExternalTask;
+import org.camunda.bpm.engine.variable.VariableMap;
 import org.camunda.bpm.engine.variable.value.FileValue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
 
 import static java.lang.String.format;
 
 @Slf4j
 @NoArgsConstructor
-public class ArchiveInvoiceService implements JavaDelegate {
+@AllArgsConstructor
+@Component("archiveInvoiceService")
+@PrefetchVariables({ArchiveInvoiceService.SHOULD_FAIL, ArchiveInvoiceService.INVOICE_NUMBER, ArchiveInvoiceService.INVOICE_DOCUMENT})
+public class ArchiveInvoiceService implements JavaDelegate, ExternalTaskHandler {
+
+    public static final String TOPIC = "archive-invoice";
+    /**
+     * Name of the archive in the {@link RetryScheduler}
+     */
+    public static final String TARGET = "archive";
+
+    static final String SHOULD_FAIL = "shouldFail";
+    static final String INVOICE_NUMBER = "invoiceNumber";
+    static final String INVOICE_DOCUMENT = "invoiceDocument";
+
+    @Autowired
+    protected InvoiceArchive invoiceArchive;
+
+    @Autowired
+    protected VariablePrefetcher variablePrefetcher;
+
+    @Autowired(required = false)
+    protected RetryScheduler retryScheduler;
 
     @Override
     public void execute(DelegateExecution execution) {
-        Boolean shouldFail = (Boolean) execution.getVariable("shouldFail");
-        FileValue invoiceDocument = execution.getVariableTyped("invoiceDocument");
+        try (PrefetchedVariables variables = variablePrefetcher.fetch(execution, getClass())) {
+            archive(
+                    (Boolean) variables.get(SHOULD_FAIL),
+                    (String) variables.get(INVOICE_NUMBER),
+                    variables::getTyped
+            );
+        }
+    }
+
+    @Override
+    public String getTopic() {
+        return TOPIC;
+    }
+
+    @Override
+    public List<String> getVariableNames() {
+        return VariablePrefetcher.variableNames(getClass());
+    }
+
+    @Override
+    public VariableMap handle(LockedExternalTask task) {
+        VariableMap variables = task.getVariables();
+        archive(
+                (Boolean) variables.get(SHOULD_FAIL),
+                (String) variables.get(INVOICE_NUMBER),
+                variables::getValueTyped
+        );
+        return null;
+    }
+
+    private void archive(Boolean shouldFail, String invoiceNumber, DocumentLookup documentLookup) {
         if (shouldFail != null && shouldFail) {
             throw new ProcessEngineException("Could not archive invoice...");
-        } else {
-            Object invoiceNumber = execution.getVariable("invoiceNumber");
-            String filename = invoiceDocument.getFilename();
-            log.info(format("\n\n  ... Now archiving invoice %s, filename: %s \n\n", invoiceNumber, filename));
         }
+
+        FileValue invoiceDocument = documentLookup.get(INVOICE_DOCUMENT);
+        ArchiveEntry entry = retryScheduler == null
+                ? invoiceArchive.archive(invoiceNumber, invoiceDocument)
+                : retryScheduler.call(TARGET, () -> invoiceArchive.archive(invoiceNumber, invoiceDocument));
+        log.info(format(
+                "\n\n  ... Now archiving invoice %s, filename: %s, segment: %d, offset: %d, size: %d \n\n",
+                invoiceNumber, invoiceDocument == null ? null : invoiceDocument.getFilename(), entry.getSegment(), entry.getOffset(), entry.getLength()
+        ));
+    }
+
+    private interface DocumentLookup {
+        FileValue get(String name);
     }
 }
@@ -1,18 +1,79 @@
 package org.camunda.app.service;
 
+import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.camunda.app.external.ExternalTaskHandler;
+import org.camunda.app.notification.NotificationOutbox;
+import org.camunda.app.variables.PrefetchVariables;
+import org.camunda.app.variables.PrefetchedVariables;
+import org.camunda.app.variables.VariablePrefetcher;
 import org.camunda.bpm.engine.delegate.DelegateExecution;
 import org.camunda.bpm.engine.delegate.JavaDelegate;
+import org.camunda.bpm.engine.externaltask.LockedExternalTask;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
 
 import static java.lang.String.format;
 
 @Slf4j
 @NoArgsConstructor
-public class NotifyCreditorService implements JavaDelegate {
+@AllArgsConstructor
+@Component("notifyCreditorService")
+@PrefetchVariables({NotifyCreditorService.CREDITOR, NotifyCreditorService.INVOICE_NUMBER, NotifyCreditorService.AMOUNT})
+public class NotifyCreditorService implements JavaDelegate, ExternalTaskHandler {
+
+    public static final String TOPIC = "notify-creditor";
+
+    static final String CREDITOR = "creditor";
+    static final String INVOICE_NUMBER = "invoiceNumber";
+    static final String AMOUNT = "amount";
+
+    @Autowired
+    protected VariablePrefetcher variablePrefetcher;
+
+    /**
+     * Set when notifications are enabled, otherwise the creditor is only logged
+     */
+    @Autowired(required = false)
+    protected NotificationOutbox notificationOutbox;
 
     @Override
     public void execute(DelegateExecution execution) {
-        log.info(format("\n\n  ... Now notifying creditor %s\n\n", execution.getVariable("creditor")));
+        try (PrefetchedVariables variables = variablePrefetcher.fetch(execution, getClass())) {
+            notifyCreditor(execution.getProcessInstanceId(), variables.get(CREDITOR), variables.get(INVOICE_NUMBER), variables.get(AMOUNT));
+        }
+    }
+
+    @Override
+    public String getTopic() {
+        return TOPIC;
+    }
+
+    @Override
+    public List<String> getVariableNames() {
+        return VariablePrefetcher.variableNames(getClass());
+    }
+
+    @Override
+    public VariableMap handle(LockedExternalTask task) {
+        VariableMap variables = task.getVariables();
+        notifyCreditor(task.getProcessInstanceId(), variables.get(CREDITOR), variables.get(INVOICE_NUMBER), variables.get(AMOUNT));
+        return null;
+    }
+
+    private void notifyCreditor(String processInstanceId, Object creditor, Object invoiceNumber, Object amount) {
+        if (notificationOutbox != null) {
+            notificationOutbox.enqueue(
+                    processInstanceId,
+                    invoiceNumber == null ? null : invoiceNumber.toString(),
+                    creditor == null ? null : creditor.toString(),
+                    amount instanceof Number ? ((Number) amount).doubleValue() : null
+            );
+        }
+        log.info(format("\n\n  ... Now notifying creditor %s\n\n", creditor));
     }
 }
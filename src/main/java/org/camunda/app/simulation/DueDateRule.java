@@ -0,0 +1,88 @@
+package org.camunda.app.simulation;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Due date of a user task relative to its creation, read from a {@code camunda:dueDate} expression
+ * like {@code ${dateTime().plusWeeks(1).toDate()}}. The expression is not evaluated, so the due date
+ * follows the simulated clock instead of the engine's; only chains of {@code plusX(n)} calls on
+ * {@code dateTime()} are understood.
+ */
+class DueDateRule {
+
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{\\s*dateTime\\(\\)((?:\\.plus\\w+\\(\\s*\\d+\\s*\\))*)\\.toDate\\(\\)\\s*}");
+    private static final Pattern PLUS = Pattern.compile("\\.plus(\\w+)\\(\\s*(\\d+)\\s*\\)");
+
+    private final int years;
+    private final int months;
+    private final int weeks;
+    private final int days;
+    private final int hours;
+    private final int minutes;
+
+    private DueDateRule(int years, int months, int weeks, int days, int hours, int minutes) {
+        this.years = years;
+        this.months = months;
+        this.weeks = weeks;
+        this.days = days;
+        this.hours = hours;
+        this.minutes = minutes;
+    }
+
+    /**
+     * @return the rule or {@code null} if the expression is empty or not understood
+     */
+    static DueDateRule parse(String expression) {
+        if (expression == null) {
+            return null;
+        }
+        Matcher matcher = EXPRESSION.matcher(expression.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        int[] amounts = new int[6];
+        Matcher plus = PLUS.matcher(matcher.group(1));
+        while (plus.find()) {
+            int amount = Integer.parseInt(plus.group(2));
+            switch (plus.group(1)) {
+                case "Years":
+                    amounts[0] += amount;
+                    break;
+                case "Months":
+                    amounts[1] += amount;
+                    break;
+                case "Weeks":
+                    amounts[2] += amount;
+                    break;
+                case "Days":
+                    amounts[3] += amount;
+                    break;
+                case "Hours":
+                    amounts[4] += amount;
+                    break;
+                case "Minutes":
+                    amounts[5] += amount;
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return new DueDateRule(amounts[0], amounts[1], amounts[2], amounts[3], amounts[4], amounts[5]);
+    }
+
+    long dueAt(long created) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochMilli(created), ZoneOffset.UTC)
+                .plusYears(years)
+                .plusMonths(months)
+                .plusWeeks(weeks)
+                .plusDays(days)
+                .plusHours(hours)
+                .plusMinutes(minutes)
+                .toInstant()
+                .toEpochMilli();
+    }
+}
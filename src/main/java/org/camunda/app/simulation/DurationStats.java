@@ -0,0 +1,61 @@
+package org.camunda.app.simulation;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distribution of simulated durations in exponentially growing buckets from one minute on, 5%
+ * apart, so percentiles of millions of durations are exact to 5% in constant memory. Not thread
+ * safe, a run is simulated on one thread.
+ */
+class DurationStats {
+
+    private static final double FACTOR = 1.05;
+    private static final double LOG_FACTOR = Math.log(FACTOR);
+    private static final int SIZE = 320;
+    private static final double MILLIS_PER_HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private final long[] counts = new long[SIZE + 1];
+    private long count;
+    private double sumMillis;
+    private long maxMillis;
+
+    void record(long millis) {
+        double minutes = millis / 60_000D;
+        int bucket = minutes <= 1 ? 0 : Math.min(SIZE, 1 + (int) (Math.log(minutes) / LOG_FACTOR));
+        counts[bucket]++;
+        count++;
+        sumMillis += millis;
+        maxMillis = Math.max(maxMillis, millis);
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    double meanHours() {
+        return count == 0 ? 0 : sumMillis / count / MILLIS_PER_HOUR;
+    }
+
+    double maxHours() {
+        return maxMillis / MILLIS_PER_HOUR;
+    }
+
+    /**
+     * @return the upper bound of the bucket holding the percentile, at most the maximum
+     */
+    double percentileHours(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * count);
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                double upperMinutes = Math.pow(FACTOR, bucket);
+                return Math.min(upperMinutes * 60_000D, maxMillis) / MILLIS_PER_HOUR;
+            }
+        }
+        return maxHours();
+    }
+}
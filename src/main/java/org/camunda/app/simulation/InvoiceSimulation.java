@@ -0,0 +1,114 @@
+package org.camunda.app.simulation;
+
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResultEntries;
+import org.camunda.bpm.dmn.engine.DmnEngine;
+import org.camunda.bpm.dmn.engine.DmnEngineConfiguration;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.RepositoryService;
+import org.camunda.bpm.engine.repository.DecisionDefinition;
+import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.bpm.model.bpmn.instance.UserTask;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.String.format;
+
+/**
+ * Capacity tests of invoice traffic in simulated time. The user tasks, their due dates, candidate
+ * groups and assignees are read from the deployed invoice and review definitions and approver
+ * groups are assigned by the deployed decision, then a {@link SimulationRun} plays the traffic of
+ * the {@link SimulationProfile} against the configured staff on a clock of its own.
+ * <p>
+ * Nothing runs in the engine: no instances are started and the engine clock is left alone, so a
+ * simulation can run next to production work and several can run at once.
+ */
+@Slf4j
+@Service
+@NoArgsConstructor
+@AllArgsConstructor
+@ConditionalOnProperty(name = "invoice.simulation.enabled", havingValue = "true")
+public class InvoiceSimulation {
+
+    private static final String INVOICE_PROCESS_KEY = "invoice";
+    private static final String REVIEW_PROCESS_KEY = "ReviewInvoice";
+    private static final String ASSIGN_APPROVER_DECISION_KEY = "invoice-assign-approver";
+
+    @Autowired
+    protected ProcessEngine processEngine;
+
+    public SimulationReport simulate(SimulationProfile profile) {
+        Map<String, SimulatedTask> tasks = new HashMap<>();
+        readUserTasks(INVOICE_PROCESS_KEY, tasks);
+        readUserTasks(REVIEW_PROCESS_KEY, tasks);
+
+        // a standalone DMN engine: the engine's own one writes history and metrics
+        DmnEngine dmnEngine = DmnEngineConfiguration.createDefaultDmnEngineConfiguration().buildEngine();
+        DmnDecision assignApprover = readDecision(dmnEngine);
+
+        log.info(format("Simulating %d invoices at %.0f per day", profile.getInstances(), profile.getArrivalsPerDay()));
+        SimulationReport report = new SimulationRun(profile, tasks, (amount, category) -> {
+            List<String> groups = new ArrayList<>();
+            for (DmnDecisionResultEntries entries : dmnEngine.evaluateDecision(assignApprover, Variables.createVariables()
+                    .putValue("amount", amount)
+                    .putValue("invoiceCategory", category))) {
+                groups.add(String.valueOf((Object) entries.getSingleEntry()));
+            }
+            return groups;
+        }).execute();
+        log.info(format(
+                "Simulated %d invoices over %.1f days in %d ms (%.0f events/s), cycle time p95 %.1f h",
+                report.getInstancesStarted(), report.getSimulatedDays(), report.getElapsedMillis(),
+                report.getEventsPerSecond(), report.getCycleTimeP95Hours()
+        ));
+        return report;
+    }
+
+    private void readUserTasks(String processDefinitionKey, Map<String, SimulatedTask> tasks) {
+        RepositoryService repositoryService = processEngine.getRepositoryService();
+        ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery()
+                .processDefinitionKey(processDefinitionKey)
+                .latestVersion()
+                .singleResult();
+        if (processDefinition == null) {
+            throw new IllegalStateException(format("No process definition with key %s deployed", processDefinitionKey));
+        }
+        BpmnModelInstance model = repositoryService.getBpmnModelInstance(processDefinition.getId());
+        for (UserTask userTask : model.getModelElementsByType(UserTask.class)) {
+            DueDateRule dueDate = DueDateRule.parse(userTask.getCamundaDueDate());
+            if (dueDate == null && userTask.getCamundaDueDate() != null) {
+                log.warn(format("Due date %s of task %s is not simulated", userTask.getCamundaDueDate(), userTask.getId()));
+            }
+            tasks.put(userTask.getId(), new SimulatedTask(userTask.getId(), dueDate, userTask.getCamundaCandidateGroups(), userTask.getCamundaAssignee()));
+        }
+    }
+
+    private DmnDecision readDecision(DmnEngine dmnEngine) {
+        RepositoryService repositoryService = processEngine.getRepositoryService();
+        DecisionDefinition decisionDefinition = repositoryService.createDecisionDefinitionQuery()
+                .decisionDefinitionKey(ASSIGN_APPROVER_DECISION_KEY)
+                .latestVersion()
+                .singleResult();
+        if (decisionDefinition == null) {
+            throw new IllegalStateException(format("No decision definition with key %s deployed", ASSIGN_APPROVER_DECISION_KEY));
+        }
+        try (InputStream model = repositoryService.getDecisionModel(decisionDefinition.getId())) {
+            return dmnEngine.parseDecision(ASSIGN_APPROVER_DECISION_KEY, model);
+        } catch (IOException e) {
+            throw new IllegalStateException(format("Couldn't read decision %s", ASSIGN_APPROVER_DECISION_KEY), e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.camunda.app.simulation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * What the simulation needs of a deployed user task.
+ */
+@Getter
+@AllArgsConstructor
+class SimulatedTask {
+
+    private final String key;
+    /**
+     * {@code null} if the task has no due date the simulation understands
+     */
+    private final DueDateRule dueDate;
+    private final String candidateGroups;
+    private final String assignee;
+}
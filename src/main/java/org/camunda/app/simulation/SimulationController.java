@@ -0,0 +1,22 @@
+package org.camunda.app.simulation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/simulation")
+@ConditionalOnProperty(name = "invoice.simulation.enabled", havingValue = "true")
+public class SimulationController {
+
+    @Autowired
+    protected InvoiceSimulation simulation;
+
+    @PostMapping
+    public SimulationReport simulate(@RequestBody(required = false) SimulationProfile profile) {
+        return simulation.simulate(profile == null ? new SimulationProfile() : profile);
+    }
+}
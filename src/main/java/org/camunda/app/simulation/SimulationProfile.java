@@ -0,0 +1,72 @@
+package org.camunda.app.simulation;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings of an {@link InvoiceSimulation} run. Path weights are relative to each other, all times
+ * are simulated time.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class SimulationProfile {
+
+    private int instances = 1_000_000;
+    /**
+     * Mean number of invoices arriving per day, around the clock
+     */
+    private double arrivalsPerDay = 5000;
+    /**
+     * Day the simulated time starts on, in UTC
+     */
+    private String startDate = "2024-01-01";
+    /**
+     * Stop after this many simulated days even if invoices are still open, 0 to run until all are done
+     */
+    private int horizonDays;
+    private int workdayStartHour = 8;
+    private int workdayHours = 8;
+    private boolean weekends;
+    /**
+     * Workers per candidate group or assignee
+     */
+    private Map<String, Integer> staff = defaultStaff();
+    private int defaultStaff = 2;
+    /**
+     * Mean work time per task definition key, work times are exponentially distributed
+     */
+    private Map<String, Double> workMinutes = defaultWorkMinutes();
+    private double defaultWorkMinutes = 10;
+    /**
+     * Value of {@code ${reviewer}}, set by the Assign Reviewer task
+     */
+    private String reviewer = "demo";
+    private int approvedWeight = 70;
+    private int rejectedWeight = 10;
+    private int clarifiedWeight = 10;
+    private int failingWeight = 10;
+    private long seed = 42;
+
+    private static Map<String, Integer> defaultStaff() {
+        Map<String, Integer> staff = new HashMap<>();
+        staff.put("accounting", 20);
+        staff.put("sales", 10);
+        staff.put("management", 5);
+        staff.put("demo", 4);
+        return staff;
+    }
+
+    private static Map<String, Double> defaultWorkMinutes() {
+        Map<String, Double> workMinutes = new HashMap<>();
+        workMinutes.put("approveInvoice", 5D);
+        workMinutes.put("prepareBankTransfer", 8D);
+        workMinutes.put("assignReviewer", 2D);
+        workMinutes.put("reviewInvoice", 20D);
+        return workMinutes;
+    }
+}
@@ -0,0 +1,112 @@
+package org.camunda.app.simulation;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SLA and throughput figures of an {@link InvoiceSimulation} run. Durations are simulated hours,
+ * percentiles are exact to 5%.
+ */
+@Getter
+public class SimulationReport {
+
+    private long instancesStarted;
+    private long instancesCompleted;
+    /**
+     * Instances of the failing path, which end in an incident of Archive Invoice
+     */
+    private long incidents;
+    private long instancesOpen;
+    private long maxOpenInstances;
+    private double simulatedDays;
+    private double completedPerDay;
+    private long peakCompletedPerDay;
+    private double cycleTimeMeanHours;
+    private double cycleTimeP50Hours;
+    private double cycleTimeP95Hours;
+    private double cycleTimeP99Hours;
+    private final List<TaskReport> tasks = new ArrayList<>();
+    private final List<PoolReport> pools = new ArrayList<>();
+    private long events;
+    private long elapsedMillis;
+    private double eventsPerSecond;
+
+    void setInstances(long started, long completed, long incidents, long open, long maxOpen) {
+        this.instancesStarted = started;
+        this.instancesCompleted = completed;
+        this.incidents = incidents;
+        this.instancesOpen = open;
+        this.maxOpenInstances = maxOpen;
+    }
+
+    void setThroughput(double simulatedDays, long peakCompletedPerDay) {
+        this.simulatedDays = simulatedDays;
+        this.completedPerDay = simulatedDays == 0 ? 0 : instancesCompleted / simulatedDays;
+        this.peakCompletedPerDay = peakCompletedPerDay;
+    }
+
+    void setCycleTime(DurationStats cycleTime) {
+        this.cycleTimeMeanHours = cycleTime.meanHours();
+        this.cycleTimeP50Hours = cycleTime.percentileHours(0.5);
+        this.cycleTimeP95Hours = cycleTime.percentileHours(0.95);
+        this.cycleTimeP99Hours = cycleTime.percentileHours(0.99);
+    }
+
+    void setRun(long events, long elapsedMillis) {
+        this.events = events;
+        this.elapsedMillis = elapsedMillis;
+        this.eventsPerSecond = elapsedMillis == 0 ? events : events * 1000D / elapsedMillis;
+    }
+
+    /**
+     * Due date compliance and waiting times of a user task, from creation to completion.
+     */
+    @Getter
+    public static class TaskReport {
+        private final String taskDefinitionKey;
+        private final long completed;
+        private final long breached;
+        private final double breachRatio;
+        private final double meanHours;
+        private final double p50Hours;
+        private final double p95Hours;
+        private final double p99Hours;
+        private final double maxHours;
+
+        TaskReport(String taskDefinitionKey, long breached, DurationStats durations) {
+            this.taskDefinitionKey = taskDefinitionKey;
+            this.completed = durations.getCount();
+            this.breached = breached;
+            this.breachRatio = completed == 0 ? 0 : (double) breached / completed;
+            this.meanHours = durations.meanHours();
+            this.p50Hours = durations.percentileHours(0.5);
+            this.p95Hours = durations.percentileHours(0.95);
+            this.p99Hours = durations.percentileHours(0.99);
+            this.maxHours = durations.maxHours();
+        }
+    }
+
+    /**
+     * Load of the workers of a candidate group or assignee.
+     */
+    @Getter
+    public static class PoolReport {
+        private final String name;
+        private final int workers;
+        private final long tasksWorked;
+        private final double utilization;
+        private final int maxQueue;
+        private final int openTasks;
+
+        PoolReport(String name, int workers, long tasksWorked, double utilization, int maxQueue, int openTasks) {
+            this.name = name;
+            this.workers = workers;
+            this.tasksWorked = tasksWorked;
+            this.utilization = utilization;
+            this.maxQueue = maxQueue;
+            this.openTasks = openTasks;
+        }
+    }
+}
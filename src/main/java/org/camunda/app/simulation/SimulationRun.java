@@ -0,0 +1,388 @@
+package org.camunda.app.simulation;
+
+import org.camunda.app.generator.InvoicePath;
+import org.camunda.app.generator.InvoicePath.Step;
+import org.camunda.app.simulation.SimulationReport.PoolReport;
+import org.camunda.app.simulation.SimulationReport.TaskReport;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.lang.String.format;
+
+/**
+ * One discrete event simulation of invoice traffic. Invoices arrive at random, take one of the
+ * {@link InvoicePath}s, and each of their tasks waits in the queue of its candidate group (or
+ * assignee) until one of the group's workers is free and within working hours. The run jumps from
+ * event to event on its own {@link VirtualClock}, so months of traffic take as long as processing
+ * their events, and a run is deterministic for its seed.
+ */
+class SimulationRun {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final String[] CATEGORIES = {"Travel Expenses", "Misc", "Software License Costs"};
+    private static final Pattern VARIABLE = Pattern.compile("\\$\\{\\s*(\\w+)\\s*}");
+
+    private final SimulationProfile profile;
+    private final Map<String, SimulatedTask> tasks;
+    private final BiFunction<Double, String, List<String>> assignApprover;
+    private final Random random;
+    private final long start;
+    private final VirtualClock clock;
+
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private final Map<String, Pool> pools = new LinkedHashMap<>();
+    private final Map<String, TaskStats> taskStats = new LinkedHashMap<>();
+    private final DurationStats cycleTime = new DurationStats();
+    private long[] completedPerDay = new long[64];
+    private long sequence;
+    private long started;
+    private long completed;
+    private long incidents;
+    private long open;
+    private long maxOpen;
+    private long workingFrom;
+    private long workingUntil;
+
+    SimulationRun(SimulationProfile profile, Map<String, SimulatedTask> tasks, BiFunction<Double, String, List<String>> assignApprover) {
+        this.profile = profile;
+        this.tasks = tasks;
+        this.assignApprover = assignApprover;
+        this.random = new Random(profile.getSeed());
+        this.start = LocalDate.parse(profile.getStartDate()).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        this.clock = new VirtualClock(start);
+    }
+
+    SimulationReport execute() {
+        long wallStart = System.currentTimeMillis();
+        long horizon = profile.getHorizonDays() > 0 ? start + profile.getHorizonDays() * DAY : Long.MAX_VALUE;
+        long processed = 0;
+        if (profile.getInstances() > 0) {
+            schedule(new Event(start, Event.ARRIVAL, 0, null, null));
+        }
+        while (!events.isEmpty() && events.peek().time <= horizon) {
+            Event event = events.poll();
+            clock.advanceTo(event.time);
+            processed++;
+            switch (event.type) {
+                case Event.ARRIVAL:
+                    arrive(event.index);
+                    break;
+                case Event.WORK_DONE:
+                    workDone(event.pool, event.item);
+                    break;
+                default:
+                    event.pool.wakeUpScheduled = false;
+                    dispatch(event.pool);
+                    break;
+            }
+        }
+        return report(processed, System.currentTimeMillis() - wallStart);
+    }
+
+    private void arrive(int index) {
+        InvoicePath path = InvoicePath.choose(
+                random, profile.getApprovedWeight(), profile.getRejectedWeight(), profile.getClarifiedWeight(), profile.getFailingWeight()
+        );
+        double amount = Math.round((10 + random.nextDouble() * 2000) * 100) / 100D;
+        Instance instance = new Instance(path, amount, CATEGORIES[random.nextInt(CATEGORIES.length)], clock.now());
+        started++;
+        open++;
+        maxOpen = Math.max(maxOpen, open);
+        advance(instance);
+
+        if (index + 1 < profile.getInstances()) {
+            long gap = exponential(DAY / Math.max(profile.getArrivalsPerDay(), 1e-9));
+            schedule(new Event(clock.now() + gap, Event.ARRIVAL, index + 1, null, null));
+        }
+    }
+
+    private void advance(Instance instance) {
+        instance.step++;
+        List<Step> steps = instance.path.getSteps();
+        if (instance.step >= steps.size()) {
+            finish(instance);
+            return;
+        }
+        String key = steps.get(instance.step).getTaskDefinitionKey();
+        SimulatedTask task = tasks.get(key);
+        if (task == null) {
+            throw new IllegalStateException(format("No user task %s deployed", key));
+        }
+        long now = clock.now();
+        Pool pool = poolFor(task, instance);
+        pool.queue.add(new WorkItem(instance, task, now, task.getDueDate() == null ? Long.MAX_VALUE : task.getDueDate().dueAt(now)));
+        pool.maxQueue = Math.max(pool.maxQueue, pool.queue.size());
+        dispatch(pool);
+    }
+
+    private void finish(Instance instance) {
+        open--;
+        cycleTime.record(clock.now() - instance.startedAt);
+        if (instance.path == InvoicePath.FAILING) {
+            incidents++;
+            return;
+        }
+        completed++;
+        int day = (int) ((clock.now() - start) / DAY);
+        if (day >= completedPerDay.length) {
+            completedPerDay = Arrays.copyOf(completedPerDay, Math.max(day + 1, completedPerDay.length * 2));
+        }
+        completedPerDay[day]++;
+    }
+
+    /**
+     * Hands queued tasks to free workers, or wakes the pool up when the next working hours start.
+     */
+    private void dispatch(Pool pool) {
+        if (pool.queue.isEmpty() || pool.busy >= pool.workers) {
+            return;
+        }
+        long now = clock.now();
+        long workStart = nextWorkingTime(now);
+        if (workStart > now) {
+            if (!pool.wakeUpScheduled) {
+                pool.wakeUpScheduled = true;
+                schedule(new Event(workStart, Event.SHIFT_START, 0, pool, null));
+            }
+            return;
+        }
+        while (pool.busy < pool.workers && !pool.queue.isEmpty()) {
+            WorkItem item = pool.queue.poll();
+            long work = exponential(profile.getWorkMinutes().getOrDefault(item.task.getKey(), profile.getDefaultWorkMinutes()) * MINUTE);
+            pool.busy++;
+            pool.busyMillis += work;
+            schedule(new Event(now + work, Event.WORK_DONE, 0, pool, item));
+        }
+    }
+
+    private void workDone(Pool pool, WorkItem item) {
+        long now = clock.now();
+        pool.busy--;
+        pool.worked++;
+        TaskStats stats = taskStats.computeIfAbsent(item.task.getKey(), key -> new TaskStats());
+        stats.durations.record(now - item.created);
+        if (now > item.due) {
+            stats.breached++;
+        }
+        advance(item.instance);
+        dispatch(pool);
+    }
+
+    private Pool poolFor(SimulatedTask task, Instance instance) {
+        List<String> candidates = resolve(task.getCandidateGroups(), task, instance);
+        if (candidates.isEmpty()) {
+            candidates = resolve(task.getAssignee(), task, instance);
+        }
+        if (candidates.isEmpty()) {
+            throw new IllegalStateException(format("Task %s has neither candidate groups nor an assignee", task.getKey()));
+        }
+        Pool chosen = null;
+        for (String candidate : candidates) {
+            Pool pool = pools.computeIfAbsent(candidate, name -> new Pool(name, profile.getStaff().getOrDefault(name, profile.getDefaultStaff())));
+            if (pool.workers > 0 && (chosen == null || pool.load() < chosen.load())) {
+                chosen = pool;
+            }
+        }
+        if (chosen == null) {
+            throw new IllegalStateException(format("No workers for task %s, staff one of %s", task.getKey(), candidates));
+        }
+        return chosen;
+    }
+
+    /**
+     * Resolves a literal list or the two variables the invoice tasks use.
+     */
+    private List<String> resolve(String expression, SimulatedTask task, Instance instance) {
+        if (expression == null || expression.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        Matcher variable = VARIABLE.matcher(expression.trim());
+        if (!variable.matches()) {
+            List<String> values = new ArrayList<>();
+            for (String value : expression.split(",")) {
+                values.add(value.trim());
+            }
+            return values;
+        }
+        switch (variable.group(1)) {
+            case "approverGroups":
+                if (instance.approverGroups == null) {
+                    instance.approverGroups = assignApprover.apply(instance.amount, instance.category);
+                }
+                return instance.approverGroups;
+            case "reviewer":
+                return Collections.singletonList(profile.getReviewer());
+            default:
+                throw new IllegalStateException(format("Can't resolve %s of task %s in the simulation", expression, task.getKey()));
+        }
+    }
+
+    /**
+     * @return {@code time} if it is within working hours, otherwise the start of the next ones
+     */
+    private long nextWorkingTime(long time) {
+        if (profile.getWorkdayHours() >= 24 && profile.isWeekends()) {
+            return time;
+        }
+        if (time >= workingFrom && time < workingUntil) {
+            return time;
+        }
+        ZonedDateTime day = Instant.ofEpochMilli(time).atZone(ZoneOffset.UTC).toLocalDate().atStartOfDay(ZoneOffset.UTC);
+        while (true) {
+            ZonedDateTime from = day.plusHours(profile.getWorkdayStartHour());
+            ZonedDateTime until = from.plusHours(Math.max(1, profile.getWorkdayHours()));
+            if (isWorkday(day) && time < until.toInstant().toEpochMilli()) {
+                workingFrom = from.toInstant().toEpochMilli();
+                workingUntil = until.toInstant().toEpochMilli();
+                return Math.max(time, workingFrom);
+            }
+            day = day.plusDays(1);
+        }
+    }
+
+    private long workingMillis(long from, long until) {
+        long total = 0;
+        ZonedDateTime day = Instant.ofEpochMilli(from).atZone(ZoneOffset.UTC).toLocalDate().atStartOfDay(ZoneOffset.UTC);
+        while (day.toInstant().toEpochMilli() < until) {
+            if (isWorkday(day)) {
+                long dayFrom = day.plusHours(profile.getWorkdayStartHour()).toInstant().toEpochMilli();
+                long dayUntil = dayFrom + TimeUnit.HOURS.toMillis(Math.min(24, Math.max(1, profile.getWorkdayHours())));
+                total += Math.max(0, Math.min(dayUntil, until) - Math.max(dayFrom, from));
+            }
+            day = day.plusDays(1);
+        }
+        return total;
+    }
+
+    private boolean isWorkday(ZonedDateTime day) {
+        return profile.isWeekends() || (day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY);
+    }
+
+    private long exponential(double mean) {
+        return (long) (-Math.log(1 - random.nextDouble()) * mean);
+    }
+
+    private void schedule(Event event) {
+        event.sequence = sequence++;
+        events.add(event);
+    }
+
+    private SimulationReport report(long processed, long elapsedMillis) {
+        SimulationReport report = new SimulationReport();
+        report.setInstances(started, completed, incidents, open, maxOpen);
+        long peak = 0;
+        for (long day : completedPerDay) {
+            peak = Math.max(peak, day);
+        }
+        report.setThroughput((clock.now() - start) / (double) DAY, peak);
+        report.setCycleTime(cycleTime);
+        taskStats.forEach((key, stats) -> report.getTasks().add(new TaskReport(key, stats.breached, stats.durations)));
+        long workingMillis = workingMillis(start, clock.now());
+        for (Pool pool : pools.values()) {
+            double utilization = workingMillis == 0 ? 0 : pool.busyMillis / ((double) workingMillis * pool.workers);
+            report.getPools().add(new PoolReport(pool.name, pool.workers, pool.worked, utilization, pool.maxQueue, pool.queue.size() + pool.busy));
+        }
+        report.setRun(processed, elapsedMillis);
+        return report;
+    }
+
+    private static class Instance {
+        private final InvoicePath path;
+        private final double amount;
+        private final String category;
+        private final long startedAt;
+        private List<String> approverGroups;
+        private int step;
+
+        private Instance(InvoicePath path, double amount, String category, long startedAt) {
+            this.path = path;
+            this.amount = amount;
+            this.category = category;
+            this.startedAt = startedAt;
+        }
+    }
+
+    private static class WorkItem {
+        private final Instance instance;
+        private final SimulatedTask task;
+        private final long created;
+        private final long due;
+
+        private WorkItem(Instance instance, SimulatedTask task, long created, long due) {
+            this.instance = instance;
+            this.task = task;
+            this.created = created;
+            this.due = due;
+        }
+    }
+
+    private static class Pool {
+        private final String name;
+        private final int workers;
+        private final ArrayDeque<WorkItem> queue = new ArrayDeque<>();
+        private int busy;
+        private int maxQueue;
+        private long worked;
+        private long busyMillis;
+        private boolean wakeUpScheduled;
+
+        private Pool(String name, int workers) {
+            this.name = name;
+            this.workers = workers;
+        }
+
+        private double load() {
+            return (queue.size() + busy) / (double) workers;
+        }
+    }
+
+    private static class TaskStats {
+        private final DurationStats durations = new DurationStats();
+        private long breached;
+    }
+
+    private static class Event implements Comparable<Event> {
+        private static final int ARRIVAL = 0;
+        private static final int WORK_DONE = 1;
+        private static final int SHIFT_START = 2;
+
+        private final long time;
+        private final int type;
+        private final int index;
+        private final Pool pool;
+        private final WorkItem item;
+        private long sequence;
+
+        private Event(long time, int type, int index, Pool pool, WorkItem item) {
+            this.time = time;
+            this.type = type;
+            this.index = index;
+            this.pool = pool;
+            this.item = item;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.camunda.app.simulation;
+
+import java.util.Date;
+
+import static java.lang.String.format;
+
+/**
+ * Simulated time of one run. Unlike the engine's {@code ClockUtil} it belongs to its run, so runs
+ * don't see each other's time and the engine keeps the real one. It only moves forward.
+ */
+public class VirtualClock {
+
+    private long now;
+
+    public VirtualClock(long start) {
+        this.now = start;
+    }
+
+    public long now() {
+        return now;
+    }
+
+    public Date getCurrentTime() {
+        return new Date(now);
+    }
+
+    public void advanceTo(long time) {
+        if (time < now) {
+            throw new IllegalArgumentException(format("Can't move the clock back from %d to %d", now, time));
+        }
+        now = time;
+    }
+}
@@ -0,0 +1,49 @@
+package org.camunda.app.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.RepositoryService;
+import org.camunda.bpm.engine.repository.DecisionDefinition;
+import org.camunda.bpm.engine.repository.ProcessDefinition;
+
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Loads the latest process and decision definitions into the deployment cache on a background
+ * thread, so the first invoice after a restart does not pay for parsing the models.
+ */
+@Slf4j
+public class DefinitionCacheWarmer {
+
+    public Thread warmUpAsync(ProcessEngine processEngine) {
+        Thread warmer = new Thread(() -> warmUp(processEngine), "definition-cache-warm-up");
+        warmer.setDaemon(true);
+        warmer.setPriority(Thread.MIN_PRIORITY);
+        warmer.start();
+        return warmer;
+    }
+
+    public void warmUp(ProcessEngine processEngine) {
+        long start = System.currentTimeMillis();
+        RepositoryService repositoryService = processEngine.getRepositoryService();
+        try {
+            List<ProcessDefinition> processDefinitions = repositoryService.createProcessDefinitionQuery().latestVersion().list();
+            for (ProcessDefinition processDefinition : processDefinitions) {
+                // loads the parsed definition into the deployment cache
+                repositoryService.getBpmnModelInstance(processDefinition.getId());
+                repositoryService.getProcessDefinition(processDefinition.getId());
+            }
+            List<DecisionDefinition> decisionDefinitions = repositoryService.createDecisionDefinitionQuery().latestVersion().list();
+            for (DecisionDefinition decisionDefinition : decisionDefinitions) {
+                repositoryService.getDmnModelInstance(decisionDefinition.getId());
+                repositoryService.getDecisionDefinition(decisionDefinition.getId());
+            }
+            log.info(format("Warmed up %d process and %d decision definitions in %d ms",
+                    processDefinitions.size(), decisionDefinitions.size(), System.currentTimeMillis() - start));
+        } catch (RuntimeException e) {
+            log.warn(format("Definition cache warm-up failed: %s", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.camunda.app.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.app.generator.SampleDataGenerator;
+import org.camunda.bpm.engine.ProcessEngine;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.lang.String.format;
+
+/**
+ * Runs the post-deploy work, sample users, authorizations, filters and the first invoices, only
+ * when the deployment resources or the sample data changed since the last start. Unchanged
+ * resources are not redeployed either, the process application deploys with duplicate filtering,
+ * so the definitions are then parsed lazily by the {@link DefinitionCacheWarmer} after startup.
+ */
+@Slf4j
+public class FastStartup {
+
+    private final List<String> resources;
+    private final DefinitionCacheWarmer warmer;
+
+    public FastStartup(List<String> resources, DefinitionCacheWarmer warmer) {
+        this.resources = resources;
+        this.warmer = warmer;
+    }
+
+    public void onPostDeploy(ProcessEngine processEngine, Consumer<ProcessEngine> postDeploy) {
+        long start = System.currentTimeMillis();
+        StartupFingerprint fingerprint = StartupFingerprint.of(getClass().getClassLoader(), resources, SampleDataGenerator.DATA_VERSION);
+        if (fingerprint.isStored(processEngine)) {
+            log.info(format("Deployment and sample data unchanged (%s), skipped post-deploy work in %d ms",
+                    fingerprint, System.currentTimeMillis() - start));
+        } else {
+            postDeploy.accept(processEngine);
+            fingerprint.store(processEngine);
+            log.info(format("Post-deploy work done in %d ms, stored fingerprint %s", System.currentTimeMillis() - start, fingerprint));
+        }
+        warmer.warmUpAsync(processEngine);
+    }
+}
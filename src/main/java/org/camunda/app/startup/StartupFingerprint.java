@@ -0,0 +1,83 @@
+package org.camunda.app.startup;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * SHA-256 over the hashes of the deployment resources and the sample data version, stored as an
+ * engine property once the startup work for it is done. Reading it back is a single property query.
+ * The resource hashes are the ones the deployment pipeline compares, see {@link #hash(byte[])}.
+ */
+public class StartupFingerprint {
+
+    public static final String PROPERTY_NAME = "invoice.startup.fingerprint";
+
+    private final String value;
+
+    private StartupFingerprint(String value) {
+        this.value = value;
+    }
+
+    public static StartupFingerprint of(ClassLoader classLoader, List<String> resources, String dataVersion) {
+        Map<String, String> resourceHashes = new LinkedHashMap<>();
+        for (String resource : resources) {
+            resourceHashes.put(resource, hash(read(classLoader, resource)));
+        }
+        return of(resourceHashes, dataVersion);
+    }
+
+    /**
+     * @param resourceHashes the {@link #hash(byte[]) hash} of each resource by its name
+     */
+    public static StartupFingerprint of(Map<String, String> resourceHashes, String dataVersion) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (Map.Entry<String, String> resourceHash : resourceHashes.entrySet()) {
+            hasher.putString(resourceHash.getKey(), UTF_8).putString(resourceHash.getValue(), UTF_8);
+        }
+        hasher.putString(dataVersion, UTF_8);
+        return new StartupFingerprint(hasher.hash().toString());
+    }
+
+    /**
+     * @return the SHA-256 of the resource content as hex
+     */
+    public static String hash(byte[] content) {
+        return Hashing.sha256().hashBytes(content).toString();
+    }
+
+    public static byte[] read(ClassLoader classLoader, String resource) {
+        try (InputStream in = classLoader.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new ProcessEngineException(format("Deployment resource %s not found", resource));
+            }
+            return ByteStreams.toByteArray(in);
+        } catch (IOException e) {
+            throw new ProcessEngineException(format("Couldn't read deployment resource %s", resource), e);
+        }
+    }
+
+    public boolean isStored(ProcessEngine processEngine) {
+        return value.equals(processEngine.getManagementService().getProperties().get(PROPERTY_NAME));
+    }
+
+    public void store(ProcessEngine processEngine) {
+        processEngine.getManagementService().setProperty(PROPERTY_NAME, value);
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
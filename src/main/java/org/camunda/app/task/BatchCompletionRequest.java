@@ -0,0 +1,20 @@
+package org.camunda.app.task;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class BatchCompletionRequest {
+
+    /**
+     * Claim unassigned tasks for the current user before completing them
+     */
+    private boolean claim = true;
+    private List<TaskCompletion> tasks = new ArrayList<>();
+}
@@ -0,0 +1,166 @@
+package org.camunda.app.task;
+
+import com.google.common.collect.Lists;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.authorization.Authorization;
+import org.camunda.bpm.engine.authorization.Permissions;
+import org.camunda.bpm.engine.authorization.ProcessDefinitionPermissions;
+import org.camunda.bpm.engine.authorization.TaskPermissions;
+import org.camunda.bpm.engine.impl.identity.Authentication;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.persistence.entity.AuthorizationManager;
+import org.camunda.bpm.engine.task.Task;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.lang.String.format;
+import static org.camunda.bpm.engine.authorization.Resources.PROCESS_DEFINITION;
+import static org.camunda.bpm.engine.authorization.Resources.TASK;
+
+/**
+ * Decides for a whole batch of tasks whether a user may claim and complete them, with the outcome
+ * of the engine's own check: TASK_WORK or UPDATE on the task, or TASK_WORK or UPDATE_TASK on its
+ * process definition. Definition and global authorizations are checked once per batch instead of
+ * once per task, the task authorizations of the user and the user's groups are read with one query
+ * per chunk of tasks. Tasks with revoke authorizations get the engine's check one by one.
+ */
+class BatchTaskAuthorization {
+
+    private static final int TASK_WORK_PERMISSIONS = TaskPermissions.TASK_WORK.getValue() | Permissions.UPDATE.getValue();
+    private static final int IN_LIST_SIZE = 500;
+
+    private final String userId;
+    private final List<String> groupIds;
+
+    BatchTaskAuthorization(String userId, List<String> groupIds) {
+        this.userId = userId;
+        this.groupIds = groupIds;
+    }
+
+    /**
+     * Runs inside an engine command.
+     *
+     * @return ids of the tasks the user may work on
+     */
+    Set<String> authorizedTaskIds(CommandContext commandContext, Collection<Task> tasks) {
+        AuthorizationManager authorizationManager = commandContext.getAuthorizationManager();
+        Set<String> authorized = new HashSet<>();
+        if (authorizationManager.isCamundaAdmin(new Authentication(userId, groupIds))) {
+            tasks.forEach(task -> authorized.add(task.getId()));
+            return authorized;
+        }
+
+        Map<String, Boolean> definitions = new HashMap<>();
+        List<String> remaining = new ArrayList<>();
+        for (Task task : tasks) {
+            String definitionKey = definitionKey(commandContext, task);
+            boolean definitionAuthorized = definitionKey != null && definitions.computeIfAbsent(definitionKey, key ->
+                    authorizationManager.isAuthorized(userId, groupIds, ProcessDefinitionPermissions.TASK_WORK, PROCESS_DEFINITION, key)
+                            || authorizationManager.isAuthorized(userId, groupIds, ProcessDefinitionPermissions.UPDATE_TASK, PROCESS_DEFINITION, key));
+            if (definitionAuthorized) {
+                authorized.add(task.getId());
+            } else {
+                remaining.add(task.getId());
+            }
+        }
+        if (remaining.isEmpty()) {
+            return authorized;
+        }
+
+        Map<String, TaskGrants> grants = taskGrants(commandContext, remaining);
+        TaskGrants any = grants.getOrDefault(Authorization.ANY, TaskGrants.NONE);
+        boolean globallyAuthorized = !any.revoked
+                && (authorizationManager.isAuthorized(userId, groupIds, TaskPermissions.TASK_WORK, TASK, Authorization.ANY)
+                || authorizationManager.isAuthorized(userId, groupIds, Permissions.UPDATE, TASK, Authorization.ANY));
+        for (String taskId : remaining) {
+            TaskGrants task = grants.getOrDefault(taskId, TaskGrants.NONE);
+            boolean taskAuthorized;
+            if (any.revoked || task.revoked) {
+                taskAuthorized = authorizationManager.isAuthorized(userId, groupIds, TaskPermissions.TASK_WORK, TASK, taskId)
+                        || authorizationManager.isAuthorized(userId, groupIds, Permissions.UPDATE, TASK, taskId);
+            } else {
+                taskAuthorized = globallyAuthorized || task.granted;
+            }
+            if (taskAuthorized) {
+                authorized.add(taskId);
+            }
+        }
+        return authorized;
+    }
+
+    private static String definitionKey(CommandContext commandContext, Task task) {
+        if (task.getProcessDefinitionId() == null) {
+            return null;
+        }
+        return commandContext.getProcessEngineConfiguration()
+                .getDeploymentCache()
+                .findDeployedProcessDefinitionById(task.getProcessDefinitionId())
+                .getKey();
+    }
+
+    /**
+     * Task and global task authorizations of the user, the user's groups and everybody.
+     */
+    private Map<String, TaskGrants> taskGrants(CommandContext commandContext, List<String> taskIds) {
+        String table = commandContext.getProcessEngineConfiguration().getDatabaseTablePrefix() + "ACT_RU_AUTHORIZATION";
+        Connection connection = commandContext.getDbSqlSession().getSqlSession().getConnection();
+        Map<String, TaskGrants> grants = new HashMap<>();
+        for (List<String> chunk : Lists.partition(taskIds, IN_LIST_SIZE)) {
+            List<String> resourceIds = new ArrayList<>(chunk);
+            resourceIds.add(Authorization.ANY);
+            String sql = "select RESOURCE_ID_, TYPE_, PERMS_ from " + table
+                    + " where RESOURCE_TYPE_ = ? and RESOURCE_ID_ in (" + placeholders(resourceIds.size()) + ")"
+                    + " and (USER_ID_ in (?, ?)" + (groupIds.isEmpty() ? "" : " or GROUP_ID_ in (" + placeholders(groupIds.size()) + ")") + ")";
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                int index = 1;
+                statement.setInt(index++, TASK.resourceType());
+                for (String resourceId : resourceIds) {
+                    statement.setString(index++, resourceId);
+                }
+                statement.setString(index++, userId);
+                statement.setString(index++, Authorization.ANY);
+                for (String groupId : groupIds) {
+                    statement.setString(index++, groupId);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        TaskGrants task = grants.computeIfAbsent(resultSet.getString(1), key -> new TaskGrants());
+                        if (resultSet.getInt(2) == Authorization.AUTH_TYPE_REVOKE) {
+                            task.revoked = true;
+                        } else if ((resultSet.getInt(3) & TASK_WORK_PERMISSIONS) != 0) {
+                            task.granted = true;
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                throw new ProcessEngineException(format("Couldn't read the task authorizations of user %s", userId), e);
+            }
+        }
+        return grants;
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        return placeholders.toString();
+    }
+
+    private static class TaskGrants {
+        static final TaskGrants NONE = new TaskGrants();
+
+        boolean granted;
+        boolean revoked;
+    }
+}
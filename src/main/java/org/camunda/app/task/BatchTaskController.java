@@ -0,0 +1,69 @@
+package org.camunda.app.task;
+
+import com.google.common.collect.ImmutableMap;
+import org.camunda.app.task.TaskCompletionResult.Status;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.webapp.impl.security.auth.Authentication;
+import org.camunda.bpm.webapp.impl.security.auth.Authentications;
+import org.camunda.bpm.webapp.impl.security.auth.UserAuthentication;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpSession;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Claims and completes the given tasks as the user logged in to the tasklist, see
+ * {@link BatchTaskService}. The response holds a result per task and the number of tasks per
+ * result; a batch is answered with 200 even if some of its tasks failed.
+ */
+@RestController
+@RequestMapping("/api/tasks/batch")
+@ConditionalOnProperty(name = "invoice.task-batch.enabled", havingValue = "true")
+public class BatchTaskController {
+
+    @Autowired
+    protected ProcessEngine processEngine;
+
+    @Autowired
+    protected BatchTaskService batchTaskService;
+
+    @Value("${invoice.task-batch.max-size:1000}")
+    protected int maxSize;
+
+    @PostMapping("/complete")
+    public Map<String, Object> complete(@RequestBody BatchCompletionRequest request, HttpSession session) {
+        UserAuthentication user = currentUser(session);
+        if (request.getTasks() == null || request.getTasks().isEmpty() || request.getTasks().size() > maxSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Between 1 and " + maxSize + " tasks per batch");
+        }
+        long start = System.currentTimeMillis();
+        List<TaskCompletionResult> results = batchTaskService.complete(user.getIdentityId(), user.getGroupIds(), request.getTasks(), request.isClaim());
+
+        Map<Status, Integer> counts = new EnumMap<>(Status.class);
+        results.forEach(result -> counts.merge(result.getStatus(), 1, Integer::sum));
+        return ImmutableMap.<String, Object>builder()
+                .put("counts", counts)
+                .put("elapsedMillis", System.currentTimeMillis() - start)
+                .put("results", results)
+                .build();
+    }
+
+    private UserAuthentication currentUser(HttpSession session) {
+        Authentication authentication = session == null ? null
+                : Authentications.getFromSession(session).getAuthenticationForProcessEngine(processEngine.getName());
+        if (!(authentication instanceof UserAuthentication)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Log in to the tasklist first");
+        }
+        return (UserAuthentication) authentication;
+    }
+}
@@ -0,0 +1,219 @@
+package org.camunda.app.task;
+
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.app.task.TaskCompletionResult.Status;
+import org.camunda.bpm.engine.AuthorizationException;
+import org.camunda.bpm.engine.IdentityService;
+import org.camunda.bpm.engine.OptimisticLockingException;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.TaskAlreadyClaimedException;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.exception.NullValueException;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
+import org.camunda.bpm.engine.task.Task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.lang.String.format;
+
+/**
+ * Claims and completes many tasks for one user, e.g. the approvals selected in a list view. The
+ * tasks are loaded and the user's authorizations checked for the whole batch up front, then the
+ * authorized tasks are completed in groups of {@code groupSize}, each group in one engine command
+ * and transaction without further authorization checks.
+ * <p>
+ * Tasks of one process instance always share a group, so groups don't conflict with each other and
+ * run in parallel on {@code parallelism} threads, and with them what follows the tasks up to the
+ * next wait state or asynchronous continuation. If a group fails, its tasks are completed one by one
+ * so only the offending ones fail.
+ */
+@Slf4j
+public class BatchTaskService {
+
+    private static final int IN_LIST_SIZE = 500;
+
+    private final ProcessEngine processEngine;
+    private final MetricsRegistry metricsRegistry;
+    private final int groupSize;
+    private final ExecutorService executor;
+
+    public BatchTaskService(ProcessEngine processEngine, MetricsRegistry metricsRegistry, int groupSize, int parallelism) {
+        this.processEngine = processEngine;
+        this.metricsRegistry = metricsRegistry;
+        this.groupSize = Math.max(1, groupSize);
+        this.executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "task-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * @param claim whether to claim unassigned tasks for the user first, like the tasklist does
+     * @return a result per given task, in the given order
+     */
+    public List<TaskCompletionResult> complete(String userId, List<String> groupIds, List<TaskCompletion> completions, boolean claim) {
+        long start = System.nanoTime();
+        List<String> groups = groupIds == null ? Collections.emptyList() : groupIds;
+        TaskCompletionResult[] results = new TaskCompletionResult[completions.size()];
+        Map<String, Integer> indexes = new LinkedHashMap<>();
+        for (int i = 0; i < completions.size(); i++) {
+            String taskId = completions.get(i).getTaskId();
+            if (taskId == null) {
+                results[i] = new TaskCompletionResult(null, Status.FAILED, "No task id given");
+            } else if (indexes.putIfAbsent(taskId, i) != null) {
+                results[i] = new TaskCompletionResult(taskId, Status.CONFLICT, format("Task %s is listed more than once", taskId));
+            }
+        }
+
+        List<Task> tasks = new ArrayList<>(indexes.size());
+        Set<String> authorized = getCommandExecutor().execute(commandContext -> {
+            for (List<String> taskIds : Lists.partition(new ArrayList<>(indexes.keySet()), IN_LIST_SIZE)) {
+                tasks.addAll(processEngine.getTaskService().createTaskQuery().taskIdIn(taskIds.toArray(new String[0])).list());
+            }
+            if (!processEngine.getProcessEngineConfiguration().isAuthorizationEnabled()) {
+                Set<String> all = new HashSet<>();
+                tasks.forEach(task -> all.add(task.getId()));
+                return all;
+            }
+            return new BatchTaskAuthorization(userId, groups).authorizedTaskIds(commandContext, tasks);
+        });
+
+        Map<String, List<Task>> byInstance = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            int index = indexes.get(task.getId());
+            if (!authorized.contains(task.getId())) {
+                results[index] = new TaskCompletionResult(task.getId(), Status.FORBIDDEN, format("Not authorized to work on task %s", task.getId()));
+            } else if (task.isSuspended()) {
+                results[index] = new TaskCompletionResult(task.getId(), Status.FAILED, format("Task %s is suspended", task.getId()));
+            } else if (claim && task.getAssignee() != null && !task.getAssignee().equals(userId)) {
+                results[index] = new TaskCompletionResult(task.getId(), Status.CONFLICT, format("Task %s is claimed by %s", task.getId(), task.getAssignee()));
+            } else {
+                String instance = task.getProcessInstanceId() == null ? task.getId() : task.getProcessInstanceId();
+                byInstance.computeIfAbsent(instance, key -> new ArrayList<>()).add(task);
+            }
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        List<Task> group = new ArrayList<>(groupSize);
+        for (List<Task> instanceTasks : byInstance.values()) {
+            group.addAll(instanceTasks);
+            if (group.size() >= groupSize) {
+                futures.add(submit(userId, groups, group, completions, indexes, claim, results));
+                group = new ArrayList<>(groupSize);
+            }
+        }
+        if (!group.isEmpty()) {
+            futures.add(submit(userId, groups, group, completions, indexes, claim, results));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while completing a batch of tasks", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Completing a group of tasks failed unexpectedly", e.getCause());
+            }
+        }
+
+        indexes.forEach((taskId, index) -> {
+            if (results[index] == null) {
+                results[index] = new TaskCompletionResult(taskId, Status.NOT_FOUND, format("No task %s", taskId));
+            }
+        });
+        List<TaskCompletionResult> resultList = new ArrayList<>(results.length);
+        for (TaskCompletionResult result : results) {
+            resultList.add(result);
+            metricsRegistry.increment("invoice_task_batch_tasks_total", "Tasks passed to batch completion by result", 1, "status", result.getStatus().name());
+        }
+        metricsRegistry.recordSize("invoice_task_batch_size", "Tasks per completion batch", completions.size());
+        metricsRegistry.recordDuration("invoice_task_batch_seconds", "Duration of a task completion batch", System.nanoTime() - start);
+        return resultList;
+    }
+
+    private Future<?> submit(
+            String userId,
+            List<String> groupIds,
+            List<Task> group,
+            List<TaskCompletion> completions,
+            Map<String, Integer> indexes,
+            boolean claim,
+            TaskCompletionResult[] results
+    ) {
+        return executor.submit(() -> {
+            IdentityService identityService = processEngine.getIdentityService();
+            identityService.setAuthentication(userId, groupIds);
+            try {
+                try {
+                    getCommandExecutor().execute(commandContext -> {
+                        commandContext.disableAuthorizationCheck();
+                        group.forEach(task -> complete(task, userId, completions.get(indexes.get(task.getId())), claim));
+                        return null;
+                    });
+                    group.forEach(task -> results[indexes.get(task.getId())] = new TaskCompletionResult(task.getId(), Status.COMPLETED, null));
+                } catch (RuntimeException groupFailure) {
+                    log.warn(format("Group of %d tasks failed (%s), completing them one by one", group.size(), groupFailure.getMessage()));
+                    metricsRegistry.increment("invoice_task_batch_group_fallbacks_total", "Task groups completed one by one after a failure", 1);
+                    for (Task task : group) {
+                        int index = indexes.get(task.getId());
+                        try {
+                            getCommandExecutor().execute(commandContext -> {
+                                commandContext.disableAuthorizationCheck();
+                                complete(task, userId, completions.get(index), claim);
+                                return null;
+                            });
+                            results[index] = new TaskCompletionResult(task.getId(), Status.COMPLETED, null);
+                        } catch (RuntimeException e) {
+                            results[index] = new TaskCompletionResult(task.getId(), statusOf(e), e.getMessage());
+                        }
+                    }
+                }
+            } finally {
+                identityService.clearAuthentication();
+            }
+        });
+    }
+
+    private void complete(Task task, String userId, TaskCompletion completion, boolean claim) {
+        TaskService taskService = processEngine.getTaskService();
+        if (claim && task.getAssignee() == null) {
+            taskService.claim(task.getId(), userId);
+        }
+        taskService.complete(task.getId(), completion.getVariables());
+    }
+
+    private static Status statusOf(RuntimeException e) {
+        if (e instanceof OptimisticLockingException || e instanceof TaskAlreadyClaimedException) {
+            return Status.CONFLICT;
+        }
+        if (e instanceof NullValueException) {
+            return Status.NOT_FOUND;
+        }
+        if (e instanceof AuthorizationException) {
+            return Status.FORBIDDEN;
+        }
+        return Status.FAILED;
+    }
+
+    private CommandExecutor getCommandExecutor() {
+        return ((ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration()).getCommandExecutorTxRequired();
+    }
+}
@@ -0,0 +1,21 @@
+package org.camunda.app.task;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * A task of a batch and the variables to complete it with.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskCompletion {
+
+    private String taskId;
+    private Map<String, Object> variables;
+}
@@ -0,0 +1,24 @@
+package org.camunda.app.task;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class TaskCompletionResult {
+
+    private final String taskId;
+    private final Status status;
+    private final String message;
+
+    public enum Status {
+        COMPLETED,
+        NOT_FOUND,
+        FORBIDDEN,
+        /**
+         * Claimed by someone else or changed concurrently, reload and retry
+         */
+        CONFLICT,
+        FAILED
+    }
+}
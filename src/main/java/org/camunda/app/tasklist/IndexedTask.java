@@ -0,0 +1,98 @@
+package org.camunda.app.tasklist;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Snapshot of a task as kept in the {@link TaskIndex}, including the invoice variables shown by
+ * the tasklist filters, so lists can be rendered without fetching variables per task.
+ */
+@Getter
+@AllArgsConstructor
+public class IndexedTask {
+
+    private final String id;
+    private final String name;
+    private final String taskDefinitionKey;
+    private final String processInstanceId;
+    private final String assignee;
+    private final Set<String> candidateUsers;
+    private final Set<String> candidateGroups;
+    private final Date created;
+    private final Date due;
+    private final int priority;
+    private final Object amount;
+    private final String invoiceNumber;
+    private final String creditor;
+    private final String approver;
+    private final Boolean approved;
+    private final Boolean clarified;
+
+    /**
+     * @param variables new values of indexed variables, the ones not contained keep their value
+     */
+    IndexedTask withVariables(Map<String, Object> variables) {
+        return new IndexedTask(
+                id, name, taskDefinitionKey, processInstanceId, assignee, candidateUsers, candidateGroups, created, due, priority,
+                variables.containsKey("amount") ? variables.get("amount") : amount,
+                variables.containsKey("invoiceNumber") ? (String) variables.get("invoiceNumber") : invoiceNumber,
+                variables.containsKey("creditor") ? (String) variables.get("creditor") : creditor,
+                variables.containsKey("approver") ? (String) variables.get("approver") : approver,
+                variables.containsKey("approved") ? (Boolean) variables.get("approved") : approved,
+                variables.containsKey("clarified") ? (Boolean) variables.get("clarified") : clarified
+        );
+    }
+
+    boolean isVisibleTo(String userId, Collection<String> groupIds) {
+        return userId.equals(assignee)
+                || candidateUsers.contains(userId)
+                || groupIds.stream().anyMatch(candidateGroups::contains);
+    }
+
+    SortKey sortKey() {
+        return new SortKey(created == null ? 0 : created.getTime(), id);
+    }
+
+    /**
+     * Tasks are listed by creation time and id, which is also the keyset pagination cursor.
+     */
+    @Getter
+    @AllArgsConstructor
+    static class SortKey implements Comparable<SortKey> {
+        private final long created;
+        private final String id;
+
+        @Override
+        public int compareTo(SortKey other) {
+            int result = Long.compare(created, other.created);
+            return result != 0 ? result : id.compareTo(other.id);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof SortKey && compareTo((SortKey) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(created) * 31 + id.hashCode();
+        }
+
+        String toCursor() {
+            return created + ":" + id;
+        }
+
+        static SortKey fromCursor(String cursor) {
+            int separator = cursor.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor " + cursor);
+            }
+            return new SortKey(Long.parseLong(cursor.substring(0, separator)), cursor.substring(separator + 1));
+        }
+    }
+}
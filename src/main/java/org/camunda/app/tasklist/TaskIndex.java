@@ -0,0 +1,445 @@
+package org.camunda.app.tasklist;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.app.tasklist.IndexedTask.SortKey;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.delegate.DelegateTask;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.runtime.VariableInstance;
+import org.camunda.bpm.engine.task.IdentityLink;
+import org.camunda.bpm.engine.task.IdentityLinkType;
+import org.camunda.bpm.engine.task.Task;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * In-memory index of the open tasks, kept up to date from task events by the
+ * {@link TaskIndexListener} and, for standalone tasks and variable changes, by the
+ * {@link TaskIndexInterceptor}.
+ * Tasks are ordered by creation time and id and additionally indexed by assignee and candidate
+ * group, so the tasklist filters are answered from the matching tasks only and paged with a keyset
+ * cursor instead of an offset.
+ * <p>
+ * Writes are serialized, reads run lock-free against the concurrent structures. Changes arriving
+ * while the index is loaded are held back until the load is done, as the pages read may be older.
+ */
+@Slf4j
+public class TaskIndex {
+
+    public static final List<String> VARIABLE_NAMES = Collections.unmodifiableList(
+            Arrays.asList("amount", "invoiceNumber", "creditor", "approver", "approved", "clarified")
+    );
+
+    private static final int IN_LIST_SIZE = 500;
+
+    private final Map<String, IndexedTask> tasksById = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<SortKey, IndexedTask> tasks = new ConcurrentSkipListMap<>();
+    private final Map<String, NavigableSet<SortKey>> tasksByAssignee = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<SortKey>> tasksByCandidateGroup = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> taskIdsByProcessInstance = new ConcurrentHashMap<>();
+    /**
+     * {@code null} unless loading
+     */
+    private List<Runnable> pendingChanges;
+
+    public synchronized void put(IndexedTask task) {
+        if (pendingChanges != null) {
+            pendingChanges.add(() -> putNow(task));
+        } else {
+            putNow(task);
+        }
+    }
+
+    public synchronized void remove(String taskId) {
+        if (pendingChanges != null) {
+            pendingChanges.add(() -> removeNow(taskId));
+        } else {
+            removeNow(taskId);
+        }
+    }
+
+    /**
+     * Applies changed process instance variables to the open tasks of the process instance.
+     *
+     * @param variables new values by variable name, {@code null} for deleted variables
+     */
+    public synchronized void updateVariables(String processInstanceId, Map<String, Object> variables) {
+        if (pendingChanges != null) {
+            pendingChanges.add(() -> updateVariablesNow(processInstanceId, variables));
+        } else {
+            updateVariablesNow(processInstanceId, variables);
+        }
+    }
+
+    private synchronized void putNow(IndexedTask task) {
+        removeNow(task.getId());
+        SortKey key = task.sortKey();
+        tasksById.put(task.getId(), task);
+        tasks.put(key, task);
+        if (task.getAssignee() != null) {
+            tasksByAssignee.computeIfAbsent(task.getAssignee(), assignee -> new ConcurrentSkipListSet<>()).add(key);
+        }
+        for (String group : task.getCandidateGroups()) {
+            tasksByCandidateGroup.computeIfAbsent(group, candidateGroup -> new ConcurrentSkipListSet<>()).add(key);
+        }
+        if (task.getProcessInstanceId() != null) {
+            taskIdsByProcessInstance.computeIfAbsent(task.getProcessInstanceId(), id -> new HashSet<>()).add(task.getId());
+        }
+    }
+
+    private synchronized void removeNow(String taskId) {
+        IndexedTask task = tasksById.remove(taskId);
+        if (task == null) {
+            return;
+        }
+        SortKey key = task.sortKey();
+        tasks.remove(key);
+        if (task.getAssignee() != null) {
+            removeKey(tasksByAssignee, task.getAssignee(), key);
+        }
+        for (String group : task.getCandidateGroups()) {
+            removeKey(tasksByCandidateGroup, group, key);
+        }
+        Set<String> processInstanceTaskIds = task.getProcessInstanceId() == null ? null : taskIdsByProcessInstance.get(task.getProcessInstanceId());
+        if (processInstanceTaskIds != null) {
+            processInstanceTaskIds.remove(taskId);
+            if (processInstanceTaskIds.isEmpty()) {
+                taskIdsByProcessInstance.remove(task.getProcessInstanceId());
+            }
+        }
+    }
+
+    private synchronized void updateVariablesNow(String processInstanceId, Map<String, Object> variables) {
+        Set<String> taskIds = taskIdsByProcessInstance.get(processInstanceId);
+        if (taskIds == null) {
+            return;
+        }
+        for (String taskId : new ArrayList<>(taskIds)) {
+            putNow(tasksById.get(taskId).withVariables(variables));
+        }
+    }
+
+    public IndexedTask get(String taskId) {
+        return tasksById.get(taskId);
+    }
+
+    public int size() {
+        return tasksById.size();
+    }
+
+    public int count(TaskIndexFilter filter) {
+        int count = 0;
+        Iterator<SortKey> keys = candidates(filter, null);
+        while (keys.hasNext()) {
+            IndexedTask task = tasks.get(keys.next());
+            if (task != null && filter.matches(task)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param after cursor of the last task of the previous page or {@code null} for the first page
+     */
+    public TaskPage page(TaskIndexFilter filter, String after, int maxResults) {
+        List<IndexedTask> page = new ArrayList<>(Math.min(maxResults, 128));
+        Iterator<SortKey> keys = candidates(filter, after == null ? null : SortKey.fromCursor(after));
+        SortKey last = null;
+        while (keys.hasNext() && page.size() < maxResults) {
+            SortKey key = keys.next();
+            IndexedTask task = tasks.get(key);
+            if (task != null && filter.matches(task)) {
+                page.add(task);
+                last = key;
+            }
+        }
+        return new TaskPage(page, last != null && page.size() == maxResults && keys.hasNext() ? last.toCursor() : null);
+    }
+
+    /**
+     * Rebuilds the index from the open tasks of the engine, page by page. Variables and candidates
+     * are fetched with one query per page each. Changes committed meanwhile are applied afterwards, so a task
+     * completed after its page was read doesn't stay in the index.
+     */
+    public void load(ProcessEngine processEngine, int pageSize) {
+        synchronized (this) {
+            pendingChanges = new ArrayList<>();
+        }
+        int pending;
+        try {
+            TaskService taskService = processEngine.getTaskService();
+            long count = taskService.createTaskQuery().count();
+            for (int first = 0; first < count; first += pageSize) {
+                List<Task> page = taskService.createTaskQuery().orderByTaskId().asc().listPage(first, pageSize);
+                toIndexedTasks(processEngine, page, true).forEach(this::putNow);
+            }
+        } finally {
+            synchronized (this) {
+                pending = pendingChanges.size();
+                pendingChanges.forEach(Runnable::run);
+                pendingChanges = null;
+            }
+        }
+        log.info(format("Indexed %d open tasks, applied %d changes made while loading", size(), pending));
+    }
+
+    /**
+     * Converts tasks returned by a query, fetching the variables of all of them with a single query.
+     * Candidates are only fetched when asked for, with one query per {@value #IN_LIST_SIZE} tasks.
+     */
+    public static List<IndexedTask> toIndexedTasks(ProcessEngine processEngine, List<Task> tasks, boolean withCandidates) {
+        if (tasks.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<String, Map<String, Object>> variables = fetchVariables(processEngine, tasks);
+        Map<String, Candidates> candidates = withCandidates ? fetchCandidates(processEngine, tasks) : Collections.emptyMap();
+        List<IndexedTask> result = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            Candidates taskCandidates = candidates.getOrDefault(task.getId(), new Candidates());
+            Map<String, Object> taskVariables = variables.getOrDefault(task.getProcessInstanceId(), Collections.emptyMap());
+            result.add(new IndexedTask(
+                    task.getId(),
+                    task.getName(),
+                    task.getTaskDefinitionKey(),
+                    task.getProcessInstanceId(),
+                    task.getAssignee(),
+                    taskCandidates.users,
+                    taskCandidates.groups,
+                    task.getCreateTime(),
+                    task.getDueDate(),
+                    task.getPriority(),
+                    taskVariables.get("amount"),
+                    (String) taskVariables.get("invoiceNumber"),
+                    (String) taskVariables.get("creditor"),
+                    (String) taskVariables.get("approver"),
+                    (Boolean) taskVariables.get("approved"),
+                    (Boolean) taskVariables.get("clarified")
+            ));
+        }
+        return result;
+    }
+
+    static IndexedTask toIndexedTask(DelegateTask task) {
+        Set<String> candidateUsers = new HashSet<>();
+        Set<String> candidateGroups = new HashSet<>();
+        for (IdentityLink link : task.getCandidates()) {
+            if (link.getUserId() != null) {
+                candidateUsers.add(link.getUserId());
+            }
+            if (link.getGroupId() != null) {
+                candidateGroups.add(link.getGroupId());
+            }
+        }
+        return new IndexedTask(
+                task.getId(),
+                task.getName(),
+                task.getTaskDefinitionKey(),
+                task.getProcessInstanceId(),
+                task.getAssignee(),
+                candidateUsers,
+                candidateGroups,
+                task.getCreateTime(),
+                task.getDueDate(),
+                task.getPriority(),
+                task.getVariable("amount"),
+                (String) task.getVariable("invoiceNumber"),
+                (String) task.getVariable("creditor"),
+                (String) task.getVariable("approver"),
+                (Boolean) task.getVariable("approved"),
+                (Boolean) task.getVariable("clarified")
+        );
+    }
+
+    private static Map<String, Map<String, Object>> fetchVariables(ProcessEngine processEngine, List<Task> tasks) {
+        String[] processInstanceIds = tasks.stream()
+                .map(Task::getProcessInstanceId)
+                .filter(id -> id != null)
+                .distinct()
+                .toArray(String[]::new);
+        Map<String, Map<String, Object>> variables = new HashMap<>();
+        if (processInstanceIds.length == 0) {
+            return variables;
+        }
+
+        List<VariableInstance> instances = processEngine.getRuntimeService()
+                .createVariableInstanceQuery()
+                .processInstanceIdIn(processInstanceIds)
+                .variableNameIn(VARIABLE_NAMES.toArray(new String[0]))
+                .disableBinaryFetching()
+                .list();
+        for (VariableInstance instance : instances) {
+            Map<String, Object> processVariables = variables.computeIfAbsent(instance.getProcessInstanceId(), id -> new HashMap<>());
+            // process instance variables win over local variables of the same name
+            if (!processVariables.containsKey(instance.getName()) || instance.getProcessInstanceId().equals(instance.getExecutionId())) {
+                processVariables.put(instance.getName(), instance.getValue());
+            }
+        }
+        return variables;
+    }
+
+    private static Map<String, Candidates> fetchCandidates(ProcessEngine processEngine, List<Task> tasks) {
+        ProcessEngineConfigurationImpl configuration = (ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration();
+        String table = configuration.getDatabaseTablePrefix() + "ACT_RU_IDENTITYLINK";
+        List<String> taskIds = tasks.stream().map(Task::getId).collect(toList());
+        return configuration.getCommandExecutorTxRequired().execute(commandContext -> {
+            Connection connection = commandContext.getDbSqlSession().getSqlSession().getConnection();
+            Map<String, Candidates> candidates = new HashMap<>();
+            for (List<String> chunk : Lists.partition(taskIds, IN_LIST_SIZE)) {
+                String sql = "select TASK_ID_, USER_ID_, GROUP_ID_ from " + table
+                        + " where TYPE_ = ? and TASK_ID_ in (" + placeholders(chunk.size()) + ")";
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    int index = 1;
+                    statement.setString(index++, IdentityLinkType.CANDIDATE);
+                    for (String taskId : chunk) {
+                        statement.setString(index++, taskId);
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            Candidates task = candidates.computeIfAbsent(resultSet.getString(1), id -> new Candidates());
+                            if (resultSet.getString(2) != null) {
+                                task.users.add(resultSet.getString(2));
+                            }
+                            if (resultSet.getString(3) != null) {
+                                task.groups.add(resultSet.getString(3));
+                            }
+                        }
+                    }
+                } catch (SQLException e) {
+                    throw new ProcessEngineException(format("Couldn't read the candidates of %d tasks", chunk.size()), e);
+                }
+            }
+            return candidates;
+        });
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        return placeholders.toString();
+    }
+
+    private Iterator<SortKey> candidates(TaskIndexFilter filter, SortKey after) {
+        if (filter.getAssignee() != null) {
+            return tail(tasksByAssignee.get(filter.getAssignee()), after);
+        }
+        if (filter.getCandidateGroups() != null) {
+            List<Iterator<SortKey>> groups = new ArrayList<>();
+            for (String group : filter.getCandidateGroups()) {
+                groups.add(tail(tasksByCandidateGroup.get(group), after));
+            }
+            return new MergingIterator(groups);
+        }
+        return tail(tasks.keySet(), after);
+    }
+
+    private static Iterator<SortKey> tail(NavigableSet<SortKey> keys, SortKey after) {
+        if (keys == null) {
+            return Collections.emptyIterator();
+        }
+        return after == null ? keys.iterator() : keys.tailSet(after, false).iterator();
+    }
+
+    private static void removeKey(Map<String, NavigableSet<SortKey>> keysByValue, String value, SortKey key) {
+        NavigableSet<SortKey> keys = keysByValue.get(value);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByValue.remove(value);
+            }
+        }
+    }
+
+    private static class Candidates {
+        private final Set<String> users = new HashSet<>();
+        private final Set<String> groups = new HashSet<>();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class TaskPage {
+        private final List<IndexedTask> tasks;
+        private final String next;
+    }
+
+    /**
+     * Merges the sorted keys of several candidate groups, skipping tasks which are candidates of more than one group.
+     */
+    private static class MergingIterator implements Iterator<SortKey> {
+
+        private final PriorityQueue<Head> heads = new PriorityQueue<>();
+        private SortKey previous;
+
+        private MergingIterator(Collection<Iterator<SortKey>> iterators) {
+            for (Iterator<SortKey> iterator : iterators) {
+                advance(iterator);
+            }
+            skipDuplicates();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public SortKey next() {
+            Head head = heads.poll();
+            previous = head.key;
+            advance(head.iterator);
+            skipDuplicates();
+            return previous;
+        }
+
+        private void skipDuplicates() {
+            while (!heads.isEmpty() && previous != null && heads.peek().key.equals(previous)) {
+                advance(heads.poll().iterator);
+            }
+        }
+
+        private void advance(Iterator<SortKey> iterator) {
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator.next(), iterator));
+            }
+        }
+
+        @AllArgsConstructor
+        private static class Head implements Comparable<Head> {
+            private final SortKey key;
+            private final Iterator<SortKey> iterator;
+
+            @Override
+            public int compareTo(Head other) {
+                return key.compareTo(other.key);
+            }
+        }
+    }
+}
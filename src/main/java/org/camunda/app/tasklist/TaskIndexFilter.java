@@ -0,0 +1,123 @@
+package org.camunda.app.tasklist;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import org.camunda.bpm.engine.filter.Filter;
+import org.camunda.bpm.engine.impl.persistence.entity.FilterEntity;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Task filter criteria the {@link TaskIndex} can answer: assignee, candidate groups and
+ * unassigned, each optionally given as {@code ${currentUser()}} / {@code ${currentUserGroups()}}.
+ * Saved filters using anything else can't be translated and are served by the engine.
+ */
+@Getter
+public class TaskIndexFilter {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String CURRENT_USER = "${currentUser()}";
+    private static final String CURRENT_USER_GROUPS = "${currentUserGroups()}";
+
+    private static final String ASSIGNEE = "assignee";
+    private static final String ASSIGNEE_EXPRESSION = "taskAssigneeExpression";
+    private static final String CANDIDATE_GROUPS = "candidateGroups";
+    private static final String CANDIDATE_GROUPS_EXPRESSION = "taskCandidateGroupInExpression";
+    private static final String UNASSIGNED = "unassigned";
+    private static final Set<String> IGNORED = new HashSet<>(Arrays.asList("orderingProperties", "orQueries"));
+    private static final Set<String> SUPPORTED = new HashSet<>(Arrays.asList(
+            ASSIGNEE, ASSIGNEE_EXPRESSION, CANDIDATE_GROUPS, CANDIDATE_GROUPS_EXPRESSION, UNASSIGNED
+    ));
+
+    private final String assignee;
+    private final Collection<String> candidateGroups;
+    private final boolean unassigned;
+    private final String visibleToUser;
+    private final Collection<String> visibleToGroups;
+
+    public TaskIndexFilter(String assignee, Collection<String> candidateGroups, boolean unassigned) {
+        this(assignee, candidateGroups, unassigned, null, null);
+    }
+
+    private TaskIndexFilter(String assignee, Collection<String> candidateGroups, boolean unassigned,
+                            String visibleToUser, Collection<String> visibleToGroups) {
+        this.assignee = assignee;
+        this.candidateGroups = candidateGroups;
+        this.unassigned = unassigned;
+        this.visibleToUser = visibleToUser;
+        this.visibleToGroups = visibleToGroups;
+    }
+
+    /**
+     * Restricts the filter to the tasks the user may see without a global task read
+     * authorization, i.e. tasks assigned to the user or one of the user's groups.
+     */
+    public TaskIndexFilter visibleTo(String userId, Collection<String> groupIds) {
+        return new TaskIndexFilter(assignee, candidateGroups, unassigned, userId, groupIds);
+    }
+
+    /**
+     * @return the criteria of the saved filter for the given user or {@code null} if the filter uses unsupported criteria
+     */
+    @SuppressWarnings("unchecked")
+    public static TaskIndexFilter of(Filter filter, String userId, List<String> groupIds) {
+        Map<String, Object> query;
+        try {
+            query = OBJECT_MAPPER.readValue(((FilterEntity) filter).getQueryInternal(), Map.class);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+
+        for (Map.Entry<String, Object> criterion : query.entrySet()) {
+            if (IGNORED.contains(criterion.getKey())) {
+                List<?> value = criterion.getValue() instanceof List ? (List<?>) criterion.getValue() : null;
+                if ("orQueries".equals(criterion.getKey()) && value != null && !value.isEmpty()) {
+                    return null;
+                }
+            } else if (!SUPPORTED.contains(criterion.getKey())) {
+                return null;
+            }
+        }
+
+        String assignee = (String) query.get(ASSIGNEE);
+        Object assigneeExpression = query.get(ASSIGNEE_EXPRESSION);
+        if (assigneeExpression != null) {
+            if (!CURRENT_USER.equals(assigneeExpression)) {
+                return null;
+            }
+            assignee = userId;
+        }
+
+        Collection<String> candidateGroups = (Collection<String>) query.get(CANDIDATE_GROUPS);
+        Object candidateGroupsExpression = query.get(CANDIDATE_GROUPS_EXPRESSION);
+        if (candidateGroupsExpression != null) {
+            if (!CURRENT_USER_GROUPS.equals(candidateGroupsExpression)) {
+                return null;
+            }
+            candidateGroups = groupIds == null ? Collections.emptyList() : groupIds;
+        }
+
+        return new TaskIndexFilter(assignee, candidateGroups, Boolean.TRUE.equals(query.get(UNASSIGNED)));
+    }
+
+    boolean matches(IndexedTask task) {
+        if (assignee != null && !assignee.equals(task.getAssignee())) {
+            return false;
+        }
+        if (unassigned && task.getAssignee() != null) {
+            return false;
+        }
+        if (visibleToUser != null && !task.isVisibleTo(visibleToUser, visibleToGroups)) {
+            return false;
+        }
+        return candidateGroups == null || candidateGroups.stream().anyMatch(task.getCandidateGroups()::contains);
+    }
+}
@@ -0,0 +1,125 @@
+package org.camunda.app.tasklist;
+
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.db.entitymanager.cache.CachedDbEntity;
+import org.camunda.bpm.engine.impl.db.entitymanager.cache.DbEntityState;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.interceptor.CommandInterceptor;
+import org.camunda.bpm.engine.impl.persistence.entity.IdentityLinkEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.TaskEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.VariableInstanceEntity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps what task events don't cover in the {@link TaskIndex}, applied once the transaction
+ * committed when the outermost command of a command context returns:
+ * <ul>
+ * <li>standalone tasks, created with {@code TaskService#newTask}, which have no task definition and
+ * therefore no {@link TaskIndexListener}: the ones inserted, changed or deleted, or whose
+ * candidates or indexed variables changed,</li>
+ * <li>indexed process instance variables created, updated or deleted, e.g. {@code approved} when
+ * a task is completed, which are applied to the open tasks of the process instance.</li>
+ * </ul>
+ * Added behind the command context interceptor, so the context is still open then.
+ */
+public class TaskIndexInterceptor extends CommandInterceptor {
+
+    private final TaskIndex index;
+    private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    public TaskIndexInterceptor(TaskIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public <T> T execute(Command<T> command) {
+        int[] currentDepth = depth.get();
+        currentDepth[0]++;
+        try {
+            T result = next.execute(command);
+            if (currentDepth[0] == 1) {
+                indexChanges(Context.getCommandContext());
+            }
+            return result;
+        } finally {
+            currentDepth[0]--;
+        }
+    }
+
+    private void indexChanges(CommandContext commandContext) {
+        if (commandContext == null) {
+            return;
+        }
+        Set<String> changedTaskIds = new LinkedHashSet<>();
+        Map<String, Map<String, Object>> changedVariables = new HashMap<>();
+        List<TaskEntity> tasks = new ArrayList<>();
+        for (CachedDbEntity cachedEntity : commandContext.getDbEntityManager().getDbEntityCache().getCachedEntities()) {
+            Object entity = cachedEntity.getEntity();
+            if (entity instanceof TaskEntity) {
+                tasks.add((TaskEntity) entity);
+            }
+            if (!isChanged(cachedEntity)) {
+                continue;
+            }
+            if (entity instanceof TaskEntity) {
+                changedTaskIds.add(((TaskEntity) entity).getId());
+            } else if (entity instanceof IdentityLinkEntity && ((IdentityLinkEntity) entity).getTaskId() != null) {
+                changedTaskIds.add(((IdentityLinkEntity) entity).getTaskId());
+            } else if (entity instanceof VariableInstanceEntity && TaskIndex.VARIABLE_NAMES.contains(((VariableInstanceEntity) entity).getName())) {
+                VariableInstanceEntity variable = (VariableInstanceEntity) entity;
+                if (variable.getTaskId() != null) {
+                    changedTaskIds.add(variable.getTaskId());
+                } else if (variable.getProcessInstanceId() != null && variable.getProcessInstanceId().equals(variable.getExecutionId())) {
+                    // local variables of child executions are shadowed by the process instance ones anyway
+                    changedVariables.computeIfAbsent(variable.getProcessInstanceId(), id -> new HashMap<>())
+                            .put(variable.getName(), isDeleted(cachedEntity) ? null : variable.getValue());
+                }
+            }
+        }
+        if (changedTaskIds.isEmpty() && changedVariables.isEmpty()) {
+            return;
+        }
+
+        List<Runnable> updates = new ArrayList<>();
+        changedVariables.forEach((processInstanceId, variables) -> updates.add(() -> index.updateVariables(processInstanceId, variables)));
+        for (TaskEntity task : tasks) {
+            if (!changedTaskIds.contains(task.getId()) || task.getProcessInstanceId() != null || task.getCaseInstanceId() != null) {
+                continue;
+            }
+            String taskId = task.getId();
+            if (isDeleted(commandContext.getDbEntityManager().getDbEntityCache().getCachedEntity(task))) {
+                updates.add(() -> index.remove(taskId));
+            } else {
+                IndexedTask indexedTask = TaskIndex.toIndexedTask(task);
+                updates.add(() -> index.put(indexedTask));
+            }
+        }
+        if (!updates.isEmpty()) {
+            commandContext.getTransactionContext()
+                    .addTransactionListener(TransactionState.COMMITTED, context -> updates.forEach(Runnable::run));
+        }
+    }
+
+    private static boolean isChanged(CachedDbEntity cachedEntity) {
+        DbEntityState state = cachedEntity.getEntityState();
+        return state == DbEntityState.TRANSIENT
+                || state == DbEntityState.MERGED
+                || isDeleted(cachedEntity)
+                || (state == DbEntityState.PERSISTENT && cachedEntity.isDirty());
+    }
+
+    private static boolean isDeleted(CachedDbEntity cachedEntity) {
+        DbEntityState state = cachedEntity.getEntityState();
+        return state == DbEntityState.DELETED_PERSISTENT
+                || state == DbEntityState.DELETED_MERGED
+                || state == DbEntityState.DELETED_TRANSIENT;
+    }
+}
@@ -0,0 +1,37 @@
+package org.camunda.app.tasklist;
+
+import org.camunda.bpm.engine.delegate.DelegateTask;
+import org.camunda.bpm.engine.delegate.TaskListener;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
+
+/**
+ * Captures the task on every change and applies it to the {@link TaskIndex} once the transaction
+ * committed, so the index never shows tasks of a rolled back transaction.
+ */
+public class TaskIndexListener implements TaskListener {
+
+    private final TaskIndex index;
+
+    public TaskIndexListener(TaskIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public void notify(DelegateTask delegateTask) {
+        String eventName = delegateTask.getEventName();
+        if (EVENTNAME_COMPLETE.equals(eventName) || EVENTNAME_DELETE.equals(eventName)) {
+            String taskId = delegateTask.getId();
+            afterCommit(() -> index.remove(taskId));
+        } else {
+            IndexedTask task = TaskIndex.toIndexedTask(delegateTask);
+            afterCommit(() -> index.put(task));
+        }
+    }
+
+    private static void afterCommit(Runnable update) {
+        Context.getCommandContext()
+                .getTransactionContext()
+                .addTransactionListener(TransactionState.COMMITTED, commandContext -> update.run());
+    }
+}
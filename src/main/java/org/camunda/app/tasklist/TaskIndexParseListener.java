@@ -0,0 +1,38 @@
+package org.camunda.app.tasklist;
+
+import org.camunda.bpm.engine.delegate.TaskListener;
+import org.camunda.bpm.engine.impl.bpmn.behavior.UserTaskActivityBehavior;
+import org.camunda.bpm.engine.impl.bpmn.parser.AbstractBpmnParseListener;
+import org.camunda.bpm.engine.impl.pvm.process.ActivityImpl;
+import org.camunda.bpm.engine.impl.pvm.process.ScopeImpl;
+import org.camunda.bpm.engine.impl.task.TaskDefinition;
+import org.camunda.bpm.engine.impl.util.xml.Element;
+
+/**
+ * Registers the {@link TaskIndexListener} on every user task. It runs after the listeners of the
+ * model, so it sees variables like {@code approver} which those set on assignment.
+ */
+public class TaskIndexParseListener extends AbstractBpmnParseListener {
+
+    private static final String[] EVENTS = {
+            TaskListener.EVENTNAME_CREATE,
+            TaskListener.EVENTNAME_ASSIGNMENT,
+            TaskListener.EVENTNAME_UPDATE,
+            TaskListener.EVENTNAME_COMPLETE,
+            TaskListener.EVENTNAME_DELETE
+    };
+
+    private final TaskIndexListener listener;
+
+    public TaskIndexParseListener(TaskIndexListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void parseUserTask(Element userTaskElement, ScopeImpl scope, ActivityImpl activity) {
+        TaskDefinition taskDefinition = ((UserTaskActivityBehavior) activity.getActivityBehavior()).getTaskDefinition();
+        for (String event : EVENTS) {
+            taskDefinition.addTaskListener(event, listener);
+        }
+    }
+}
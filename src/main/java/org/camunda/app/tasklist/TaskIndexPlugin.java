@@ -0,0 +1,43 @@
+package org.camunda.app.tasklist;
+
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.impl.bpmn.parser.BpmnParseListener;
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.interceptor.CommandInterceptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TaskIndexPlugin extends AbstractProcessEnginePlugin {
+
+    private final TaskIndex index;
+    private final int loadPageSize;
+
+    public TaskIndexPlugin(TaskIndex index, int loadPageSize) {
+        this.index = index;
+        this.loadPageSize = loadPageSize;
+    }
+
+    @Override
+    public void preInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+        List<BpmnParseListener> parseListeners = processEngineConfiguration.getCustomPostBPMNParseListeners();
+        if (parseListeners == null) {
+            parseListeners = new ArrayList<>();
+            processEngineConfiguration.setCustomPostBPMNParseListeners(parseListeners);
+        }
+        parseListeners.add(new TaskIndexParseListener(new TaskIndexListener(index)));
+
+        List<CommandInterceptor> interceptors = processEngineConfiguration.getCustomPostCommandInterceptorsTxRequired();
+        if (interceptors == null) {
+            interceptors = new ArrayList<>();
+            processEngineConfiguration.setCustomPostCommandInterceptorsTxRequired(interceptors);
+        }
+        interceptors.add(new TaskIndexInterceptor(index));
+    }
+
+    @Override
+    public void postProcessEngineBuild(ProcessEngine processEngine) {
+        index.load(processEngine, loadPageSize);
+    }
+}
@@ -0,0 +1,142 @@
+package org.camunda.app.tasklist;
+
+import com.google.common.collect.ImmutableMap;
+import org.camunda.app.tasklist.TaskIndex.TaskPage;
+import org.camunda.bpm.engine.AuthorizationService;
+import org.camunda.bpm.engine.IdentityService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.filter.Filter;
+import org.camunda.bpm.engine.task.Task;
+import org.camunda.bpm.webapp.impl.security.auth.Authentication;
+import org.camunda.bpm.webapp.impl.security.auth.Authentications;
+import org.camunda.bpm.webapp.impl.security.auth.UserAuthentication;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpSession;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.camunda.bpm.engine.authorization.Permissions.READ;
+import static org.camunda.bpm.engine.authorization.Resources.FILTER;
+import static org.camunda.bpm.engine.authorization.Resources.TASK;
+
+/**
+ * Serves counts and pages of the saved task filters from the {@link TaskIndex}. Filters the index
+ * can't answer, and all filters in cluster mode where there is no index, are run against the
+ * engine like the tasklist would.
+ */
+@RestController
+@RequestMapping("/api/tasklist")
+@ConditionalOnProperty(name = "invoice.tasklist-index.enabled", havingValue = "true")
+public class TasklistController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    protected ProcessEngine processEngine;
+
+    @Autowired(required = false)
+    protected TaskIndex index;
+
+    @GetMapping("/filters/{filterId}/count")
+    public Map<String, Object> count(@PathVariable String filterId, HttpSession session) {
+        UserAuthentication user = currentUser(session);
+        Filter filter = getFilter(filterId, user);
+        TaskIndexFilter criteria = toCriteria(filter, user);
+        if (criteria != null) {
+            return ImmutableMap.<String, Object>of("count", index.count(criteria), "indexed", true);
+        }
+        long count = asUser(user, () -> processEngine.getFilterService().count(filterId));
+        return ImmutableMap.<String, Object>of("count", count, "indexed", false);
+    }
+
+    /**
+     * @param after the {@code next} cursor of the previous page
+     */
+    @GetMapping("/filters/{filterId}/list")
+    public TaskPage list(
+            @PathVariable String filterId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "15") int maxResults,
+            HttpSession session
+    ) {
+        if (maxResults < 1 || maxResults > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "maxResults must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        UserAuthentication user = currentUser(session);
+        Filter filter = getFilter(filterId, user);
+        TaskIndexFilter criteria = toCriteria(filter, user);
+        try {
+            if (criteria != null) {
+                return index.page(criteria, after, maxResults);
+            }
+            // the engine pages by offset, which is used as cursor then
+            int firstResult = after == null ? 0 : Integer.parseInt(after);
+            List<Task> tasks = asUser(user, () -> processEngine.getFilterService().listPage(filterId, firstResult, maxResults));
+            String next = tasks.size() == maxResults ? String.valueOf(firstResult + maxResults) : null;
+            return new TaskPage(TaskIndex.toIndexedTasks(processEngine, tasks, false), next);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor " + after, e);
+        }
+    }
+
+    private TaskIndexFilter toCriteria(Filter filter, UserAuthentication user) {
+        if (index == null) {
+            return null;
+        }
+        TaskIndexFilter criteria = TaskIndexFilter.of(filter, user.getIdentityId(), groupIds(user));
+        if (criteria == null || !processEngine.getProcessEngineConfiguration().isAuthorizationEnabled()) {
+            return criteria;
+        }
+        AuthorizationService authorizationService = processEngine.getAuthorizationService();
+        if (authorizationService.isUserAuthorized(user.getIdentityId(), groupIds(user), READ, TASK)) {
+            return criteria;
+        }
+        return criteria.visibleTo(user.getIdentityId(), groupIds(user));
+    }
+
+    private Filter getFilter(String filterId, UserAuthentication user) {
+        Filter filter = processEngine.getFilterService().getFilter(filterId);
+        if (filter == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No filter " + filterId);
+        }
+        if (processEngine.getProcessEngineConfiguration().isAuthorizationEnabled()
+                && !processEngine.getAuthorizationService().isUserAuthorized(user.getIdentityId(), groupIds(user), READ, FILTER, filterId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not authorized to read filter " + filterId);
+        }
+        return filter;
+    }
+
+    private <T> T asUser(UserAuthentication user, Supplier<T> query) {
+        IdentityService identityService = processEngine.getIdentityService();
+        identityService.setAuthentication(user.getIdentityId(), groupIds(user));
+        try {
+            return query.get();
+        } finally {
+            identityService.clearAuthentication();
+        }
+    }
+
+    private UserAuthentication currentUser(HttpSession session) {
+        Authentication authentication = session == null ? null
+                : Authentications.getFromSession(session).getAuthenticationForProcessEngine(processEngine.getName());
+        if (!(authentication instanceof UserAuthentication)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Log in to the tasklist first");
+        }
+        return (UserAuthentication) authentication;
+    }
+
+    private static List<String> groupIds(UserAuthentication user) {
+        return user.getGroupIds() == null ? Collections.emptyList() : user.getGroupIds();
+    }
+}
@@ -0,0 +1,103 @@
+package org.camunda.app.variables;
+
+import org.camunda.app.document.DocumentReference;
+import org.camunda.app.document.StoredFileValue;
+import org.camunda.app.document.StoredFileValueSerializer;
+import org.camunda.bpm.engine.impl.persistence.entity.VariableInstanceEntity;
+import org.camunda.bpm.engine.variable.type.ValueType;
+import org.camunda.bpm.engine.variable.value.FileValue;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * File variable whose name, mime type and encoding come from the variable row. The content, a
+ * byte array row or a document store file, is only loaded when {@link #getValue()} is called.
+ * Both file serializers keep the mime type and encoding as {@code mimeType#encoding}, document
+ * store files their hash in front, so they can be copied by hash without loading the content.
+ */
+class LazyFileValue implements DocumentReference {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String SEPARATOR = "#";
+
+    private final transient VariableInstanceEntity variable;
+    private final String hash;
+    private final String mimeType;
+    private final String encoding;
+    private transient FileValue resolved;
+    private boolean opened;
+
+    LazyFileValue(VariableInstanceEntity variable) {
+        this.variable = variable;
+        String[] parts = (variable.getTextValue2() == null ? "" : variable.getTextValue2()).split(SEPARATOR, -1);
+        // stored files and file references keep their hash or byte array id in front
+        int offset = ValueType.FILE.getName().equals(variable.getSerializerName()) ? 0 : 1;
+        this.hash = StoredFileValueSerializer.NAME.equals(variable.getSerializerName()) ? part(parts, 0) : null;
+        this.mimeType = part(parts, offset);
+        this.encoding = part(parts, offset + 1);
+    }
+
+    @Override
+    public InputStream getValue() {
+        opened = true;
+        return resolve().getValue();
+    }
+
+    @Override
+    public String getHash() {
+        return hash;
+    }
+
+    @Override
+    public String getFilename() {
+        return variable.getTextValue() == null ? "" : variable.getTextValue();
+    }
+
+    @Override
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    @Override
+    public String getEncoding() {
+        return encoding;
+    }
+
+    @Override
+    public Charset getEncodingAsCharset() {
+        return encoding == null ? null : Charset.forName(encoding);
+    }
+
+    @Override
+    public ValueType getType() {
+        return ValueType.FILE;
+    }
+
+    @Override
+    public boolean isTransient() {
+        return false;
+    }
+
+    /**
+     * @return size of content which was never loaded; only known for document store files
+     */
+    long unloadedSize() {
+        if (opened || !StoredFileValueSerializer.NAME.equals(variable.getSerializerName())) {
+            return 0;
+        }
+        return ((StoredFileValue) resolve()).getSize();
+    }
+
+    private FileValue resolve() {
+        if (resolved == null) {
+            resolved = (FileValue) variable.getTypedValue(false);
+        }
+        return resolved;
+    }
+
+    private static String part(String[] parts, int index) {
+        return index < parts.length && !parts[index].isEmpty() ? parts[index] : null;
+    }
+}
@@ -0,0 +1,22 @@
+package org.camunda.app.variables;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names the variables a delegate reads, so the {@link VariablePrefetcher} can load them with one
+ * query per execution. The same names are fetched with the task when the delegate runs as an
+ * external task handler.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface PrefetchVariables {
+
+    String[] value();
+}
@@ -0,0 +1,58 @@
+package org.camunda.app.variables;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.impl.persistence.entity.VariableInstanceEntity;
+import org.camunda.bpm.engine.variable.type.ValueType;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Variables loaded by the {@link VariablePrefetcher} for one delegate execution. Reads have the
+ * semantics of the execution's own {@code getVariable} and {@code getVariableTyped}. Closing it
+ * records how many of those per-name calls the prefetch query replaced and how many file bytes
+ * were never loaded.
+ */
+public class PrefetchedVariables implements AutoCloseable {
+
+    private final VariablePrefetcher prefetcher;
+    private final String delegate;
+    private final DelegateExecution execution;
+    private final Map<String, VariableInstanceEntity> variables;
+    private final Map<String, TypedValue> values = new HashMap<>();
+
+    PrefetchedVariables(VariablePrefetcher prefetcher, String delegate, DelegateExecution execution, Map<String, VariableInstanceEntity> variables) {
+        this.prefetcher = prefetcher;
+        this.delegate = delegate;
+        this.execution = execution;
+        this.variables = variables;
+    }
+
+    public Object get(String name) {
+        TypedValue value = getTyped(name);
+        return value == null ? null : value.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends TypedValue> T getTyped(String name) {
+        VariableInstanceEntity variable = variables.get(name);
+        if (variable == null) {
+            return execution.getVariableTyped(name);
+        }
+        return (T) values.computeIfAbsent(name, key -> ValueType.FILE.getName().equals(variable.getTypeName())
+                ? new LazyFileValue(variable)
+                : variable.getTypedValue(true));
+    }
+
+    @Override
+    public void close() {
+        long unloadedBytes = 0;
+        for (TypedValue value : values.values()) {
+            if (value instanceof LazyFileValue) {
+                unloadedBytes += ((LazyFileValue) value).unloadedSize();
+            }
+        }
+        prefetcher.record(delegate, values.size(), unloadedBytes);
+    }
+}
@@ -0,0 +1,107 @@
+package org.camunda.app.variables;
+
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.persistence.entity.ExecutionEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.VariableInstanceEntity;
+import org.camunda.bpm.engine.runtime.VariableInstance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads the variables named by a delegate's {@link PrefetchVariables} with one variable instance
+ * query over the execution and its parent scopes, instead of letting every read load the variables
+ * of each scope and deserialize file contents. Binary values are not fetched by the query, file
+ * variables are handed out as lazy handles which load their content on first read.
+ * <p>
+ * The query sees the committed variables and the ones already loaded by the transaction, so it
+ * suits delegates behind an async boundary like the invoice service tasks. Variables it doesn't
+ * find, e.g. ones created earlier in the same transaction, are read from the execution as usual.
+ */
+public class VariablePrefetcher {
+
+    private static final Map<Class<?>, List<String>> VARIABLE_NAMES = new ConcurrentHashMap<>();
+
+    private final MetricsRegistry registry;
+
+    public VariablePrefetcher(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    public static List<String> variableNames(Class<?> delegateClass) {
+        return VARIABLE_NAMES.computeIfAbsent(delegateClass, type -> {
+            PrefetchVariables prefetch = type.getAnnotation(PrefetchVariables.class);
+            return prefetch == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(prefetch.value()));
+        });
+    }
+
+    public PrefetchedVariables fetch(DelegateExecution execution, Class<?> delegateClass) {
+        List<String> names = variableNames(delegateClass);
+        Map<String, VariableInstanceEntity> variables = new HashMap<>();
+        if (!names.isEmpty()) {
+            List<String> scopeIds = scopeExecutionIds(execution);
+            for (VariableInstance instance : query(execution, names, scopeIds)) {
+                VariableInstanceEntity variable = (VariableInstanceEntity) instance;
+                VariableInstanceEntity closest = variables.get(variable.getName());
+                if (closest == null || scopeIds.indexOf(variable.getExecutionId()) < scopeIds.indexOf(closest.getExecutionId())) {
+                    variables.put(variable.getName(), variable);
+                }
+            }
+            registry.increment("invoice_variable_prefetch_queries_total", "Variable prefetch queries", 1, "delegate", delegateClass.getSimpleName());
+        }
+        return new PrefetchedVariables(this, delegateClass.getSimpleName(), execution, variables);
+    }
+
+    /**
+     * @param servedNames variables read from the prefetch, each of which replaced a {@code getVariable} or
+     *                    {@code getVariableTyped} call of the delegate
+     */
+    void record(String delegate, int servedNames, long unloadedBytes) {
+        registry.recordSize(
+                "invoice_variable_prefetch_saved_fetches", "Variable reads per job served by the prefetch query, less the query itself",
+                Math.max(0, servedNames - 1),
+                "delegate", delegate
+        );
+        registry.recordSize(
+                "invoice_variable_prefetch_saved_bytes", "Bytes of prefetched file variables per job which were never loaded",
+                unloadedBytes,
+                "delegate", delegate
+        );
+    }
+
+    private static List<VariableInstance> query(DelegateExecution execution, List<String> names, List<String> scopeIds) {
+        // the delegate reads its own variables, whoever completed the task that led to it
+        CommandContext commandContext = Context.getCommandContext();
+        boolean authorizationCheckEnabled = commandContext.isAuthorizationCheckEnabled();
+        commandContext.disableAuthorizationCheck();
+        try {
+            return execution.getProcessEngineServices().getRuntimeService()
+                    .createVariableInstanceQuery()
+                    .executionIdIn(scopeIds.toArray(new String[0]))
+                    .variableNameIn(names.toArray(new String[0]))
+                    .disableBinaryFetching()
+                    .disableCustomObjectDeserialization()
+                    .list();
+        } finally {
+            if (authorizationCheckEnabled) {
+                commandContext.enableAuthorizationCheck();
+            }
+        }
+    }
+
+    private static List<String> scopeExecutionIds(DelegateExecution execution) {
+        List<String> ids = new ArrayList<>();
+        for (ExecutionEntity scope = (ExecutionEntity) execution; scope != null; scope = scope.getParent()) {
+            ids.add(scope.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,76 @@
+package org.camunda.app;
+
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.app.variables.VariablePrefetcher;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineConfiguration;
+import org.camunda.bpm.engine.impl.cfg.ProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.StandaloneInMemProcessEngineConfiguration;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Standalone engines on H2 for the tests, with full history and the job executor off unless a
+ * test configures its own.
+ */
+public final class TestEngine {
+
+    public static final String INVOICE_PROCESS_KEY = "invoice";
+
+    private TestEngine() {
+    }
+
+    /**
+     * An engine on a fresh in-memory database with the invoice models deployed.
+     */
+    public static ProcessEngine create(Map<Object, Object> beans, ProcessEnginePlugin... plugins) {
+        String name = "test-" + UUID.randomUUID();
+        ProcessEngine processEngine = configuration("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", beans, plugins).buildProcessEngine();
+        deployInvoice(processEngine);
+        return processEngine;
+    }
+
+    /**
+     * Engine configuration on the given database, creating the schema if it is missing.
+     */
+    public static StandaloneInMemProcessEngineConfiguration configuration(String jdbcUrl, Map<Object, Object> beans, ProcessEnginePlugin... plugins) {
+        StandaloneInMemProcessEngineConfiguration configuration = new StandaloneInMemProcessEngineConfiguration();
+        configuration.setProcessEngineName("test-" + UUID.randomUUID());
+        configuration.setJdbcUrl(jdbcUrl);
+        configuration.setDatabaseSchemaUpdate(ProcessEngineConfiguration.DB_SCHEMA_UPDATE_TRUE);
+        configuration.setHistory(ProcessEngineConfiguration.HISTORY_FULL);
+        configuration.setJobExecutorActivate(false);
+        configuration.setBeans(beans);
+        configuration.setProcessEnginePlugins(Arrays.asList(plugins));
+        return configuration;
+    }
+
+    public static void deployInvoice(ProcessEngine processEngine) {
+        processEngine.getRepositoryService()
+                .createDeployment()
+                .name("invoice")
+                .addClasspathResource("invoice.v1.bpmn")
+                .addClasspathResource("reviewInvoice.bpmn")
+                .addClasspathResource("invoiceBusinessDecisions.dmn")
+                .deploy();
+    }
+
+    public static VariableMap invoiceVariables(String invoiceNumber, double amount, String category) {
+        return Variables.createVariables()
+                .putValue("creditor", "Great Pizza for Everyone Inc.")
+                .putValue("amount", amount)
+                .putValue("invoiceCategory", category)
+                .putValue("invoiceNumber", invoiceNumber);
+    }
+
+    /**
+     * Prefetcher for delegates created outside of Spring, its metrics are discarded
+     */
+    public static VariablePrefetcher variablePrefetcher() {
+        return new VariablePrefetcher(new MetricsRegistry());
+    }
+}
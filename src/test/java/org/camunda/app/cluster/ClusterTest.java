@@ -0,0 +1,200 @@
+package org.camunda.app.cluster;
+
+import org.camunda.app.TestEngine;
+import org.camunda.app.deployment.DeploymentPipeline;
+import org.camunda.app.deployment.ModelCache;
+import org.camunda.app.process.SampleInvoices;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.RepositoryService;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.delegate.JavaDelegate;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.management.Metrics;
+import org.camunda.bpm.engine.runtime.Job;
+import org.camunda.bpm.engine.variable.Variables;
+import org.h2.tools.Server;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.camunda.app.TestEngine.INVOICE_PROCESS_KEY;
+import static org.camunda.app.TestEngine.invoiceVariables;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Several engines in one JVM against a shared H2 server, like cluster nodes, which start
+ * concurrently the way the application does: deploy with the {@link DeploymentPipeline} and seed
+ * the sample data, each under the {@link StartupLock}.
+ */
+public class ClusterTest {
+
+    private static final int NODES = 3;
+    private static final int INSTANCES = 60;
+    private static final long TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    private static final List<String> RESOURCES = Arrays.asList("invoice.v1.bpmn", "reviewInvoice.bpmn", "invoiceBusinessDecisions.dmn");
+
+    private Server server;
+    private final List<ProcessEngine> engines = new ArrayList<>();
+    private final List<ClusterMembership> memberships = new ArrayList<>();
+    private final Map<String, List<String>> notifiedBy = new ConcurrentHashMap<>();
+
+    @Before
+    public void setUp() throws SQLException {
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        String url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:cluster-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+
+        // the first node creates the schema, the others are built concurrently against it
+        engines.add(buildNode(url, 0));
+        List<CompletableFuture<ProcessEngine>> nodes = new ArrayList<>();
+        for (int i = 1; i < NODES; i++) {
+            int node = i;
+            nodes.add(CompletableFuture.supplyAsync(() -> buildNode(url, node)));
+        }
+        nodes.forEach(node -> engines.add(node.join()));
+    }
+
+    @After
+    public void tearDown() {
+        engines.forEach(engine -> configuration(engine).getJobExecutor().shutdown());
+        memberships.forEach(ClusterMembership::stop);
+        engines.forEach(ProcessEngine::close);
+        server.stop();
+    }
+
+    @Test
+    public void concurrentStartupDeploysAndSeedsOnce() {
+        startConcurrently();
+
+        ProcessEngine processEngine = engines.get(0);
+        RepositoryService repositoryService = processEngine.getRepositoryService();
+        assertEquals(1, repositoryService.createDeploymentQuery().count());
+        for (String key : Arrays.asList(INVOICE_PROCESS_KEY, "ReviewInvoice")) {
+            assertEquals(key, 1, repositoryService.createProcessDefinitionQuery().processDefinitionKey(key).count());
+        }
+        for (String key : Arrays.asList("invoiceClassification", "invoice-assign-approver")) {
+            assertEquals(key, 1, repositoryService.createDecisionDefinitionQuery().decisionDefinitionKey(key).count());
+        }
+
+        assertEquals(1, processEngine.getIdentityService().createUserQuery().userId("demo").count());
+        assertEquals(1, processEngine.getFilterService().createFilterQuery().filterName("My Tasks").count());
+        // the sample invoices of one node, the others find them running
+        assertEquals(3, processEngine.getHistoryService().createHistoricProcessInstanceQuery()
+                .processDefinitionKey(INVOICE_PROCESS_KEY)
+                .count());
+    }
+
+    @Test
+    public void everyJobIsExecutedByExactlyOneNode() throws InterruptedException {
+        startConcurrently();
+
+        ProcessEngine processEngine = engines.get(0);
+        TaskService taskService = processEngine.getTaskService();
+        for (int i = 0; i < INSTANCES; i++) {
+            String processInstanceId = processEngine.getRuntimeService()
+                    .startProcessInstanceByKey(INVOICE_PROCESS_KEY, invoiceVariables("GPFE-" + i, 30.0D, "Travel Expenses"))
+                    .getId();
+            String taskId = taskService.createTaskQuery().processInstanceId(processInstanceId).singleResult().getId();
+            taskService.complete(taskId, Variables.createVariables().putValue("approved", true));
+        }
+        Set<String> expected = processEngine.getManagementService().createJobQuery().executable().list().stream()
+                .map(Job::getProcessInstanceId)
+                .collect(Collectors.toSet());
+        assertTrue(expected.size() >= INSTANCES);
+
+        awaitMembership();
+        engines.forEach(engine -> configuration(engine).getJobExecutor().start());
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (processEngine.getManagementService().createJobQuery().executable().count() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Jobs not drained within " + TIMEOUT_MILLIS + " ms");
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+
+        assertEquals(expected, notifiedBy.keySet());
+        for (Map.Entry<String, List<String>> notified : notifiedBy.entrySet()) {
+            assertEquals(notified.getKey(), 1, notified.getValue().size());
+        }
+        // every node did its share, otherwise the partitioning wasn't exercised
+        assertEquals(NODES, notifiedBy.values().stream().flatMap(List::stream).collect(Collectors.toSet()).size());
+
+        engines.forEach(engine -> engine.getManagementService().reportDbMetricsNow());
+        assertEquals(0, processEngine.getManagementService().createMetricsQuery().name(Metrics.JOB_ACQUIRED_FAILURE).sum());
+        assertEquals(0, processEngine.getManagementService().createMetricsQuery().name(Metrics.JOB_FAILED).sum());
+    }
+
+    private ProcessEngine buildNode(String url, int node) {
+        String nodeId = "node-" + node;
+        ClusterMembership membership = new ClusterMembership(nodeId, 200, 5000);
+        JavaDelegate notifyCreditor = execution -> notifiedBy
+                .computeIfAbsent(execution.getProcessInstanceId(), processInstanceId -> new CopyOnWriteArrayList<>())
+                .add(nodeId);
+        ProcessEngine processEngine = TestEngine.configuration(
+                url,
+                Collections.<Object, Object>singletonMap("notifyCreditorService", notifyCreditor),
+                new ClusterPlugin(membership, TimeUnit.MINUTES.toMillis(1))
+        ).buildProcessEngine();
+        synchronized (memberships) {
+            memberships.add(membership);
+        }
+        return processEngine;
+    }
+
+    /**
+     * The startup of {@code CamundaApplication} on every node at once, failing with the first
+     * exception of any node.
+     */
+    private void startConcurrently() {
+        List<CompletableFuture<Void>> startups = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            ProcessEngine processEngine = engines.get(i);
+            StartupLock startupLock = new StartupLock("node-" + i, TimeUnit.MINUTES.toMillis(1));
+            startups.add(CompletableFuture.runAsync(() -> {
+                DeploymentPipeline deploymentPipeline = new DeploymentPipeline(RESOURCES, "invoice", new ModelCache(null), 2);
+                try {
+                    startupLock.runExclusively(processEngine, () -> deploymentPipeline.deploy(processEngine));
+                } finally {
+                    deploymentPipeline.close();
+                }
+                startupLock.runExclusively(processEngine, () -> new SampleInvoices().startFirstProcess(processEngine));
+            }));
+        }
+        startups.forEach(CompletableFuture::join);
+    }
+
+    private void awaitMembership() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        Set<String> nodes = new HashSet<>();
+        for (int i = 0; i < NODES; i++) {
+            nodes.add("node-" + i);
+        }
+        for (ClusterMembership membership : memberships) {
+            while (!new HashSet<>(membership.getNodes()).equals(nodes)) {
+                if (System.currentTimeMillis() > deadline) {
+                    fail(membership.getNodeId() + " sees only " + membership.getNodes());
+                }
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+        }
+    }
+
+    private static ProcessEngineConfigurationImpl configuration(ProcessEngine processEngine) {
+        return (ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration();
+    }
+}
@@ -0,0 +1,63 @@
+package org.camunda.app.generator;
+
+import org.camunda.app.TestEngine;
+import org.camunda.app.service.NotifyCreditorService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.camunda.app.TestEngine.INVOICE_PROCESS_KEY;
+import static org.junit.Assert.assertEquals;
+
+public class LoadGeneratorTest {
+
+    private static final int INSTANCES = 20;
+
+    private ProcessEngine processEngine;
+
+    @Before
+    public void setUp() {
+        processEngine = TestEngine.create(Collections.singletonMap(
+                "notifyCreditorService", new NotifyCreditorService(TestEngine.variablePrefetcher(), null)
+        ));
+    }
+
+    @After
+    public void tearDown() {
+        processEngine.close();
+    }
+
+    /**
+     * Notify Creditor is asyncBefore and the job executor is off, so the bank transfer step has to
+     * run the continuation itself.
+     */
+    @Test
+    public void approvedPathRunsAsyncContinuationsInFrontOfTasks() {
+        LoadProfile profile = new LoadProfile();
+        profile.setPrefix("approved-");
+        profile.setUsers(10);
+        profile.setGroups(2);
+        profile.setInstances(INSTANCES);
+        profile.setThreads(4);
+        profile.setStartsPerSecond(0);
+        profile.setApprovedWeight(1);
+        profile.setRejectedWeight(0);
+        profile.setClarifiedWeight(0);
+        profile.setFailingWeight(0);
+        profile.setOpenRatio(0);
+
+        LoadResult result = new LoadGenerator(processEngine).generate(profile);
+
+        assertEquals(0, result.getFailures().get());
+        assertEquals(2L * INSTANCES, result.getTasksCompleted().get());
+        // every instance waits for the archive job behind Prepare Bank Transfer
+        assertEquals(INSTANCES, processEngine.getRuntimeService().createProcessInstanceQuery()
+                .processDefinitionKey(INVOICE_PROCESS_KEY)
+                .activityIdIn("ServiceTask_1")
+                .count());
+        assertEquals(0, processEngine.getTaskService().createTaskQuery().processDefinitionKey(INVOICE_PROCESS_KEY).count());
+    }
+}
@@ -0,0 +1,227 @@
+package org.camunda.app.notification;
+
+import org.camunda.app.TestEngine;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.app.service.NotifyCreditorService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.variable.Variables;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static java.lang.String.format;
+import static org.camunda.app.TestEngine.INVOICE_PROCESS_KEY;
+import static org.camunda.app.TestEngine.invoiceVariables;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The outbox and dispatcher against the {@link StubCreditorReceiver}, called in process by a
+ * sender which maps its answers like {@link HttpCreditorNotificationSender} does.
+ */
+public class NotificationDispatcherTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private final Map<Object, Object> beans = new HashMap<>();
+    private final StubCreditorReceiver receiver = new StubCreditorReceiver();
+    private final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+
+    private ProcessEngine processEngine;
+    private NotificationOutbox outbox;
+    private NotificationDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        processEngine = TestEngine.create(beans);
+        outbox = new NotificationOutbox(processEngine);
+        outbox.createTable();
+        beans.put("notifyCreditorService", new NotifyCreditorService(TestEngine.variablePrefetcher(), outbox));
+
+        receiver.latencyMillis = 0;
+        receiver.failureRate = 0;
+        receiver.capacity = 8;
+    }
+
+    @After
+    public void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+        processEngine.close();
+    }
+
+    @Test
+    public void deliversEveryCommittedNotificationOnce() {
+        startDispatcher(10, 100);
+        TaskService taskService = processEngine.getTaskService();
+        List<String> invoiceNumbers = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            String invoiceNumber = "GPFE-" + i;
+            invoiceNumbers.add(invoiceNumber);
+            String processInstanceId = processEngine.getRuntimeService()
+                    .startProcessInstanceByKey(INVOICE_PROCESS_KEY, invoiceVariables(invoiceNumber, 30.0D, "Travel Expenses"))
+                    .getId();
+            String taskId = taskService.createTaskQuery().processInstanceId(processInstanceId).singleResult().getId();
+            taskService.complete(taskId, Variables.createVariables().putValue("approved", true));
+            // the notify creditor job enqueues
+            String jobId = processEngine.getManagementService().createJobQuery().processInstanceId(processInstanceId).singleResult().getId();
+            processEngine.getManagementService().executeJob(jobId);
+        }
+
+        awaitUntil(() -> delivered.size() >= invoiceNumbers.size(), "notifications delivered");
+        dispatcher.stop();
+
+        assertEquals(new HashSet<>(invoiceNumbers), new HashSet<>(delivered));
+        assertEquals(invoiceNumbers.size(), delivered.size());
+        assertEquals(0, outbox.countPending());
+        assertEquals(0, outbox.countDead());
+    }
+
+    @Test
+    public void notificationIsSentOnlyAfterItsTransactionCommits() {
+        startDispatcher(10, 100);
+
+        int deliveredBeforeCommit = configuration().getCommandExecutorTxRequired().execute(commandContext -> {
+            outbox.enqueue("pi-1", "GPFE-1", "Great Pizza for Everyone Inc.", 30.0D);
+            dispatcher.wakeUp();
+            sleep(200);
+            return delivered.size();
+        });
+
+        assertEquals(0, deliveredBeforeCommit);
+        awaitUntil(() -> delivered.size() == 1, "notification delivered");
+        assertEquals(Collections.singletonList("GPFE-1"), delivered);
+    }
+
+    @Test
+    public void rolledBackTransactionEnqueuesNothing() {
+        try {
+            configuration().getCommandExecutorTxRequired().execute(commandContext -> {
+                outbox.enqueue("pi-1", "GPFE-1", "Great Pizza for Everyone Inc.", 30.0D);
+                throw new IllegalStateException("job failed after notifying");
+            });
+            fail("The command should have failed");
+        } catch (IllegalStateException e) {
+            // rolled back
+        }
+
+        assertEquals(0, outbox.countPending());
+        assertEquals(0, outbox.countDead());
+    }
+
+    @Test
+    public void failingNotificationIsRetriedUntilItIsDeadLettered() {
+        receiver.failureRate = 1;
+        outbox.enqueue("pi-1", "GPFE-1", "Great Pizza for Everyone Inc.", 30.0D);
+        startDispatcher(10, 100);
+
+        awaitUntil(() -> outbox.countDead() == 1, "notification dead-lettered");
+        // the dead letter isn't picked up again
+        sleep(200);
+        dispatcher.stop();
+
+        assertEquals((long) MAX_ATTEMPTS, receiver.status().get("rejected"));
+        assertEquals(MAX_ATTEMPTS, dispatcher.getFailed());
+        assertEquals(0, outbox.countPending());
+        assertTrue(delivered.isEmpty());
+    }
+
+    @Test
+    public void overloadedReceiverPausesDispatch() {
+        // every batch is answered with 429 and a Retry-After of one second
+        receiver.capacity = 0;
+        outbox.enqueue("pi-1", "GPFE-1", "Great Pizza for Everyone Inc.", 30.0D);
+        outbox.enqueue("pi-2", "GPFE-2", "Great Pizza for Everyone Inc.", 30.0D);
+        startDispatcher(1, TimeUnit.SECONDS.toMillis(5));
+
+        awaitUntil(() -> dispatcher.getPausedMillis() > 0, "dispatch paused");
+        sleep(300);
+
+        assertEquals(1L, receiver.status().get("rejected"));
+        assertTrue(dispatcher.getPausedMillis() > 0);
+
+        receiver.capacity = 8;
+        awaitUntil(() -> delivered.size() == 2, "notifications delivered after the pause");
+        // an overload isn't a failed attempt
+        assertEquals(0, outbox.countDead());
+        assertEquals(0, dispatcher.getFailed());
+    }
+
+    /**
+     * One sender, so batches are sent one after the other, and a backoff starting at 10 ms.
+     */
+    private void startDispatcher(int batchSize, long maxBackoffMillis) {
+        dispatcher = new NotificationDispatcher(
+                outbox, this::send, new MetricsRegistry(), "test", batchSize, 1, TimeUnit.MINUTES.toMillis(1), MAX_ATTEMPTS, 10, maxBackoffMillis, 20
+        );
+        dispatcher.start();
+    }
+
+    private void send(List<CreditorNotification> batch) throws IOException {
+        List<Map<String, Object>> body = new ArrayList<>(batch.size());
+        for (CreditorNotification notification : batch) {
+            Map<String, Object> json = new HashMap<>();
+            json.put("id", notification.getId());
+            json.put("invoiceNumber", notification.getInvoiceNumber());
+            body.add(json);
+        }
+        ResponseEntity<Void> response;
+        try {
+            response = receiver.receive(body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        int status = response.getStatusCodeValue();
+        if (status == 429) {
+            long retryAfter = TimeUnit.SECONDS.toMillis(Long.parseLong(response.getHeaders().getFirst("Retry-After")));
+            throw new ReceiverOverloadedException(format("Receiver answered %d", status), retryAfter);
+        }
+        if (status / 100 != 2) {
+            throw new IOException(format("Receiver answered %d", status));
+        }
+        for (CreditorNotification notification : batch) {
+            delivered.add(notification.getInvoiceNumber());
+        }
+    }
+
+    private ProcessEngineConfigurationImpl configuration() {
+        return (ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition, String what) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for " + what);
+            }
+            sleep(20);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.camunda.app.retry;
+
+import org.camunda.app.TestEngine;
+import org.camunda.app.archive.ArchiveEntry;
+import org.camunda.app.archive.InvoiceArchive;
+import org.camunda.app.metrics.MetricsRegistry;
+import org.camunda.app.service.ArchiveInvoiceService;
+import org.camunda.bpm.engine.ManagementService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
+import org.camunda.bpm.engine.runtime.Incident;
+import org.camunda.bpm.engine.runtime.Job;
+import org.camunda.bpm.engine.variable.value.FileValue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.camunda.app.TestEngine.INVOICE_PROCESS_KEY;
+import static org.camunda.app.TestEngine.invoiceVariables;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Archive Invoice jobs against an archive which is down, executed like the job executor would
+ * once due, on the engine clock.
+ */
+public class RetrySchedulerTest {
+
+    private static final String ACTIVITY_ID = "ServiceTask_1";
+    private static final int JOBS = 10;
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ProcessEngine processEngine;
+    private RetryScheduler scheduler;
+    private FailingArchive invoiceArchive;
+    private long start;
+
+    @Before
+    public void setUp() throws IOException {
+        start = System.currentTimeMillis();
+        ClockUtil.setCurrentTime(new Date(start));
+
+        invoiceArchive = new FailingArchive(temporaryFolder.newFolder("archive").toPath());
+        // no resume spread, so parked jobs are due exactly when the breaker lets calls through
+        scheduler = new RetryScheduler(new MetricsRegistry(), FAILURE_THRESHOLD, OPEN_MILLIS, TimeUnit.MINUTES.toMillis(10), 5000, 300000, 0);
+        scheduler.register(ArchiveInvoiceService.TARGET, Collections.singletonList(ACTIVITY_ID));
+        processEngine = TestEngine.create(
+                Collections.singletonMap("archiveInvoiceService", new ArchiveInvoiceService(invoiceArchive, TestEngine.variablePrefetcher(), scheduler)),
+                new RetrySchedulerPlugin(scheduler)
+        );
+        for (int i = 0; i < JOBS; i++) {
+            processEngine.getRuntimeService()
+                    .createProcessInstanceByKey(INVOICE_PROCESS_KEY)
+                    .setVariables(invoiceVariables("AO-" + i, 10.99D, "Travel Expenses"))
+                    .startBeforeActivity(ACTIVITY_ID)
+                    .execute();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        ClockUtil.reset();
+        processEngine.close();
+        invoiceArchive.close();
+    }
+
+    @Test
+    public void outageParksJobsBehindOneIncidentUntilAProbeSucceeds() {
+        executeDueJobs();
+
+        // the calls which opened the breaker, the other jobs never reached the archive
+        assertEquals(FAILURE_THRESHOLD, invoiceArchive.calls.get());
+        assertEquals(1, outageIncidents());
+        assertEquals(0, failedJobIncidents());
+        // only the failures before the breaker opened cost a retry
+        assertEquals(FAILURE_THRESHOLD - 1, jobsWithRetries(2));
+        assertEquals(JOBS - (FAILURE_THRESHOLD - 1), jobsWithRetries(3));
+
+        // the backed off jobs are due while the breaker is open and are parked without a call
+        executeDueJobsAt(TimeUnit.SECONDS.toMillis(10));
+        assertEquals(FAILURE_THRESHOLD, invoiceArchive.calls.get());
+        assertEquals(JOBS - (FAILURE_THRESHOLD - 1), jobsWithRetries(3));
+        assertEquals(FAILURE_THRESHOLD - 1, jobsWithRetries(2));
+
+        // after the cooldown a single probe goes through and fails, the breaker opens for longer
+        executeDueJobsAt(OPEN_MILLIS + 1000);
+        assertEquals(FAILURE_THRESHOLD + 1, invoiceArchive.calls.get());
+        assertEquals(1, outageIncidents());
+        assertEquals(0, failedJobIncidents());
+        assertEquals(JOBS, jobsWithRetries(2) + jobsWithRetries(3));
+        Incident incident = processEngine.getRuntimeService().createIncidentQuery().incidentType(RetryScheduler.OUTAGE_INCIDENT_TYPE).singleResult();
+
+        invoiceArchive.down = false;
+        executeDueJobsAt(OPEN_MILLIS + 1000 + 2 * OPEN_MILLIS);
+
+        assertEquals(FAILURE_THRESHOLD + 1 + JOBS, invoiceArchive.calls.get());
+        assertEquals(JOBS, invoiceArchive.size());
+        assertEquals(0, processEngine.getManagementService().createJobQuery().activityId(ACTIVITY_ID).count());
+        assertEquals(0, processEngine.getRuntimeService().createIncidentQuery().count());
+        assertNotNull(processEngine.getHistoryService().createHistoricIncidentQuery().incidentId(incident.getId()).resolved().singleResult());
+    }
+
+    @Test
+    public void retryAllReschedulesAndDrainsEveryFailedJob() {
+        executeDueJobs();
+        assertEquals(1, outageIncidents());
+        // one job ran out of retries some other way
+        ManagementService managementService = processEngine.getManagementService();
+        Job exhausted = managementService.createJobQuery().activityId(ACTIVITY_ID).withRetriesLeft().listPage(0, 1).get(0);
+        managementService.setJobRetries(exhausted.getId(), 0);
+
+        invoiceArchive.down = false;
+        assertEquals(JOBS, scheduler.retryAll(ArchiveInvoiceService.TARGET));
+
+        assertEquals(0, outageIncidents());
+        assertEquals(JOBS, managementService.createJobQuery().activityId(ACTIVITY_ID).executable().count());
+        assertEquals(3, managementService.createJobQuery().jobId(exhausted.getId()).singleResult().getRetries());
+
+        executeDueJobs();
+
+        assertEquals(JOBS, invoiceArchive.size());
+        assertEquals(0, managementService.createJobQuery().activityId(ACTIVITY_ID).count());
+        assertEquals(0, processEngine.getRuntimeService().createProcessInstanceQuery().processDefinitionKey(INVOICE_PROCESS_KEY).count());
+    }
+
+    private void executeDueJobsAt(long millisAfterStart) {
+        ClockUtil.setCurrentTime(new Date(start + millisAfterStart));
+        executeDueJobs();
+    }
+
+    private void executeDueJobs() {
+        ManagementService managementService = processEngine.getManagementService();
+        for (Job job : managementService.createJobQuery().activityId(ACTIVITY_ID).executable().list()) {
+            try {
+                managementService.executeJob(job.getId());
+            } catch (ProcessEngineException e) {
+                // left to the failed job handling
+            }
+        }
+    }
+
+    private long outageIncidents() {
+        return processEngine.getRuntimeService().createIncidentQuery().incidentType(RetryScheduler.OUTAGE_INCIDENT_TYPE).count();
+    }
+
+    private long failedJobIncidents() {
+        return processEngine.getRuntimeService().createIncidentQuery().incidentType(Incident.FAILED_JOB_HANDLER_TYPE).count();
+    }
+
+    private long jobsWithRetries(int retries) {
+        return processEngine.getManagementService().createJobQuery().activityId(ACTIVITY_ID).list().stream()
+                .filter(job -> job.getRetries() == retries)
+                .count();
+    }
+
+    /**
+     * The archive as long as it isn't {@code down}, a failing stub otherwise.
+     */
+    private static class FailingArchive extends InvoiceArchive {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile boolean down = true;
+
+        private FailingArchive(Path directory) {
+            super(directory, null, 1L << 20, 16, 64);
+        }
+
+        @Override
+        public ArchiveEntry archive(String invoiceNumber, FileValue document) {
+            calls.incrementAndGet();
+            if (down) {
+                throw new ProcessEngineException("Archive unavailable");
+            }
+            return super.archive(invoiceNumber, document);
+        }
+    }
+}